@@ -18,4 +18,16 @@
 
 # If you keep the line number information, uncomment this to
 # hide the original source file name.
-#-renamesourcefileattribute SourceFile
\ No newline at end of file
+#-renamesourcefileattribute SourceFile
+
+# 发布版移除调试日志：AppLog 的 v/d 调用和 android.util.Log 的 v/d 调用连同参数计算一起删除
+# （需要在 build.gradle 的 release 中开启 minifyEnabled 才会生效；在此之前，热点路径上的调用
+#  由 if (AppLog.DEBUG) 在编译期删除）
+-assumenosideeffects class com.example.qq.log.AppLog {
+    public static void v(...);
+    public static void d(...);
+}
+-assumenosideeffects class android.util.Log {
+    public static int v(...);
+    public static int d(...);
+}
@@ -1,18 +1,22 @@
 package com.example.qq;
 
-import android.annotation.SuppressLint;
 import android.app.Application;
 import android.content.SharedPreferences;
-import android.os.Handler;
-import android.os.Looper;
-import android.util.Log;
 
 import androidx.appcompat.app.AppCompatDelegate;
 
 import com.bumptech.glide.Glide;
-import com.bumptech.glide.MemoryCategory;
-import com.bumptech.glide.load.engine.DiskCacheStrategy;
-import com.example.qq.utils.SharedPreferencesManager;
+import com.example.qq.log.AppLog;
+import com.example.qq.network.ConnectivityMonitor;
+import com.example.qq.startup.GlideInitTask;
+import com.example.qq.startup.GlideSetupTask;
+import com.example.qq.startup.PrefsInitTask;
+import com.example.qq.startup.RosterWarmTask;
+import com.example.qq.startup.SessionCheckTask;
+import com.example.qq.startup.SnapshotLoadTask;
+import com.example.qq.startup.StartupManager;
+import com.example.qq.startup.WebSocketConnectTask;
+import com.example.qq.utils.AvatarService;
 
 /**
  * 应用程序入口类
@@ -35,6 +39,10 @@ public class QQApplication extends Application {
     public void onCreate() {
         super.onCreate();
         instance = this;
+        // 最先初始化日志，后续初始化中的日志按构建类型过滤
+        AppLog.init(this);
+        // 网络状态在首个请求前就绪，之后由系统回调更新
+        ConnectivityMonitor.getInstance().start(this);
         
         // 应用保存的主题设置
         SharedPreferences prefs = getSharedPreferences("settings", MODE_PRIVATE);
@@ -48,61 +56,27 @@ public class QQApplication extends Application {
 
     /**
      * 初始化应用程序
-     * 在后台线程中执行初始化操作，避免阻塞主线程
+     * 通过启动任务图按依赖并行初始化，避免阻塞主线程；
+     * 启动页在关键路径（存储、登录状态）完成后即可跳转
      */
     private void initApplication() {
-        // 在后台线程中执行初始化
-        new Thread(() -> {
-            // 初始化SharedPreferences管理器
-            SharedPreferencesManager.init(this);
-
-            // 在主线程中执行UI相关的初始化
-            new Handler(Looper.getMainLooper()).post(() -> {
-                // 配置Glide内存策略
-                Glide.get(this).setMemoryCategory(MemoryCategory.HIGH);
-                // 预加载资源
-                preloadResources();
-            });
-        }).start();
-    }
-
-    /**
-     * 预加载资源
-     * 只预加载本地存在的图片资源，提高应用响应速度
-     */
-    @SuppressLint("DiscouragedApi")
-    private void preloadResources() {
-        try {
-            // 使用 try-catch 分别处理每个资源的预加载
-            try {
-                // 预加载头像占位图
-                Glide.with(this)
-                    .load(R.drawable.p29)
-                    .diskCacheStrategy(DiskCacheStrategy.RESOURCE)
-                    .preload();
-            } catch (Exception e) {
-                Log.e("QQApplication", "Failed to preload p29: " + e.getMessage());
-            }
-
-            try {
-                // 预加载其他常用资源
-                Glide.with(this)
-                    .load(R.drawable.p38)
-                    .diskCacheStrategy(DiskCacheStrategy.RESOURCE)
-                    .preload();
-            } catch (Exception e) {
-                Log.e("QQApplication", "Failed to preload p38: " + e.getMessage());
-            }
-        } catch (Exception e) {
-            Log.e("QQApplication", "Failed to preload resources: " + e.getMessage());
-        }
+        StartupManager.getInstance()
+            .addTask(new PrefsInitTask())
+            .addTask(new SessionCheckTask())
+            .addTask(new SnapshotLoadTask())
+            .addTask(new RosterWarmTask())
+            .addTask(new WebSocketConnectTask())
+            .addTask(new GlideInitTask())
+            .addTask(new GlideSetupTask())
+            .start(this);
     }
 
     @Override
     public void onLowMemory() {
         super.onLowMemory();
-        // 清理Glide内存缓存
+        // 清理Glide和头像内存缓存
         Glide.get(this).clearMemory();
+        AvatarService.getInstance(this).clearMemory();
     }
 
     @Override
@@ -110,5 +84,6 @@ public class QQApplication extends Application {
         super.onTrimMemory(level);
         // 根据内存级别清理资源
         Glide.get(this).trimMemory(level);
+        AvatarService.getInstance(this).trimMemory(level);
     }
 }
\ No newline at end of file
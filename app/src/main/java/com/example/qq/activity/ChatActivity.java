@@ -5,6 +5,7 @@ import android.app.AlertDialog;
 import android.app.ProgressDialog;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.speech.RecognizerIntent;
 import android.util.Log;
 import android.view.View;
@@ -29,9 +30,17 @@ import com.example.qq.api.messageapi.impl.MessageApiImpl;
 import com.example.qq.api.userapi.UserApi;
 import com.example.qq.api.userapi.impl.UserApiImpl;
 import com.example.qq.domain.ChatMessage;
-import com.example.qq.fragment.FriendListFragment;
+import com.example.qq.executor.AppExecutors;
+import com.example.qq.executor.TaskPriority;
+import com.example.qq.executor.TaskScope;
+import com.example.qq.handler.impl.ChatNotificationAggregator;
 import com.example.qq.handler.impl.MessageHandlerImpl;
+import com.example.qq.handler.impl.MessageSender;
+import com.example.qq.metrics.Metrics;
+import com.example.qq.network.NetworkPolicy;
 import com.example.qq.service.NotificationService;
+import com.example.qq.state.StateStore;
+import com.example.qq.utils.ChatHistory;
 import com.example.qq.utils.SharedPreferencesManager;
 import com.example.qq.websocket.WebSocketService;
 import com.example.qq.websocket.impl.WebSocketServiceImpl;
@@ -40,9 +49,10 @@ import org.json.JSONObject;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Objects;
+import java.util.Map;
 
 /**
  * 聊天界面活动类
@@ -54,6 +64,8 @@ import java.util.Objects;
 public class ChatActivity extends AppCompatActivity {
     private static final String TAG = "ChatActivity";
     private static final int SPEECH_REQUEST_CODE = 100;
+    /** 各会话上次从服务器全量刷新的时间（elapsedRealtime），只在主线程访问 */
+    private static final Map<String, Long> lastHistoryRefresh = new HashMap<>();
 
     private RecyclerView recyclerView;
     private EditText inputMessage;
@@ -69,9 +81,26 @@ public class ChatActivity extends AppCompatActivity {
     private ImageView voiceButton;
     private ImageView emojiButton;
     private boolean isVoiceMode = false;
+    /** 界面销毁时取消加载任务、丢弃界面更新并注销监听器 */
+    private TaskScope scope;
 
     private ActivityResultLauncher<Intent> voiceRecognitionLauncher;
 
+    /** 消息发送状态监听，同一条消息可能因重新加载而对应不同的对象，按clientId查找 */
+    private final MessageSender.OnStatusChangedListener statusListener = message -> {
+        if (message.getClientId() == null || !friendUsername.equals(message.getReceiver())) {
+            return;
+        }
+        for (int i = messageList.size() - 1; i >= 0; i--) {
+            ChatMessage item = messageList.get(i);
+            if (message.getClientId().equals(item.getClientId())) {
+                item.setStatus(message.getStatus());
+                messageAdapter.notifyItemChanged(i, ChatMessageAdapter.PAYLOAD_STATUS);
+                return;
+            }
+        }
+    };
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -83,12 +112,16 @@ public class ChatActivity extends AppCompatActivity {
         // 初始化 WebSocketService
         webSocketService = WebSocketServiceImpl.getInstance();
 
+        scope = TaskScope.of(this);
+
         // 使用 NotificationService 的单例实例创建 MessageHandlerImpl
         messageHandler = new MessageHandlerImpl(this, NotificationService.getInstance());
+        scope.onClose(messageHandler::destroy);
 
         messageHandler.setOnMessageReceivedListener((sender, content) -> {
+            long pushNanos = Metrics.getInstance().currentPushNanos();
             // 在主线程中更新UI
-            runOnUiThread(() -> {
+            scope.post(() -> {
                 Log.d(TAG, "收到消息: " + content + " 来自: " + sender);
 
                 // 只有当消息是来自当前聊天的好友时才显示
@@ -105,6 +138,7 @@ public class ChatActivity extends AppCompatActivity {
                     messageList.add(newMessage);
                     messageAdapter.notifyItemInserted(messageList.size() - 1);
                     scrollToBottom();
+                    recordBubbleRendered(pushNanos);
 
                     // 更新本地缓存
                     updateLocalCache(newMessage);
@@ -126,14 +160,18 @@ public class ChatActivity extends AppCompatActivity {
         // 初始化消息列表
         messageList = new ArrayList<>();
         messageAdapter = new ChatMessageAdapter(this, messageList, friendAvatar);
+        messageAdapter.setOnRetryClickListener(this::retrySend);
         recyclerView.setAdapter(messageAdapter);
+        MessageSender.getInstance().addListener(statusListener);
+        scope.onClose(() -> MessageSender.getInstance().removeListener(statusListener));
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
 
         // 加载历史消息
-        loadMessages();
+        loadMessages(false);
 
         // 除该好友的未读消息计数
         SharedPreferencesManager.getInstance().clearUnreadCount(friendUsername);
+        ChatNotificationAggregator.getInstance(this).cancel(friendUsername);
 
         setupInputButtons();
     }
@@ -193,86 +231,18 @@ public class ChatActivity extends AppCompatActivity {
             popup.show();
         });
 
-        // 修改发送按钮点击事件
-        sendButton.setOnClickListener(v -> {
-            String content = inputMessage.getText().toString().trim();
-            if (!content.isEmpty()) {
-                String currentUsername = SharedPreferencesManager.getInstance().getCurrentUsername();
-
-                // 创建消息对象
-                ChatMessage message = new ChatMessage(
-                    currentUsername,
-                    friendUsername,
-                    content,
-                    System.currentTimeMillis()
-                );
-
-                // 创建新线程执行网络请求
-                new Thread(() -> {
-                    try {
-                        // 使用 MessageApiImpl 保存消息到数据库
-                        MessageApi messageApi = new MessageApiImpl();
-                        JSONObject jsonMessage = new JSONObject();
-                        jsonMessage.put("sender", message.getSender());
-                        jsonMessage.put("receiver", message.getReceiver());
-                        jsonMessage.put("content", message.getContent());
-
-                        boolean success = messageApi.sendMessage(jsonMessage.toString());
-
-                        if (success) {
-                            // 使用 WebSocket 实时发送消息
-                            messageHandler.sendChatMessage(friendUsername, content);
-
-                            // 在主线程更新UI
-                            runOnUiThread(() -> {
-                                // 清空输入框
-                                inputMessage.setText("");
-
-                                // 将消息添加到本地消息列表并更新UI
-                                messageList.add(message);
-                                messageAdapter.notifyItemInserted(messageList.size() - 1);
-                                scrollToBottom();
-
-                                // 更新本地缓存
-                                updateLocalCache(message);
-                            });
-                        } else {
-                            runOnUiThread(() -> {
-                                Toast.makeText(ChatActivity.this,
-                                    "发送消息失败",
-                                    Toast.LENGTH_SHORT).show();
-                            });
-                        }
-                    } catch (Exception e) {
-                        runOnUiThread(() -> {
-                            String errorMsg = e.getMessage();
-                            if (errorMsg != null) {
-                                // 忽略 "Invalid system type" 错误
-                                if (errorMsg.contains("Invalid system type")) {
-                                    return;
-                                }
-                                // 忽略 JSON 解析错误
-                                if (errorMsg.contains("Expected BEGIN_OBJECT")) {
-                                    return;
-                                }
-                                // 处理其他错误
-                                Toast.makeText(ChatActivity.this,
-                                    "发送失败: " + errorMsg,
-                                    Toast.LENGTH_SHORT).show();
-                            }
-                        });
-                    }
-                }).start();
-            }
-        });
+        // 发送按钮点击事件
+        sendButton.setOnClickListener(v -> sendMessage());
     }
 
     /**
      * 加载聊天消息历史记录
-     * 首先从本地缓存加载，然后从服务器获取最新消息
+     * 首先从本地缓存加载，然后从服务器获取最新消息；
+     * 计费网络下刷新间隔内且WebSocket在线时缓存已是最新，跳过全量刷新
+     * @param force 是否忽略刷新间隔
      */
     @SuppressLint("NotifyDataSetChanged")
-    private void loadMessages() {
+    private void loadMessages(boolean force) {
         // 获取本地缓存消息
         List<ChatMessage> cachedMessages = SharedPreferencesManager.getInstance()
             .getCachedChatMessages(friendUsername);
@@ -282,25 +252,40 @@ public class ChatActivity extends AppCompatActivity {
             cachedMessages = new ArrayList<>();
         }
 
+        // 上次进程退出前仍在发送中的消息已无人处理，标记为失败以便重发
+        MessageSender sender = MessageSender.getInstance();
+        for (ChatMessage message : cachedMessages) {
+            if (message.getStatus() == ChatMessage.STATUS_SENDING && !sender.isPending(message.getClientId())) {
+                message.setStatus(ChatMessage.STATUS_FAILED);
+            }
+        }
+
         // 更新UI显示缓存的消息
         messageList.clear();
         messageList.addAll(cachedMessages);
 
         // 按时间戳排序消息
-        Collections.sort(messageList, (m1, m2) ->
-            Long.compare(m1.getTimestamp(), m2.getTimestamp()));
+        Collections.sort(messageList, ChatHistory.BY_TIMESTAMP);
 
         messageAdapter.notifyDataSetChanged();
         scrollToBottom();
 
-        // 后台加载新消息
-        new Thread(() -> {
+        if (!force && isHistoryFresh(cachedMessages)) {
+            Metrics.getInstance().counter("policy.history_refresh_skipped").increment();
+            Log.d(TAG, "计费网络下聊天记录仍在刷新间隔内，跳过全量刷新");
+            return;
+        }
+
+        // 后台加载新消息，离开界面时取消
+        scope.launch(AppExecutors.getInstance().io(), TaskPriority.DEFAULT, () -> {
             try {
                 Log.d("ChatActivity", "开始从服务器加载消息");
                 MessageApi messageApi = new MessageApiImpl();
                 String currentUsername = SharedPreferencesManager.getInstance().getCurrentUsername();
                 Log.d("ChatActivity", "当前用户: " + currentUsername + ", 好友: " + friendUsername);
 
+                // 以请求发出的时间为准，请求期间发生的重连同样使这次刷新失效
+                long refreshStart = SystemClock.elapsedRealtime();
                 List<ChatMessage> newMessages = messageApi.getMessageList(currentUsername, friendUsername);
 
                 Log.d("ChatActivity", "服务器返回消息数量: " + (newMessages != null ? newMessages.size() : 0));
@@ -313,17 +298,27 @@ public class ChatActivity extends AppCompatActivity {
 
                 // 在主线程更新UI
                 final List<ChatMessage> finalNewMessages = newMessages;
-                runOnUiThread(() -> {
+                scope.post(() -> {
                     try {
+                        // 服务器还没有的本地消息（发送中/发送失败）保留在列表末尾
+                        List<ChatMessage> merged = new ArrayList<>(finalNewMessages);
+                        for (ChatMessage local : messageList) {
+                            if (local.getClientId() != null && (local.getStatus() != ChatMessage.STATUS_SENT
+                                    || MessageSender.getInstance().isPending(local.getClientId()))) {
+                                merged.add(local);
+                            }
+                        }
+
                         // 更新本地缓存
                         SharedPreferencesManager.getInstance()
-                            .cacheChatMessages(friendUsername, finalNewMessages);
+                            .cacheChatMessages(friendUsername, merged);
 
                         // 更新消息列表
                         messageList.clear();
-                        messageList.addAll(finalNewMessages);
+                        messageList.addAll(merged);
                         messageAdapter.notifyDataSetChanged();
                         scrollToBottom();
+                        lastHistoryRefresh.put(friendUsername, refreshStart);
 
                         Log.d("ChatActivity", "消息加载完成，更新UI成功");
                     } catch (Exception e) {
@@ -331,31 +326,17 @@ public class ChatActivity extends AppCompatActivity {
                     }
                 });
             } catch (Exception e) {
+                if (!scope.isActive()) {
+                    return;
+                }
                 Log.e("ChatActivity", "加载消息失败", e);
-                runOnUiThread(() -> {
+                scope.post(() -> {
                     Toast.makeText(ChatActivity.this,
                         "加载新消息失败: " + e.getMessage(),
                         Toast.LENGTH_SHORT).show();
                 });
             }
-        }).start();
-    }
-
-    /**
-     * 比较两条消息是否相同
-     * @param msg1 第一条消息
-     * @param msg2 第二条消息
-     * @return 如果消息完全相同返回true，否则返回false
-     */
-    private boolean areMessagesEqual(ChatMessage msg1, ChatMessage msg2) {
-        if (msg1 == null || msg2 == null) {
-            return false;
-        }
-
-        return Objects.equals(msg1.getSender(), msg2.getSender()) &&
-               Objects.equals(msg1.getReceiver(), msg2.getReceiver()) &&
-               Objects.equals(msg1.getContent(), msg2.getContent()) &&
-               msg1.getTimestamp() == msg2.getTimestamp();
+        });
     }
 
     /**
@@ -374,7 +355,7 @@ public class ChatActivity extends AppCompatActivity {
         }
 
         for (int i = 0; i < list1.size(); i++) {
-            if (!areMessagesEqual(list1.get(i), list2.get(i))) {
+            if (!ChatHistory.isSameMessage(list1.get(i), list2.get(i))) {
                 return false;
             }
         }
@@ -391,31 +372,8 @@ public class ChatActivity extends AppCompatActivity {
             return;
         }
 
-        List<ChatMessage> cachedMessages = SharedPreferencesManager.getInstance()
-            .getCachedChatMessages(friendUsername);
-
-        if (cachedMessages == null) {
-            cachedMessages = new ArrayList<>();
-        }
-
-        // 检查是否已存在相同消息
-        boolean exists = false;
-        for (ChatMessage msg : cachedMessages) {
-            if (areMessagesEqual(msg, newMessage)) {
-                exists = true;
-                break;
-            }
-        }
-
-        // 如果消息不存在，则添加
-        if (!exists) {
-            cachedMessages.add(newMessage);
-            // 按时间戳排序
-            Collections.sort(cachedMessages, (m1, m2) ->
-                Long.compare(m1.getTimestamp(), m2.getTimestamp()));
-            SharedPreferencesManager.getInstance()
-                .cacheChatMessages(friendUsername, cachedMessages);
-        }
+        // 不存在相同消息时按时间顺序插入；读-改-写在缓存锁内完成，不会覆盖发送状态的并发更新
+        SharedPreferencesManager.getInstance().insertCachedChatMessage(friendUsername, newMessage);
     }
 
     /**
@@ -427,6 +385,20 @@ public class ChatActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * 记录推送到达到气泡绘制完成的延迟
+     * notifyItemInserted 已请求布局并在消息队列中插入同步屏障，
+     * 此后 post 的任务要等本次布局和绘制完成才会执行
+     * @param pushNanos 推送到达时间，为0时不记录
+     */
+    private void recordBubbleRendered(long pushNanos) {
+        if (pushNanos == 0) {
+            return;
+        }
+        recyclerView.post(() ->
+            Metrics.getInstance().histogram("pipeline.push_to_bubble").recordSince(pushNanos));
+    }
+
     /**
      * 显示删除好友确认对话框
      */
@@ -449,21 +421,25 @@ public class ChatActivity extends AppCompatActivity {
         ProgressDialog progressDialog = new ProgressDialog(this);
         progressDialog.setMessage("正在删除好友...");
         progressDialog.show();
+        scope.onClose(progressDialog::dismiss);
 
-        // 在后台线程执行删除操作
-        new Thread(() -> {
+        // 在后台线程执行删除操作，请求不随界面取消，界面销毁后不再更新
+        String friend = friendUsername;
+        AppExecutors.getInstance().io().execute(TaskPriority.INTERACTIVE, () -> {
             try {
                 String currentUsername = SharedPreferencesManager.getInstance().getCurrentUsername();
                 UserApi userApi = new UserApiImpl();
-                boolean success = userApi.deleteFriend(currentUsername, friendUsername);
+                boolean success = userApi.deleteFriend(currentUsername, friend);
+                if (success) {
+                    // 服务器已删除，即使界面已关闭也要从会话列表和联系人列表中移除
+                    StateStore.getInstance().roster().remove(friend);
+                }
 
                 // 在主线程更新UI
-                runOnUiThread(() -> {
+                scope.post(() -> {
                     progressDialog.dismiss();
                     if (success) {
                         Toast.makeText(this, "好友删除成功", Toast.LENGTH_SHORT).show();
-                        // 刷新好友列表
-                        FriendListFragment.refreshFriendList();
                         setResult(RESULT_OK); // 设置返回结果，通知好友列表刷新
                         finish(); // 关闭聊天界面
                     } else {
@@ -471,14 +447,14 @@ public class ChatActivity extends AppCompatActivity {
                     }
                 });
             } catch (Exception e) {
-                runOnUiThread(() -> {
+                scope.post(() -> {
                     progressDialog.dismiss();
                     Toast.makeText(this,
                         "删除失败: " + e.getMessage(),
                         Toast.LENGTH_SHORT).show();
                 });
             }
-        }).start();
+        });
     }
 
     /**
@@ -526,12 +502,29 @@ public class ChatActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * 本地缓存是否可以代替全量刷新：刷新间隔由网络档位决定，
+     * 间隔内新消息都经WebSocket到达并写入缓存；
+     * 上次刷新之后WebSocket断开重连过则可能漏收，必须重新拉取
+     */
+    private boolean isHistoryFresh(List<ChatMessage> cachedMessages) {
+        long interval = NetworkPolicy.getInstance().profile().historyRefreshMs;
+        Long last = lastHistoryRefresh.get(friendUsername);
+        return interval > 0
+            && last != null
+            && SystemClock.elapsedRealtime() - last < interval
+            && !cachedMessages.isEmpty()
+            && webSocketService != null
+            && webSocketService.isOpen()
+            && last > webSocketService.getLastConnectedRealtime();
+    }
+
     /**
      * 刷新消息列表
      */
     public void refreshMessageList() {
         if (!isFinishing()) {
-            loadMessages();
+            loadMessages(true);
         }
     }
 
@@ -548,15 +541,6 @@ public class ChatActivity extends AppCompatActivity {
         }
     }
 
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        // 移除消息监听器
-        if (messageHandler != null) {
-            messageHandler.setOnMessageReceivedListener(null);
-        }
-    }
-
     @Override
     public void onBackPressed() {
         setResult(RESULT_OK); // 设置返回结果
@@ -611,67 +595,60 @@ public class ChatActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * 发送输入框中的消息
+     * 消息立即以"发送中"状态显示并写入本地缓存，由 {@link MessageSender} 在后台完成发送，
+     * 状态变化通过 {@link #statusListener} 局部刷新对应气泡
+     */
     private void sendMessage() {
         String content = inputMessage.getText().toString().trim();
-        if (!content.isEmpty()) {
-            String currentUsername = SharedPreferencesManager.getInstance().getCurrentUsername();
-
-            // 创建消息对象
-            ChatMessage message = new ChatMessage(
-                currentUsername,
-                friendUsername,
-                content,
-                System.currentTimeMillis()
-            );
-
-            // 创建新线程执行网络请求
-            new Thread(() -> {
-                try {
-                    // 使用 MessageApiImpl 保存消息到数据库
-                    MessageApi messageApi = new MessageApiImpl();
-                    JSONObject jsonMessage = new JSONObject();
-                    jsonMessage.put("sender", message.getSender());
-                    jsonMessage.put("receiver", message.getReceiver());
-                    jsonMessage.put("content", message.getContent());
-
-                    boolean success = messageApi.sendMessage(jsonMessage.toString());
+        if (content.isEmpty()) {
+            return;
+        }
+        String currentUsername = SharedPreferencesManager.getInstance().getCurrentUsername();
+
+        // 创建消息对象
+        ChatMessage message = new ChatMessage(
+            currentUsername,
+            friendUsername,
+            content,
+            System.currentTimeMillis()
+        );
+        message.setClientId(MessageSender.newClientId());
+        message.setStatus(ChatMessage.STATUS_SENDING);
+
+        // 先显示，再发送
+        inputMessage.setText("");
+        messageList.add(message);
+        messageAdapter.notifyItemInserted(messageList.size() - 1);
+        scrollToBottom();
+        updateLocalCache(message);
 
-                    if (success) {
-                        // 使用 WebSocket 实时发送消息
-                        messageHandler.sendChatMessage(friendUsername, content);
-
-                        // 在主线程更新UI
-                        runOnUiThread(() -> {
-                            // 清空输入框
-                            inputMessage.setText("");
-
-                            // 将消息添加到本地消息列表并更新UI
-                            messageList.add(message);
-                            messageAdapter.notifyItemInserted(messageList.size() - 1);
-                            scrollToBottom();
-
-                            // 更新本地缓存
-                            updateLocalCache(message);
-                        });
-                    } else {
-                        runOnUiThread(() -> {
-                            Toast.makeText(ChatActivity.this,
-                                "发送消息失败",
-                                Toast.LENGTH_SHORT).show();
-                        });
-                    }
-                } catch (Exception e) {
-                    runOnUiThread(() -> {
-                        String errorMsg = e.getMessage();
-                        if (errorMsg != null && !errorMsg.contains("Invalid system type") 
-                            && !errorMsg.contains("Expected BEGIN_OBJECT")) {
-                            Toast.makeText(ChatActivity.this,
-                                "发送失败: " + errorMsg,
-                                Toast.LENGTH_SHORT).show();
-                        }
-                    });
-                }
-            }).start();
+        MessageSender.getInstance().send(message);
+    }
+
+    /**
+     * 重新发送失败的消息，沿用原clientId以便服务器去重，只重新 POST 不重复推送
+     * @param message 发送失败的消息
+     */
+    private void retrySend(ChatMessage message) {
+        message.setStatus(ChatMessage.STATUS_SENDING);
+        notifyMessageStatusChanged(message.getClientId());
+        SharedPreferencesManager.getInstance().updateCachedMessageStatus(
+            friendUsername, message.getClientId(), ChatMessage.STATUS_SENDING);
+        MessageSender.getInstance().resend(message);
+    }
+
+    /**
+     * 局部刷新指定消息的发送状态
+     * @param clientId 客户端消息ID
+     */
+    private void notifyMessageStatusChanged(String clientId) {
+        for (int i = messageList.size() - 1; i >= 0; i--) {
+            if (clientId.equals(messageList.get(i).getClientId())) {
+                messageAdapter.notifyItemChanged(i, ChatMessageAdapter.PAYLOAD_STATUS);
+                return;
+            }
         }
     }
 
@@ -16,6 +16,8 @@ import com.example.qq.R;
 import com.example.qq.api.userapi.UserApi;
 import com.example.qq.api.userapi.impl.UserApiImpl;
 import com.example.qq.domain.User;
+import com.example.qq.executor.AppExecutors;
+import com.example.qq.executor.TaskPriority;
 
 public class FriendProfileActivity extends AppCompatActivity {
     private ImageView imageAvatar;
@@ -67,7 +69,7 @@ public class FriendProfileActivity extends AppCompatActivity {
     }
 
     private void loadFriendInfo(String username) {
-        new Thread(() -> {
+        AppExecutors.getInstance().io().execute(TaskPriority.DEFAULT, () -> {
             try {
                 // 获取好友信息
                 User friend = userApi.getUserInfo(username);
@@ -100,7 +102,7 @@ public class FriendProfileActivity extends AppCompatActivity {
                     Toast.makeText(this, "加载好友信息失败", Toast.LENGTH_SHORT).show();
                 });
             }
-        }).start();
+        });
     }
 
     private int getStatusBarHeight() {
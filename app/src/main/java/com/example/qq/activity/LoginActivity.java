@@ -22,11 +22,15 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.qq.R;
 import com.example.qq.api.userapi.impl.UserApiImpl;
+import com.example.qq.executor.AppExecutors;
+import com.example.qq.executor.TaskPriority;
+import com.example.qq.network.ConnectionWarmer;
 import com.example.qq.utils.SharedPreferencesManager;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 /**
@@ -63,7 +67,7 @@ public class LoginActivity extends AppCompatActivity {
     private final UserApiImpl userApi = new UserApiImpl();
     private long lastClickTime = 0;
     private Handler timeoutHandler;
-    private Thread loginThread;
+    private Future<?> loginTask;
 
     /**
      * 初始化活动
@@ -74,6 +78,8 @@ public class LoginActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_login);
         timeoutHandler = new Handler(Looper.getMainLooper());
+        // 用户输入账号密码期间完成握手，启动页预热过且连接仍在保活期内时不重复
+        ConnectionWarmer.warmUp();
         initViews();
         setupListeners();
         
@@ -211,14 +217,14 @@ public class LoginActivity extends AppCompatActivity {
 
         // 设置登录超时
         timeoutHandler.postDelayed(() -> {
-            if (loginThread != null && loginThread.isAlive()) {
-                loginThread.interrupt();
+            if (loginTask != null && !loginTask.isDone()) {
+                loginTask.cancel(true);
                 handleLoginFailure("登录超时，请检查网络后重试");
             }
         }, LOGIN_TIMEOUT);
 
         // 开始登录
-        loginThread = new Thread(() -> {
+        loginTask = AppExecutors.getInstance().io().submit(TaskPriority.INTERACTIVE, () -> {
             try {
                 boolean success = userApi.login(Objects.requireNonNull(parseToJson(map)).toString());
                 
@@ -244,7 +250,6 @@ public class LoginActivity extends AppCompatActivity {
                 runOnUiThread(() -> handleLoginFailure(errorMessage));
             }
         });
-        loginThread.start();
     }
 
     /**
@@ -375,9 +380,9 @@ public class LoginActivity extends AppCompatActivity {
         if (timeoutHandler != null) {
             timeoutHandler.removeCallbacksAndMessages(null);
         }
-        // 中断登录线程
-        if (loginThread != null && loginThread.isAlive()) {
-            loginThread.interrupt();
+        // 取消登录任务
+        if (loginTask != null && !loginTask.isDone()) {
+            loginTask.cancel(true);
         }
     }
 
@@ -389,8 +394,8 @@ public class LoginActivity extends AppCompatActivity {
     public void onBackPressed() {
         if (loadingContainer.getVisibility() == View.VISIBLE) {
             // 取消登录
-            if (loginThread != null && loginThread.isAlive()) {
-                loginThread.interrupt();
+            if (loginTask != null && !loginTask.isDone()) {
+                loginTask.cancel(true);
             }
             loadingContainer.setVisibility(View.GONE);
             loginButton.setEnabled(true);
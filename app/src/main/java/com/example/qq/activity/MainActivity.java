@@ -35,11 +35,9 @@ import androidx.drawerlayout.widget.DrawerLayout;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentTransaction;
 
-import com.bumptech.glide.Glide;
 import com.example.qq.R;
 import com.example.qq.api.userapi.UserApi;
 import com.example.qq.api.userapi.impl.UserApiImpl;
-import com.example.qq.broadcast.NetworkBroadcastReceiver;
 import com.example.qq.domain.ChatMessage;
 import com.example.qq.domain.NotificationMessage;
 import com.example.qq.domain.User;
@@ -47,10 +45,14 @@ import com.example.qq.fragment.AuthFragment;
 import com.example.qq.fragment.FriendListFragment;
 import com.example.qq.fragment.FriendsFragment;
 import com.example.qq.handler.MessageHandler;
+import com.example.qq.handler.impl.ChatNotificationAggregator;
 import com.example.qq.handler.impl.MessageHandlerImpl;
+import com.example.qq.network.ConnectivityMonitor;
 import com.example.qq.service.NotificationService;
 import com.example.qq.service.WebSocketForegroundService;
 import com.example.qq.utils.CameraGalleryUtils;
+import com.example.qq.utils.AvatarService;
+import com.example.qq.utils.ConversationSnapshot;
 import com.example.qq.utils.ImageUploadUtils;
 import com.example.qq.utils.JsonParser;
 import com.example.qq.utils.SharedPreferencesManager;
@@ -98,7 +100,7 @@ public class MainActivity extends AppCompatActivity {
     private MessageHandler messageHandler;
     private NotificationService notificationService;
     private WebSocketService webSocketService;
-    private NetworkBroadcastReceiver networkReceiver;
+    private final ConnectivityMonitor.Listener connectivityListener = this::updateNetworkStatus;
 
     // 图片选择器
     private final ActivityResultLauncher<Intent> imagePickerLauncher = registerForActivityResult(
@@ -206,29 +208,14 @@ public class MainActivity extends AppCompatActivity {
             setupDrawer();
             setupUserInfo();
             setupListeners();
+            updateNetworkStatus(ConnectivityMonitor.getInstance().current());
         });
 
         // 立即显示主要UI
         showFragment(getFriendListFragment());
 
-        // 注册网络状态广播接收器
-        networkReceiver = NetworkBroadcastReceiver.register(this, (isConnected, networkType) -> {
-            runOnUiThread(() -> {
-                // 更新侧滑菜单中的状态
-                if (textViewStatus != null) {
-                    textViewStatus.setText(networkType);
-                }
-                // 更新顶部栏中的状态
-                View topBar = findViewById(R.id.top_bar);
-                if (topBar != null) {
-                    TextView topBarStatus = topBar.findViewById(R.id.textViewStatus);
-                    if (topBarStatus != null) {
-                        topBarStatus.setText(networkType);
-                    }
-                }
-                SharedPreferencesManager.getInstance().saveNetworkStatus(networkType);
-            });
-        });
+        // 监听网络状态变化
+        ConnectivityMonitor.getInstance().addListener(connectivityListener);
 
         // 初始化WebSocket时使用成员变量监听器
         webSocketService = WebSocketServiceImpl.getInstance();
@@ -283,7 +270,6 @@ public class MainActivity extends AppCompatActivity {
             // 获取顶部栏中的头像和昵称控件
             ImageView topBarAvatar = topBar.findViewById(R.id.imageAvatar);
             TextView topBarNickname = topBar.findViewById(R.id.textNickname);
-            TextView topBarStatus = topBar.findViewById(R.id.textViewStatus);
             
             // 设置头像点击事件
             topBarAvatar.setOnClickListener(v -> {
@@ -297,20 +283,12 @@ public class MainActivity extends AppCompatActivity {
             if (user != null) {
                 // 设置头像
                 if (user.getUserAvatarUrl() != null) {
-                    Glide.with(this)
-                        .load(user.getUserAvatarUrl())
-                        .placeholder(R.drawable.default_avatar)
-                        .error(R.drawable.default_avatar)
-                        .circleCrop()
-                        .into(topBarAvatar);
+                    AvatarService.getInstance(this).into(topBarAvatar, user.getUserName(), user.getUserAvatarUrl());
                 }
                 // 设置昵称
                 if (user.getUserNickName() != null) {
                     topBarNickname.setText(user.getUserNickName());
                 }
-                // 设置在线状态
-                String networkStatus = SharedPreferencesManager.getInstance().getNetworkStatus();
-                topBarStatus.setText(networkStatus);
             }
 
             // 设置更多按钮点击事件
@@ -393,12 +371,7 @@ public class MainActivity extends AppCompatActivity {
         if (user != null && imageAvatar != null) {
             // 设置用户头像
             if (user.getUserAvatarUrl() != null) {
-                Glide.with(this)
-                    .load(user.getUserAvatarUrl())
-                    .placeholder(R.drawable.default_avatar)
-                    .error(R.drawable.default_avatar)
-                    .circleCrop()
-                    .into(imageAvatar);
+                AvatarService.getInstance(this).into(imageAvatar, user.getUserName(), user.getUserAvatarUrl());
             }
 
             // 设置昵称
@@ -622,6 +595,8 @@ public class MainActivity extends AppCompatActivity {
     private void logout() {
         // 清除用户数据
         SharedPreferencesManager.getInstance().clearForLoginUserInfo();
+        ConversationSnapshot.delete(this);
+        ChatNotificationAggregator.getInstance(this).cancelAll();
 
         // 显示提示信息
         Toast.makeText(this, "已退出登录", Toast.LENGTH_SHORT).show();
@@ -634,6 +609,38 @@ public class MainActivity extends AppCompatActivity {
         finish();
     }
 
+    /**
+     * 更新侧滑菜单和顶部栏中的网络状态，在主线程调用
+     * @param snapshot 网络状态
+     */
+    private void updateNetworkStatus(ConnectivityMonitor.Snapshot snapshot) {
+        String status = networkStatusText(snapshot);
+        if (textViewStatus != null) {
+            textViewStatus.setText(status);
+        }
+        View topBar = findViewById(R.id.top_bar);
+        if (topBar != null) {
+            TextView topBarStatus = topBar.findViewById(R.id.textViewStatus);
+            if (topBarStatus != null) {
+                topBarStatus.setText(status);
+            }
+        }
+    }
+
+    private static String networkStatusText(ConnectivityMonitor.Snapshot snapshot) {
+        if (!snapshot.connected) {
+            return "离线";
+        }
+        switch (snapshot.transport) {
+            case WIFI:
+                return "WiFi在线";
+            case CELLULAR:
+                return "流量在线";
+            default:
+                return "在线";
+        }
+    }
+
     // 添加获取状态栏高度的方法
     private int getStatusBarHeight() {
         int result = 0;
@@ -647,8 +654,7 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        // 注销网络状态广播接收器
-        NetworkBroadcastReceiver.unregister(this, networkReceiver);
+        ConnectivityMonitor.getInstance().removeListener(connectivityListener);
         if (webSocketService != null) {
             webSocketService.removeListener(webSocketListener);
             // 在Activity销毁时断开WebSocket连接
@@ -711,12 +717,8 @@ public class MainActivity extends AppCompatActivity {
     private void updateAvatarViews(String avatarUrl) {
         // 更新侧滑菜单头像
         if (imageAvatar != null) {
-            Glide.with(this)
-                .load(avatarUrl)
-                .placeholder(R.drawable.default_avatar)
-                .error(R.drawable.default_avatar)
-                .circleCrop()
-                .into(imageAvatar);
+            AvatarService.getInstance(this)
+                .into(imageAvatar, SharedPreferencesManager.getInstance().getCurrentUsername(), avatarUrl);
         }
 
         // 更新顶部栏头像
@@ -724,12 +726,8 @@ public class MainActivity extends AppCompatActivity {
         if (topBar != null) {
             ImageView topBarAvatar = topBar.findViewById(R.id.imageAvatar);
             if (topBarAvatar != null) {
-                Glide.with(this)
-                    .load(avatarUrl)
-                    .placeholder(R.drawable.default_avatar)
-                    .error(R.drawable.default_avatar)
-                    .circleCrop()
-                    .into(topBarAvatar);
+                AvatarService.getInstance(this)
+                    .into(topBarAvatar, SharedPreferencesManager.getInstance().getCurrentUsername(), avatarUrl);
             }
         }
     }
@@ -875,12 +873,7 @@ public class MainActivity extends AppCompatActivity {
         if (user != null) {
             // 更新侧滑菜单中的用户信息
             if (imageAvatar != null) {
-                Glide.with(this)
-                    .load(user.getUserAvatarUrl())
-                    .placeholder(R.drawable.default_avatar)
-                    .error(R.drawable.default_avatar)
-                    .circleCrop()
-                    .into(imageAvatar);
+                AvatarService.getInstance(this).into(imageAvatar, user.getUserName(), user.getUserAvatarUrl());
             }
             if (textNickname != null) {
                 textNickname.setText(user.getUserNickName());
@@ -893,12 +886,7 @@ public class MainActivity extends AppCompatActivity {
                 TextView topBarNickname = topBar.findViewById(R.id.textNickname);
                 
                 if (topBarAvatar != null) {
-                    Glide.with(this)
-                        .load(user.getUserAvatarUrl())
-                        .placeholder(R.drawable.default_avatar)
-                        .error(R.drawable.default_avatar)
-                        .circleCrop()
-                        .into(topBarAvatar);
+                    AvatarService.getInstance(this).into(topBarAvatar, user.getUserName(), user.getUserAvatarUrl());
                 }
                 if (topBarNickname != null) {
                     topBarNickname.setText(user.getUserNickName());
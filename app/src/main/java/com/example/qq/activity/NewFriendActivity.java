@@ -21,9 +21,12 @@ import com.example.qq.api.userapi.UserApi;
 import com.example.qq.api.userapi.impl.UserApiImpl;
 import com.example.qq.domain.FriendRequest;
 import com.example.qq.domain.User;
+import com.example.qq.executor.AppExecutors;
+import com.example.qq.executor.TaskPriority;
 import com.example.qq.handler.MessageHandler;
 import com.example.qq.handler.impl.MessageHandlerImpl;
 import com.example.qq.service.NotificationService;
+import com.example.qq.state.StateStore;
 import com.example.qq.utils.SharedPreferencesManager;
 
 import java.util.ArrayList;
@@ -31,8 +34,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * 新朋友界面活动类
@@ -73,6 +74,9 @@ public class NewFriendActivity extends AppCompatActivity {
         initViews();
         setupListeners();
         loadFriendRequests();
+
+        // 收到新请求或请求状态变化时重新读取本地列表，一帧内的多次变化只读取一次
+        StateStore.getInstance().requests().observe(this, change -> loadFriendRequests());
     }
 
     /**
@@ -89,11 +93,10 @@ public class NewFriendActivity extends AppCompatActivity {
         adapter.setOnRequestActionListener(new FriendRequestAdapter.OnRequestActionListener() {
             @Override
             public void onAccept(FriendRequest request) {
-                // 创建后台线程执行网络请求
-                ExecutorService executor = Executors.newSingleThreadExecutor();
+                // 在I/O通道执行网络请求
                 Handler handler = new Handler(Looper.getMainLooper());
 
-                executor.execute(() -> {
+                AppExecutors.getInstance().io().execute(TaskPriority.INTERACTIVE, () -> {
                     try {
                         // 获取对方的用户信息
                         User friendInfo = userApi.getUserInfo(request.getUsername());
@@ -116,8 +119,9 @@ public class NewFriendActivity extends AppCompatActivity {
                                 request.setNickname(friendInfo.getUserNickName());
                                 request.setAvatarUrl(friendInfo.getUserAvatarUrl());
                                 
-                                // 更新本地存储
+                                // 更新本地存储，会话列表和联系人列表重新同步以显示新好友
                                 SharedPreferencesManager.getInstance().updateFriendRequest(request);
+                                StateStore.getInstance().roster().invalidate();
                                 
                                 // 更新列表项
                                 adapter.updateRequestStatus(request);
@@ -136,10 +140,9 @@ public class NewFriendActivity extends AppCompatActivity {
 
             @Override
             public void onReject(FriendRequest request) {
-                ExecutorService executor = Executors.newSingleThreadExecutor();
                 Handler handler = new Handler(Looper.getMainLooper());
 
-                executor.execute(() -> {
+                AppExecutors.getInstance().io().execute(TaskPriority.INTERACTIVE, () -> {
                     try {
                         messageHandler.rejectFriendRequest(request.getUsername());
                         handler.post(() -> {
@@ -200,4 +203,15 @@ public class NewFriendActivity extends AppCompatActivity {
         super.onResume();
         loadFriendRequests();
     }
+
+    /**
+     * 活动销毁时注销消息处理器的WebSocket监听
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (messageHandler instanceof MessageHandlerImpl) {
+            ((MessageHandlerImpl) messageHandler).destroy();
+        }
+    }
 } 
\ No newline at end of file
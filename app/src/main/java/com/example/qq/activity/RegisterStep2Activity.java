@@ -19,6 +19,8 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.example.qq.R;
 import com.example.qq.api.userapi.UserApi;
 import com.example.qq.api.userapi.impl.UserApiImpl;
+import com.example.qq.executor.AppExecutors;
+import com.example.qq.executor.TaskPriority;
 
 import org.json.JSONObject;
 
@@ -212,7 +214,7 @@ public class RegisterStep2Activity extends AppCompatActivity {
      * @param progressDialog 进度对话框
      */
     private void proceedWithRegistration(String email, ProgressDialog progressDialog) {
-        new Thread(() -> {
+        AppExecutors.getInstance().io().execute(TaskPriority.INTERACTIVE, () -> {
             try {
                 // 构建注册请求数据
                 JSONObject registerData = new JSONObject();
@@ -249,7 +251,7 @@ public class RegisterStep2Activity extends AppCompatActivity {
                     Toast.makeText(this, "注册失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
                 });
             }
-        }).start();
+        });
     }
 
     /**
@@ -3,6 +3,7 @@ package com.example.qq.activity;
 import android.app.AlertDialog;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
 import android.graphics.Color;
 import android.os.Bundle;
 import android.view.View;
@@ -16,9 +17,13 @@ import androidx.appcompat.widget.SwitchCompat;
 
 import com.bumptech.glide.Glide;
 import com.example.qq.R;
+import com.example.qq.executor.AppExecutors;
+import com.example.qq.executor.TaskPriority;
+import com.example.qq.metrics.Metrics;
 import com.example.qq.utils.SharedPreferencesManager;
 
 import java.io.File;
+import java.io.IOException;
 
 public class SettingsActivity extends AppCompatActivity {
     private static final String PREF_DARK_MODE = "dark_mode";
@@ -75,6 +80,34 @@ public class SettingsActivity extends AppCompatActivity {
         textCacheSize = findViewById(R.id.textCacheSize);
         View layoutClearCache = findViewById(R.id.layoutClearCache);
         layoutClearCache.setOnClickListener(v -> showClearCacheDialog());
+
+        // 性能数据：点击导出 p50/p95/p99 到文件，长按清空重新统计
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            View layoutMetrics = findViewById(R.id.layoutMetrics);
+            layoutMetrics.setVisibility(View.VISIBLE);
+            layoutMetrics.setOnClickListener(v -> exportMetrics());
+            layoutMetrics.setOnLongClickListener(v -> {
+                Metrics.getInstance().reset();
+                Toast.makeText(this, "性能数据已清空", Toast.LENGTH_SHORT).show();
+                return true;
+            });
+        }
+    }
+
+    private void exportMetrics() {
+        Metrics metrics = Metrics.getInstance();
+        metrics.dump();
+        AppExecutors.getInstance().io().execute(TaskPriority.DEFAULT, () -> {
+            String result;
+            try {
+                result = "已导出: " + metrics.export(getApplicationContext()).getAbsolutePath();
+            } catch (IOException e) {
+                result = "导出失败: " + e.getMessage();
+            }
+            String message = result;
+            AppExecutors.getInstance().main().execute(() ->
+                Toast.makeText(getApplicationContext(), message, Toast.LENGTH_LONG).show());
+        });
     }
 
     private boolean isDarkModeEnabled() {
@@ -114,9 +147,9 @@ public class SettingsActivity extends AppCompatActivity {
     private void clearCache() {
         // 清除图片缓存
         Glide.get(this).clearMemory();
-        new Thread(() -> {
+        AppExecutors.getInstance().io().execute(TaskPriority.BACKGROUND, () -> {
             Glide.get(this).clearDiskCache();
-        }).start();
+        });
 
         // 清除SharedPreferences缓存
         SharedPreferencesManager manager = SharedPreferencesManager.getInstance();
@@ -5,20 +5,20 @@ package com.example.qq.activity;
 import android.annotation.SuppressLint;
 import android.content.Intent;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.qq.R;
-import com.example.qq.utils.SharedPreferencesManager;
+import com.example.qq.network.ConnectionWarmer;
+import com.example.qq.startup.SessionCheckTask;
+import com.example.qq.startup.StartupManager;
 
 /**
  * 启动页活动类
  * 负责应用启动时的初始化工作，包括：
  * - 显示启动页面
- * - 初始化SharedPreferencesManager
- * - 检查登录状态
+ * - 等待启动任务的关键路径（存储初始化、登录状态检查）完成
+ * - 预热接口域名的连接，首屏或登录的首个请求不再等待握手
  * - 根据登录状态跳转到相应界面
  * 
  * @author yunxi
@@ -27,44 +27,39 @@ import com.example.qq.utils.SharedPreferencesManager;
 @SuppressLint("CustomSplashScreen")
 public class SplashActivity extends AppCompatActivity {
     private static final String TAG = "SplashActivity";
-    private static final long SPLASH_DELAY = 1000; // 启动页显示时间，单位毫秒
 
     /**
      * 初始化活动
-     * 设置布局、初始化SharedPreferencesManager、延迟跳转
+     * 设置布局，关键路径完成后立即跳转
      */
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_splash);
+        // 无论是否登录，下一个页面的首个请求都发往接口域名
+        ConnectionWarmer.warmUp();
 
-        // 初始化SharedPreferencesManager
-        SharedPreferencesManager.init(this);
-
-        // 延迟跳转
-        new Handler(Looper.getMainLooper()).postDelayed(() -> {
-            // 检查是否已登录
-            if (isUserLoggedIn()) {
-                // 已登录，直接进入主界面
-                startActivity(new Intent(SplashActivity.this, MainActivity.class));
-            } else {
-                // 未登录，进入登录界面
-                startActivity(new Intent(SplashActivity.this, LoginActivity.class));
-            }
-            finish();
-        }, SPLASH_DELAY);
+        if (StartupManager.getInstance().isCriticalPathDone()) {
+            // 进程内再次进入启动页（如退出登录），重新检查登录状态
+            SessionCheckTask.refresh();
+        }
+        StartupManager.getInstance().runAfterCriticalPath(this::navigate);
     }
 
     /**
-     * 检查用户是否已登录
-     * 通过检查登录状态、token和用户信息来判断
-     * @return 如果用户已登录返回true，否则返回false
+     * 根据登录状态跳转到相应界面
      */
-    private boolean isUserLoggedIn() {
-        // 检查登录状态和token是否存在
-        SharedPreferencesManager prefsManager = SharedPreferencesManager.getInstance();
-        return prefsManager.isLoggedIn() 
-               && prefsManager.getToken() != null 
-               && prefsManager.getUserInfo() != null;
+    private void navigate() {
+        if (isFinishing() || isDestroyed()) {
+            return;
+        }
+        if (SessionCheckTask.isLoggedIn()) {
+            // 已登录，直接进入主界面
+            startActivity(new Intent(SplashActivity.this, MainActivity.class));
+        } else {
+            // 未登录，进入登录界面
+            startActivity(new Intent(SplashActivity.this, LoginActivity.class));
+        }
+        finish();
     }
-}
\ No newline at end of file
+}
@@ -7,15 +7,18 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
+import android.widget.ProgressBar;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.example.qq.R;
 import com.example.qq.domain.ChatMessage;
+import com.example.qq.domain.ImagePayload;
+import com.example.qq.utils.ChatImageLoader;
 import com.example.qq.utils.SharedPreferencesManager;
+import com.example.qq.utils.AvatarService;
 
 import java.util.List;
 
@@ -25,6 +28,8 @@ import java.util.List;
  * - 区分发送和接收的消息布局
  * - 显示消息内容和用户头像
  * - 管理消息列表的更新
+ * - 显示发送中/发送失败状态，状态变化时只局部刷新状态视图
+ * - 图片消息绑定时只显示内联缩略图，气泡进入屏幕才加载原图，离开屏幕即取消
  * 
  * @author yunxi
  * @version 1.0
@@ -32,11 +37,27 @@ import java.util.List;
 public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
     private static final int TYPE_SENT = 1;
     private static final int TYPE_RECEIVED = 2;
+    private static final int TYPE_SENT_IMAGE = 3;
+    private static final int TYPE_RECEIVED_IMAGE = 4;
+    /** 局部刷新标记：仅发送状态变化 */
+    public static final Object PAYLOAD_STATUS = new Object();
 
     private final Context context;
     private final List<ChatMessage> messages;
     private final String currentUsername;
     private final String friendAvatar;
+    private OnRetryClickListener onRetryClickListener;
+
+    /**
+     * 失败消息重发监听器
+     */
+    public interface OnRetryClickListener {
+        /**
+         * 点击发送失败图标时调用
+         * @param message 发送失败的消息
+         */
+        void onRetryClick(ChatMessage message);
+    }
 
     /**
      * 构造函数
@@ -51,15 +72,27 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
         this.currentUsername = SharedPreferencesManager.getInstance().getCurrentUsername();
     }
 
+    /**
+     * 设置失败消息重发监听器
+     * @param listener 监听器实例
+     */
+    public void setOnRetryClickListener(OnRetryClickListener listener) {
+        this.onRetryClickListener = listener;
+    }
+
     /**
      * 获取消息类型
      * @param position 消息位置
-     * @return 消息类型（发送/接收）
+     * @return 消息类型（发送/接收，文本/图片）
      */
     @Override
     public int getItemViewType(int position) {
         ChatMessage message = messages.get(position);
-        return message.getSender().equals(currentUsername) ? TYPE_SENT : TYPE_RECEIVED;
+        boolean sent = message.getSender().equals(currentUsername);
+        if (message.isImage()) {
+            return sent ? TYPE_SENT_IMAGE : TYPE_RECEIVED_IMAGE;
+        }
+        return sent ? TYPE_SENT : TYPE_RECEIVED;
     }
 
     /**
@@ -71,12 +104,22 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
     @NonNull
     @Override
     public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        if (viewType == TYPE_SENT) {
-            View view = LayoutInflater.from(context).inflate(R.layout.item_sent_message, parent, false);
-            return new SentMessageHolder(view);
+        LayoutInflater inflater = LayoutInflater.from(context);
+        if (viewType == TYPE_SENT || viewType == TYPE_SENT_IMAGE) {
+            SentMessageHolder holder = viewType == TYPE_SENT
+                ? new SentMessageHolder(inflater.inflate(R.layout.item_sent_message, parent, false))
+                : new SentImageHolder(inflater.inflate(R.layout.item_sent_image, parent, false));
+            holder.imageSendFailed.setOnClickListener(v -> {
+                int position = holder.getBindingAdapterPosition();
+                if (position != RecyclerView.NO_POSITION && onRetryClickListener != null) {
+                    onRetryClickListener.onRetryClick(messages.get(position));
+                }
+            });
+            return holder;
+        } else if (viewType == TYPE_RECEIVED_IMAGE) {
+            return new ReceivedImageHolder(inflater.inflate(R.layout.item_received_image, parent, false));
         } else {
-            View view = LayoutInflater.from(context).inflate(R.layout.item_received_message, parent, false);
-            return new ReceivedMessageHolder(view);
+            return new ReceivedMessageHolder(inflater.inflate(R.layout.item_received_message, parent, false));
         }
     }
 
@@ -88,11 +131,27 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
         ChatMessage message = messages.get(position);
-        if (holder.getItemViewType() == TYPE_SENT) {
+        if (holder instanceof SentMessageHolder) {
             configureSentMessage((SentMessageHolder) holder, message);
         } else {
             configureReceivedMessage((ReceivedMessageHolder) holder, message);
         }
+        if (holder instanceof ImageHolder) {
+            bindImage((ImageHolder) holder, message.getImagePayload());
+        }
+    }
+
+    /**
+     * 局部绑定：发送状态变化时不重新加载头像和文本
+     */
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position,
+                                 @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_STATUS) && holder instanceof SentMessageHolder) {
+            bindStatus((SentMessageHolder) holder, messages.get(position));
+            return;
+        }
+        super.onBindViewHolder(holder, position, payloads);
     }
 
     /**
@@ -101,16 +160,25 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
      * @param message 消息对象
      */
     private void configureSentMessage(SentMessageHolder holder, ChatMessage message) {
-        holder.messageText.setText(message.getContent());
-        String currentUserAvatar = SharedPreferencesManager.getInstance().getUserInfo().getUserAvatarUrl();
-        if (currentUserAvatar != null && !currentUserAvatar.isEmpty()) {
-            Glide.with(context)
-                .load(currentUserAvatar)
-                .placeholder(R.drawable.default_avatar)
-                .error(R.drawable.default_avatar)
-                .circleCrop()
-                .into(holder.avatar);
+        if (holder.messageText != null) {
+            holder.messageText.setText(message.getContent());
         }
+        bindStatus(holder, message);
+        String currentUserAvatar = SharedPreferencesManager.getInstance().getUserInfo().getUserAvatarUrl();
+        AvatarService.getInstance(context).into(holder.avatar, currentUsername, currentUserAvatar);
+    }
+
+    /**
+     * 根据发送状态显示进度或失败图标
+     * @param holder 发送消息的ViewHolder
+     * @param message 消息对象
+     */
+    private void bindStatus(SentMessageHolder holder, ChatMessage message) {
+        int status = message.getStatus();
+        holder.progressSending.setVisibility(
+            status == ChatMessage.STATUS_SENDING ? View.VISIBLE : View.GONE);
+        holder.imageSendFailed.setVisibility(
+            status == ChatMessage.STATUS_FAILED ? View.VISIBLE : View.GONE);
     }
 
     /**
@@ -119,14 +187,66 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
      * @param message 消息对象
      */
     private void configureReceivedMessage(ReceivedMessageHolder holder, ChatMessage message) {
-        holder.messageText.setText(message.getContent());
-        if (friendAvatar != null && !friendAvatar.isEmpty()) {
-            Glide.with(context)
-                .load(friendAvatar)
-                .placeholder(R.drawable.default_avatar)
-                .error(R.drawable.default_avatar)
-                .circleCrop()
-                .into(holder.avatar);
+        if (holder.messageText != null) {
+            holder.messageText.setText(message.getContent());
+        }
+        AvatarService.getInstance(context).into(holder.avatar, message.getSender(), friendAvatar);
+    }
+
+    /**
+     * 绑定图片气泡：先显示缩略图，已在屏幕上的气泡（如局部刷新）直接加载原图
+     * @param holder 图片消息的ViewHolder
+     * @param payload 图片消息内容
+     */
+    private void bindImage(ImageHolder holder, ImagePayload payload) {
+        ImageView image = holder.getMessageImage();
+        ImagePayload previous = holder.getPayload();
+        holder.setPayload(payload);
+        if (previous != null && previous.getUrl().equals(payload.getUrl())) {
+            // 同一张图片重新绑定（如整体刷新），保留已显示的原图
+            return;
+        }
+        ChatImageLoader.cancel(image, null);
+        ChatImageLoader.bindThumbnail(image, payload);
+        if (image.isAttachedToWindow()) {
+            ChatImageLoader.loadFull(image, payload);
+        }
+    }
+
+    /**
+     * 气泡进入屏幕时加载原图
+     * RecyclerView预取的条目只绑定不附加，不会触发下载
+     */
+    @Override
+    public void onViewAttachedToWindow(@NonNull RecyclerView.ViewHolder holder) {
+        super.onViewAttachedToWindow(holder);
+        if (holder instanceof ImageHolder) {
+            ImageHolder imageHolder = (ImageHolder) holder;
+            if (imageHolder.getPayload() != null) {
+                ChatImageLoader.loadFull(imageHolder.getMessageImage(), imageHolder.getPayload());
+            }
+        }
+    }
+
+    /**
+     * 气泡离开屏幕时取消原图加载，退回缩略图
+     */
+    @Override
+    public void onViewDetachedFromWindow(@NonNull RecyclerView.ViewHolder holder) {
+        super.onViewDetachedFromWindow(holder);
+        if (holder instanceof ImageHolder) {
+            ImageHolder imageHolder = (ImageHolder) holder;
+            ChatImageLoader.cancel(imageHolder.getMessageImage(), imageHolder.getPayload());
+        }
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull RecyclerView.ViewHolder holder) {
+        super.onViewRecycled(holder);
+        if (holder instanceof ImageHolder) {
+            ImageHolder imageHolder = (ImageHolder) holder;
+            ChatImageLoader.cancel(imageHolder.getMessageImage(), null);
+            imageHolder.setPayload(null);
         }
     }
 
@@ -160,11 +280,15 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
     static class SentMessageHolder extends RecyclerView.ViewHolder {
         TextView messageText;
         ImageView avatar;
+        ProgressBar progressSending;
+        ImageView imageSendFailed;
 
         SentMessageHolder(View itemView) {
             super(itemView);
             messageText = itemView.findViewById(R.id.messageTextRight);
             avatar = itemView.findViewById(R.id.imageViewRight);
+            progressSending = itemView.findViewById(R.id.progressSending);
+            imageSendFailed = itemView.findViewById(R.id.imageSendFailed);
         }
     }
 
@@ -181,4 +305,71 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
             avatar = itemView.findViewById(R.id.imageViewLeft);
         }
     }
+
+    /**
+     * 图片气泡的公共部分
+     */
+    interface ImageHolder {
+        ImageView getMessageImage();
+
+        ImagePayload getPayload();
+
+        void setPayload(ImagePayload payload);
+    }
+
+    /**
+     * 发送图片消息的ViewHolder，没有文本视图
+     */
+    static class SentImageHolder extends SentMessageHolder implements ImageHolder {
+        final ImageView messageImage;
+        ImagePayload payload;
+
+        SentImageHolder(View itemView) {
+            super(itemView);
+            messageImage = itemView.findViewById(R.id.messageImage);
+        }
+
+        @Override
+        public ImageView getMessageImage() {
+            return messageImage;
+        }
+
+        @Override
+        public ImagePayload getPayload() {
+            return payload;
+        }
+
+        @Override
+        public void setPayload(ImagePayload payload) {
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * 接收图片消息的ViewHolder，没有文本视图
+     */
+    static class ReceivedImageHolder extends ReceivedMessageHolder implements ImageHolder {
+        final ImageView messageImage;
+        ImagePayload payload;
+
+        ReceivedImageHolder(View itemView) {
+            super(itemView);
+            messageImage = itemView.findViewById(R.id.messageImage);
+        }
+
+        @Override
+        public ImageView getMessageImage() {
+            return messageImage;
+        }
+
+        @Override
+        public ImagePayload getPayload() {
+            return payload;
+        }
+
+        @Override
+        public void setPayload(ImagePayload payload) {
+            this.payload = payload;
+        }
+    }
 } 
\ No newline at end of file
@@ -13,11 +13,19 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.example.qq.R;
 import com.example.qq.domain.Contact;
+import com.example.qq.utils.PinyinUtils;
+import com.example.qq.utils.AvatarService;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * 联系人列表适配器
@@ -25,6 +33,10 @@ import java.util.List;
  * - 显示联系人头像和昵称
  * - 处理联系人项的点击事件
  * - 管理联系人列表的更新和删除
+ * - 按拼音排序并按首字母分组，配合侧边索引栏快速定位
+ *
+ * 列表始终保持有序，更新时按用户名比对后逐项插入/删除，不做整体重排；
+ * 各分组的人数单独维护，分组起始位置由前缀和得出
  * 
  * @author yunxi
  * @version 1.0
@@ -33,6 +45,30 @@ public class ContactAdapter extends RecyclerView.Adapter<ContactAdapter.ViewHold
     private final Context context;
     private List<Contact> contacts;
     private OnItemClickListener onItemClickListener;
+    /** 每个分组的联系人数量 */
+    private final int[] sectionCounts = new int[PinyinUtils.SECTIONS.length()];
+    /** 每个分组第一个联系人的位置，分组为空时为-1 */
+    private final int[] sectionPositions = new int[PinyinUtils.SECTIONS.length()];
+    /**
+     * 上次 {@link #prepare} 的联系人，按用户名索引，只在加载线程上使用
+     * 只保留最近一次加载的联系人，随适配器（界面）释放
+     */
+    private Map<String, Contact> prepared = new HashMap<>();
+
+    /**
+     * 联系人排序规则：先按分组（A-Z，# 最后），再按拼音排序键，最后按用户名
+     */
+    public static final Comparator<Contact> COMPARATOR = (a, b) -> {
+        int result = Integer.compare(a.getSectionIndex(), b.getSectionIndex());
+        if (result != 0) {
+            return result;
+        }
+        result = a.getSortKey().compareTo(b.getSortKey());
+        if (result != 0) {
+            return result;
+        }
+        return String.valueOf(a.getUsername()).compareTo(String.valueOf(b.getUsername()));
+    };
 
     /**
      * 构造函数
@@ -41,17 +77,150 @@ public class ContactAdapter extends RecyclerView.Adapter<ContactAdapter.ViewHold
      */
     public ContactAdapter(Context context, List<Contact> contacts) {
         this.context = context;
-        this.contacts = contacts;
+        this.contacts = new ArrayList<>(contacts);
+        Collections.sort(this.contacts, COMPARATOR);
+        rebuildSections();
+    }
+
+    /**
+     * 在加载线程上准备新的联系人列表：取得排序键并按排序规则排序
+     * 与上次加载的用户名、昵称都相同的联系人沿用其排序键，只有新增和改名的联系人需要转换拼音
+     * @param contacts 联系人列表，原地排序
+     */
+    public synchronized void prepare(List<Contact> contacts) {
+        Map<String, Contact> current = new HashMap<>(contacts.size() * 2);
+        for (Contact contact : contacts) {
+            String username = contact.getUsername();
+            if (username == null) {
+                contact.getSortKey();
+                continue;
+            }
+            if (!contact.reuseSortKey(prepared.get(username))) {
+                contact.getSortKey();
+            }
+            current.put(username, contact);
+        }
+        prepared = current;
+        Collections.sort(contacts, COMPARATOR);
     }
 
     /**
-     * 更新联系人列表数据
+     * 更新联系人列表数据（主线程调用），新列表需先经过 {@link #prepare}
+     * 列表为空时直接采用已排好序的新列表；之后与当前列表按用户名比对：删除已不存在的、二分插入新增的，
+     * 昵称变化的重新定位，未变化的联系人沿用原对象，不做整体重排
      * @param newContacts 新的联系人列表
      */
     @SuppressLint("NotifyDataSetChanged")
     public void updateData(List<Contact> newContacts) {
-        this.contacts = newContacts;
-        notifyDataSetChanged();
+        if (contacts.isEmpty()) {
+            contacts = new ArrayList<>(newContacts);
+            rebuildSections();
+            notifyDataSetChanged();
+            return;
+        }
+
+        Map<String, Contact> incoming = new HashMap<>(newContacts.size() * 2);
+        for (Contact contact : newContacts) {
+            if (contact != null && contact.getUsername() != null) {
+                incoming.put(contact.getUsername(), contact);
+            }
+        }
+
+        // 删除已不存在或排序位置可能变化的联系人
+        List<Contact> toInsert = new ArrayList<>();
+        for (int i = contacts.size() - 1; i >= 0; i--) {
+            Contact old = contacts.get(i);
+            Contact fresh = incoming.remove(old.getUsername());
+            if (fresh == null) {
+                removeAt(i);
+            } else if (!Objects.equals(old.getNickName(), fresh.getNickName())) {
+                removeAt(i);
+                toInsert.add(fresh);
+            } else if (!Objects.equals(old.getAvatarUrl(), fresh.getAvatarUrl())) {
+                old.setAvatarUrl(fresh.getAvatarUrl());
+                notifyItemChanged(i);
+            }
+        }
+        toInsert.addAll(incoming.values());
+
+        for (Contact contact : toInsert) {
+            insertSorted(contact);
+        }
+    }
+
+    /**
+     * 按排序规则插入单个联系人
+     * @param contact 联系人
+     */
+    public void insertSorted(Contact contact) {
+        int index = Collections.binarySearch(contacts, contact, COMPARATOR);
+        if (index >= 0) {
+            contacts.set(index, contact);
+            notifyItemChanged(index);
+            return;
+        }
+        index = -index - 1;
+        contacts.add(index, contact);
+        sectionCounts[contact.getSectionIndex()]++;
+        updateSectionPositions();
+        notifyItemInserted(index);
+        // 原来的分组首项不再是首项，需要隐藏其分组标题
+        if (index + 1 < contacts.size()
+                && contacts.get(index + 1).getSectionIndex() == contact.getSectionIndex()) {
+            notifyItemChanged(index + 1);
+        }
+    }
+
+    /**
+     * 删除指定位置的联系人并维护分组信息
+     */
+    private void removeAt(int index) {
+        Contact removed = contacts.remove(index);
+        int section = removed.getSectionIndex();
+        sectionCounts[section]--;
+        updateSectionPositions();
+        notifyItemRemoved(index);
+        // 删除的是分组首项时，下一项成为首项，需要显示分组标题
+        if (index < contacts.size() && sectionPositions[section] == index) {
+            notifyItemChanged(index);
+        }
+    }
+
+    /**
+     * 根据当前列表重新统计各分组人数
+     */
+    private void rebuildSections() {
+        Arrays.fill(sectionCounts, 0);
+        for (Contact contact : contacts) {
+            sectionCounts[contact.getSectionIndex()]++;
+        }
+        updateSectionPositions();
+    }
+
+    /**
+     * 由各分组人数计算分组起始位置（前缀和，固定27次循环）
+     */
+    private void updateSectionPositions() {
+        int position = 0;
+        for (int i = 0; i < sectionCounts.length; i++) {
+            sectionPositions[i] = sectionCounts[i] > 0 ? position : -1;
+            position += sectionCounts[i];
+        }
+    }
+
+    /**
+     * 获取分组第一个联系人的位置
+     * 分组为空时返回其后第一个非空分组的位置，都为空时返回-1
+     * @param section 分组下标，对应 {@link PinyinUtils#SECTIONS}
+     * @return 列表位置
+     */
+    public int getPositionForSection(int section) {
+        for (int i = Math.max(section, 0); i < sectionPositions.length; i++) {
+            if (sectionPositions[i] >= 0) {
+                return sectionPositions[i];
+            }
+        }
+        return -1;
     }
 
     /**
@@ -96,19 +265,23 @@ public class ContactAdapter extends RecyclerView.Adapter<ContactAdapter.ViewHold
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
         Contact contact = contacts.get(position);
         holder.nickName.setText(contact.getNickName());
-        
-        if (contact.getAvatarUrl() != null && !contact.getAvatarUrl().isEmpty()) {
-            Glide.with(context)
-                .load(contact.getAvatarUrl())
-                .placeholder(R.drawable.default_avatar)
-                .into(holder.avatar);
+
+        // 分组首项显示分组标题
+        int section = contact.getSectionIndex();
+        if (sectionPositions[section] == position) {
+            holder.section.setVisibility(View.VISIBLE);
+            holder.section.setText(String.valueOf(PinyinUtils.SECTIONS.charAt(section)));
         } else {
-            holder.avatar.setImageResource(R.drawable.default_avatar);
+            holder.section.setVisibility(View.GONE);
         }
+        
+        AvatarService.getInstance(context)
+            .into(holder.avatar, contact.getUsername(), contact.getAvatarUrl());
 
-        holder.itemView.setOnClickListener(v -> {
-            if (onItemClickListener != null) {
-                onItemClickListener.onItemClick(contact, position);
+        holder.content.setOnClickListener(v -> {
+            int adapterPosition = holder.getBindingAdapterPosition();
+            if (onItemClickListener != null && adapterPosition != RecyclerView.NO_POSITION) {
+                onItemClickListener.onItemClick(contact, adapterPosition);
             }
         });
     }
@@ -128,8 +301,7 @@ public class ContactAdapter extends RecyclerView.Adapter<ContactAdapter.ViewHold
         for (int i = 0; i < contacts.size(); i++) {
             Contact contact = contacts.get(i);
             if (contact != null && username.equals(contact.getUsername())) {
-                contacts.remove(i);
-                notifyItemRemoved(i);
+                removeAt(i);
                 break;
             }
         }
@@ -142,9 +314,13 @@ public class ContactAdapter extends RecyclerView.Adapter<ContactAdapter.ViewHold
     static class ViewHolder extends RecyclerView.ViewHolder {
         ImageView avatar;
         TextView nickName;
+        TextView section;
+        View content;
 
         ViewHolder(View itemView) {
             super(itemView);
+            content = itemView.findViewById(R.id.layoutContactItem);
+            section = itemView.findViewById(R.id.textViewSection);
             avatar = itemView.findViewById(R.id.imageViewAvatar);
             nickName = itemView.findViewById(R.id.textViewNickName);
         }
@@ -5,7 +5,6 @@ package com.example.qq.adapter;
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.graphics.Color;
-import android.util.Log;
 import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
@@ -15,15 +14,22 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.example.qq.R;
 import com.example.qq.domain.FriendList;
+import com.example.qq.log.AppLog;
 import com.example.qq.utils.SharedPreferencesManager;
 import com.example.qq.utils.TimeUtils;
+import com.example.qq.utils.AvatarService;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * 好友列表适配器
@@ -32,6 +38,7 @@ import java.util.List;
  * - 管理未读消息计数和红点显示
  * - 处理好友项的点击事件
  * - 支持拖动消除未读消息红点
+ * - 数据更新时通过DiffUtil只刷新变化的行
  * 
  * @author yunxi
  * @version 1.0
@@ -41,6 +48,8 @@ public class FriendAdapter extends RecyclerView.Adapter<FriendAdapter.ViewHolder
     private final Context context;
     private List<FriendList> friendLists;
     private OnItemClickListener onItemClickListener;
+    /** 当前显示的未读数（用户名 -> 未读数），绑定时不再逐行读取存储 */
+    private final Map<String, Integer> unreadCounts = new HashMap<>();
 
     /**
      * 构造函数
@@ -77,10 +86,8 @@ public class FriendAdapter extends RecyclerView.Adapter<FriendAdapter.ViewHolder
         if (lastMessage != null && !lastMessage.isEmpty()) {
             holder.tvLastMessage.setText(lastMessage);
             holder.tvLastMessage.setVisibility(View.VISIBLE);
-            Log.d("FriendAdapter", "显示消息: " + lastMessage + " 给好友: " + friend.getFriendUsername());
         } else {
             holder.tvLastMessage.setVisibility(View.GONE);
-            Log.d("FriendAdapter", "没有消息显示给好友: " + friend.getFriendUsername());
         }
         
         // 设置时间
@@ -94,24 +101,11 @@ public class FriendAdapter extends RecyclerView.Adapter<FriendAdapter.ViewHolder
         }
 
         // 设置头像
-        if (friend.getAvatarUrl() != null && !friend.getAvatarUrl().isEmpty()) {
-            Glide.with(context)
-                .load(friend.getAvatarUrl())
-                .placeholder(R.drawable.default_avatar)
-                .error(R.drawable.default_avatar)
-                .circleCrop()
-                .into(holder.ivAvatar);
-        } else {
-            holder.ivAvatar.setImageResource(R.drawable.default_avatar);
-        }
+        AvatarService.getInstance(context)
+            .into(holder.ivAvatar, friend.getFriendUsername(), friend.getAvatarUrl());
 
         // 设置未读消息数
-        int unreadCount = SharedPreferencesManager.getInstance()
-            .getUnreadMessageCount(friend.getFriendUsername());
-        
-        Log.d("FriendAdapter", "Setting unread count for " + friend.getFriendUsername() + 
-            ": " + unreadCount + ", View visibility: " + 
-            (unreadCount > 0 ? "VISIBLE" : "GONE"));
+        int unreadCount = getUnreadCount(friend.getFriendUsername());
         
         if (unreadCount > 0) {
             holder.unreadCountBadge.setVisibility(View.VISIBLE);
@@ -130,17 +124,10 @@ public class FriendAdapter extends RecyclerView.Adapter<FriendAdapter.ViewHolder
             holder.unreadCountBadge.setTextColor(Color.WHITE);
             holder.unreadCountBadge.setGravity(Gravity.CENTER);
             
-            Log.d("FriendAdapter", "Badge set up for " + friend.getFriendUsername() + 
-                " with count " + unreadCount);
-            
             // 添加触摸处理
             holder.unreadCountBadge.setOnTouchListener(new BadgeTouchListener(
                 holder.unreadCountBadge,
-                () -> {
-                    SharedPreferencesManager.getInstance()
-                        .clearUnreadCount(friend.getFriendUsername());
-                    notifyItemChanged(position);
-                }
+                () -> clearUnreadCount(friend.getFriendUsername(), holder.getBindingAdapterPosition())
             ));
         } else {
             holder.unreadCountBadge.setVisibility(View.GONE);
@@ -152,19 +139,16 @@ public class FriendAdapter extends RecyclerView.Adapter<FriendAdapter.ViewHolder
             if (onItemClickListener != null) {
                 // 清除未读消息计数
                 if (unreadCount > 0) {
-                    SharedPreferencesManager.getInstance()
-                        .clearUnreadCount(friend.getFriendUsername());
-                    notifyItemChanged(position);
+                    clearUnreadCount(friend.getFriendUsername(), holder.getBindingAdapterPosition());
                 }
                 // 触发点击回调
-                onItemClickListener.onItemClick(friend, position);
+                onItemClickListener.onItemClick(friend, holder.getBindingAdapterPosition());
             }
         });
 
-        Log.d("FriendAdapter", "绑定好友数据 - 用户名: " + friend.getFriendUsername() + 
-            ", 昵称: " + friend.getFriendNickName() +
-            ", 最后消息: " + lastMessage + 
-            ", 时间: " + lastTime);
+        if (AppLog.DEBUG) {
+            AppLog.v("FriendAdapter", "绑定好友 {} 未读 {}", friend.getFriendUsername(), unreadCount);
+        }
     }
 
     @Override
@@ -174,15 +158,180 @@ public class FriendAdapter extends RecyclerView.Adapter<FriendAdapter.ViewHolder
 
     /**
      * 更新好友列表数据
+     * 未读数从本地存储读取
      * @param newData 新的好友列表数据
      */
     public void updateData(List<FriendList> newData) {
-        if (newData == null) {
-            this.friendLists.clear();
+        updateData(newData, null);
+    }
+
+    /**
+     * 更新好友列表数据
+     * 与当前数据比对后只通知变化的行，未变化的行不会重新绑定
+     * @param newData 新的好友列表数据
+     * @param newUnreadCounts 用户名 -> 未读数，为null时从本地存储读取
+     */
+    public void updateData(List<FriendList> newData, Map<String, Integer> newUnreadCounts) {
+        List<FriendList> newList = newData != null ? new ArrayList<>(newData) : new ArrayList<>();
+        Map<String, Integer> newCounts = newUnreadCounts != null
+            ? new HashMap<>(newUnreadCounts) : readUnreadCounts(newList);
+
+        List<FriendList> oldList = new ArrayList<>(friendLists);
+        Map<String, Integer> oldCounts = new HashMap<>(unreadCounts);
+        DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldList.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newList.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                return Objects.equals(oldList.get(oldPosition).getFriendUsername(),
+                    newList.get(newPosition).getFriendUsername());
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                FriendList oldItem = oldList.get(oldPosition);
+                FriendList newItem = newList.get(newPosition);
+                return Objects.equals(oldItem.getFriendNickName(), newItem.getFriendNickName())
+                    && Objects.equals(oldItem.getAvatarUrl(), newItem.getAvatarUrl())
+                    && Objects.equals(oldItem.getLastContext(), newItem.getLastContext())
+                    && Objects.equals(oldItem.getLastContextTime(), newItem.getLastContextTime())
+                    && Objects.equals(oldCounts.get(oldItem.getFriendUsername()),
+                        newCounts.get(newItem.getFriendUsername()));
+            }
+        });
+
+        friendLists.clear();
+        friendLists.addAll(newList);
+        unreadCounts.clear();
+        unreadCounts.putAll(newCounts);
+        result.dispatchUpdatesTo(this);
+    }
+
+    /**
+     * 重新读取所有行的未读数，只刷新发生变化的行
+     * 用于从聊天界面返回等未读数在别处被修改的场景
+     */
+    public void refreshUnreadCounts() {
+        SharedPreferencesManager prefs = SharedPreferencesManager.getInstance();
+        for (int i = 0; i < friendLists.size(); i++) {
+            String username = friendLists.get(i).getFriendUsername();
+            int count = prefs.getUnreadMessageCount(username);
+            if (count != getUnreadCount(username)) {
+                setUnreadCount(username, count);
+                notifyItemChanged(i);
+            }
+        }
+    }
+
+    /**
+     * 从本地存储重新读取指定好友的最后一条消息、头像和未读数，只刷新这些行
+     * @param usernames 好友用户名
+     * @return 所有好友都在列表中时返回true，有不在列表中的好友（如新好友发来消息）时返回false，调用方应重新同步
+     */
+    public boolean refreshConversations(Collection<String> usernames) {
+        SharedPreferencesManager prefs = SharedPreferencesManager.getInstance();
+        int found = 0;
+        for (int i = 0; i < friendLists.size(); i++) {
+            FriendList friend = friendLists.get(i);
+            String username = friend.getFriendUsername();
+            if (!usernames.contains(username)) {
+                continue;
+            }
+            found++;
+            String lastMessage = prefs.getLastMessage(username);
+            if (lastMessage != null && !lastMessage.isEmpty()) {
+                friend.setLastContext(lastMessage);
+                friend.setLastContextTime(prefs.getLastMessageTime(username));
+            }
+            String avatarUrl = prefs.getFriendAvatar(username);
+            if (avatarUrl != null && !avatarUrl.isEmpty()) {
+                friend.setAvatarUrl(avatarUrl);
+            }
+            setUnreadCount(username, prefs.getUnreadMessageCount(username));
+            notifyItemChanged(i);
+        }
+        return found == usernames.size();
+    }
+
+    /**
+     * 重新读取指定好友的未读数，只刷新发生变化的行
+     * @param usernames 好友用户名
+     */
+    public void refreshUnreadCounts(Collection<String> usernames) {
+        SharedPreferencesManager prefs = SharedPreferencesManager.getInstance();
+        for (int i = 0; i < friendLists.size(); i++) {
+            String username = friendLists.get(i).getFriendUsername();
+            if (!usernames.contains(username)) {
+                continue;
+            }
+            int count = prefs.getUnreadMessageCount(username);
+            if (count != getUnreadCount(username)) {
+                setUnreadCount(username, count);
+                notifyItemChanged(i);
+            }
+        }
+    }
+
+    /**
+     * 清除指定好友的未读数
+     * @param username 好友用户名
+     * @param position 列表位置，未知时传 RecyclerView.NO_POSITION
+     */
+    public void clearUnreadCount(String username, int position) {
+        SharedPreferencesManager.getInstance().clearUnreadCount(username);
+        unreadCounts.remove(username);
+        if (position != RecyclerView.NO_POSITION) {
+            notifyItemChanged(position);
+        }
+    }
+
+    /**
+     * 获取当前显示的数据副本（用于写入快照）
+     * @return 好友列表副本
+     */
+    public List<FriendList> getData() {
+        return new ArrayList<>(friendLists);
+    }
+
+    /**
+     * 获取当前显示的未读数副本（用于写入快照）
+     * @return 用户名 -> 未读数
+     */
+    public Map<String, Integer> getUnreadCounts() {
+        return new HashMap<>(unreadCounts);
+    }
+
+    private int getUnreadCount(String username) {
+        Integer count = unreadCounts.get(username);
+        return count != null ? count : 0;
+    }
+
+    private void setUnreadCount(String username, int count) {
+        if (count > 0) {
+            unreadCounts.put(username, count);
         } else {
-            this.friendLists.clear();
-            this.friendLists.addAll(newData);
+            unreadCounts.remove(username);
+        }
+    }
+
+    private static Map<String, Integer> readUnreadCounts(List<FriendList> list) {
+        Map<String, Integer> counts = new HashMap<>();
+        SharedPreferencesManager prefs = SharedPreferencesManager.getInstance();
+        for (FriendList friend : list) {
+            int count = prefs.getUnreadMessageCount(friend.getFriendUsername());
+            if (count > 0) {
+                counts.put(friend.getFriendUsername(), count);
+            }
         }
+        return counts;
     }
 
     /**
@@ -196,8 +345,9 @@ public class FriendAdapter extends RecyclerView.Adapter<FriendAdapter.ViewHolder
             FriendList friend = friendLists.get(i);
             if (friend != null && username.equals(friend.getFriendUsername())) {
                 friendLists.remove(i);
+                unreadCounts.remove(username);
                 notifyItemRemoved(i);  // 通知适配器移除了指定位置的数据
-                Log.d("FriendAdapter", "移除好友: " + username);
+                AppLog.d("FriendAdapter", "移除好友: {}", username);
                 break;
             }
         }
@@ -212,7 +362,7 @@ public class FriendAdapter extends RecyclerView.Adapter<FriendAdapter.ViewHolder
         
         friendLists.add(friend);
         notifyItemInserted(friendLists.size() - 1);  // 通知适配器在末尾添加了新数据
-        Log.d("FriendAdapter", "添加好友: " + friend.getFriendUsername());
+        AppLog.d("FriendAdapter", "添加好友: {}", friend.getFriendUsername());
     }
 
     /**
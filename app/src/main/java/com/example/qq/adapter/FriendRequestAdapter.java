@@ -13,9 +13,9 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.example.qq.R;
 import com.example.qq.domain.FriendRequest;
+import com.example.qq.utils.AvatarService;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -89,16 +89,8 @@ public class FriendRequestAdapter extends RecyclerView.Adapter<FriendRequestAdap
         FriendRequest request = requests.get(position);
         
         // 设置头像
-        if (request.getAvatarUrl() != null && !request.getAvatarUrl().isEmpty()) {
-            Glide.with(holder.itemView.getContext())
-                .load(request.getAvatarUrl())
-                .placeholder(R.drawable.default_avatar)
-                .error(R.drawable.default_avatar)
-                .circleCrop()
-                .into(holder.avatar);
-        } else {
-            holder.avatar.setImageResource(R.drawable.default_avatar);
-        }
+        AvatarService.getInstance(holder.itemView.getContext())
+            .into(holder.avatar, request.getUsername(), request.getAvatarUrl());
 
         // 设置文本信息
         String displayName = request.getNickname();
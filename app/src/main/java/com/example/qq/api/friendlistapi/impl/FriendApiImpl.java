@@ -48,14 +48,9 @@ public class FriendApiImpl implements FriendApi {
     public List<FriendList> getFriendList() throws Exception {
         try {
             Log.d(TAG, "开始获取好友列表");
-            List<FriendList> friendLists = new ArrayList<>();
-
             String currentUsername = SharedPreferencesManager.getInstance().getCurrentUsername();
             Map<String,Object> response = parseToMap(get("/getuserandmessage/" + currentUsername));
-
-            if (response != null && response.containsKey("data")) {
-                parseFriendListResponse(response, friendLists);
-            }
+            List<FriendList> friendLists = JsonParser.parseFriendList(response);
 
             logFriendListResult(friendLists);
             return friendLists;
@@ -65,48 +60,6 @@ public class FriendApiImpl implements FriendApi {
         }
     }
 
-    /**
-     * 解析好友列表响应数据
-     * @param response 服务器响应数据
-     * @param friendLists 用于存储解析结果的列表
-     */
-    private void parseFriendListResponse(Map<String,Object> response, List<FriendList> friendLists) {
-        try {
-            JSONArray friendsArray = (JSONArray) response.get("data");
-            for (int i = 0; i < friendsArray.length(); i++) {
-                JSONObject friend = friendsArray.getJSONObject(i);
-                FriendList friendList = createFriendListFromJson(friend);
-                friendLists.add(friendList);
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "解析好友列表数据失败", e);
-        }
-    }
-
-    /**
-     * 从JSON对象创建FriendList实例
-     * @param friend JSON格式的好友数据
-     * @return FriendList实例
-     */
-    private FriendList createFriendListFromJson(JSONObject friend) {
-        FriendList friendList = new FriendList();
-        friendList.setFriendUsername(friend.optString("username"));
-        friendList.setFriendNickName(friend.optString("nickname"));
-        friendList.setAvatarUrl(friend.optString("avatarUrl"));
-
-        String content = friend.optString("content");
-        if (content != null && !content.equals("null")) {
-            friendList.setLastContext(content);
-        }
-
-        String timestamp = friend.optString("timestamp");
-        if (timestamp != null && !timestamp.equals("null")) {
-            friendList.setLastContextTime(timestamp);
-        }
-
-        return friendList;
-    }
-
     /**
      * 记录好友列表获取结果
      * @param friendLists 获取到的好友列表
@@ -10,17 +10,10 @@ import com.example.qq.network.RequestManager;
 import com.example.qq.utils.JsonParser;
 
 // Java 标准库
-import java.time.Instant;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
-// JSON 相关
-import org.json.JSONException;
-
 // 静态导入
 import static com.example.qq.network.RequestManager.get;
 import static com.example.qq.network.RequestManager.post;
@@ -52,18 +45,13 @@ public class MessageApiImpl implements MessageApi {
     public List<ChatMessage> getMessageList(String currentUsername, String friendUsername) {
         try {
             Log.d(TAG, "开始获取消息列表");
-            List<ChatMessage> chatMessages = new ArrayList<>();
-            
             // 获取消息数据
             String response = fetchMessagesFromServer(currentUsername, friendUsername);
             Map<String,Object> map = parseResponse(response);
-            if (map == null) return chatMessages;
+            if (map == null) return new ArrayList<>();
 
-            // 解析消息数据
-            parseMessageData(map, chatMessages);
-            
-            // 对消息进行时间排序
-            sortMessagesByTime(chatMessages);
+            // 解析消息数据，按时间排序
+            List<ChatMessage> chatMessages = JsonParser.parseMessageList(map);
             
             Log.d(TAG, "成功获取消息列表，共 " + chatMessages.size() + " 条消息");
             return chatMessages;
@@ -104,82 +92,6 @@ public class MessageApiImpl implements MessageApi {
         return map;
     }
 
-    /**
-     * 解析消息数据并添加到列表
-     */
-    private void parseMessageData(Map<String,Object> map, List<ChatMessage> chatMessages) {
-        Object data = map.get("data");
-        if (data == null) {
-            Log.e(TAG, "获取消息失败：data为空");
-            return;
-        }
-
-        Map<String, Object> dataMap = (Map<String, Object>) data;
-        Object messagesObj = dataMap.get("messages");
-        if (messagesObj == null || !(messagesObj instanceof Map)) {
-            Log.e(TAG, "获取消息失败：messages无效");
-            return;
-        }
-
-        parseMessageArray((Map<String, Object>) messagesObj, chatMessages);
-    }
-
-    /**
-     * 解析消息数组
-     */
-    private void parseMessageArray(Map<String, Object> messagesMap, List<ChatMessage> chatMessages) {
-        for (Map.Entry<String, Object> entry : messagesMap.entrySet()) {
-            if (entry.getValue() instanceof org.json.JSONArray) {
-                org.json.JSONArray messageArray = (org.json.JSONArray) entry.getValue();
-                try {
-                    for (int i = 0; i < messageArray.length(); i++) {
-                        ChatMessage message = parseMessageObject(messageArray.getJSONObject(i));
-                        if (message != null) {
-                            chatMessages.add(message);
-                        }
-                    }
-                } catch (JSONException e) {
-                    Log.e(TAG, "解析消息数据失败：" + e.getMessage(), e);
-                }
-            }
-        }
-    }
-
-    /**
-     * 解析单个消息对象
-     */
-    private ChatMessage parseMessageObject(org.json.JSONObject msg) throws JSONException {
-        String msgSender = msg.getString("sender");
-        String msgReceiver = msg.getString("receiver");
-        String content = msg.getString("content");
-        String timestampStr = msg.getString("timestamp");
-        
-        long timestamp = parseTimestamp(timestampStr);
-        return new ChatMessage(msgSender, msgReceiver, content, timestamp);
-    }
-
-    /**
-     * 解析时间戳
-     */
-    private long parseTimestamp(String timestampStr) {
-        try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX")
-                .withZone(ZoneOffset.UTC);
-            return Instant.from(formatter.parse(timestampStr)).toEpochMilli();
-        } catch (Exception e) {
-            Log.w(TAG, "时间戳解析失败，使用当前时间: " + e.getMessage());
-            return System.currentTimeMillis();
-        }
-    }
-
-    /**
-     * 对消息列表按时间排序
-     */
-    private void sortMessagesByTime(List<ChatMessage> chatMessages) {
-        Collections.sort(chatMessages, 
-            (msg1, msg2) -> Long.compare(msg1.getTimestamp(), msg2.getTimestamp()));
-    }
-
     /**
      * 发送消息
      * 将消息发送到服务器
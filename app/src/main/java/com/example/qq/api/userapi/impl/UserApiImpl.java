@@ -6,6 +6,7 @@ import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
+import android.webkit.MimeTypeMap;
 
 // 应用内部类
 import com.example.qq.QQApplication;
@@ -13,17 +14,16 @@ import com.example.qq.api.userapi.UserApi;
 import com.example.qq.constant.MessageType;
 import com.example.qq.domain.User;
 import com.example.qq.domain.WebSocketMessage;
+import com.example.qq.executor.AppExecutors;
+import com.example.qq.executor.TaskPriority;
 import com.example.qq.handler.MessageHandler;
+import com.example.qq.network.UriRequestBody;
 import com.example.qq.utils.SharedPreferencesManager;
 
 // OkHttp 相关
-import okhttp3.MediaType;
 import okhttp3.MultipartBody;
-import okhttp3.RequestBody;
 
 // Java 标准库
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.Map;
 import java.util.Objects;
 
@@ -246,7 +246,7 @@ public class UserApiImpl implements UserApi {
      */
     @Override
     public void updateUserInfo(String json, UserInfoUpdateCallback callback) {
-        new Thread(() -> {
+        AppExecutors.getInstance().io().execute(TaskPriority.INTERACTIVE, () -> {
             try {
                 // 发送POST请求更新用户信息
                 String response = post("/updateUserInfo", json);
@@ -302,7 +302,7 @@ public class UserApiImpl implements UserApi {
                     mainHandler.post(() -> callback.onError("网络错误: " + e.getMessage()));
                 }
             }
-        }).start();
+        });
     }
 
     /**
@@ -315,7 +315,7 @@ public class UserApiImpl implements UserApi {
      */
     @Override
     public void updateAvatar(String username, Uri imageUri, AvatarUpdateCallback callback) {
-        new Thread(() -> {
+        AppExecutors.getInstance().io().execute(TaskPriority.INTERACTIVE, () -> {
             try {
                 Log.d("UserApiImpl", "Starting avatar upload for user: " + username);
                 Log.d("UserApiImpl", "Image URI: " + imageUri);
@@ -325,26 +325,22 @@ public class UserApiImpl implements UserApi {
                     .setType(MultipartBody.FORM)
                     .addFormDataPart("username", username);
 
-                // 从ContentResolver获取文件输入流
+                // 直接从ContentResolver流式读取，不复制到内存或临时文件
                 Context context = QQApplication.getInstance();
-                InputStream inputStream = context.getContentResolver().openInputStream(imageUri);
-                if (inputStream == null) {
-                    throw new IOException("Cannot open input stream for URI: " + imageUri);
-                }
-
-                // 读取文件数据
-                byte[] fileBytes = new byte[inputStream.available()];
-                inputStream.read(fileBytes);
-                inputStream.close();
-
-                // 创建RequestBody
-                RequestBody imageBody = RequestBody.create(
-                    fileBytes,
-                    MediaType.get("image/*")
-                );
-
-                // 使用时间戳作为文件名
-                String fileName = "avatar_" + System.currentTimeMillis() + ".jpg";
+                UriRequestBody imageBody = UriRequestBody.create(context, imageUri,
+                    (written, total, percent) -> {
+                        if (percent >= 0) {
+                            callback.onProgress(percent);
+                        }
+                    });
+                Log.d("UserApiImpl", "Upload size: " + imageBody.contentLength()
+                    + ", type: " + imageBody.contentType());
+
+                // 使用时间戳作为文件名，扩展名与内容类型一致
+                String extension = imageBody.contentType() != null
+                    ? MimeTypeMap.getSingleton().getExtensionFromMimeType(imageBody.contentType().toString())
+                    : null;
+                String fileName = "avatar_" + System.currentTimeMillis() + "." + (extension != null ? extension : "jpg");
                 builder.addFormDataPart("file", fileName, imageBody);
 
                 // 使用RequestManager发送请求
@@ -380,7 +376,7 @@ public class UserApiImpl implements UserApi {
                 Log.e("UserApiImpl", "Upload failed", e);
                 callback.onError("上传失败：" + e.getMessage() + "\n" + Log.getStackTraceString(e));
             }
-        }).start();
+        });
     }
 
     /**
@@ -392,7 +388,7 @@ public class UserApiImpl implements UserApi {
      */
     @Override
     public void sendVerificationCode(String email, VerificationCallback callback) {
-        new Thread(() -> {
+        AppExecutors.getInstance().io().execute(TaskPriority.INTERACTIVE, () -> {
             try {
                 Log.d("UserApiImpl", "Sending verification code to email: " + email);
                 
@@ -421,7 +417,7 @@ public class UserApiImpl implements UserApi {
                     callback.onError(e.getMessage());
                 });
             }
-        }).start();
+        });
     }
 
     /**
@@ -434,7 +430,7 @@ public class UserApiImpl implements UserApi {
      */
     @Override
     public void verifyCode(String email, String code, VerificationCallback callback) {
-        new Thread(() -> {
+        AppExecutors.getInstance().io().execute(TaskPriority.INTERACTIVE, () -> {
             try {
                 Log.d("UserApiImpl", "Verifying code for email: " + email);
                 
@@ -464,12 +460,12 @@ public class UserApiImpl implements UserApi {
                     callback.onError(e.getMessage());
                 });
             }
-        }).start();
+        });
     }
 
     @Override
     public void updatePassword(String json, PasswordUpdateCallback callback) {
-        new Thread(() -> {
+        AppExecutors.getInstance().io().execute(TaskPriority.INTERACTIVE, () -> {
             try {
                 Log.d(TAG, "Updating password for user");
                 
@@ -509,6 +505,6 @@ public class UserApiImpl implements UserApi {
                     }
                 });
             }
-        }).start();
+        });
     }
 }
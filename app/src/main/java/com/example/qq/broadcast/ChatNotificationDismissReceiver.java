@@ -0,0 +1,58 @@
+package com.example.qq.broadcast;
+
+// Android 框架
+
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+import com.example.qq.handler.impl.ChatNotificationAggregator;
+
+/**
+ * 聊天通知划除广播接收器
+ * 用户划掉会话通知时清除该会话在 {@link ChatNotificationAggregator} 中累计的消息和计数，
+ * 划掉摘要通知时清除全部会话，之后的新消息从零开始聚合
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public class ChatNotificationDismissReceiver extends BroadcastReceiver {
+    private static final String ACTION_DISMISSED = "com.example.qq.action.CHAT_NOTIFICATION_DISMISSED";
+    private static final String EXTRA_SENDER = "sender";
+
+    /**
+     * 创建通知的 deleteIntent
+     * @param context 上下文
+     * @param sender 会话的发送者用户名，摘要通知传null
+     * @param requestCode 与通知ID一致，保证各会话的 PendingIntent 互不覆盖
+     * @return PendingIntent
+     */
+    public static PendingIntent createDeleteIntent(Context context, String sender, int requestCode) {
+        Intent intent = new Intent(context, ChatNotificationDismissReceiver.class);
+        intent.setAction(ACTION_DISMISSED);
+        intent.putExtra(EXTRA_SENDER, sender);
+        return PendingIntent.getBroadcast(context, requestCode, intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    /**
+     * 接收通知划除广播
+     *
+     * @param context 应用上下文
+     * @param intent 广播意图，携带会话的发送者用户名
+     */
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (!ACTION_DISMISSED.equals(intent.getAction())) {
+            return;
+        }
+        ChatNotificationAggregator aggregator = ChatNotificationAggregator.getInstance(context);
+        String sender = intent.getStringExtra(EXTRA_SENDER);
+        if (sender != null) {
+            aggregator.cancel(sender);
+        } else {
+            aggregator.cancelAll();
+        }
+    }
+}
@@ -41,7 +41,19 @@ public enum MessageType {
     /**
      * 在线状态检测消息
      */
-    ONLINE_CHECK(7);
+    ONLINE_CHECK(7),
+
+    /**
+     * 聊天消息确认回执
+     * 服务器保存聊天消息后回传，message或clientId字段为客户端消息ID
+     */
+    MESSAGE_ACK(8),
+
+    /**
+     * 图片消息
+     * message字段为 ImagePayload 编码后的内容（原图地址、尺寸和内联缩略图）
+     */
+    IMAGE(9);
 
     private final int value;
 
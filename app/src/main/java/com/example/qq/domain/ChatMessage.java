@@ -1,5 +1,7 @@
 package com.example.qq.domain;
 
+import com.example.qq.codegen.GenerateTypeAdapter;
+
 /**
  * 聊天消息实体类
  * 用于封装聊天消息的相关信息，包括发送者、接收者、消息内容和时间戳
@@ -7,7 +9,15 @@ package com.example.qq.domain;
  * @author yunxi
  * @version 1.0
  */
+@GenerateTypeAdapter
 public class ChatMessage {
+    /** 发送状态：已发送（服务器返回的历史消息默认为此状态） */
+    public static final int STATUS_SENT = 0;
+    /** 发送状态：发送中 */
+    public static final int STATUS_SENDING = 1;
+    /** 发送状态：发送失败 */
+    public static final int STATUS_FAILED = 2;
+
     /** 消息发送者 */
     private  String sender;
     /** 消息接收者 */
@@ -16,6 +26,13 @@ public class ChatMessage {
     private  String content;
     /** 消息时间戳 */
     private long timestamp;
+    /** 客户端生成的消息ID，用于确认回执和幂等重试 */
+    private String clientId;
+    /** 发送状态 */
+    private int status = STATUS_SENT;
+    /** 图片消息内容，由 content 解析并缓存，不参与序列化 */
+    private transient ImagePayload imagePayload;
+    private transient boolean imagePayloadParsed;
 
     /**
      * 设置消息发送者
@@ -39,6 +56,7 @@ public class ChatMessage {
      */
     public void setContent(String content) {
         this.content = content;
+        this.imagePayloadParsed = false;
     }
 
     /**
@@ -79,6 +97,8 @@ public class ChatMessage {
                 ", receiver='" + receiver + '\'' +
                 ", content='" + content + '\'' +
                 ", timestamp=" + timestamp +
+                ", clientId='" + clientId + '\'' +
+                ", status=" + status +
                 '}';
     }
 
@@ -114,4 +134,55 @@ public class ChatMessage {
         return timestamp; 
     }
 
-}
\ No newline at end of file
+    /**
+     * 获取客户端消息ID
+     * @return 客户端消息ID，服务器返回的历史消息为null
+     */
+    public String getClientId() {
+        return clientId;
+    }
+
+    /**
+     * 设置客户端消息ID
+     * @param clientId 客户端消息ID
+     */
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
+    /**
+     * 获取发送状态
+     * @return 发送状态，见 STATUS_* 常量
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * 设置发送状态
+     * @param status 发送状态，见 STATUS_* 常量
+     */
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    /**
+     * 获取图片消息内容
+     * @return 图片消息内容，非图片消息返回null
+     */
+    public ImagePayload getImagePayload() {
+        if (!imagePayloadParsed) {
+            imagePayload = ImagePayload.parse(content);
+            imagePayloadParsed = true;
+        }
+        return imagePayload;
+    }
+
+    /**
+     * 是否为图片消息
+     * @return 图片消息返回true
+     */
+    public boolean isImage() {
+        return getImagePayload() != null;
+    }
+}
@@ -1,5 +1,10 @@
 package com.example.qq.domain;
 
+import com.example.qq.codegen.GenerateTypeAdapter;
+import com.example.qq.utils.PinyinUtils;
+
+import java.util.Objects;
+
 /**
  * 联系人实体类
  * 用于存储联系人的基本信息，包括昵称、头像和用户名
@@ -7,6 +12,7 @@ package com.example.qq.domain;
  * @author yunxi
  * @version 1.0
  */
+@GenerateTypeAdapter
 public class Contact {
     /** 联系人昵称 */
     private String nickName;
@@ -14,6 +20,10 @@ public class Contact {
     private String avatarUrl;
     /** 联系人用户名（唯一标识） */
     private String username;
+    /** 拼音排序键（按昵称惰性计算，不参与序列化） */
+    private transient String sortKey;
+    /** 分组下标，与sortKey同时计算 */
+    private transient int sectionIndex;
 
     /**
      * 获取联系人昵称
@@ -29,6 +39,7 @@ public class Contact {
      */
     public void setNickName(String nickName) {
         this.nickName = nickName;
+        this.sortKey = null;
     }
 
     /**
@@ -62,4 +73,42 @@ public class Contact {
     public void setUsername(String username) {
         this.username = username;
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取拼音排序键
+     * 每个联系人只计算一次，昵称变化后重新计算
+     * @return 排序键
+     */
+    public String getSortKey() {
+        if (sortKey == null) {
+            sortKey = PinyinUtils.toSortKey(nickName != null ? nickName : username);
+            sectionIndex = PinyinUtils.getSectionIndex(sortKey);
+        }
+        return sortKey;
+    }
+
+    /**
+     * 沿用同一联系人之前已计算的排序键
+     * 用户名和昵称都相同（昵称可以同为null）时直接复制，不重新转换拼音
+     * @param previous 之前加载的同一联系人
+     * @return 是否沿用
+     */
+    public boolean reuseSortKey(Contact previous) {
+        if (previous == null || previous.sortKey == null || username == null
+                || !username.equals(previous.username) || !Objects.equals(nickName, previous.nickName)) {
+            return false;
+        }
+        sortKey = previous.sortKey;
+        sectionIndex = previous.sectionIndex;
+        return true;
+    }
+
+    /**
+     * 获取分组下标
+     * @return 0-25 对应 A-Z，其余为 {@link PinyinUtils#SECTION_OTHER}
+     */
+    public int getSectionIndex() {
+        getSortKey();
+        return sectionIndex;
+    }
+}
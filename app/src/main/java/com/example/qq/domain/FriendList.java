@@ -1,5 +1,7 @@
 package com.example.qq.domain;
 
+import com.example.qq.codegen.GenerateTypeAdapter;
+
 import java.io.Serializable;
 
 /**
@@ -9,6 +11,7 @@ import java.io.Serializable;
  * @author yunxi
  * @version 1.0
  */
+@GenerateTypeAdapter
 public class FriendList implements Serializable {
     private static final long serialVersionUID = 1L;
 
@@ -1,5 +1,7 @@
 package com.example.qq.domain;
 
+import com.example.qq.codegen.GenerateTypeAdapter;
+
 /**
  * 好友请求实体类
  * 用于存储和管理好友请求的相关信息，包括请求状态的跟踪和处理
@@ -7,6 +9,7 @@ package com.example.qq.domain;
  * @author yunxi
  * @version 1.0
  */
+@GenerateTypeAdapter
 public class FriendRequest {
     /** 用户ID */
     private String userId;
@@ -0,0 +1,101 @@
+package com.example.qq.domain;
+
+import com.example.qq.codegen.GenerateTypeAdapter;
+import com.example.qq.utils.GsonProvider;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * 图片消息内容
+ * 图片消息的 content 为 {@link #PREFIX} + JSON，包括：
+ * - 原图地址和尺寸，界面据此预留气泡大小，加载前后不跳动
+ * - 几百字节的内联缩略图（Base64编码的小尺寸WebP），随消息一起到达，无需额外请求即可显示
+ * 服务器按普通文本保存 content，历史消息、缓存和离线消息无需改动即可携带图片
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+@GenerateTypeAdapter
+public class ImagePayload {
+    /** 图片消息内容前缀 */
+    public static final String PREFIX = "[image]";
+    /** 会话列表和通知中显示的摘要 */
+    public static final String PREVIEW_TEXT = "[图片]";
+
+    private static final Gson GSON = GsonProvider.get();
+
+    /** 原图地址 */
+    private String url;
+    /** 原图宽高（像素） */
+    private int width;
+    private int height;
+    /** 内联缩略图，Base64编码的WebP */
+    private String thumb;
+
+    public ImagePayload() {
+    }
+
+    /**
+     * 构造函数
+     * @param url 原图地址
+     * @param width 原图宽度
+     * @param height 原图高度
+     * @param thumb Base64编码的缩略图，可为null
+     */
+    public ImagePayload(String url, int width, int height, String thumb) {
+        this.url = url;
+        this.width = width;
+        this.height = height;
+        this.thumb = thumb;
+    }
+
+    /**
+     * 编码为消息内容
+     * @return 以 {@link #PREFIX} 开头的消息内容
+     */
+    public String encode() {
+        return PREFIX + GSON.toJson(this);
+    }
+
+    /**
+     * 解析消息内容
+     * @param content 消息内容
+     * @return 图片消息内容，不是图片消息或格式错误时返回null
+     */
+    public static ImagePayload parse(String content) {
+        if (content == null || !content.startsWith(PREFIX)) {
+            return null;
+        }
+        try {
+            ImagePayload payload = GSON.fromJson(content.substring(PREFIX.length()), ImagePayload.class);
+            return payload != null && payload.url != null && !payload.url.isEmpty() ? payload : null;
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 消息摘要：图片消息显示为 {@link #PREVIEW_TEXT}，其他消息原样返回
+     * @param content 消息内容
+     * @return 摘要文本
+     */
+    public static String previewOf(String content) {
+        return content != null && content.startsWith(PREFIX) ? PREVIEW_TEXT : content;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public String getThumb() {
+        return thumb;
+    }
+}
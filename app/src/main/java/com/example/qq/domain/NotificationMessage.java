@@ -1,5 +1,7 @@
 package com.example.qq.domain;
 
+import com.example.qq.codegen.GenerateTypeAdapter;
+
 /**
  * 通知消息实体类
  * 用于封装系统通知消息的相关信息，包括标题、内容和时间戳
@@ -7,6 +9,7 @@ package com.example.qq.domain;
  * @author yunxi
  * @version 1.0
  */
+@GenerateTypeAdapter
 public class NotificationMessage {
     /** 通知标题 */
     private final String title;
@@ -1,5 +1,6 @@
 package com.example.qq.domain;
 
+import com.example.qq.codegen.GenerateTypeAdapter;
 import com.example.qq.constant.MessageType;
 import com.google.gson.annotations.SerializedName;
 
@@ -10,6 +11,7 @@ import com.google.gson.annotations.SerializedName;
  * @author yunxi
  * @version 1.0
  */
+@GenerateTypeAdapter
 public class WebSocketMessage {
     
     /** 
@@ -19,9 +21,10 @@ public class WebSocketMessage {
      * 2: 好友请求
      * 3: 好友接受
      * @see MessageType
+     * 包内可见：生成的 TypeAdapter 直接赋值，不经过 {@link #setType} 的联动，解码结果与反射 Gson 一致
      */
     @SerializedName("system")
-    private int systemType;
+    int systemType;
 
     /** 发送消息的用户名 */
     @SerializedName("user")
@@ -39,8 +42,12 @@ public class WebSocketMessage {
     @SerializedName("timestamp")
     private long timestamp;
 
-    /** 消息类型枚举值 */
-    private MessageType type;
+    /** 客户端消息ID，聊天消息和确认回执中携带 */
+    @SerializedName("clientId")
+    private String clientId;
+
+    /** 消息类型枚举值，包内可见的原因同 {@link #systemType} */
+    MessageType type;
 
     /**
      * 无参构造函数
@@ -161,6 +168,22 @@ public class WebSocketMessage {
         this.timestamp = timestamp;
     }
 
+    /**
+     * 获取客户端消息ID
+     * @return 客户端消息ID
+     */
+    public String getClientId() {
+        return clientId;
+    }
+
+    /**
+     * 设置客户端消息ID
+     * @param clientId 客户端消息ID
+     */
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
     /**
      * 获取消息类型
      * @return 消息类型枚举值
@@ -0,0 +1,121 @@
+package com.example.qq.executor;
+
+import android.os.Process;
+import android.util.Log;
+
+import com.example.qq.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 应用统一的线程调度
+ * 取代各处直接 new Thread 和各自创建的线程池，包括：
+ * - io 通道：网络和磁盘读写，线程数较多，队列满时丢弃最低优先级的任务
+ * - compute 通道：图片压缩、数据解析等CPU密集任务，线程数不超过CPU核数，队列满时在调用方执行
+ * - main 通道：投递到主线程
+ * - 共享的单线程时间轮定时器，只用于计时，到期后应把实际工作交给上面的通道（见 {@link Throttler}）
+ * 每个通道按 {@link TaskPriority} 排队（发送消息先于后台刷新），并统计活跃数、排队数、完成数和等待时间
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class AppExecutors {
+    private static final String TAG = "AppExecutors";
+    private static final int IO_THREADS = 6;
+    private static final int IO_QUEUE_CAPACITY = 128;
+    private static final int COMPUTE_QUEUE_CAPACITY = 64;
+    /** 时间轮刻度（毫秒）和槽数，一圈约5秒 */
+    private static final long TIMER_TICK_MS = 10;
+    private static final int TIMER_SLOTS = 512;
+
+    /** 单例实例 */
+    private static AppExecutors instance;
+
+    private final PoolLane io;
+    private final PoolLane compute;
+    private final MainLane main;
+    private final TimerWheel timer;
+
+    private AppExecutors() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        io = new PoolLane("io", IO_THREADS, IO_QUEUE_CAPACITY, SaturationPolicy.DISCARD_LOWEST,
+            Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_MORE_FAVORABLE);
+        compute = new PoolLane("compute", Math.max(2, cpus - 1), COMPUTE_QUEUE_CAPACITY,
+            SaturationPolicy.CALLER_RUNS, Process.THREAD_PRIORITY_BACKGROUND);
+        main = new MainLane();
+        timer = new TimerWheel("app-timer", TIMER_TICK_MS, TimeUnit.MILLISECONDS, TIMER_SLOTS);
+        registerGauges();
+    }
+
+    private void registerGauges() {
+        Metrics metrics = Metrics.getInstance();
+        for (Lane lane : new Lane[] {io, compute, main}) {
+            String prefix = "executor." + lane.getStats().name;
+            metrics.gauge(prefix + ".active", () -> lane.getStats().active);
+            metrics.gauge(prefix + ".queued", () -> lane.getStats().queued);
+            metrics.gauge(prefix + ".rejected", () -> lane.getStats().rejected);
+        }
+        metrics.gauge("executor.timer.pending", timer::getPendingCount);
+    }
+
+    /**
+     * 获取AppExecutors的单例实例
+     * @return AppExecutors实例
+     */
+    public static synchronized AppExecutors getInstance() {
+        if (instance == null) {
+            instance = new AppExecutors();
+        }
+        return instance;
+    }
+
+    /**
+     * 网络和磁盘读写通道
+     */
+    public Lane io() {
+        return io;
+    }
+
+    /**
+     * CPU密集任务通道
+     */
+    public Lane compute() {
+        return compute;
+    }
+
+    /**
+     * 主线程通道
+     */
+    public MainLane main() {
+        return main;
+    }
+
+    /**
+     * 共享定时器（单线程时间轮），到期任务应尽快返回或转交其他通道
+     */
+    public TimerWheel timer() {
+        return timer;
+    }
+
+    /**
+     * 所有通道的统计快照
+     */
+    public List<LaneStats> getStats() {
+        List<LaneStats> stats = new ArrayList<>(3);
+        stats.add(io.getStats());
+        stats.add(compute.getStats());
+        stats.add(main.getStats());
+        return stats;
+    }
+
+    /**
+     * 输出统计到日志
+     */
+    public void logStats() {
+        for (LaneStats stats : getStats()) {
+            Log.i(TAG, stats.toString());
+        }
+    }
+}
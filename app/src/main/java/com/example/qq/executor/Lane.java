@@ -0,0 +1,174 @@
+package com.example.qq.executor;
+
+import android.util.Log;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 执行通道
+ * AppExecutors 中的 I/O、计算、主线程通道的公共部分：按优先级提交任务，
+ * 并统计活跃数、排队数、完成数和排队等待时间
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public abstract class Lane implements Executor {
+    private static final String TAG = "Lane";
+
+    private final String name;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    Lane(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 通道名称
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 以默认优先级执行任务
+     * @param runnable 任务
+     */
+    @Override
+    public void execute(Runnable runnable) {
+        execute(TaskPriority.DEFAULT, runnable);
+    }
+
+    /**
+     * 以指定优先级执行任务
+     * @param priority 优先级
+     * @param runnable 任务
+     */
+    public void execute(TaskPriority priority, Runnable runnable) {
+        enqueue(new Task(priority, sequence.incrementAndGet(), runnable));
+    }
+
+    /**
+     * 提交任务，返回的 Future 可用于取消
+     * @param priority 优先级
+     * @param runnable 任务
+     * @return 任务的Future
+     */
+    public Future<?> submit(TaskPriority priority, Runnable runnable) {
+        FutureTask<Void> future = new FutureTask<>(runnable, null);
+        execute(priority, future);
+        return future;
+    }
+
+    /**
+     * 提交有返回值的任务
+     * @param priority 优先级
+     * @param callable 任务
+     * @return 任务的Future
+     */
+    public <T> Future<T> submit(TaskPriority priority, Callable<T> callable) {
+        FutureTask<T> future = new FutureTask<>(callable);
+        execute(priority, future);
+        return future;
+    }
+
+    /**
+     * 当前统计快照
+     */
+    public LaneStats getStats() {
+        long done = completed.get();
+        long started = done + active.get();
+        double averageWaitMs = started == 0 ? 0 : totalWaitNanos.get() / (double) started / 1_000_000d;
+        return new LaneStats(name, getMaxThreads(), active.get(), getQueuedCount(), done, failed.get(),
+            rejected.get(), averageWaitMs, maxWaitNanos.get() / 1_000_000d);
+    }
+
+    /**
+     * 将包装好的任务放入队列
+     */
+    abstract void enqueue(Task task);
+
+    /**
+     * 排队中的任务数
+     */
+    abstract int getQueuedCount();
+
+    /**
+     * 最大线程数
+     */
+    abstract int getMaxThreads();
+
+    private void recordWait(long waitNanos) {
+        totalWaitNanos.addAndGet(waitNanos);
+        long max;
+        while (waitNanos > (max = maxWaitNanos.get())) {
+            if (maxWaitNanos.compareAndSet(max, waitNanos)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 带优先级和入队时间的任务
+     * 排序：优先级高的在前，同优先级先提交的在前
+     */
+    final class Task implements Runnable, Comparable<Task> {
+        final TaskPriority priority;
+        final long sequence;
+        final Runnable runnable;
+        final long enqueueNanos = System.nanoTime();
+
+        Task(TaskPriority priority, long sequence, Runnable runnable) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public void run() {
+            recordWait(System.nanoTime() - enqueueNanos);
+            active.incrementAndGet();
+            try {
+                runnable.run();
+            } catch (RuntimeException | Error e) {
+                // 与直接使用 new Thread 时一样交给线程的未捕获异常处理器
+                failed.incrementAndGet();
+                Log.e(TAG, name + " 任务执行失败", e);
+                throw e;
+            } finally {
+                active.decrementAndGet();
+                completed.incrementAndGet();
+            }
+        }
+
+        /**
+         * 任务被丢弃：Future 任务取消，便于等待方结束等待
+         */
+        void discard() {
+            if (runnable instanceof Future) {
+                ((Future<?>) runnable).cancel(false);
+            }
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+
+        long waitedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueueNanos);
+        }
+    }
+}
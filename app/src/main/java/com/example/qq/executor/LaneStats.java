@@ -0,0 +1,49 @@
+package com.example.qq.executor;
+
+import java.util.Locale;
+
+/**
+ * 执行通道的运行统计快照
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class LaneStats {
+    /** 通道名称 */
+    public final String name;
+    /** 最大线程数，主线程通道为1 */
+    public final int maxThreads;
+    /** 正在执行的任务数 */
+    public final int active;
+    /** 排队中的任务数 */
+    public final int queued;
+    /** 已完成的任务数（含失败） */
+    public final long completed;
+    /** 抛出异常的任务数 */
+    public final long failed;
+    /** 因队列已满被拒绝、丢弃或在调用方线程执行的任务数 */
+    public final long rejected;
+    /** 平均和最大排队等待时间（毫秒） */
+    public final double averageWaitMs;
+    public final double maxWaitMs;
+
+    LaneStats(String name, int maxThreads, int active, int queued, long completed, long failed,
+              long rejected, double averageWaitMs, double maxWaitMs) {
+        this.name = name;
+        this.maxThreads = maxThreads;
+        this.active = active;
+        this.queued = queued;
+        this.completed = completed;
+        this.failed = failed;
+        this.rejected = rejected;
+        this.averageWaitMs = averageWaitMs;
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+            "%s{threads=%d active=%d queued=%d completed=%d failed=%d rejected=%d wait(avg=%.1fms max=%.1fms)}",
+            name, maxThreads, active, queued, completed, failed, rejected, averageWaitMs, maxWaitMs);
+    }
+}
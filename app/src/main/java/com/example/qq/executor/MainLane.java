@@ -0,0 +1,57 @@
+package com.example.qq.executor;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 主线程通道
+ * 投递到主线程消息队列，优先级不改变执行顺序（避免插队打乱输入事件），只用于统计
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class MainLane extends Lane {
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final AtomicInteger queued = new AtomicInteger();
+
+    MainLane() {
+        super("main");
+    }
+
+    @Override
+    void enqueue(Task task) {
+        queued.incrementAndGet();
+        handler.post(() -> {
+            queued.decrementAndGet();
+            task.run();
+        });
+    }
+
+    /**
+     * 延迟执行
+     * @param runnable 任务
+     * @param delayMillis 延迟（毫秒）
+     */
+    public void executeDelayed(Runnable runnable, long delayMillis) {
+        handler.postDelayed(() -> execute(TaskPriority.DEFAULT, runnable), delayMillis);
+    }
+
+    /**
+     * 当前是否在主线程
+     */
+    public boolean isMainThread() {
+        return Looper.myLooper() == Looper.getMainLooper();
+    }
+
+    @Override
+    int getQueuedCount() {
+        return queued.get();
+    }
+
+    @Override
+    int getMaxThreads() {
+        return 1;
+    }
+}
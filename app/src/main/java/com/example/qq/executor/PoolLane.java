@@ -0,0 +1,112 @@
+package com.example.qq.executor;
+
+import android.os.Process;
+import android.util.Log;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 线程池通道
+ * 固定上限的线程池加有界优先级队列，空闲线程超时后回收
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+final class PoolLane extends Lane {
+    private static final String TAG = "PoolLane";
+    /** 空闲线程保留时间（秒） */
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final int threads;
+    private final int capacity;
+    private final SaturationPolicy policy;
+    private final PriorityBlockingQueue<Runnable> queue = new PriorityBlockingQueue<>();
+    private final ThreadPoolExecutor pool;
+
+    /**
+     * 构造函数
+     * @param name 通道名称，也是线程名前缀
+     * @param threads 最大线程数
+     * @param capacity 队列容量
+     * @param policy 队列已满时的策略
+     * @param threadPriority 线程的Linux优先级（Process.THREAD_PRIORITY_*）
+     */
+    PoolLane(String name, int threads, int capacity, SaturationPolicy policy, int threadPriority) {
+        super(name);
+        this.threads = threads;
+        this.capacity = capacity;
+        this.policy = policy;
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 优先级队列无界，线程数不会超过核心数，因此核心数即上限
+        pool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, queue,
+            r -> new Thread(() -> {
+                Process.setThreadPriority(threadPriority);
+                r.run();
+            }, name + "-" + threadIndex.incrementAndGet()));
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    void enqueue(Task task) {
+        synchronized (queue) {
+            if (queue.size() < capacity) {
+                pool.execute(task);
+                return;
+            }
+            rejected.incrementAndGet();
+            switch (policy) {
+                case DISCARD_LOWEST:
+                    if (discardLowerThan(task)) {
+                        pool.execute(task);
+                    } else {
+                        Log.w(TAG, getName() + " 队列已满，丢弃新任务 (" + task.priority + ")");
+                        task.discard();
+                    }
+                    return;
+                case CALLER_RUNS:
+                    break;
+                case ABORT:
+                default:
+                    throw new RejectedExecutionException(getName() + " 队列已满: " + capacity);
+            }
+        }
+        // CALLER_RUNS 在锁外执行，避免阻塞其他提交
+        Log.w(TAG, getName() + " 队列已满，在调用方线程执行");
+        task.run();
+    }
+
+    /**
+     * 移除队列中排序最靠后（优先级最低、最晚提交）的任务，前提是它排在新任务之后
+     * @return 已腾出位置返回true
+     */
+    private boolean discardLowerThan(Task incoming) {
+        Task lowest = null;
+        for (Runnable queued : queue) {
+            Task candidate = (Task) queued;
+            if (lowest == null || candidate.compareTo(lowest) > 0) {
+                lowest = candidate;
+            }
+        }
+        if (lowest == null || lowest.compareTo(incoming) <= 0 || !queue.remove(lowest)) {
+            return false;
+        }
+        Log.w(TAG, getName() + " 队列已满，丢弃排队 " + lowest.waitedMillis() + "ms 的任务 ("
+            + lowest.priority + ")");
+        lowest.discard();
+        return true;
+    }
+
+    @Override
+    int getQueuedCount() {
+        return queue.size();
+    }
+
+    @Override
+    int getMaxThreads() {
+        return threads;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.qq.executor;
+
+/**
+ * 线程池队列已满时的处理策略
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public enum SaturationPolicy {
+    /**
+     * 抛出 RejectedExecutionException
+     */
+    ABORT,
+
+    /**
+     * 在提交任务的线程直接执行，用于调用方本身就是后台线程的场景
+     */
+    CALLER_RUNS,
+
+    /**
+     * 丢弃队列中优先级最低、最晚提交的任务为新任务腾出位置；
+     * 新任务的优先级不高于它时丢弃新任务。被丢弃的 Future 会被取消
+     */
+    DISCARD_LOWEST
+}
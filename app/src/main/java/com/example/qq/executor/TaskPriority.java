@@ -0,0 +1,25 @@
+package com.example.qq.executor;
+
+/**
+ * 任务优先级
+ * 同一线程池排队时优先级高的先执行，同优先级按提交顺序执行
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public enum TaskPriority {
+    /**
+     * 用户正在等待结果的操作：发送消息、登录、删除好友等
+     */
+    INTERACTIVE,
+
+    /**
+     * 普通加载：打开页面时拉取数据
+     */
+    DEFAULT,
+
+    /**
+     * 后台刷新和预取，队列满时最先被丢弃
+     */
+    BACKGROUND
+}
@@ -0,0 +1,252 @@
+package com.example.qq.executor;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import okhttp3.Call;
+
+/**
+ * 与页面生命周期绑定的任务作用域
+ * 页面（Activity 或 Fragment 的视图）销毁时自动关闭作用域：
+ * - 取消尚未执行完的后台任务，以及这些任务中正在进行的 OkHttp 请求（见 {@link #track}）
+ * - 丢弃尚未执行的主线程回调，页面销毁后不会再更新界面
+ * - 执行通过 {@link #onClose} 注册的清理操作，如注销监听器
+ * 除 {@link #launch} 和 {@link #post} 外，其余方法应在主线程调用
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class TaskScope implements LifecycleEventObserver {
+    private static final String TAG = "TaskScope";
+    /** 当前线程正在执行的作用域任务，用于关联其中发起的网络请求 */
+    private static final ThreadLocal<ScopedTask> CURRENT = new ThreadLocal<>();
+
+    private final String name;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Set<ScopedTask> tasks = new HashSet<>();
+    private final List<Runnable> closeActions = new ArrayList<>();
+    private volatile boolean closed;
+
+    private TaskScope(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 创建绑定到生命周期的作用域，生命周期到达 DESTROYED 时关闭
+     * Fragment 中更新视图的任务应绑定 getViewLifecycleOwner()
+     * @param owner 生命周期持有者
+     * @return 作用域，持有者已销毁时返回已关闭的作用域
+     */
+    public static TaskScope of(LifecycleOwner owner) {
+        TaskScope scope = new TaskScope(owner.getClass().getSimpleName());
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            scope.close();
+        } else {
+            lifecycle.addObserver(scope);
+        }
+        return scope;
+    }
+
+    /**
+     * 在指定通道执行任务，作用域关闭时取消
+     * @param lane 执行通道
+     * @param priority 优先级
+     * @param runnable 任务
+     * @return 任务的Future，作用域已关闭时返回已取消的Future
+     */
+    public Future<?> launch(Lane lane, TaskPriority priority, Runnable runnable) {
+        ScopedTask task = new ScopedTask(runnable);
+        synchronized (this) {
+            if (!closed) {
+                tasks.add(task);
+            }
+        }
+        if (closed) {
+            task.cancel(false);
+            return task;
+        }
+        lane.execute(priority, task);
+        return task;
+    }
+
+    /**
+     * 投递到主线程，作用域关闭后不再执行
+     * @param action 主线程操作
+     */
+    public void post(Runnable action) {
+        postDelayed(action, 0);
+    }
+
+    /**
+     * 延迟投递到主线程，作用域关闭后不再执行
+     * @param action 主线程操作
+     * @param delayMillis 延迟（毫秒）
+     */
+    public void postDelayed(Runnable action, long delayMillis) {
+        if (closed) {
+            return;
+        }
+        handler.postDelayed(() -> {
+            if (!closed) {
+                action.run();
+            }
+        }, delayMillis);
+    }
+
+    /**
+     * 注册作用域关闭时的清理操作，按注册顺序执行
+     * 作用域已关闭时立即执行
+     * @param action 清理操作
+     */
+    public void onClose(Runnable action) {
+        synchronized (this) {
+            if (!closed) {
+                closeActions.add(action);
+                return;
+            }
+        }
+        action.run();
+    }
+
+    /**
+     * 作用域是否仍然有效，长任务可在步骤之间检查以提前结束
+     */
+    public boolean isActive() {
+        return !closed;
+    }
+
+    /**
+     * 将请求关联到当前线程正在执行的作用域任务，任务取消时请求随之取消
+     * 不在作用域任务中调用时不做处理
+     * @param call OkHttp请求
+     * @return 传入的请求
+     */
+    public static Call track(Call call) {
+        ScopedTask task = CURRENT.get();
+        if (task != null) {
+            task.addCall(call);
+        }
+        return call;
+    }
+
+    @Override
+    public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+        if (event == Lifecycle.Event.ON_DESTROY) {
+            source.getLifecycle().removeObserver(this);
+            close();
+        }
+    }
+
+    /**
+     * 关闭作用域：取消任务和请求，丢弃主线程回调，执行清理操作
+     * 重复调用无效果
+     */
+    public void close() {
+        List<ScopedTask> running;
+        List<Runnable> actions;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            running = new ArrayList<>(tasks);
+            tasks.clear();
+            actions = new ArrayList<>(closeActions);
+            closeActions.clear();
+        }
+        handler.removeCallbacksAndMessages(null);
+        // 不中断线程：任务可能正在写缓存，网络请求通过 Call.cancel 结束
+        for (ScopedTask task : running) {
+            task.cancel(false);
+        }
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, name + " 清理操作失败", e);
+            }
+        }
+        if (!running.isEmpty()) {
+            Log.d(TAG, name + " 已关闭，取消任务" + running.size() + "个");
+        }
+    }
+
+    /**
+     * 作用域内的任务，执行期间登记发起的网络请求
+     */
+    private final class ScopedTask extends FutureTask<Void> {
+        private final List<Call> calls = new ArrayList<>();
+
+        ScopedTask(Runnable runnable) {
+            super(runnable, null);
+        }
+
+        @Override
+        public void run() {
+            CURRENT.set(this);
+            try {
+                super.run();
+            } finally {
+                CURRENT.remove();
+            }
+        }
+
+        void addCall(Call call) {
+            synchronized (calls) {
+                if (!isCancelled()) {
+                    calls.add(call);
+                    return;
+                }
+            }
+            call.cancel();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            List<Call> pending;
+            synchronized (calls) {
+                pending = new ArrayList<>(calls);
+                calls.clear();
+            }
+            for (Call call : pending) {
+                call.cancel();
+            }
+            return cancelled;
+        }
+
+        @Override
+        protected void done() {
+            synchronized (TaskScope.this) {
+                tasks.remove(this);
+            }
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                get();
+            } catch (ExecutionException e) {
+                // FutureTask 会吞掉异常，这里补上日志
+                Log.e(TAG, name + " 任务执行失败", e.getCause());
+            } catch (InterruptedException | CancellationException ignored) {
+                // 已完成的任务不会发生
+            }
+        }
+    }
+}
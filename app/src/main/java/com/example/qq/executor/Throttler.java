@@ -0,0 +1,175 @@
+package com.example.qq.executor;
+
+import android.os.SystemClock;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 按键合并突发事件
+ * 计时使用 AppExecutors 的共享时间轮，到期后在指定的执行器（主线程或io通道）上执行：
+ * - debounce：最后一次调用之后静默一段时间才执行
+ * - throttle：立即执行第一次，间隔内的后续调用合并为间隔结束时的一次
+ * - coalesce：第一次调用开启窗口，窗口结束时以最新的值执行一次
+ * 同一个键只保留最新的操作；可在任意线程调用
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class Throttler {
+    private final TimerWheel timer;
+    private final Executor target;
+    private final Map<Object, Slot> slots = new HashMap<>();
+
+    /**
+     * 构造函数
+     * @param target 操作的执行位置，如 AppExecutors.getInstance().main()
+     */
+    public Throttler(Executor target) {
+        this(AppExecutors.getInstance().timer(), target);
+    }
+
+    Throttler(TimerWheel timer, Executor target) {
+        this.timer = timer;
+        this.target = target;
+    }
+
+    /**
+     * 防抖：每次调用重新计时，静默 delayMillis 后执行最后一次提交的操作
+     * @param key 键
+     * @param delayMillis 静默时间（毫秒）
+     * @param action 操作
+     */
+    public synchronized void debounce(Object key, long delayMillis, Runnable action) {
+        Slot slot = slot(key);
+        slot.action = action;
+        if (slot.timeout != null) {
+            slot.timeout.cancel();
+        }
+        schedule(key, slot, delayMillis, false);
+    }
+
+    /**
+     * 节流：距上次执行超过 intervalMillis 时立即执行，否则在间隔结束时执行最后一次提交的操作
+     * @param key 键
+     * @param intervalMillis 最小执行间隔（毫秒）
+     * @param action 操作
+     */
+    public synchronized void throttle(Object key, long intervalMillis, Runnable action) {
+        Slot slot = slot(key);
+        if (slot.timeout != null) {
+            slot.action = action;
+            return;
+        }
+        long now = SystemClock.uptimeMillis();
+        long wait = slot.lastRunUptime + intervalMillis - now;
+        if (slot.lastRunUptime == 0 || wait <= 0) {
+            slot.lastRunUptime = now;
+            target.execute(action);
+            return;
+        }
+        slot.action = action;
+        schedule(key, slot, wait, true);
+    }
+
+    /**
+     * 合并：窗口内的多次调用只在窗口结束时执行一次，使用最后提交的值
+     * 与防抖不同，持续的调用不会推迟执行，延迟不超过 windowMillis
+     * @param key 键
+     * @param windowMillis 窗口时长（毫秒）
+     * @param value 最新的值
+     * @param action 以最新值执行的操作
+     */
+    public synchronized <T> void coalesce(Object key, long windowMillis, T value, Consumer<T> action) {
+        Slot slot = slot(key);
+        slot.action = () -> action.accept(value);
+        if (slot.timeout == null) {
+            schedule(key, slot, windowMillis, false);
+        }
+    }
+
+    /**
+     * 合并无参数的操作
+     * @see #coalesce(Object, long, Object, Consumer)
+     */
+    public void coalesce(Object key, long windowMillis, Runnable action) {
+        coalesce(key, windowMillis, action, Runnable::run);
+    }
+
+    /**
+     * 取消某个键尚未执行的操作
+     * @param key 键
+     */
+    public synchronized void cancel(Object key) {
+        Slot slot = slots.remove(key);
+        if (slot != null && slot.timeout != null) {
+            slot.timeout.cancel();
+        }
+    }
+
+    /**
+     * 取消所有尚未执行的操作
+     */
+    public synchronized void cancelAll() {
+        for (Slot slot : slots.values()) {
+            if (slot.timeout != null) {
+                slot.timeout.cancel();
+            }
+        }
+        slots.clear();
+    }
+
+    private Slot slot(Object key) {
+        Slot slot = slots.get(key);
+        if (slot == null) {
+            slot = new Slot();
+            slots.put(key, slot);
+        }
+        return slot;
+    }
+
+    private void schedule(Object key, Slot slot, long delayMillis, boolean keep) {
+        int generation = ++slot.generation;
+        slot.timeout = timer.schedule(() -> fire(key, slot, generation, keep),
+            delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 定时线程上调用：取出最新的操作交给执行器
+     * 已被取消或被新计时取代（取消前已开始到期）的计时不执行
+     * @param generation 计时序号
+     * @param keep 是否保留槽（节流需要记住上次执行时间）
+     */
+    private void fire(Object key, Slot slot, int generation, boolean keep) {
+        Runnable action;
+        synchronized (this) {
+            if (slots.get(key) != slot || slot.generation != generation) {
+                return;
+            }
+            action = slot.action;
+            slot.action = null;
+            slot.timeout = null;
+            if (keep) {
+                slot.lastRunUptime = SystemClock.uptimeMillis();
+            } else {
+                slots.remove(key);
+            }
+        }
+        if (action != null) {
+            target.execute(action);
+        }
+    }
+
+    /**
+     * 单个键的状态
+     */
+    private static final class Slot {
+        Runnable action;
+        TimerWheel.Timeout timeout;
+        long lastRunUptime;
+        int generation;
+    }
+}
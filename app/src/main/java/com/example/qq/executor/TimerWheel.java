@@ -0,0 +1,251 @@
+package com.example.qq.executor;
+
+import android.util.Log;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 时间轮定时器
+ * 单线程、按固定刻度推进的哈希时间轮，添加和取消都是O(1)，适合大量短期且经常被取消的定时任务（防抖、节流）
+ * - 到期时间按刻度取整，误差不超过一个刻度
+ * - 没有待执行任务时线程挂起，不会空转
+ * - 到期任务在定时线程上执行，应尽快返回，实际工作交给其他通道
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class TimerWheel {
+    private static final String TAG = "TimerWheel";
+    /** 每个刻度最多转移的新任务数，避免突发添加时长时间占用定时线程 */
+    private static final int MAX_TRANSFER_PER_TICK = 10_000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long startNanos = System.nanoTime();
+    private final Queue<Timeout> additions = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancellations = new ConcurrentLinkedQueue<>();
+    /** 已添加且尚未到期或取消的任务数 */
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Thread worker;
+    /** 当前刻度，只在定时线程访问 */
+    private long tick;
+
+    /**
+     * 构造函数
+     * @param name 线程名
+     * @param tick 刻度时长
+     * @param unit 刻度单位
+     * @param slots 槽数，向上取为2的幂
+     */
+    TimerWheel(String name, long tick, TimeUnit unit, int slots) {
+        tickNanos = unit.toNanos(tick);
+        int size = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+        wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        mask = size - 1;
+        worker = new Thread(this::loop, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 添加定时任务
+     * @param task 到期时在定时线程上执行的任务
+     * @param delay 延迟
+     * @param unit 延迟单位
+     * @return 可取消的句柄
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long deadline = elapsedNanos() + unit.toNanos(Math.max(0, delay));
+        Timeout timeout = new Timeout(task, deadline);
+        pending.incrementAndGet();
+        additions.add(timeout);
+        LockSupport.unpark(worker);
+        return timeout;
+    }
+
+    /**
+     * 尚未到期的任务数
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    private long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    private void loop() {
+        while (true) {
+            if (pending.get() == 0) {
+                // 挂起前处理取消队列，释放槽中的引用
+                processCancellations();
+                LockSupport.park(this);
+                if (pending.get() == 0) {
+                    continue;
+                }
+                // 时间轮为空，直接跳到当前刻度，无需逐格追赶
+                tick = elapsedNanos() / tickNanos;
+            }
+            long deadline = (tick + 1) * tickNanos;
+            long sleep;
+            while ((sleep = deadline - elapsedNanos()) > 0) {
+                LockSupport.parkNanos(this, sleep);
+            }
+            processCancellations();
+            transferAdditions();
+            wheel[(int) (tick & mask)].expire(deadline);
+            tick++;
+        }
+    }
+
+    private void processCancellations() {
+        Timeout timeout;
+        while ((timeout = cancellations.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferAdditions() {
+        for (int i = 0; i < MAX_TRANSFER_PER_TICK; i++) {
+            Timeout timeout = additions.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() != Timeout.ST_INIT) {
+                continue;
+            }
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            // 已过期的任务放到当前槽，本刻度执行
+            long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * 定时任务句柄
+     */
+    public final class Timeout {
+        static final int ST_INIT = 0;
+        static final int ST_CANCELLED = 1;
+        static final int ST_EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(ST_INIT);
+        /** 以下字段只在定时线程访问 */
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 取消任务
+         * @return 任务尚未执行且本次取消成功时返回true
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(ST_INIT, ST_CANCELLED)) {
+                return false;
+            }
+            pending.decrementAndGet();
+            cancellations.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == ST_EXPIRED;
+        }
+
+        void expire() {
+            if (!state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+                return;
+            }
+            pending.decrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                // 定时线程不能因单个任务失败而退出
+                Log.e(TAG, "定时任务执行失败", t);
+            }
+        }
+    }
+
+    /**
+     * 时间轮的槽：双向链表，只在定时线程访问
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        /**
+         * 执行本槽中已到本轮的任务，其余任务的剩余轮数减一
+         * @param deadline 当前刻度的结束时间
+         */
+        void expire(long deadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if (timeout.deadline <= deadline) {
+                        timeout.expire();
+                    }
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ProgressBar;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
@@ -19,12 +20,13 @@ import com.example.qq.adapter.ContactAdapter;
 import com.example.qq.api.friendlistapi.FriendApi;
 import com.example.qq.api.friendlistapi.impl.FriendApiImpl;
 import com.example.qq.domain.Contact;
-import com.example.qq.event.FriendDeletedEvent;
+import com.example.qq.executor.AppExecutors;
+import com.example.qq.executor.TaskPriority;
+import com.example.qq.state.StateChange;
+import com.example.qq.state.StateStore;
 import com.example.qq.utils.SharedPreferencesManager;
+import com.example.qq.view.SideIndexBar;
 
-import org.greenrobot.eventbus.EventBus;
-import org.greenrobot.eventbus.Subscribe;
-import org.greenrobot.eventbus.ThreadMode;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -51,19 +53,16 @@ public class ContactListFragment extends Fragment {
     private FriendApi friendApi;
     /** 加载进度条 */
     private ProgressBar progressBar;
+    /** 侧边字母索引栏 */
+    private SideIndexBar sideIndexBar;
+    /** 当前字母提示 */
+    private TextView sectionOverlay;
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         sharedPreferencesManager = SharedPreferencesManager.getInstance();
         friendApi = new FriendApiImpl();
-        EventBus.getDefault().register(this);
-    }
-
-    @Override
-    public void onDestroy() {
-        super.onDestroy();
-        EventBus.getDefault().unregister(this);
     }
 
     @Nullable
@@ -78,7 +77,9 @@ public class ContactListFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
         initRecyclerView(view);
+        initSideIndexBar(view);
         progressBar = view.findViewById(R.id.progressBar);
+        StateStore.getInstance().roster().observe(getViewLifecycleOwner(), this::onRosterChanged);
         loadContacts();
     }
 
@@ -101,14 +102,43 @@ public class ContactListFragment extends Fragment {
         });
     }
 
+    /**
+     * 初始化侧边索引栏
+     * 按分组起始位置直接跳转，不遍历列表
+     *
+     * @param view Fragment的根视图
+     */
+    private void initSideIndexBar(View view) {
+        sideIndexBar = view.findViewById(R.id.sideIndexBar);
+        sectionOverlay = view.findViewById(R.id.textViewSectionOverlay);
+        sideIndexBar.setOnSectionSelectedListener(new SideIndexBar.OnSectionSelectedListener() {
+            @Override
+            public void onSectionSelected(int section, String letter) {
+                sectionOverlay.setText(letter);
+                sectionOverlay.setVisibility(View.VISIBLE);
+                int position = contactAdapter.getPositionForSection(section);
+                if (position >= 0) {
+                    ((LinearLayoutManager) recyclerView.getLayoutManager())
+                        .scrollToPositionWithOffset(position, 0);
+                }
+            }
+
+            @Override
+            public void onSectionReleased() {
+                sectionOverlay.setVisibility(View.GONE);
+            }
+        });
+    }
+
     /**
      * 加载联系人列表
-     * 从服务器获取联系人数据并更新UI
+     * 从服务器获取联系人数据，在后台线程计算拼音排序键后更新UI
      */
     public void loadContacts() {
         showLoading();
+        ContactAdapter adapter = contactAdapter;
         
-        new Thread(() -> {
+        AppExecutors.getInstance().io().execute(TaskPriority.DEFAULT, () -> {
             try {
                 List<Contact> contacts = friendApi.getContactList();
                 
@@ -121,13 +151,15 @@ public class ContactListFragment extends Fragment {
                 }
 
                 SharedPreferencesManager.getInstance().setFriendAvatars(contacts);
-                
+
+                // 排序键和排序都在后台线程完成（昵称未变的沿用上次的排序键），主线程只做增量合并
+                adapter.prepare(contacts);
                 updateUIWithContacts(contacts);
             } catch (Exception e) {
                 Log.e(TAG, "Error loading contacts", e);
                 handleLoadError(e);
             }
-        }).start();
+        });
     }
 
     /**
@@ -189,13 +221,19 @@ public class ContactListFragment extends Fragment {
     }
 
     /**
-     * 处理好友删除事件
-     * 当收到好友删除事件时，从列表中移除对应的联系人
+     * 处理好友列表状态变化
+     * 删除的好友直接从列表中移除，好友列表整体失效（如新增好友）时重新加载；
+     * 只是最后一条消息变化时联系人列表不受影响
      *
-     * @param event 好友删除事件
+     * @param change 一帧内合并后的变化
      */
-    @Subscribe(threadMode = ThreadMode.MAIN)
-    public void onFriendDeleted(FriendDeletedEvent event) {
-        contactAdapter.removeContact(event.getFriendUsername());
+    private void onRosterChanged(StateChange change) {
+        if (change.isFull()) {
+            loadContacts();
+            return;
+        }
+        for (String username : change.getRemovedKeys()) {
+            contactAdapter.removeContact(username);
+        }
     }
 } 
\ No newline at end of file
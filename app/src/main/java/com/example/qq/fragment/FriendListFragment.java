@@ -2,13 +2,13 @@ package com.example.qq.fragment;
 
 import static android.content.ContentValues.TAG;
 
-import android.annotation.SuppressLint;
 import android.app.Activity;
+import android.content.Context;
 import android.content.Intent;
 import android.graphics.Canvas;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -31,41 +31,44 @@ import com.example.qq.adapter.FriendAdapter;
 import com.example.qq.api.friendlistapi.FriendApi;
 import com.example.qq.api.friendlistapi.impl.FriendApiImpl;
 import com.example.qq.domain.FriendList;
-import com.example.qq.domain.WebSocketMessage;
-import com.example.qq.event.FriendDeletedEvent;
-import com.example.qq.event.FriendListUpdateEvent;
-import com.example.qq.event.FriendRequestEvent;
+import com.example.qq.executor.AppExecutors;
+import com.example.qq.executor.TaskPriority;
+import com.example.qq.executor.TaskScope;
+import com.example.qq.executor.Throttler;
+import com.example.qq.network.NetworkPolicy;
+import com.example.qq.state.StateChange;
+import com.example.qq.state.StateStore;
+import com.example.qq.utils.AvatarService;
+import com.example.qq.utils.ConversationSnapshot;
 import com.example.qq.utils.SharedPreferencesManager;
 
-import org.greenrobot.eventbus.EventBus;
-import org.greenrobot.eventbus.Subscribe;
-import org.greenrobot.eventbus.ThreadMode;
-
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 
 public class FriendListFragment extends Fragment {
     // 静态变量
-    private static FriendListFragment instance;
-    private static boolean isRefreshing = false;
+    private static final String REFRESH_KEY = "friend-list-refresh";
     private static final long REFRESH_COOLDOWN = 1000; // 1秒冷却时间
-    private static long lastRefreshTime = 0;  // 改为静态变量
+    private static final String PREFETCH_KEY = "friend-avatars";
+    private static final int AVATAR_SIZE_DP = 50; // 与 item_friend 中头像尺寸一致
 
     // 实例变量
     private RecyclerView recyclerView;
     private FriendAdapter friendAdapter;
     private List<FriendList> friendLists;
     private SwipeRefreshLayout swipeRefreshLayout;
-    private final Handler handler = new Handler(Looper.getMainLooper());
+    /** 视图作用域，视图销毁时取消加载任务并丢弃界面更新 */
+    private TaskScope viewScope;
+    /** 合并短时间内的多次刷新请求（新消息、好友变更等），在主线程执行 */
+    private final Throttler refreshThrottler = new Throttler(AppExecutors.getInstance().main());
     private SharedPreferencesManager sharedPreferencesManager;
     private FriendApi friendApi;
-    private static final long REFRESH_TIMEOUT = 2000;
-    private final Handler timeoutHandler = new Handler(Looper.getMainLooper());
-    private Runnable timeoutRunnable;
     private boolean isFirstLoad = true;
     private static final long MIN_REFRESH_INTERVAL = 1000;
-    private static final long CACHE_VALID_TIME = 30L * 24 * 60 * 60 * 1000;
+    /** 上次手动刷新的时间（SystemClock.uptimeMillis），用于下拉刷新的冷却 */
+    private long lastManualRefreshUptime;
     private String currentUserId;
     private static final int CHAT_REQUEST_CODE = 1001;
 
@@ -75,7 +78,6 @@ public class FriendListFragment extends Fragment {
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        instance = this;  // 保存实例引用
         sharedPreferencesManager = SharedPreferencesManager.getInstance();
         friendApi = new FriendApiImpl();
         setHasOptionsMenu(true);  // 启用选项菜单
@@ -93,54 +95,42 @@ public class FriendListFragment extends Fragment {
         );
     }
 
-    @Override
-    public void onStart() {
-        super.onStart();
-        // 添加检查，避免重复注册
-        if (!EventBus.getDefault().isRegistered(this)) {
-            EventBus.getDefault().register(this);
-        }
-    }
-
     @Override
     public void onStop() {
         super.onStop();
-        // 添加检查，确保注销时已经注册
-        if (EventBus.getDefault().isRegistered(this)) {
-            EventBus.getDefault().unregister(this);
+        // 保存当前显示的会话列表（含未读数），下次冷启动直接显示
+        if (friendAdapter != null && friendAdapter.getItemCount() > 0) {
+            List<FriendList> rows = friendAdapter.getData();
+            Map<String, Integer> unreadCounts = friendAdapter.getUnreadCounts();
+            Context appContext = requireContext().getApplicationContext();
+            AppExecutors.getInstance().io().execute(TaskPriority.BACKGROUND,
+                () -> saveSnapshot(appContext, rows, unreadCounts));
         }
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
-        if (timeoutRunnable != null) {
-            timeoutHandler.removeCallbacks(timeoutRunnable);
-        }
-        if (instance == this) {
-            instance = null;  // 清除实例引用
-        }
+        refreshThrottler.cancelAll();
+        NetworkPolicy.getInstance().cancelDeferred(PREFETCH_KEY);
     }
 
-    @Subscribe(threadMode = ThreadMode.MAIN)
-    public void onFriendRequestEvent(FriendRequestEvent event) {
-        WebSocketMessage message = event.getMessage();
-        Log.d(TAG, "收到好友请求事件: type=" + message.getSystemType());
-
-        // 处理好友请求事件
-        if (message.getSystemType() == 3) { // 好友请求被接受
-            Log.d(TAG, "好友请求被接受，刷新列表");
-            // 清除缓存并刷新数据
-            sharedPreferencesManager.clearFriendListCache();
-            loadFriendData();
+    /**
+     * 好友列表状态变化：删除的好友直接移除，有新消息的好友只刷新对应行，
+     * 整体失效或出现列表中没有的好友时重新同步
+     * @param change 一帧内合并后的变化
+     */
+    private void onRosterChanged(StateChange change) {
+        if (change.isFull()) {
+            requestRefresh();
+            return;
         }
-    }
-
-    @Subscribe(threadMode = ThreadMode.MAIN)
-    public void onFriendDeleted(FriendDeletedEvent event) {
-        // 直接从适配器中移除该好友
-        if (friendAdapter != null) {
-            friendAdapter.removeFriend(event.getFriendUsername());
+        for (String username : change.getRemovedKeys()) {
+            friendAdapter.removeFriend(username);
+        }
+        if (!change.getChangedKeys().isEmpty()
+                && !friendAdapter.refreshConversations(change.getChangedKeys())) {
+            requestRefresh();
         }
     }
 
@@ -153,19 +143,79 @@ public class FriendListFragment extends Fragment {
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
+        viewScope = TaskScope.of(getViewLifecycleOwner());
         initViews(view);
         setupRecyclerView();
         setupSwipeRefresh();
 
-        // 先尝试加载缓存数据
-        List<FriendList> cachedList = sharedPreferencesManager.getCachedFriendList();
-        if (cachedList != null && !cachedList.isEmpty()) {
-            // 如果有缓存数据，直接显示
-            friendAdapter.updateData(cachedList);
+        StateStore store = StateStore.getInstance();
+        store.roster().observe(getViewLifecycleOwner(), this::onRosterChanged);
+        store.unread().observe(getViewLifecycleOwner(),
+            change -> friendAdapter.refreshUnreadCounts(change.getChangedKeys()));
+
+        // 先显示启动阶段预加载的会话快照，再在后台同步
+        String owner = sharedPreferencesManager.getCurrentUsername();
+        ConversationSnapshot snapshot = ConversationSnapshot.takePreloaded(owner);
+        if (snapshot != null) {
+            showSnapshot(snapshot);
         } else {
-            // 如果没有缓存数据，才去加载网络数据
-            loadFriendData();
+            loadSnapshotAsync(owner);
+        }
+        loadFriendData();
+    }
+
+    /**
+     * 显示会话快照
+     * @param snapshot 快照
+     */
+    private void showSnapshot(ConversationSnapshot snapshot) {
+        friendAdapter.updateData(snapshot.getRows(), snapshot.getUnreadCounts());
+        Log.d(TAG, "会话快照已显示: " + snapshot.getRows().size() + "行, 距进程启动"
+            + (SystemClock.uptimeMillis() - Process.getStartUptimeMillis()) + "ms");
+    }
+
+    /**
+     * 未预加载快照时（如Fragment重建）在后台读取快照，没有快照时退回到JSON缓存
+     * 网络数据先到达时不再覆盖
+     * @param owner 当前登录用户
+     */
+    private void loadSnapshotAsync(String owner) {
+        Context appContext = requireContext().getApplicationContext();
+        TaskScope scope = viewScope;
+        scope.launch(AppExecutors.getInstance().io(), TaskPriority.DEFAULT, () -> {
+            ConversationSnapshot snapshot = ConversationSnapshot.read(appContext, owner);
+            List<FriendList> cachedList = snapshot == null
+                ? sharedPreferencesManager.getCachedFriendList() : null;
+            scope.post(() -> {
+                if (friendAdapter.getItemCount() > 0) {
+                    return;
+                }
+                if (snapshot != null) {
+                    showSnapshot(snapshot);
+                } else if (cachedList != null && !cachedList.isEmpty()) {
+                    friendAdapter.updateData(cachedList);
+                }
+            });
+        });
+    }
+
+    /**
+     * 保存会话快照（后台线程调用）
+     * @param context 应用上下文
+     * @param rows 会话行
+     * @param unreadCounts 用户名 -> 未读数，为null时从本地存储读取
+     */
+    private static void saveSnapshot(Context context, List<FriendList> rows,
+                                     Map<String, Integer> unreadCounts) {
+        SharedPreferencesManager prefs = SharedPreferencesManager.getInstance();
+        if (unreadCounts == null) {
+            unreadCounts = new HashMap<>();
+            for (FriendList friend : rows) {
+                unreadCounts.put(friend.getFriendUsername(),
+                    prefs.getUnreadMessageCount(friend.getFriendUsername()));
+            }
         }
+        ConversationSnapshot.write(context, prefs.getCurrentUsername(), rows, unreadCounts);
     }
 
     private void initViews(View view) {
@@ -210,10 +260,14 @@ public class FriendListFragment extends Fragment {
         loadFriendData();
     }
 
+    /**
+     * 手动刷新的冷却（主线程调用）
+     * 与 refreshThrottler 不同，冷却期内的手动刷新直接拒绝并提示，而不是推迟执行
+     */
     private boolean canRefresh() {
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastRefreshTime > MIN_REFRESH_INTERVAL) {
-            lastRefreshTime = currentTime;
+        long now = SystemClock.uptimeMillis();
+        if (lastManualRefreshUptime == 0 || now - lastManualRefreshUptime > MIN_REFRESH_INTERVAL) {
+            lastManualRefreshUptime = now;
             return true;
         }
         return false;
@@ -262,9 +316,7 @@ public class FriendListFragment extends Fragment {
                         int position = viewHolder.getAdapterPosition();
                         if (position != RecyclerView.NO_POSITION) {
                             FriendList friend = friendLists.get(position);
-                            SharedPreferencesManager.getInstance()
-                                .clearUnreadCount(friend.getFriendUsername());
-                            friendAdapter.notifyItemChanged(position);
+                            friendAdapter.clearUnreadCount(friend.getFriendUsername(), position);
                         }
                     }
                     // 恢复原位
@@ -318,43 +370,48 @@ public class FriendListFragment extends Fragment {
         });
     }
 
-    private void loadCachedData() {
-        List<FriendList> cachedList = sharedPreferencesManager.getCachedFriendList();
-        if (cachedList != null && !cachedList.isEmpty()) {
-            friendAdapter.updateData(cachedList);
-            friendAdapter.notifyDataSetChanged();
-        }
-    }
-
-    private boolean shouldRefreshData() {
-        // 如果需要强制刷新，接返回true
-        if (needForceRefresh()) {
-            return true;
-        }
-
-        long lastUpdateTime = sharedPreferencesManager.getFriendListUpdateTime();
-        long currentTime = System.currentTimeMillis();
-        return currentTime - lastUpdateTime > CACHE_VALID_TIME ||
-               sharedPreferencesManager.getCachedFriendList() == null;
+    /**
+     * 预取列表前面若干个好友的头像（主线程调用）
+     * 计费网络下推迟到连上不计费网络，数量在执行时按当时的网络档位决定
+     * @param friends 刚同步的好友列表
+     */
+    private void prefetchAvatars(Context appContext, List<FriendList> friends) {
+        int sizePx = Math.round(AVATAR_SIZE_DP * appContext.getResources().getDisplayMetrics().density);
+        NetworkPolicy.getInstance().runWhenUnmetered(PREFETCH_KEY, () -> {
+            int depth = Math.min(friends.size(), NetworkPolicy.getInstance().profile().prefetchDepth);
+            AvatarService avatars = AvatarService.getInstance(appContext);
+            for (int i = 0; i < depth; i++) {
+                FriendList friend = friends.get(i);
+                avatars.prefetch(friend.getFriendUsername(), friend.getAvatarUrl(), sizePx);
+            }
+        });
     }
 
-    @SuppressLint("NotifyDataSetChanged")
+    /**
+     * 从服务器同步会话列表（主线程调用）
+     * 任务绑定视图作用域，视图销毁后请求被取消，结果不再更新界面
+     */
     private void loadFriendData() {
+        TaskScope scope = viewScope;
+        if (scope == null || !scope.isActive()) {
+            Log.d(TAG, "视图未创建或已销毁，跳过加载好友数据");
+            return;
+        }
         Log.d(TAG, "开始加载好友数据...");
 
         // 显示刷新动画
         if (swipeRefreshLayout != null) {
-            requireActivity().runOnUiThread(() ->
-                swipeRefreshLayout.setRefreshing(true));
+            swipeRefreshLayout.setRefreshing(true);
         }
 
-        new Thread(() -> {
+        Context appContext = requireContext().getApplicationContext();
+        scope.launch(AppExecutors.getInstance().io(), TaskPriority.DEFAULT, () -> {
             try {
                 // 获取新数据
                 List<FriendList> newFriendData = friendApi.getFriendList();
                 Log.d(TAG, "获取到新数据: " + (newFriendData != null ? newFriendData.size() : 0) + "个好友");
 
-                if (!isAdded()) return;
+                if (!scope.isActive()) return;
 
                 // 更新最后一条消息和时间
                 if (newFriendData != null) {
@@ -380,10 +437,11 @@ public class FriendListFragment extends Fragment {
 
                     // 保存到缓存
                     prefs.cacheFriendList(newFriendData);
+                    saveSnapshot(appContext, newFriendData, null);
                 }
 
                 // 在主线程更新UI
-                requireActivity().runOnUiThread(() -> {
+                scope.post(() -> {
                     try {
                         if (swipeRefreshLayout != null) {
                             swipeRefreshLayout.setRefreshing(false);
@@ -391,12 +449,12 @@ public class FriendListFragment extends Fragment {
 
                         if (friendAdapter != null) {
                             if (newFriendData != null) {
+                                // 与快照/当前列表比对，只刷新变化的行
                                 friendAdapter.updateData(newFriendData);
-                                friendAdapter.notifyDataSetChanged();
                                 Log.d(TAG, "好友列表更新成功，数量: " + newFriendData.size());
+                                prefetchAvatars(appContext, newFriendData);
                             } else {
                                 friendAdapter.updateData(new ArrayList<>());
-                                friendAdapter.notifyDataSetChanged();
                                 Log.d(TAG, "清空好友列表");
                                 if (friendAdapter.getItemCount() == 0) {
                                     showToast("暂无好友");
@@ -411,56 +469,18 @@ public class FriendListFragment extends Fragment {
                     }
                 });
             } catch (Exception e) {
+                // 视图销毁导致的取消不算失败
+                if (!scope.isActive()) return;
                 Log.e(TAG, "加载好友数据失败: " + e.getMessage(), e);
-                if (!isAdded()) return;
 
-                requireActivity().runOnUiThread(() -> {
+                scope.post(() -> {
                     if (swipeRefreshLayout != null) {
                         swipeRefreshLayout.setRefreshing(false);
                     }
                     showToast("加载失败: " + e.getMessage());
                 });
             }
-        }).start();
-    }
-
-    // 比较两个好友列表是否相同
-    private boolean compareFriendLists(List<FriendList> list1, List<FriendList> list2) {
-        if (list1 == null || list2 == null) {
-            Log.d("FriendListFragment", "其中一个列表为空: list1=" + (list1 != null) + ", list2=" + (list2 != null));
-            return list1 == list2;
-        }
-
-        if (list1.size() != list2.size()) {
-            Log.d("FriendListFragment", "列表大小不同: list1.size=" + list1.size() + ", list2.size=" + list2.size());
-            return false;
-        }
-
-        // 先对列表进行排序（按用户名）
-        list1.sort((a, b) -> a.getFriendUsername().compareTo(b.getFriendUsername()));
-        list2.sort((a, b) -> a.getFriendUsername().compareTo(b.getFriendUsername()));
-
-        // 比较每个好友的关键数据
-        for (int i = 0; i < list1.size(); i++) {
-            FriendList friend1 = list1.get(i);
-            FriendList friend2 = list2.get(i);
-
-            boolean usernameSame = friend1.getFriendUsername().equals(friend2.getFriendUsername());
-            boolean nicknameSame = Objects.equals(friend1.getFriendNickName(), friend2.getFriendNickName());
-            boolean avatarSame = Objects.equals(friend1.getAvatarUrl(), friend2.getAvatarUrl());
-            boolean contentSame = Objects.equals(friend1.getLastContext(), friend2.getLastContext());
-
-            if (!usernameSame || !nicknameSame || !avatarSame || !contentSame) {
-                Log.d("FriendListFragment", String.format(
-                    "好友数据不同: username=%b, nickname=%b, avatar=%b, content=%b, friend=%s",
-                    usernameSame, nicknameSame, avatarSame, contentSame, friend1.getFriendUsername()
-                ));
-                return false;
-            }
-        }
-
-        Log.d("FriendListFragment", "两个列表完全相同");
-        return true;
+        });
     }
 
     private void showToast(String message) {
@@ -479,18 +499,20 @@ public class FriendListFragment extends Fragment {
     @Override
     public void onResume() {
         super.onResume();
+        // 首次显示时onViewCreated已经发起同步
+        if (isFirstLoad) {
+            isFirstLoad = false;
+            return;
+        }
         // 只在列表为空时才自动刷新
         if (friendAdapter.getItemCount() == 0) {
             loadFriendData();
+        } else {
+            // 未读数可能在聊天界面中被清除
+            friendAdapter.refreshUnreadCounts();
         }
     }
 
-    // 添加一个方法来判断是否需要强制刷新
-    private boolean needForceRefresh() {
-        // 检查是否有新消息或其他需要强制刷新的条件
-        return false; // TODO: 实现具体的检查逻辑
-    }
-
     private void openChatActivity(String friendUsername, String friendNickname, String friendAvatar) {
         Intent intent = new Intent(getActivity(), ChatActivity.class);
         intent.putExtra("friend_username", friendUsername);
@@ -499,41 +521,19 @@ public class FriendListFragment extends Fragment {
         chatActivityLauncher.launch(intent);  // 使用新的启动方式
     }
 
-    public static void refreshFriendList() {
-        // 使用Handler确保在主线程中执行
-        new Handler(Looper.getMainLooper()).post(() -> {
-            try {
-                long currentTime = System.currentTimeMillis();
-                if (isRefreshing || (currentTime - lastRefreshTime) < REFRESH_COOLDOWN) {
-                    Log.d(TAG, "跳过刷新：正在刷新或冷却时间未到");
-                    return;
-                }
-
-                if (instance != null && instance.isAdded()) {
-                    isRefreshing = true;
-                    Log.d(TAG, "开始刷新好友列表");
-
-                    instance.sharedPreferencesManager.clearFriendListCache();
-                    instance.loadFriendData();
-
-                    lastRefreshTime = currentTime;
-                    Log.d(TAG, "好友列表刷新请求已发送");
-                } else {
-                    Log.w(TAG, "无法刷新好友列表：Fragment实例不可用或未添加到Activity");
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "刷新好友列表失败: " + e.getMessage(), e);
-            } finally {
-                isRefreshing = false;
+    /**
+     * 请求清除缓存并重新同步
+     * 冷却时间内的多次请求合并：第一次立即执行，其余合并为冷却结束时的一次
+     */
+    private void requestRefresh() {
+        refreshThrottler.throttle(REFRESH_KEY, REFRESH_COOLDOWN, () -> {
+            if (!isAdded()) {
+                Log.w(TAG, "无法刷新好友列表：Fragment未添加到Activity");
+                return;
             }
+            Log.d(TAG, "开始刷新好友列表");
+            sharedPreferencesManager.clearFriendListCache();
+            loadFriendData();
         });
     }
-
-    @Subscribe(threadMode = ThreadMode.MAIN)
-    public void onFriendListUpdate(FriendListUpdateEvent event) {
-        Log.d(TAG, "收到好友列表更新事件，立即刷新");
-        // 强制刷新好友列表
-        sharedPreferencesManager.clearFriendListCache();
-        loadFriendData();
-    }
 } 
\ No newline at end of file
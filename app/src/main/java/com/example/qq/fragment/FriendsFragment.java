@@ -32,21 +32,17 @@ import com.example.qq.api.userapi.impl.UserApiImpl;
 import com.example.qq.domain.FriendList;
 import com.example.qq.domain.FriendRequest;
 import com.example.qq.domain.User;
-import com.example.qq.event.FriendDeletedEvent;
-import com.example.qq.event.FriendRequestEvent;
+import com.example.qq.executor.AppExecutors;
+import com.example.qq.executor.TaskPriority;
+import com.example.qq.executor.TaskScope;
+import com.example.qq.state.StateStore;
+import com.example.qq.utils.RosterSearch;
 import com.example.qq.utils.SharedPreferencesManager;
 
-import net.sourceforge.pinyin4j.PinyinHelper;
-import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
-import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
-import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
-
-import org.greenrobot.eventbus.EventBus;
-import org.greenrobot.eventbus.Subscribe;
-import org.greenrobot.eventbus.ThreadMode;
-
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 好友管理主Fragment
@@ -73,6 +69,11 @@ public class FriendsFragment extends Fragment {
     private UserApi userApi;
     private View fragmentContainer2;
     private View touchInterceptor;
+    /** 当前搜索任务和搜索序号，只显示最后一次搜索的结果 */
+    private Future<?> searchTask;
+    private final AtomicInteger searchGeneration = new AtomicInteger();
+    /** 视图作用域，视图销毁时取消搜索 */
+    private TaskScope viewScope;
 
     @Nullable
     @Override
@@ -81,7 +82,6 @@ public class FriendsFragment extends Fragment {
             @Nullable Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_friends, container, false);
         initViews(view);
-        EventBus.getDefault().register(this);
         updateUnreadCount();
         
         // 设置根视图的点击监听，处理点击空白处
@@ -90,6 +90,14 @@ public class FriendsFragment extends Fragment {
         return view;
     }
 
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        viewScope = TaskScope.of(getViewLifecycleOwner());
+        // 好友请求变化时刷新角标，一帧内的多次变化只读取一次本地存储
+        StateStore.getInstance().requests().observe(getViewLifecycleOwner(), change -> updateUnreadCount());
+    }
+
     /**
      * 初始化视图组件
      * @param view Fragment的根视图
@@ -255,29 +263,6 @@ public class FriendsFragment extends Fragment {
         updateUnreadCount();
     }
 
-    @Override
-    public void onDestroy() {
-        super.onDestroy();
-        EventBus.getDefault().unregister(this);
-    }
-
-    @Subscribe(threadMode = ThreadMode.MAIN)
-    public void onFriendRequestEvent(FriendRequestEvent event) {
-        updateUnreadCount();
-    }
-
-    @Subscribe(threadMode = ThreadMode.MAIN)
-    public void onFriendDeleted(FriendDeletedEvent event) {
-        // 只需要刷新当前显示的 Fragment
-        if (currentTabIndex == 0) { // 好友列表标签
-            Fragment fragment = getChildFragmentManager()
-                .findFragmentById(R.id.fragment_container2);
-            if (fragment instanceof ContactListFragment) {
-                ((ContactListFragment) fragment).loadContacts();
-            }
-        }
-    }
-
     /**
      * 更新未读消息数量显示
      */
@@ -347,34 +332,43 @@ public class FriendsFragment extends Fragment {
         }
     }
 
+    /**
+     * 搜索好友（每次输入变化都会调用）
+     * 新的搜索取消旧搜索及其网络请求，已在执行的旧搜索结果不再显示
+     * @param query 搜索关键词
+     */
     private void performSearch(String query) {
-        new Thread(() -> {
+        TaskScope scope = viewScope;
+        if (scope == null) {
+            return;
+        }
+        if (searchTask != null) {
+            searchTask.cancel(false);
+        }
+        int generation = searchGeneration.incrementAndGet();
+        searchTask = scope.launch(AppExecutors.getInstance().io(), TaskPriority.INTERACTIVE, () -> {
             try {
                 // 从服务器获取所有用户列表
                 FriendApi friendApi = new FriendApiImpl();
                 List<FriendList> allFriends = friendApi.getFriendList();
                 
-                // 转换搜索关键词为小写
-                String lowercaseQuery = query.toLowerCase();
-                // 获取搜索关键词的拼音
-                String pinyinQuery = toPinyin(query).toLowerCase();
-                
-                // 在本地进行搜索匹配
+                // 在本地进行搜索匹配（用户名、昵称及其拼音）
                 List<User> results = new ArrayList<>();
                 if (allFriends != null) {
-                    for (FriendList friend : allFriends) {
-                        if (isMatch(friend, lowercaseQuery, pinyinQuery)) {
-                            User user = new User();
-                            user.setUserName(friend.getFriendUsername());
-                            user.setUserNickName(friend.getFriendNickName());
-                            user.setUserAvatarUrl(friend.getAvatarUrl());
-                            results.add(user);
-                        }
+                    for (FriendList friend : new RosterSearch(query).filter(allFriends)) {
+                        User user = new User();
+                        user.setUserName(friend.getFriendUsername());
+                        user.setUserNickName(friend.getFriendNickName());
+                        user.setUserAvatarUrl(friend.getAvatarUrl());
+                        results.add(user);
                     }
                 }
                 
+                if (generation != searchGeneration.get()) {
+                    return;
+                }
                 // 在主线程更新UI
-                requireActivity().runOnUiThread(() -> {
+                scope.post(() -> {
                     searchResults.clear();
                     searchResults.addAll(results);
                     searchAdapter.notifyDataSetChanged();
@@ -384,96 +378,14 @@ public class FriendsFragment extends Fragment {
                 });
                 
             } catch (Exception e) {
-                requireActivity().runOnUiThread(() -> {
+                if (generation != searchGeneration.get() || !scope.isActive()) {
+                    return;
+                }
+                scope.post(() -> {
                     Toast.makeText(getContext(), "搜索失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
                 });
             }
-        }).start();
-    }
-
-    /**
-     * 判断好友是否匹配搜索条件
-     */
-    private boolean isMatch(FriendList friend, String query, String pinyinQuery) {
-        String username = friend.getFriendUsername().toLowerCase();
-        String nickname = friend.getFriendNickName().toLowerCase();
-        
-        // 获取昵称的拼音（全拼和首字母）
-        String nicknamePinyin = toPinyin(friend.getFriendNickName()).toLowerCase();
-        String nicknameInitials = toPinyinInitials(friend.getFriendNickName()).toLowerCase();
-        
-        return username.contains(query) || // 用户名匹配
-               nickname.contains(query) || // 昵称匹配
-               nicknamePinyin.contains(pinyinQuery) || // 拼音全拼匹配
-               nicknameInitials.contains(pinyinQuery) || // 拼音首字母匹配
-               // 支持单个汉字的拼音匹配
-               isChineseCharacterMatch(friend.getFriendNickName(), query);
-    }
-
-    /**
-     * 将中文转换为拼音
-     */
-    private String toPinyin(String chinese) {
-        try {
-            HanyuPinyinOutputFormat format = new HanyuPinyinOutputFormat();
-            format.setCaseType(HanyuPinyinCaseType.LOWERCASE);
-            format.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
-            
-            StringBuilder pinyin = new StringBuilder();
-            char[] chars = chinese.toCharArray();
-            for (char c : chars) {
-                if (Character.toString(c).matches("[\\u4E00-\\u9FA5]+")) {
-                    String[] pinyinArray = PinyinHelper.toHanyuPinyinStringArray(c, format);
-                    if (pinyinArray != null && pinyinArray.length > 0) {
-                        pinyin.append(pinyinArray[0]);
-                    }
-                } else {
-                    pinyin.append(c);
-                }
-            }
-            return pinyin.toString();
-        } catch (Exception e) {
-            return chinese;
-        }
-    }
-
-    /**
-     * 获取拼音首字母
-     */
-    private String toPinyinInitials(String chinese) {
-        try {
-            StringBuilder initials = new StringBuilder();
-            char[] chars = chinese.toCharArray();
-            for (char c : chars) {
-                if (Character.toString(c).matches("[\\u4E00-\\u9FA5]+")) {
-                    String[] pinyinArray = PinyinHelper.toHanyuPinyinStringArray(c);
-                    if (pinyinArray != null && pinyinArray.length > 0) {
-                        initials.append(pinyinArray[0].charAt(0));
-                    }
-                } else {
-                    initials.append(c);
-                }
-            }
-            return initials.toString();
-        } catch (Exception e) {
-            return chinese;
-        }
-    }
-
-    /**
-     * 检查单个汉字的拼音是否匹配
-     */
-    private boolean isChineseCharacterMatch(String nickname, String query) {
-        char[] chars = nickname.toCharArray();
-        for (char c : chars) {
-            if (Character.toString(c).matches("[\\u4E00-\\u9FA5]+")) {
-                String pinyin = toPinyin(String.valueOf(c));
-                if (pinyin.contains(query)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        });
     }
 
     /**
@@ -7,6 +7,7 @@ import android.util.Log;
 
 import com.example.qq.domain.WebSocketMessage;
 import com.example.qq.handler.MessageHandler;
+import com.example.qq.utils.GsonProvider;
 import com.example.qq.utils.SharedPreferencesManager;
 import com.example.qq.websocket.impl.WebSocketServiceImpl;
 import com.google.gson.Gson;
@@ -62,7 +63,7 @@ public abstract class BaseMessageHandler {
         }
 
         this.webSocketService = WebSocketServiceImpl.getInstance();
-        this.gson = new Gson();
+        this.gson = GsonProvider.get();
     }
 
     /**
@@ -0,0 +1,346 @@
+package com.example.qq.handler.impl;
+
+import android.app.Notification;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+import androidx.core.app.Person;
+import androidx.core.graphics.drawable.IconCompat;
+
+import com.example.qq.R;
+import com.example.qq.activity.ChatActivity;
+import com.example.qq.broadcast.ChatNotificationDismissReceiver;
+import com.example.qq.utils.AvatarService;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 聊天通知聚合器
+ * 将短时间内到达的聊天消息按会话合并后再刷新通知，包括：
+ * - 每个会话一条 MessagingStyle 通知，只保留最近 {@link #MAX_HISTORY} 条消息
+ * - 所有会话归入同一分组，由一条摘要通知汇总
+ * - 每个会话在进程内分配固定的通知ID（递增分配，不用用户名哈希），不同会话的通知不会互相覆盖
+ * - 收到消息后等待 {@link #COALESCE_WINDOW_MS} 再刷新，且每秒最多刷新 {@link #MAX_UPDATES_PER_SECOND} 次
+ * - 发送者圆形头像取自共享的 {@link AvatarService}，加载期间不阻塞通知
+ * - 用户划掉通知时经 {@link ChatNotificationDismissReceiver} 清除对应会话，避免再次通知时带出旧消息和计数
+ * 所有状态只在主线程访问
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public class ChatNotificationAggregator {
+    private static final String TAG = "ChatNotificationAggregator";
+    /** 聊天通知分组 */
+    private static final String GROUP_KEY = "com.example.qq.CHAT_GROUP";
+    /** 摘要通知ID */
+    private static final int SUMMARY_NOTIFICATION_ID = 2000;
+    /** 第一个会话通知ID，之后依次递增 */
+    private static final int FIRST_CONVERSATION_ID = SUMMARY_NOTIFICATION_ID + 1;
+    /** 每个会话保留的消息条数 */
+    private static final int MAX_HISTORY = 6;
+    /** 合并窗口（毫秒） */
+    private static final long COALESCE_WINDOW_MS = 300;
+    /** 每秒最多刷新次数 */
+    private static final int MAX_UPDATES_PER_SECOND = 2;
+    private static final long MIN_UPDATE_INTERVAL_MS = 1000 / MAX_UPDATES_PER_SECOND;
+    /** 通知头像尺寸（像素） */
+    private static final int AVATAR_SIZE = 128;
+
+    /** 单例实例 */
+    private static ChatNotificationAggregator instance;
+
+    private final Context context;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    /** 发送者用户名 -> 会话状态，按最近活跃排序 */
+    private final Map<String, Conversation> conversations = new LinkedHashMap<>();
+    /** 发送者用户名 -> 通知ID，会话移除后保留，再次通知时沿用 */
+    private final Map<String, Integer> notificationIds = new HashMap<>();
+    private int nextNotificationId = FIRST_CONVERSATION_ID;
+    private final Person self;
+    private final Runnable flushRunnable = this::flush;
+    private boolean flushScheduled = false;
+    /** 有会话被移除，摘要需要重建 */
+    private boolean summaryDirty = false;
+    private long lastFlushUptime = 0;
+
+    private ChatNotificationAggregator(Context context) {
+        this.context = context.getApplicationContext();
+        this.self = new Person.Builder().setName("我").build();
+    }
+
+    /**
+     * 获取ChatNotificationAggregator的单例实例
+     * @param context 上下文
+     * @return ChatNotificationAggregator实例
+     */
+    public static synchronized ChatNotificationAggregator getInstance(Context context) {
+        if (instance == null) {
+            instance = new ChatNotificationAggregator(context);
+        }
+        return instance;
+    }
+
+    /**
+     * 添加一条聊天消息，通知会在合并窗口结束后统一刷新
+     * @param sender 发送者用户名
+     * @param displayName 发送者显示名称
+     * @param avatarUrl 发送者头像URL，可为null
+     * @param text 消息内容
+     * @param timestamp 消息时间
+     */
+    public void add(String sender, String displayName, String avatarUrl, String text, long timestamp) {
+        mainHandler.post(() -> {
+            Conversation conversation = conversations.remove(sender);
+            if (conversation == null) {
+                conversation = new Conversation(sender, notificationIdOf(sender));
+            }
+            // 重新放入，保证最近活跃的会话排在最后
+            conversations.put(sender, conversation);
+            conversation.displayName = displayName;
+            conversation.avatarUrl = avatarUrl;
+            conversation.totalCount++;
+            conversation.history.addLast(new NotificationCompat.MessagingStyle.Message(
+                text, timestamp, (Person) null));
+            while (conversation.history.size() > MAX_HISTORY) {
+                conversation.history.removeFirst();
+            }
+            conversation.dirty = true;
+            requestAvatar(conversation);
+            scheduleFlush();
+        });
+    }
+
+    /**
+     * 取消某个会话的通知（进入聊天界面或用户划掉通知时调用）
+     * 最后一个会话移除时同时取消摘要通知
+     * @param sender 发送者用户名
+     */
+    public void cancel(String sender) {
+        mainHandler.post(() -> {
+            Conversation removed = conversations.remove(sender);
+            if (removed == null) {
+                return;
+            }
+            NotificationManagerCompat manager = NotificationManagerCompat.from(context);
+            manager.cancel(removed.notificationId);
+            if (conversations.isEmpty()) {
+                manager.cancel(SUMMARY_NOTIFICATION_ID);
+            } else {
+                summaryDirty = true;
+                scheduleFlush();
+            }
+        });
+    }
+
+    /**
+     * 取消全部聊天通知（退出登录或用户划掉摘要通知时调用）
+     */
+    public void cancelAll() {
+        mainHandler.post(() -> {
+            NotificationManagerCompat manager = NotificationManagerCompat.from(context);
+            for (Conversation conversation : conversations.values()) {
+                manager.cancel(conversation.notificationId);
+            }
+            manager.cancel(SUMMARY_NOTIFICATION_ID);
+            conversations.clear();
+            mainHandler.removeCallbacks(flushRunnable);
+            flushScheduled = false;
+            summaryDirty = false;
+        });
+    }
+
+    /**
+     * 发送者对应的通知ID，第一次出现时分配
+     */
+    private int notificationIdOf(String sender) {
+        Integer id = notificationIds.get(sender);
+        if (id == null) {
+            id = nextNotificationId++;
+            notificationIds.put(sender, id);
+        }
+        return id;
+    }
+
+    /**
+     * 安排一次刷新：至少等待合并窗口，且距离上次刷新不少于最小间隔
+     */
+    private void scheduleFlush() {
+        if (flushScheduled) {
+            return;
+        }
+        flushScheduled = true;
+        long now = SystemClock.uptimeMillis();
+        long at = Math.max(now + COALESCE_WINDOW_MS, lastFlushUptime + MIN_UPDATE_INTERVAL_MS);
+        mainHandler.postAtTime(flushRunnable, at);
+    }
+
+    /**
+     * 刷新所有有变化的会话通知和摘要通知
+     */
+    private void flush() {
+        flushScheduled = false;
+        lastFlushUptime = SystemClock.uptimeMillis();
+        NotificationManagerCompat manager = NotificationManagerCompat.from(context);
+        if (!manager.areNotificationsEnabled()) {
+            return;
+        }
+        int updated = 0;
+        try {
+            for (Conversation conversation : conversations.values()) {
+                if (!conversation.dirty) {
+                    continue;
+                }
+                conversation.dirty = false;
+                manager.notify(conversation.notificationId, buildConversation(conversation));
+                updated++;
+            }
+            if ((updated > 0 || summaryDirty) && !conversations.isEmpty()) {
+                summaryDirty = false;
+                manager.notify(SUMMARY_NOTIFICATION_ID, buildSummary());
+            }
+        } catch (SecurityException e) {
+            Log.e(TAG, "显示通知失败: " + e.getMessage());
+        }
+        Log.d(TAG, "通知已刷新: " + updated + " 个会话");
+    }
+
+    /**
+     * 构建单个会话的通知
+     */
+    private Notification buildConversation(Conversation conversation) {
+        Person.Builder senderBuilder = new Person.Builder()
+            .setKey(conversation.sender)
+            .setName(conversation.displayName);
+        Bitmap avatar = conversation.avatar;
+        if (avatar != null) {
+            senderBuilder.setIcon(IconCompat.createWithBitmap(avatar));
+        }
+        Person sender = senderBuilder.build();
+
+        NotificationCompat.MessagingStyle style = new NotificationCompat.MessagingStyle(self);
+        for (NotificationCompat.MessagingStyle.Message message : conversation.history) {
+            style.addMessage(message.getText(), message.getTimestamp(), sender);
+        }
+        if (conversation.totalCount > conversation.history.size()) {
+            style.setConversationTitle(conversation.displayName + "（" + conversation.totalCount + "条新消息）");
+        }
+
+        Intent intent = new Intent(context, ChatActivity.class);
+        intent.putExtra("friend_username", conversation.sender);
+        intent.putExtra("friend_nickname", conversation.displayName);
+        intent.putExtra("friend_avatar", conversation.avatarUrl);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        PendingIntent pendingIntent = PendingIntent.getActivity(
+            context,
+            conversation.notificationId,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, NotificationHelper.CHAT_CHANNEL_ID)
+            .setSmallIcon(R.drawable.ic_notification)
+            .setStyle(style)
+            .setNumber(conversation.totalCount)
+            .setGroup(GROUP_KEY)
+            .setAutoCancel(true)
+            .setOnlyAlertOnce(true)
+            .setContentIntent(pendingIntent)
+            .setDeleteIntent(ChatNotificationDismissReceiver.createDeleteIntent(
+                context, conversation.sender, conversation.notificationId))
+            .setPriority(NotificationCompat.PRIORITY_HIGH)
+            .setCategory(NotificationCompat.CATEGORY_MESSAGE)
+            .setDefaults(NotificationCompat.DEFAULT_ALL);
+        if (avatar != null) {
+            builder.setLargeIcon(avatar);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 构建分组摘要通知
+     */
+    private Notification buildSummary() {
+        NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle();
+        int total = 0;
+        for (Conversation conversation : conversations.values()) {
+            style.addLine(conversation.displayName + "：" + conversation.totalCount + "条新消息");
+            total += conversation.totalCount;
+        }
+        String summary = conversations.size() + "个联系人发来" + total + "条消息";
+        style.setSummaryText(summary);
+        return new NotificationCompat.Builder(context, NotificationHelper.CHAT_CHANNEL_ID)
+            .setSmallIcon(R.drawable.ic_notification)
+            .setContentTitle("新消息")
+            .setContentText(summary)
+            .setStyle(style)
+            .setNumber(total)
+            .setGroup(GROUP_KEY)
+            .setGroupSummary(true)
+            .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_CHILDREN)
+            .setDeleteIntent(ChatNotificationDismissReceiver.createDeleteIntent(
+                context, null, SUMMARY_NOTIFICATION_ID))
+            .setAutoCancel(true)
+            .build();
+    }
+
+    /**
+     * 从共享头像服务获取头像，加载完成后标记会话需要刷新
+     */
+    private void requestAvatar(Conversation conversation) {
+        String avatarUrl = conversation.avatarUrl;
+        if (conversation.avatar != null && avatarUrl != null && avatarUrl.equals(conversation.avatarBitmapUrl)) {
+            return;
+        }
+        AvatarService.getInstance(context).get(conversation.sender, avatarUrl, AVATAR_SIZE, bitmap -> {
+            if (bitmap == null || !bitmapMatches(conversation, avatarUrl)) {
+                return;
+            }
+            conversation.avatar = bitmap;
+            conversation.avatarBitmapUrl = avatarUrl;
+            conversation.dirty = true;
+            scheduleFlush();
+        });
+    }
+
+    private boolean bitmapMatches(Conversation conversation, String avatarUrl) {
+        return avatarUrl != null && avatarUrl.equals(conversation.avatarUrl)
+            && conversations.get(conversation.sender) == conversation;
+    }
+
+    /**
+     * 单个会话的通知状态
+     */
+    private static class Conversation {
+        final String sender;
+        /** 通知ID，也用作 PendingIntent 的 requestCode */
+        final int notificationId;
+        String displayName;
+        String avatarUrl;
+        /** 圆形头像，来自 {@link AvatarService} */
+        Bitmap avatar;
+        /** avatar 对应的头像URL */
+        String avatarBitmapUrl;
+        /** 未读消息总数（含超出历史上限的部分） */
+        int totalCount;
+        /** 最近的消息，最多 {@link #MAX_HISTORY} 条 */
+        final ArrayDeque<NotificationCompat.MessagingStyle.Message> history = new ArrayDeque<>();
+        /** 自上次刷新后是否有变化 */
+        boolean dirty;
+
+        Conversation(String sender, int notificationId) {
+            this.sender = sender;
+            this.notificationId = notificationId;
+        }
+    }
+}
@@ -8,42 +8,34 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.os.Build;
-import android.os.Handler;
-import android.os.Looper;
-import android.util.Log;
 import android.widget.Toast;
 
 import androidx.core.app.ActivityCompat;
 import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
 import androidx.core.content.ContextCompat;
-import androidx.fragment.app.Fragment;
 
-import com.example.qq.R;
 import com.example.qq.activity.ChatActivity;
 import com.example.qq.activity.LoginActivity;
-import com.example.qq.activity.MainActivity;
-import com.example.qq.activity.NewFriendActivity;
 import com.example.qq.api.userapi.UserApi;
 import com.example.qq.api.userapi.impl.UserApiImpl;
 import com.example.qq.constant.MessageType;
 import com.example.qq.domain.FriendRequest;
 import com.example.qq.domain.User;
 import com.example.qq.domain.WebSocketMessage;
-import com.example.qq.event.FriendDeletedEvent;
-import com.example.qq.event.FriendListUpdateEvent;
-import com.example.qq.event.FriendRequestEvent;
-import com.example.qq.fragment.ContactListFragment;
-import com.example.qq.fragment.FriendListFragment;
-import com.example.qq.fragment.FriendsFragment;
+import com.example.qq.executor.AppExecutors;
+import com.example.qq.executor.TaskPriority;
 import com.example.qq.handler.MessageHandler;
+import com.example.qq.log.AppLog;
+import com.example.qq.metrics.Metrics;
 import com.example.qq.service.NotificationService;
+import com.example.qq.state.StateStore;
+import com.example.qq.utils.GsonProvider;
 import com.example.qq.utils.SharedPreferencesManager;
 import com.example.qq.utils.TimeUtils;
 import com.example.qq.websocket.WebSocketService.WebSocketListener;
 import com.google.gson.Gson;
 
-import org.greenrobot.eventbus.EventBus;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -71,7 +63,7 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
     private static final int MESSAGE_TYPE_FORCE_OFFLINE = 6; // 新增消息类型：强制下线
     private static final int MESSAGE_TYPE_ONLINE_CHECK = 7;  // 新增消息类型：在线检测
     private final NotificationService notificationService;
-    private Gson gson = new Gson();
+    private final Gson gson = GsonProvider.get();
 
     public MessageHandlerImpl(Context context, NotificationService notificationService) {
         super(context);
@@ -182,16 +174,16 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
         String target = message.getTargetname();
         if (target != null && target.equals(currentUsername)) {
             // 获取发送请求用户的详细信息
-            new Thread(() -> {
+            AppExecutors.getInstance().io().execute(TaskPriority.DEFAULT, () -> {
                 try {
                     User senderInfo = userApi.getUserInfo(message.getUser());
                     if (senderInfo == null) {
-                        Log.e(TAG, "Failed to get sender user info");
+                        AppLog.e(TAG, "Failed to get sender user info");
                         return;
                     }
 
-                    Log.d(TAG, "Got sender info - nickname: " + senderInfo.getUserNickName() 
-                        + ", avatar: " + senderInfo.getUserAvatarUrl());
+                    AppLog.d(TAG, "Got sender info - nickname: {}, avatar: {}",
+                        senderInfo.getUserNickName(), senderInfo.getUserAvatarUrl());
 
                     // 创建好友请求对象
                     FriendRequest friendRequest = new FriendRequest(
@@ -206,31 +198,23 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
 
                     mainHandler.post(() -> {
                         try {
+                            // 写入本地存储，好友请求列表和角标由 StateStore 通知更新
                             SharedPreferencesManager.getInstance().saveFriendRequest(friendRequest);
 
                             // 使用 NotificationHelper 显示通知
                             notificationHelper.showFriendRequestNotification(friendRequest);
 
-                            // 发送EventBus事件
-                            EventBus.getDefault().post(new FriendRequestEvent(message));
-
-                            // 如果当前在新朋友页面，刷新列表
-                            if (context instanceof NewFriendActivity) {
-                                ((NewFriendActivity) context).loadFriendRequests();
-                            }
-
-                            Log.d(TAG, "Friend request handled successfully - User: " + message.getUser() 
-                                + ", Nickname: " + senderInfo.getUserNickName() 
-                                + ", Avatar: " + senderInfo.getUserAvatarUrl());
+                            AppLog.d(TAG, "Friend request handled successfully - User: {}, Nickname: {}",
+                                message.getUser(), senderInfo.getUserNickName());
 
                         } catch (Exception e) {
-                            Log.e(TAG, "Error handling friend request", e);
+                            AppLog.e(TAG, "Error handling friend request", e);
                         }
                     });
                 } catch (Exception e) {
-                    Log.e(TAG, "Error getting sender info", e);
+                    AppLog.e(TAG, "Error getting sender info", e);
                 }
-            }).start();
+            });
         }
     }
 
@@ -246,7 +230,7 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
 
     protected void handleFriendRequestAccepted(WebSocketMessage message) {
         try {
-            Log.d(TAG, "处理好友请求接受消息");
+            AppLog.d(TAG, "处理好友请求接受消息");
             String friendUsername = message.getUser();
             String notificationMessage = message.getMessage();
             
@@ -256,21 +240,13 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
                 notificationMessage
             );
             
-            // 发送事件通知好友列表更新
-            EventBus.getDefault().post(new FriendListUpdateEvent());
-            
-            // 清除缓存
+            // 清除缓存，通知好友列表重新同步
             SharedPreferencesManager.getInstance().clearFriendListCache();
+            StateStore.getInstance().roster().invalidate();
             
-            // 直接调用刷新方法
-            mainHandler.post(() -> {
-                FriendListFragment.refreshFriendList();
-                Log.d(TAG, "已触发好友列表手动刷新");
-            });
-            
-            Log.d(TAG, "好友请求接受处理完成: " + friendUsername);
+            AppLog.d(TAG, "好友请求接受处理完成: {}", friendUsername);
         } catch (Exception e) {
-            Log.e(TAG, "处理好友请求接受消息失败: " + e.getMessage(), e);
+            AppLog.e(TAG, "处理好友请求接受消息失败: " + e.getMessage(), e);
         }
     }
 
@@ -280,13 +256,12 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
             // 获取好友的详细信息
             User friendInfo = userApi.getUserInfo(username);
             if (friendInfo == null) {
-                Log.e(TAG, "Failed to get friend info");
+                AppLog.e(TAG, "Failed to get friend info");
                 return;
             }
 
-            Log.d(TAG, "Got friend info - User: " + username 
-                + ", Nickname: " + friendInfo.getUserNickName() 
-                + ", Avatar: " + friendInfo.getUserAvatarUrl());
+            AppLog.d(TAG, "Got friend info - User: {}, Nickname: {}",
+                username, friendInfo.getUserNickName());
 
             // 在主线程中保存信息
             mainHandler.post(() -> {
@@ -295,16 +270,16 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
                     SharedPreferencesManager.getInstance().saveFriendNickname(username, friendInfo.getUserNickName());
                     SharedPreferencesManager.getInstance().setFriendAvatar(username, friendInfo.getUserAvatarUrl());
                     
-                    // 刷新好友列表
-                    FriendListFragment.refreshFriendList();
+                    // 刷新该好友的资料
+                    StateStore.getInstance().roster().publish(username);
 
-                    Log.d(TAG, "Friend info saved successfully");
+                    AppLog.d(TAG, "Friend info saved successfully");
                 } catch (Exception e) {
-                    Log.e(TAG, "Error saving friend info", e);
+                    AppLog.e(TAG, "Error saving friend info", e);
                 }
             });
         } catch (Exception e) {
-            Log.e(TAG, "Error fetching friend info", e);
+            AppLog.e(TAG, "Error fetching friend info", e);
         }
     }
 
@@ -321,7 +296,7 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
 
             // 检查参数
             if (friendUsername == null) {
-                Log.e(TAG, "Friend username is null");
+                AppLog.e(TAG, "Friend username is null");
                 return;
             }
 
@@ -339,27 +314,13 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
                 }
                 
                 if (!found) {
-                    Log.w(TAG, "Friend request not found for user: " + friendUsername);
+                    AppLog.w(TAG, "Friend request not found for user: {}", friendUsername);
                 }
             } else {
-                Log.w(TAG, "No friend requests found");
+                AppLog.w(TAG, "No friend requests found");
             }
-            
-            // 发送事通UI更新
-            EventBus.getDefault().post(new FriendRequestEvent(message));
-            
-            // 在主线程中更新UI
-            new Handler(Looper.getMainLooper()).post(() -> {
-                try {
-                    if (context instanceof NewFriendActivity) {
-                        ((NewFriendActivity) context).loadFriendRequests();
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error updating UI", e);
-                }
-            });
         } catch (Exception e) {
-            Log.e(TAG, "Error handling friend request rejected", e);
+            AppLog.e(TAG, "Error handling friend request rejected", e);
         }
     }
 
@@ -388,23 +349,8 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
                     // 清除所有相关数据
                     SharedPreferencesManager.getInstance().clearAllFriendData(friendUsername);
                     
-                    // 强制刷新好友列表数据
-                    if (context instanceof MainActivity) {
-                        MainActivity activity = (MainActivity) context;
-                        Fragment fragment = activity.getSupportFragmentManager()
-                            .findFragmentById(R.id.fragment_container);
-                        if (fragment instanceof FriendsFragment) {
-                            Fragment contactFragment = ((FriendsFragment) fragment)
-                                .getChildFragmentManager()
-                                .findFragmentById(R.id.fragment_container2);
-                            if (contactFragment instanceof ContactListFragment) {
-                                ((ContactListFragment) contactFragment).loadContacts();
-                            }
-                        }
-                    }
-                    
-                    // 发送事件通知其他界面更新
-                    EventBus.getDefault().post(new FriendDeletedEvent(friendUsername));
+                    // 通知会话列表和联系人列表移除该好友
+                    StateStore.getInstance().roster().remove(friendUsername);
                     
                     // 显示通知
                     if (!message.getUser().equals(currentUser)) {
@@ -415,13 +361,13 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
                         notificationHelper.showFriendDeletedNotification(message.getUser());
                     }
 
-                    Log.d(TAG, "Friend deleted and all data cleared - Username: " + friendUsername);
+                    AppLog.d(TAG, "Friend deleted and all data cleared - Username: {}", friendUsername);
                 } catch (Exception e) {
-                    Log.e(TAG, "Error handling friend deleted", e);
+                    AppLog.e(TAG, "Error handling friend deleted", e);
                 }
             });
         } catch (Exception e) {
-            Log.e(TAG, "Error handling friend deleted message", e);
+            AppLog.e(TAG, "Error handling friend deleted message", e);
         }
     }
 
@@ -430,7 +376,11 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
             // 如果消息是发给当前用户的
             if (message.getTargetname().equals(currentUsername)) {
                 String sender = message.getUser();
-                Log.d(TAG, "收到来自 " + sender + " 的聊天消息: " + message.getMessage());
+                if (AppLog.DEBUG) {
+                    AppLog.d(TAG, "收到来自 {} 的聊天消息: {}", sender, message.getMessage());
+                }
+                // 推送到达时间随消息转到下一次主线程任务，供聊天页统计到气泡绘制的延迟
+                long pushNanos = Metrics.getInstance().currentPushNanos();
 
                 // 在主线程中更新UI和数据
                 mainHandler.post(() -> {
@@ -441,15 +391,22 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
                         prefs.setLastMessage(sender, message.getMessage());
                         String currentTime = TimeUtils.getCurrentTime();
                         prefs.setLastMessageTime(sender, currentTime);
-                        Log.d(TAG, "更新最后一条消息: " + message.getMessage() + ", 时间: " + currentTime);
+                        if (AppLog.DEBUG) {
+                            AppLog.d(TAG, "更新最后一条消息: {}, 时间: {}", message.getMessage(), currentTime);
+                        }
 
                         // 2. 通知消息监听器
                         if (messageListener != null) {
-                            messageListener.onMessageReceived(sender, message.getMessage());
+                            Metrics.getInstance().beginPush(pushNanos);
+                            try {
+                                messageListener.onMessageReceived(sender, message.getMessage());
+                            } finally {
+                                Metrics.getInstance().endPush();
+                            }
                         }
 
-                        // 3. 发送好友列表更新事件
-                        EventBus.getDefault().post(new FriendListUpdateEvent());
+                        // 3. 通知会话列表该好友的最后一条消息已变化
+                        StateStore.getInstance().roster().publish(sender);
                         
                         // 4. 检查是否在聊天界面
                         boolean isInChatWithSender = false;
@@ -461,7 +418,9 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
                         if (!isInChatWithSender) {
                             prefs.incrementUnreadCount(sender);
                             int newCount = prefs.getUnreadMessageCount(sender);
-                            Log.d(TAG, "增加未读消息计数 " + sender + ": " + newCount);
+                            if (AppLog.DEBUG) {
+                                AppLog.d(TAG, "增加未读消息计数 {}: {}", sender, newCount);
+                            }
 
                             // 获取发送者信息并显示通知
                             String senderNickname = prefs.getFriendNickname(sender);
@@ -470,12 +429,12 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
                         }
 
                     } catch (Exception e) {
-                        Log.e(TAG, "更新UI失败: " + e.getMessage(), e);
+                        AppLog.e(TAG, "更新UI失败: " + e.getMessage(), e);
                     }
                 });
             }
         } catch (Exception e) {
-            Log.e(TAG, "处理聊天消息失败: " + e.getMessage(), e);
+            AppLog.e(TAG, "处理聊天消息失败: " + e.getMessage(), e);
         }
     }
 
@@ -493,7 +452,7 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
 
             notificationManager.notify(notificationId, builder.build());
         } catch (SecurityException e) {
-            Log.e(TAG, "显示通知失败: " + e.getMessage());
+            AppLog.e(TAG, "显示通知失败: {}", e.getMessage());
         }
     }
 
@@ -515,8 +474,12 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
         return true;
     }
 
+    /**
+     * 注销WebSocket监听并清除消息回调，持有者销毁时必须调用，否则会一直留在WebSocketService的监听列表中
+     */
     public void destroy() {
         webSocketService.removeListener(this);
+        messageListener = null;
     }
 
     public void setOnMessageReceivedListener(OnMessageReceivedListener listener) {
@@ -547,24 +510,28 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
     // WebSocketListener 接口方法
     @Override
     public void onConnected() {
-        Log.d(TAG, "WebSocket连接成功");
+        AppLog.d(TAG, "WebSocket连接成功");
     }
 
     @Override
     public void onDisconnected() {
-        Log.d(TAG, "WebSocket连接断开");
+        AppLog.d(TAG, "WebSocket连接断开");
     }
 
     @Override
     public void onMessageReceived(String message) {
         try {
-            Log.d(TAG, "收到WebSocket消息: " + message);
+            if (AppLog.DEBUG) {
+                AppLog.d(TAG, "收到WebSocket消息: {}", message);
+            }
             
             // 忽略特定的系统消息
             if (message.equals("Invalid system type.") || 
                 message.contains("Invalid") || 
                 message.trim().isEmpty()) {
-                Log.d(TAG, "忽略系统消息: " + message);
+                if (AppLog.DEBUG) {
+                    AppLog.d(TAG, "忽略系统消息: {}", message);
+                }
                 return;
             }
 
@@ -583,26 +550,30 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
                         jsonMessage.optString("message", "")
                     );
                     wsMessage.setTimestamp(System.currentTimeMillis());
+                    if (jsonMessage.has("clientId")) {
+                        wsMessage.setClientId(jsonMessage.optString("clientId", null));
+                    }
                     
-                    Log.d(TAG, "解析消息成功: type=" + wsMessage.getSystemType() + 
-                        ", from=" + wsMessage.getUser() + 
-                        ", content=" + wsMessage.getMessage());
+                    if (AppLog.DEBUG) {
+                        AppLog.d(TAG, "解析消息成功: type={}, from={}",
+                            wsMessage.getSystemType(), wsMessage.getUser());
+                    }
 
                     handleReceivedMessage(wsMessage);
                 } else {
-                    Log.w(TAG, "消息格式不完整: " + message);
+                    AppLog.w(TAG, "消息格式不完整: {}", message);
                 }
             } catch (JSONException e) {
-                Log.e(TAG, "JSON解析失败: " + e.getMessage());
+                AppLog.e(TAG, "JSON解析失败: {}", e.getMessage());
             }
         } catch (Exception e) {
-            Log.e(TAG, "消息处理失败: " + e.getMessage(), e);
+            AppLog.e(TAG, "消息处理失败: " + e.getMessage(), e);
         }
     }
 
     @Override
     public void onError(String error) {
-        Log.e(TAG, "WebSocket错误: " + error);
+        AppLog.e(TAG, "WebSocket错误: {}", error);
     }
 
     // 添加处理强制下线的方法
@@ -634,7 +605,7 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
                         .show();
                 }
             } catch (Exception e) {
-                Log.e(TAG, "处理强制下线失败", e);
+                AppLog.e(TAG, "处理强制下线失败", e);
             }
         });
     }
@@ -673,10 +644,12 @@ public class MessageHandlerImpl extends BaseMessageHandler implements MessageHan
     protected void sendWebSocketMessage(WebSocketMessage message) {
         try {
             String jsonMessage = gson.toJson(message);
-            Log.d(TAG, "发送WebSocket消息: " + jsonMessage);  // 添加日志
+            if (AppLog.DEBUG) {
+                AppLog.d(TAG, "发送WebSocket消息: {}", jsonMessage);
+            }
             webSocketService.sendMessage(jsonMessage);
         } catch (Exception e) {
-            Log.e(TAG, "发送消息失败: " + e.getMessage(), e);
+            AppLog.e(TAG, "发送消息失败: " + e.getMessage(), e);
         }
     }
 }
\ No newline at end of file
@@ -1,22 +1,26 @@
 package com.example.qq.handler.impl;
 
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
 
 import com.example.qq.constant.MessageType;
 import com.example.qq.domain.WebSocketMessage;
-import com.example.qq.event.FriendListUpdateEvent;
-import com.example.qq.fragment.FriendListFragment;
+import com.example.qq.executor.AppExecutors;
+import com.example.qq.executor.Throttler;
+import com.example.qq.metrics.Metrics;
+import com.example.qq.state.StateStore;
 import com.example.qq.utils.SharedPreferencesManager;
 
-import org.greenrobot.eventbus.EventBus;
-
 public class MessageProcessor {
     private static final String TAG = "MessageProcessor";
+    /** 好友接受后刷新列表前等待服务器数据更新的时间 */
+    private static final long FRIEND_ACCEPT_REFRESH_DELAY = 1000;
+    /**
+     * 延迟刷新合并，所有 MessageHandlerImpl 实例共用，
+     * 多个页面同时监听WebSocket时同一事件只触发一次
+     */
+    private static final Throttler UI_EVENTS = new Throttler(AppExecutors.getInstance().main());
     private final MessageHandlerImpl messageHandler;
     private final NotificationHelper notificationHelper;
-    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     public MessageProcessor(MessageHandlerImpl messageHandler, NotificationHelper notificationHelper) {
         this.messageHandler = messageHandler;
@@ -24,11 +28,12 @@ public class MessageProcessor {
     }
 
     public void processMessage(WebSocketMessage message) {
+        long start = System.nanoTime();
+        int messageType = message.getSystemType();
         try {
-            int messageType = message.getSystemType();
             Log.d(TAG, "处理消息: type=" + messageType);
 
-            if (messageType == MessageType.CHAT.getValue()) {
+            if (messageType == MessageType.CHAT.getValue() || messageType == MessageType.IMAGE.getValue()) {
                 Log.d(TAG, "处理聊天消息");
                 messageHandler.handleChatMessage(message);
             } else if (messageType == MessageType.FRIEND_REQUEST.getValue()) {
@@ -38,28 +43,17 @@ public class MessageProcessor {
                 Log.d(TAG, "处理好友请求接受");
                 messageHandler.handleFriendRequestAccepted(message);
 
-                // 延迟一点时间后刷新，确保服务器数据已更新
-                mainHandler.postDelayed(() -> {
-                    try {
-                        // 先发送事件
-                        EventBus.getDefault().post(new FriendListUpdateEvent());
-
-                        // 直接调用刷新
-                        FriendListFragment.refreshFriendList();
-
-                        // 强制清除缓存
-                        SharedPreferencesManager.getInstance().clearFriendListCache();
-
-                        Log.d(TAG, "已触发好友列表刷新");
-                    } catch (Exception e) {
-                        Log.e(TAG, "刷新好友列表失败: " + e.getMessage(), e);
-                    }
-                }, 1000); // 延迟1秒执行
+                // 延迟一点时间后刷新，确保服务器数据已更新；连续的接受消息只刷新一次
+                UI_EVENTS.debounce("friend-accept-refresh", FRIEND_ACCEPT_REFRESH_DELAY, () -> {
+                    // 强制清除缓存
+                    SharedPreferencesManager.getInstance().clearFriendListCache();
+                    StateStore.getInstance().roster().invalidate();
+                    Log.d(TAG, "已触发好友列表刷新");
+                });
 
             } else if (messageType == MessageType.FRIEND_DELETED.getValue()) {
                 Log.d(TAG, "处理好友删除");
                 messageHandler.handleFriendDeleted(message);
-                EventBus.getDefault().post(new FriendListUpdateEvent());
             } else if (messageType == MessageType.FRIEND_REJECT.getValue()) {
                 Log.d(TAG, "处理好友请求拒绝");
                 messageHandler.handleFriendRequestRejected(message);
@@ -69,11 +63,18 @@ public class MessageProcessor {
             } else if (messageType == MessageType.ONLINE_CHECK.getValue()) {
                 Log.d(TAG, "处理在线检测");
                 messageHandler.handleOnlineCheck(message);
+            } else if (messageType == MessageType.MESSAGE_ACK.getValue()) {
+                String clientId = message.getClientId() != null ? message.getClientId() : message.getMessage();
+                Log.d(TAG, "处理消息确认回执: " + clientId);
+                MessageSender.getInstance().onAck(clientId);
             } else {
                 Log.w(TAG, "未知的消息类型: " + messageType);
             }
         } catch (Exception e) {
             Log.e(TAG, "处理消息失败: " + e.getMessage(), e);
+            Metrics.getInstance().counter("processor.failed").increment();
+        } finally {
+            Metrics.getInstance().histogram("processor.type_" + messageType).recordSince(start);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,206 @@
+package com.example.qq.handler.impl;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.qq.api.messageapi.MessageApi;
+import com.example.qq.api.messageapi.impl.MessageApiImpl;
+import com.example.qq.constant.MessageType;
+import com.example.qq.domain.ChatMessage;
+import com.example.qq.domain.WebSocketMessage;
+import com.example.qq.executor.AppExecutors;
+import com.example.qq.executor.TaskPriority;
+import com.example.qq.utils.GsonProvider;
+import com.example.qq.utils.SharedPreferencesManager;
+import com.example.qq.websocket.impl.WebSocketServiceImpl;
+import com.google.gson.Gson;
+
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * 聊天消息发送器
+ * 负责乐观发送聊天消息，包括：
+ * - 消息先以"发送中"状态显示，不等待网络
+ * - WebSocket已连接时立即推送给对方，同时通过HTTP POST /addmessage 持久化，
+ *   持久化成功或收到服务器确认回执（MESSAGE_ACK）即为已发送
+ * - 服务器目前不发送回执，因此不等待回执再持久化，避免等待期间进程被杀导致消息丢失
+ * - 每条消息携带客户端消息ID，重试时服务器据此去重；
+ *   重试只重新 POST，不再经WebSocket推送，首次推送可能已送达，再推送会让对方看到重复消息
+ * - 状态变化（发送中 -> 已发送/失败）写回本地缓存并通知界面
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public class MessageSender {
+    private static final String TAG = "MessageSender";
+
+    /**
+     * 发送状态监听器
+     */
+    public interface OnStatusChangedListener {
+        /**
+         * 消息发送状态变化时在主线程回调
+         * @param message 状态已更新的消息
+         */
+        void onStatusChanged(ChatMessage message);
+    }
+
+    /** 单例实例 */
+    private static MessageSender instance;
+
+    /** 客户端消息ID -> 发送中的消息 */
+    private final Map<String, ChatMessage> pending = new ConcurrentHashMap<>();
+    private final CopyOnWriteArraySet<OnStatusChangedListener> listeners = new CopyOnWriteArraySet<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Gson gson = GsonProvider.get();
+    private final MessageApi messageApi = new MessageApiImpl();
+
+    private MessageSender() {
+    }
+
+    /**
+     * 获取MessageSender的单例实例
+     * @return MessageSender实例
+     */
+    public static synchronized MessageSender getInstance() {
+        if (instance == null) {
+            instance = new MessageSender();
+        }
+        return instance;
+    }
+
+    /**
+     * 生成客户端消息ID
+     * @return 新的客户端消息ID
+     */
+    public static String newClientId() {
+        return UUID.randomUUID().toString();
+    }
+
+    public void addListener(OnStatusChangedListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(OnStatusChangedListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 消息是否仍在发送中
+     * @param clientId 客户端消息ID
+     * @return 发送中返回true
+     */
+    public boolean isPending(String clientId) {
+        return clientId != null && pending.containsKey(clientId);
+    }
+
+    /**
+     * 发送聊天消息（主线程调用）
+     * 消息需已设置clientId；重试失败消息时沿用原clientId
+     * @param message 要发送的消息
+     */
+    public void send(ChatMessage message) {
+        if (message.getClientId() == null) {
+            message.setClientId(newClientId());
+        }
+        String clientId = message.getClientId();
+        if (pending.putIfAbsent(clientId, message) != null) {
+            // 已在发送中，忽略重复请求
+            return;
+        }
+        message.setStatus(ChatMessage.STATUS_SENDING);
+
+        WebSocketServiceImpl webSocketService = WebSocketServiceImpl.getInstance();
+        if (webSocketService.isOpen()) {
+            WebSocketMessage wsMessage = new WebSocketMessage(
+                message.isImage() ? MessageType.IMAGE.getValue() : MessageType.CHAT.getValue(),
+                message.getSender(),
+                message.getReceiver(),
+                message.getContent()
+            );
+            wsMessage.setClientId(clientId);
+            webSocketService.sendMessage(gson.toJson(wsMessage));
+        } else {
+            Log.d(TAG, "WebSocket未连接，只通过HTTP发送: " + clientId);
+        }
+        sendViaHttp(clientId);
+    }
+
+    /**
+     * 重新发送失败的消息（主线程调用），沿用原clientId，只通过HTTP持久化
+     * @param message 发送失败的消息
+     */
+    public void resend(ChatMessage message) {
+        String clientId = message.getClientId();
+        if (clientId == null) {
+            send(message);
+            return;
+        }
+        if (pending.putIfAbsent(clientId, message) != null) {
+            return;
+        }
+        message.setStatus(ChatMessage.STATUS_SENDING);
+        sendViaHttp(clientId);
+    }
+
+    /**
+     * 处理服务器确认回执，回执先于HTTP结果到达时提前标记为已发送
+     * 多个MessageHandlerImpl实例可能重复回调，按clientId幂等处理
+     * @param clientId 客户端消息ID
+     */
+    public void onAck(String clientId) {
+        if (clientId == null) {
+            return;
+        }
+        complete(clientId, ChatMessage.STATUS_SENT);
+    }
+
+    /**
+     * 通过HTTP持久化（后台线程），请求体携带clientId供服务器去重
+     */
+    private void sendViaHttp(String clientId) {
+        ChatMessage message = pending.get(clientId);
+        if (message == null) {
+            return;
+        }
+        AppExecutors.getInstance().io().execute(TaskPriority.INTERACTIVE, () -> {
+            boolean success;
+            try {
+                JSONObject json = new JSONObject();
+                json.put("sender", message.getSender());
+                json.put("receiver", message.getReceiver());
+                json.put("content", message.getContent());
+                json.put("clientId", clientId);
+                success = messageApi.sendMessage(json.toString());
+            } catch (Exception e) {
+                Log.e(TAG, "HTTP发送消息失败: " + e.getMessage());
+                success = false;
+            }
+            complete(clientId, success ? ChatMessage.STATUS_SENT : ChatMessage.STATUS_FAILED);
+        });
+    }
+
+    /**
+     * 结束发送：更新状态、写回缓存并在主线程通知界面
+     */
+    private void complete(String clientId, int status) {
+        ChatMessage message = pending.remove(clientId);
+        if (message == null) {
+            return;
+        }
+        SharedPreferencesManager.getInstance()
+            .updateCachedMessageStatus(message.getReceiver(), clientId, status);
+        mainHandler.post(() -> {
+            message.setStatus(status);
+            for (OnStatusChangedListener listener : listeners) {
+                listener.onStatusChanged(message);
+            }
+        });
+    }
+}
@@ -8,25 +8,18 @@ import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
-import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.util.Log;
 
-import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
 import androidx.core.app.ActivityCompat;
 import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
 import androidx.core.content.ContextCompat;
 
-import com.bumptech.glide.Glide;
-import com.bumptech.glide.request.target.CustomTarget;
-import com.bumptech.glide.request.transition.Transition;
 import com.example.qq.R;
-import com.example.qq.activity.ChatActivity;
 import com.example.qq.activity.NewFriendActivity;
 import com.example.qq.domain.FriendRequest;
+import com.example.qq.domain.ImagePayload;
 import com.example.qq.domain.WebSocketMessage;
 
 /**
@@ -44,7 +37,7 @@ public class NotificationHelper {
     /** 好友请求通知渠道ID */
     private static final String FRIEND_REQUEST_CHANNEL_ID = "friend_requests";
     /** 聊天消息通知渠道ID */
-    private static final String CHAT_CHANNEL_ID = "chat_messages";
+    static final String CHAT_CHANNEL_ID = "chat_messages";
     /** 好友请求通知ID */
     private static final int FRIEND_REQUEST_NOTIFICATION_ID = 1001;
     
@@ -139,6 +132,7 @@ public class NotificationHelper {
 
     /**
      * 显示聊天消息通知
+     * 交由 {@link ChatNotificationAggregator} 按会话合并后统一刷新
      * @param message WebSocket消息对象
      * @param senderNickname 发送者昵称
      * @param senderAvatar 发送者头像URL
@@ -151,59 +145,17 @@ public class NotificationHelper {
 
         String sender = message.getUser();
         String displayName = senderNickname != null ? senderNickname : sender;
+        long timestamp = message.getTimestamp() > 0 ? message.getTimestamp() : System.currentTimeMillis();
+        ChatNotificationAggregator.getInstance(context)
+            .add(sender, displayName, senderAvatar, ImagePayload.previewOf(message.getMessage()), timestamp);
+    }
 
-        // 创建通知意图
-        Intent intent = new Intent(context, ChatActivity.class);
-        intent.putExtra("friend_username", sender);
-        intent.putExtra("friend_nickname", displayName);
-        intent.putExtra("friend_avatar", senderAvatar);
-        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
-
-        int requestCode = sender.hashCode();
-        PendingIntent pendingIntent = PendingIntent.getActivity(
-            context,
-            requestCode,
-            intent,
-            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE
-        );
-
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHAT_CHANNEL_ID)
-            .setSmallIcon(R.drawable.ic_notification)
-            .setContentTitle(displayName)
-            .setContentText(message.getMessage())
-            .setAutoCancel(true)
-            .setContentIntent(pendingIntent)
-            .setPriority(NotificationCompat.PRIORITY_HIGH)
-            .setCategory(NotificationCompat.CATEGORY_MESSAGE)
-            .setDefaults(NotificationCompat.DEFAULT_ALL);
-
-        if (senderAvatar != null && !senderAvatar.isEmpty()) {
-            Glide.with(context.getApplicationContext())
-                .asBitmap()
-                .load(senderAvatar)
-                .circleCrop()
-                .into(new CustomTarget<Bitmap>(128, 128) {
-                    @Override
-                    public void onResourceReady(@NonNull Bitmap resource, 
-                            @Nullable Transition<? super Bitmap> transition) {
-                        builder.setLargeIcon(resource)
-                            .setStyle(new NotificationCompat.BigTextStyle()
-                                .bigText(message.getMessage())
-                                .setBigContentTitle(displayName));
-                        showNotification(builder, requestCode);
-                    }
-
-                    @Override
-                    public void onLoadCleared(@Nullable Drawable placeholder) {
-                        showNotification(builder, requestCode);
-                    }
-                });
-        } else {
-            builder.setStyle(new NotificationCompat.BigTextStyle()
-                .bigText(message.getMessage())
-                .setBigContentTitle(displayName));
-            showNotification(builder, requestCode);
-        }
+    /**
+     * 取消某个好友的聊天通知
+     * @param sender 好友用户名
+     */
+    public void cancelChatNotification(String sender) {
+        ChatNotificationAggregator.getInstance(context).cancel(sender);
     }
 
     /**
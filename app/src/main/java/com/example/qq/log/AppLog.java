@@ -0,0 +1,280 @@
+package com.example.qq.log;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.util.Log;
+
+import com.example.qq.BuildConfig;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * 日志门面
+ * 取代热点路径上直接拼接字符串的 android.util.Log 调用：
+ * - 级别判断在最前面，关闭的级别只有一次比较，不拼接字符串；不超过两个参数的重载也不创建参数数组，
+ *   热点路径应优先使用
+ * - 消息使用 {} 占位符，参数在确定输出时才格式化，单个参数过长时截断（如带内联缩略图的消息）
+ * - 调试版输出 DEBUG 及以上到logcat；发布版只输出 WARN 及以上，INFO 及以上写入内存环形缓冲区，
+ *   崩溃时与堆栈一起导出到 files/crash，便于排查又不刷屏
+ * - 热点路径上的 v/d 调用包在 if (AppLog.DEBUG) 中：发布版的 DEBUG 是编译期常量 false，
+ *   javac 直接删除整个调用，连同参数计算和基本类型装箱；发布版开启混淆后 proguard-rules.pro 还会移除其余的 v/d 调用
+ * 最后一个参数是未被占位符使用的 Throwable 时附加其堆栈
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class AppLog {
+    /**
+     * 是否调试版，发布版为编译期常量 false，用于包住热点路径上的 v/d 调用
+     */
+    public static final boolean DEBUG = BuildConfig.DEBUG;
+
+    private static final String CRASH_DIR = "crash";
+    private static final int BUFFER_CAPACITY = 512;
+    /** 单个参数格式化后的最大长度 */
+    private static final int MAX_ARG_LENGTH = 1024;
+
+    private static final LogBuffer buffer = new LogBuffer(BUFFER_CAPACITY);
+    private static volatile int logcatLevel = Log.DEBUG;
+    private static volatile int bufferLevel = Log.INFO;
+    /** logcat 和缓冲区中较低的级别，低于它的调用直接返回 */
+    private static volatile int minLevel = Log.DEBUG;
+
+    private AppLog() {
+    }
+
+    /**
+     * 按构建类型设置级别并安装崩溃日志处理器，应在 Application.onCreate 中最先调用
+     * @param context 上下文
+     */
+    public static void init(Context context) {
+        Context appContext = context.getApplicationContext();
+        boolean debuggable = (appContext.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        if (debuggable) {
+            setLevels(Log.DEBUG, Log.DEBUG);
+        } else {
+            setLevels(Log.WARN, Log.INFO);
+        }
+        installCrashHandler(appContext);
+    }
+
+    /**
+     * 设置输出级别
+     * @param logcat 输出到logcat的最低级别
+     * @param ring 写入环形缓冲区的最低级别，传入 Integer.MAX_VALUE 关闭缓冲区
+     */
+    public static void setLevels(int logcat, int ring) {
+        logcatLevel = logcat;
+        bufferLevel = ring;
+        minLevel = Math.min(logcat, ring);
+    }
+
+    /**
+     * 某个级别是否会输出，用于包住需要额外计算才能得到参数的日志
+     */
+    public static boolean isLoggable(int level) {
+        return level >= minLevel;
+    }
+
+    public static void v(String tag, String message) {
+        if (Log.VERBOSE < minLevel) return;
+        write(Log.VERBOSE, tag, message, null);
+    }
+
+    public static void v(String tag, String format, Object arg) {
+        if (Log.VERBOSE < minLevel) return;
+        log(Log.VERBOSE, tag, format, new Object[] {arg});
+    }
+
+    public static void v(String tag, String format, Object arg1, Object arg2) {
+        if (Log.VERBOSE < minLevel) return;
+        log(Log.VERBOSE, tag, format, new Object[] {arg1, arg2});
+    }
+
+    public static void v(String tag, String format, Object... args) {
+        if (Log.VERBOSE < minLevel) return;
+        log(Log.VERBOSE, tag, format, args);
+    }
+
+    public static void d(String tag, String message) {
+        if (Log.DEBUG < minLevel) return;
+        write(Log.DEBUG, tag, message, null);
+    }
+
+    public static void d(String tag, String format, Object arg) {
+        if (Log.DEBUG < minLevel) return;
+        log(Log.DEBUG, tag, format, new Object[] {arg});
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2) {
+        if (Log.DEBUG < minLevel) return;
+        log(Log.DEBUG, tag, format, new Object[] {arg1, arg2});
+    }
+
+    public static void d(String tag, String format, Object... args) {
+        if (Log.DEBUG < minLevel) return;
+        log(Log.DEBUG, tag, format, args);
+    }
+
+    public static void i(String tag, String message) {
+        if (Log.INFO < minLevel) return;
+        write(Log.INFO, tag, message, null);
+    }
+
+    public static void i(String tag, String format, Object arg) {
+        if (Log.INFO < minLevel) return;
+        log(Log.INFO, tag, format, new Object[] {arg});
+    }
+
+    public static void i(String tag, String format, Object arg1, Object arg2) {
+        if (Log.INFO < minLevel) return;
+        log(Log.INFO, tag, format, new Object[] {arg1, arg2});
+    }
+
+    public static void i(String tag, String format, Object... args) {
+        if (Log.INFO < minLevel) return;
+        log(Log.INFO, tag, format, args);
+    }
+
+    public static void w(String tag, String message) {
+        if (Log.WARN < minLevel) return;
+        write(Log.WARN, tag, message, null);
+    }
+
+    public static void w(String tag, String message, Throwable throwable) {
+        if (Log.WARN < minLevel) return;
+        write(Log.WARN, tag, message, throwable);
+    }
+
+    public static void w(String tag, String format, Object arg) {
+        if (Log.WARN < minLevel) return;
+        log(Log.WARN, tag, format, new Object[] {arg});
+    }
+
+    public static void w(String tag, String format, Object arg1, Object arg2) {
+        if (Log.WARN < minLevel) return;
+        log(Log.WARN, tag, format, new Object[] {arg1, arg2});
+    }
+
+    public static void w(String tag, String format, Object... args) {
+        if (Log.WARN < minLevel) return;
+        log(Log.WARN, tag, format, args);
+    }
+
+    public static void e(String tag, String message) {
+        if (Log.ERROR < minLevel) return;
+        write(Log.ERROR, tag, message, null);
+    }
+
+    public static void e(String tag, String message, Throwable throwable) {
+        if (Log.ERROR < minLevel) return;
+        write(Log.ERROR, tag, message, throwable);
+    }
+
+    public static void e(String tag, String format, Object arg) {
+        if (Log.ERROR < minLevel) return;
+        log(Log.ERROR, tag, format, new Object[] {arg});
+    }
+
+    public static void e(String tag, String format, Object arg1, Object arg2) {
+        if (Log.ERROR < minLevel) return;
+        log(Log.ERROR, tag, format, new Object[] {arg1, arg2});
+    }
+
+    public static void e(String tag, String format, Object... args) {
+        if (Log.ERROR < minLevel) return;
+        log(Log.ERROR, tag, format, args);
+    }
+
+    /**
+     * 按时间顺序写出环形缓冲区中的日志
+     * @param writer 输出
+     * @throws IOException 写入失败
+     */
+    public static void dumpBuffer(Writer writer) throws IOException {
+        buffer.writeTo(writer);
+    }
+
+    private static void log(int level, String tag, String format, Object[] args) {
+        StringBuilder sb = new StringBuilder(format.length() + 32 * args.length);
+        int argIndex = 0;
+        int start = 0;
+        int placeholder;
+        while ((placeholder = format.indexOf("{}", start)) >= 0) {
+            sb.append(format, start, placeholder);
+            if (argIndex < args.length) {
+                appendArg(sb, args[argIndex++]);
+            } else {
+                sb.append("{}");
+            }
+            start = placeholder + 2;
+        }
+        sb.append(format, start, format.length());
+        Throwable throwable = null;
+        if (argIndex < args.length && args[args.length - 1] instanceof Throwable) {
+            throwable = (Throwable) args[args.length - 1];
+        }
+        write(level, tag, sb.toString(), throwable);
+    }
+
+    private static void appendArg(StringBuilder sb, Object arg) {
+        String value = String.valueOf(arg);
+        if (value.length() <= MAX_ARG_LENGTH) {
+            sb.append(value);
+        } else {
+            sb.append(value, 0, MAX_ARG_LENGTH)
+                .append("...(共").append(value.length()).append("字符)");
+        }
+    }
+
+    private static void write(int level, String tag, String message, Throwable throwable) {
+        if (level >= logcatLevel) {
+            if (throwable != null) {
+                Log.println(level, tag, message + '\n' + Log.getStackTraceString(throwable));
+            } else {
+                Log.println(level, tag, message);
+            }
+        }
+        if (level >= bufferLevel) {
+            buffer.add(level, tag, throwable != null
+                ? message + '\n' + Log.getStackTraceString(throwable) : message);
+        }
+    }
+
+    /**
+     * 未捕获异常时把环形缓冲区和堆栈写入 files/crash，再交给原来的处理器
+     */
+    private static void installCrashHandler(Context context) {
+        Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, throwable) -> {
+            try {
+                writeCrashReport(context, thread, throwable);
+            } catch (Throwable t) {
+                Log.e("AppLog", "写入崩溃日志失败", t);
+            }
+            if (previous != null) {
+                previous.uncaughtException(thread, throwable);
+            }
+        });
+    }
+
+    private static void writeCrashReport(Context context, Thread thread, Throwable throwable) throws IOException {
+        File dir = new File(context.getFilesDir(), CRASH_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("无法创建目录: " + dir);
+        }
+        String timeStamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        try (Writer writer = new FileWriter(new File(dir, "crash-" + timeStamp + ".txt"))) {
+            writer.write("线程: " + thread.getName() + '\n');
+            writer.write(Log.getStackTraceString(throwable));
+            writer.write("\n最近日志:\n");
+            buffer.writeTo(writer);
+        }
+    }
+}
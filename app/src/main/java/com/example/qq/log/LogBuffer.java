@@ -0,0 +1,91 @@
+package com.example.qq.log;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * 日志环形缓冲区
+ * 固定容量，写满后覆盖最旧的记录，崩溃时随报告导出最近的日志，代替在logcat中保留大量输出
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+final class LogBuffer {
+    private final long[] times;
+    private final int[] levels;
+    private final String[] tags;
+    private final String[] messages;
+    /** 下一条写入的位置和已写入总数，由 this 保护 */
+    private int next;
+    private long written;
+
+    LogBuffer(int capacity) {
+        times = new long[capacity];
+        levels = new int[capacity];
+        tags = new String[capacity];
+        messages = new String[capacity];
+    }
+
+    synchronized void add(int level, String tag, String message) {
+        times[next] = System.currentTimeMillis();
+        levels[next] = level;
+        tags[next] = tag;
+        messages[next] = message;
+        next = (next + 1) % times.length;
+        written++;
+    }
+
+    /**
+     * 按时间顺序写出缓冲区中的记录
+     * @param writer 输出
+     * @throws IOException 写入失败
+     */
+    void writeTo(Writer writer) throws IOException {
+        long[] timesCopy;
+        int[] levelsCopy;
+        String[] tagsCopy;
+        String[] messagesCopy;
+        int start;
+        int size;
+        long dropped;
+        synchronized (this) {
+            timesCopy = times.clone();
+            levelsCopy = levels.clone();
+            tagsCopy = tags.clone();
+            messagesCopy = messages.clone();
+            size = (int) Math.min(written, times.length);
+            start = written > times.length ? next : 0;
+            dropped = written - size;
+        }
+        if (dropped > 0) {
+            writer.write("... 更早的 " + dropped + " 条已覆盖\n");
+        }
+        SimpleDateFormat format = new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.US);
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % timesCopy.length;
+            writer.write(format.format(new Date(timesCopy[index])));
+            writer.write(' ');
+            writer.write(levelName(levelsCopy[index]));
+            writer.write('/');
+            writer.write(tagsCopy[index]);
+            writer.write(": ");
+            writer.write(messagesCopy[index]);
+            writer.write('\n');
+        }
+    }
+
+    private static String levelName(int level) {
+        switch (level) {
+            case Log.VERBOSE: return "V";
+            case Log.DEBUG: return "D";
+            case Log.INFO: return "I";
+            case Log.WARN: return "W";
+            default: return "E";
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.qq.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 计数器
+ * 基于 LongAdder，多线程频繁累加时没有竞争
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class Counter {
+    private final String name;
+    private final LongAdder value = new LongAdder();
+
+    Counter(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long delta) {
+        value.add(delta);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+    void reset() {
+        value.reset();
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.qq.metrics;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 应用内指标注册表
+ * 计数器、仪表（读取时求值）和延迟直方图按名称注册，同名返回同一实例，可在任意线程使用；
+ * 直方图内存固定，常驻也不会增长。名称按阶段分组：
+ * - ws.*：WebSocket 收到消息到主线程分发
+ * - processor.*：MessageProcessor 按消息类型的处理耗时
+ * - http.*：RequestManager 按接口的请求耗时（到收到响应头）
+ * - storage.*：本地存储写入耗时
+ * - pipeline.push_to_bubble：推送到达到聊天气泡绘制完成
+ * 通过 {@link #dump()} 输出到日志或 {@link #export(Context)} 导出文件查看 p50/p95/p99
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class Metrics {
+    private static final String TAG = "Metrics";
+    private static final String EXPORT_DIR = "metrics";
+
+    /** 单例实例 */
+    private static Metrics instance;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /** 主线程正在分发的推送消息到达时间，只在主线程访问 */
+    private long currentPushNanos;
+
+    private Metrics() {
+    }
+
+    /**
+     * 获取Metrics的单例实例
+     * @return Metrics实例
+     */
+    public static synchronized Metrics getInstance() {
+        if (instance == null) {
+            instance = new Metrics();
+        }
+        return instance;
+    }
+
+    /**
+     * 获取或创建计数器
+     * @param name 名称
+     */
+    public Counter counter(String name) {
+        Counter counter = counters.get(name);
+        return counter != null ? counter : counters.computeIfAbsent(name, Counter::new);
+    }
+
+    /**
+     * 注册仪表，导出时调用 supplier 读取当前值，同名覆盖
+     * @param name 名称
+     * @param supplier 取值函数，应当轻量且线程安全
+     */
+    public void gauge(String name, LongSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    /**
+     * 获取或创建延迟直方图
+     * @param name 名称
+     */
+    public LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        return histogram != null ? histogram : histograms.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    /**
+     * 标记主线程开始分发一条推送消息，分发期间的监听者可通过 {@link #currentPushNanos()} 取到到达时间
+     * @param receivedNanos 消息到达时间，来自 {@link System#nanoTime()}
+     */
+    public void beginPush(long receivedNanos) {
+        currentPushNanos = receivedNanos;
+    }
+
+    /**
+     * 标记推送消息分发结束
+     */
+    public void endPush() {
+        currentPushNanos = 0;
+    }
+
+    /**
+     * 主线程当前分发的推送消息到达时间
+     * @return 到达时间，不在分发过程中时返回0
+     */
+    public long currentPushNanos() {
+        return currentPushNanos;
+    }
+
+    /**
+     * 清空所有计数器和直方图，仪表保留
+     */
+    public void reset() {
+        for (Counter counter : counters.values()) {
+            counter.reset();
+        }
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * 按名称排序的全部指标文本
+     */
+    public List<String> report() {
+        List<String> lines = new ArrayList<>();
+        lines.add("# histograms");
+        for (LatencyHistogram histogram : new TreeMap<>(histograms).values()) {
+            lines.add(histogram.snapshot().toString());
+        }
+        lines.add("# counters");
+        for (Map.Entry<String, Counter> entry : new TreeMap<>(counters).entrySet()) {
+            lines.add(entry.getKey() + ": " + entry.getValue().get());
+        }
+        lines.add("# gauges");
+        for (Map.Entry<String, LongSupplier> entry : new TreeMap<>(gauges).entrySet()) {
+            String value;
+            try {
+                value = String.valueOf(entry.getValue().getAsLong());
+            } catch (RuntimeException e) {
+                value = "error: " + e.getMessage();
+            }
+            lines.add(entry.getKey() + ": " + value);
+        }
+        return lines;
+    }
+
+    /**
+     * 输出全部指标到日志
+     */
+    public void dump() {
+        for (String line : report()) {
+            Log.i(TAG, line);
+        }
+    }
+
+    /**
+     * 导出全部指标到应用私有目录 files/metrics 下，涉及磁盘写入，应在io通道调用
+     * @param context 上下文
+     * @return 导出的文件
+     * @throws IOException 写入失败
+     */
+    public File export(Context context) throws IOException {
+        File dir = new File(context.getFilesDir(), EXPORT_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("无法创建目录: " + dir);
+        }
+        String timeStamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        File file = new File(dir, "metrics-" + timeStamp + ".txt");
+        try (Writer writer = new FileWriter(file)) {
+            for (String line : report()) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+        Log.i(TAG, "指标已导出: " + file.getAbsolutePath());
+        return file;
+    }
+}
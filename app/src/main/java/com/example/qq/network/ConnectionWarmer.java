@@ -0,0 +1,84 @@
+package com.example.qq.network;
+
+import com.example.qq.executor.AppExecutors;
+import com.example.qq.executor.TaskPriority;
+import com.example.qq.log.AppLog;
+import com.example.qq.metrics.Metrics;
+
+import java.io.IOException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 接口域名的连接预热
+ * 在启动页或登录页显示期间完成DNS解析和TCP/TLS握手（含ALPN协商HTTP/2），
+ * 建立的连接放入共享连接池，之后的首个接口请求直接复用；
+ * DNS结果同时进入系统解析缓存，同域名的WebSocket握手也能受益
+ *
+ * 在连接保活时间内重复调用不会重复预热，预热失败不影响后续请求
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class ConnectionWarmer {
+    private static final String TAG = "ConnectionWarmer";
+    /** 预热有效期，略短于连接池的保活时间 */
+    private static final long WARM_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(4);
+
+    private static final AtomicBoolean running = new AtomicBoolean();
+    private static volatile long lastWarmNanos;
+    private static volatile boolean warmed;
+
+    private ConnectionWarmer() {
+    }
+
+    /**
+     * 在io通道以后台优先级预热，立即返回
+     */
+    public static void warmUp() {
+        if (warmed && System.nanoTime() - lastWarmNanos < WARM_WINDOW_NANOS) {
+            return;
+        }
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        // io 通道队列已满时会丢弃并取消排在最后的后台任务，done() 在执行完或被取消后都会调用
+        AppExecutors.getInstance().io().execute(TaskPriority.BACKGROUND,
+            new FutureTask<Void>(ConnectionWarmer::warm, null) {
+                @Override
+                protected void done() {
+                    running.set(false);
+                }
+            });
+    }
+
+    private static void warm() {
+        OkHttpClient client = RequestManager.getClient();
+        HttpUrl url = HttpUrl.get(RequestManager.getBaseUrl());
+        Metrics metrics = Metrics.getInstance();
+        long start = System.nanoTime();
+        try {
+            client.dns().lookup(url.host());
+            metrics.histogram("http.warmup.dns").recordSince(start);
+
+            // 任意响应都说明连接已建立，HEAD 没有响应体，关闭后连接回到连接池
+            long connectStart = System.nanoTime();
+            Request request = new Request.Builder().url(url).head().build();
+            try (Response response = client.newCall(request).execute()) {
+                metrics.histogram("http.warmup.connect").recordSince(connectStart);
+                AppLog.d(TAG, "连接预热完成: {} {}", response.protocol(), response.code());
+            }
+            lastWarmNanos = System.nanoTime();
+            warmed = true;
+        } catch (IOException e) {
+            metrics.counter("http.warmup.failed").increment();
+            AppLog.d(TAG, "连接预热失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.qq.network;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import com.example.qq.log.AppLog;
+import com.example.qq.metrics.Metrics;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 网络状态监视器
+ * 通过 registerDefaultNetworkCallback 跟踪默认网络，状态保存在内存快照中，
+ * 请求前检查网络、WebSocket 重连判断等读取快照没有 Binder 调用；
+ * 连接、传输类型、计费、验证状态变化时在主线程通知监听者，带宽估计的波动只更新快照不通知
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class ConnectivityMonitor {
+    private static final String TAG = "ConnectivityMonitor";
+
+    /**
+     * 传输类型
+     */
+    public enum Transport {
+        NONE,
+        WIFI,
+        CELLULAR,
+        ETHERNET,
+        OTHER
+    }
+
+    /**
+     * 网络状态快照（不可变）
+     */
+    public static final class Snapshot {
+        /** 尚未开始监视时的状态，按可用处理，由请求自身的失败说明问题 */
+        static final Snapshot UNKNOWN = new Snapshot(true, Transport.OTHER, true, false, 0, 0);
+        static final Snapshot OFFLINE = new Snapshot(false, Transport.NONE, true, false, 0, 0);
+
+        public final boolean connected;
+        public final Transport transport;
+        /** 是否按流量计费 */
+        public final boolean metered;
+        /** 系统是否已验证可以访问互联网（排除需要登录的WiFi等） */
+        public final boolean validated;
+        /** 系统估计的上下行带宽（kbps），未知时为0 */
+        public final int downstreamKbps;
+        public final int upstreamKbps;
+
+        Snapshot(boolean connected, Transport transport, boolean metered, boolean validated,
+                 int downstreamKbps, int upstreamKbps) {
+            this.connected = connected;
+            this.transport = transport;
+            this.metered = metered;
+            this.validated = validated;
+            this.downstreamKbps = downstreamKbps;
+            this.upstreamKbps = upstreamKbps;
+        }
+
+        static Snapshot of(NetworkCapabilities capabilities) {
+            if (capabilities == null) {
+                return OFFLINE;
+            }
+            Transport transport;
+            if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) {
+                transport = Transport.WIFI;
+            } else if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) {
+                transport = Transport.CELLULAR;
+            } else if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET)) {
+                transport = Transport.ETHERNET;
+            } else {
+                transport = Transport.OTHER;
+            }
+            return new Snapshot(true, transport,
+                !capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED),
+                capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED),
+                capabilities.getLinkDownstreamBandwidthKbps(),
+                capabilities.getLinkUpstreamBandwidthKbps());
+        }
+
+        /**
+         * 与另一快照相比是否有需要通知的变化（不比较带宽估计）
+         */
+        boolean differsFrom(Snapshot other) {
+            return connected != other.connected
+                || transport != other.transport
+                || metered != other.metered
+                || validated != other.validated;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return connected
+                ? String.format(Locale.US, "%s metered=%b validated=%b down=%dkbps up=%dkbps",
+                    transport, metered, validated, downstreamKbps, upstreamKbps)
+                : "offline";
+        }
+    }
+
+    /**
+     * 网络状态监听器，在主线程回调
+     */
+    public interface Listener {
+        void onConnectivityChanged(Snapshot snapshot);
+    }
+
+    /** 单例实例 */
+    private static ConnectivityMonitor instance;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Snapshot current = Snapshot.UNKNOWN;
+    /** 当前默认网络，只在系统回调线程和 start 中写入 */
+    private volatile Network defaultNetwork;
+    private ConnectivityManager connectivityManager;
+
+    private final ConnectivityManager.NetworkCallback networkCallback = new ConnectivityManager.NetworkCallback() {
+        @Override
+        public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities capabilities) {
+            defaultNetwork = network;
+            update(Snapshot.of(capabilities));
+        }
+
+        @Override
+        public void onLost(@NonNull Network network) {
+            // 默认网络切换时旧网络的 onLost 可能晚于新网络的回调到达
+            if (network.equals(defaultNetwork)) {
+                defaultNetwork = null;
+                update(Snapshot.OFFLINE);
+            }
+        }
+    };
+
+    private ConnectivityMonitor() {
+    }
+
+    /**
+     * 获取ConnectivityMonitor的单例实例
+     * @return ConnectivityMonitor实例
+     */
+    public static synchronized ConnectivityMonitor getInstance() {
+        if (instance == null) {
+            instance = new ConnectivityMonitor();
+        }
+        return instance;
+    }
+
+    /**
+     * 开始监视，重复调用无效果
+     * 注册时同步查询一次当前网络，之后的变化由系统回调
+     * @param context 上下文
+     */
+    public synchronized void start(Context context) {
+        if (connectivityManager != null) {
+            return;
+        }
+        ConnectivityManager cm = (ConnectivityManager)
+            context.getApplicationContext().getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (cm == null) {
+            AppLog.w(TAG, "ConnectivityManager不可用，按网络可用处理");
+            return;
+        }
+        connectivityManager = cm;
+        Network network = cm.getActiveNetwork();
+        defaultNetwork = network;
+        current = network != null ? Snapshot.of(cm.getNetworkCapabilities(network)) : Snapshot.OFFLINE;
+        cm.registerDefaultNetworkCallback(networkCallback);
+        AppLog.i(TAG, "当前网络: {}", current);
+    }
+
+    /**
+     * 当前网络状态，只读取内存，可在任意线程调用
+     */
+    public Snapshot current() {
+        return current;
+    }
+
+    /**
+     * 当前是否有网络连接
+     */
+    public boolean isConnected() {
+        return current.connected;
+    }
+
+    public void addListener(Listener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 在系统回调线程更新快照，有变化时切到主线程通知
+     */
+    void update(Snapshot snapshot) {
+        Snapshot previous = current;
+        current = snapshot;
+        if (!snapshot.differsFrom(previous)) {
+            return;
+        }
+        Metrics.getInstance().counter("connectivity.changes").increment();
+        AppLog.i(TAG, "网络变化: {} -> {}", previous, snapshot);
+        mainHandler.post(() -> {
+            // 排队期间又有变化时由后一次通知，只差带宽估计时通知最新快照
+            Snapshot latest = current;
+            if (latest.differsFrom(snapshot)) {
+                return;
+            }
+            for (Listener listener : listeners) {
+                listener.onConnectivityChanged(latest);
+            }
+        });
+    }
+}
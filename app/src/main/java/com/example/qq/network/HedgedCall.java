@@ -0,0 +1,181 @@
+package com.example.qq.network;
+
+import com.example.qq.executor.TaskScope;
+import com.example.qq.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 对冲请求的单次执行
+ * 先异步发出一次请求，在对冲延迟内未返回时（且预算允许）再发出相同的请求，
+ * 调用线程阻塞等待，先成功的响应作为结果，另一次请求取消；
+ * 两次都失败时返回后完成的那次结果，交由 RequestManager 按重试策略处理
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+final class HedgedCall {
+    /**
+     * 一次请求的结果
+     */
+    private static final class Outcome {
+        final Call call;
+        final boolean hedge;
+        final Response response;
+        final IOException failure;
+
+        Outcome(Call call, boolean hedge, Response response, IOException failure) {
+            this.call = call;
+            this.hedge = hedge;
+            this.response = response;
+            this.failure = failure;
+        }
+
+        boolean isSuccessful() {
+            return response != null && response.isSuccessful();
+        }
+
+        void discard() {
+            if (response != null) {
+                response.close();
+            }
+        }
+    }
+
+    private final OkHttpClient client;
+    private final Request request;
+    private final String endpoint;
+    private final BlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<>();
+    private final List<Call> calls = new ArrayList<>(2);
+    /** 已选出结果，之后到达的响应直接关闭，不再计入指标 */
+    private volatile boolean done;
+
+    HedgedCall(OkHttpClient client, Request request, String endpoint) {
+        this.client = client;
+        this.request = request;
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * 执行请求
+     * @param hedgeDelayMs 对冲延迟
+     * @param budget 对冲消耗的重试预算
+     * @return 成功的响应，或两次都失败时的最后一个响应
+     * @throws IOException 最后完成的请求网络失败
+     */
+    Response execute(long hedgeDelayMs, RetryBudget budget) throws IOException {
+        Metrics metrics = Metrics.getInstance();
+        Outcome winner = null;
+        try {
+            launch(false);
+            int pending = 1;
+            Outcome outcome = await(hedgeDelayMs);
+            if (outcome == null) {
+                if (budget.tryAcquire()) {
+                    metrics.counter("http.hedge." + endpoint).increment();
+                    launch(true);
+                    pending++;
+                } else {
+                    metrics.counter("http.budget_exhausted." + endpoint).increment();
+                }
+                outcome = await(-1);
+            }
+            // 一方失败时等待另一方，都失败才返回失败
+            while (!outcome.isSuccessful() && --pending > 0) {
+                outcome.discard();
+                outcome = await(-1);
+            }
+            winner = outcome;
+            if (winner.hedge && winner.isSuccessful()) {
+                metrics.counter("http.hedge_win." + endpoint).increment();
+            }
+            if (winner.failure != null) {
+                throw winner.failure;
+            }
+            return winner.response;
+        } finally {
+            finish(winner);
+        }
+    }
+
+    private void launch(boolean hedge) {
+        Call call = TaskScope.track(client.newCall(request));
+        synchronized (calls) {
+            calls.add(call);
+        }
+        long start = System.nanoTime();
+        call.enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                if (!done) {
+                    RequestManager.recordAttempt(endpoint, start, response, null);
+                }
+                deliver(new Outcome(call, hedge, response, null));
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                IOException failure = call.isCanceled() ? RequestManager.canceled(e) : e;
+                if (!done) {
+                    RequestManager.recordAttempt(endpoint, start, null, failure);
+                }
+                deliver(new Outcome(call, hedge, null, failure));
+            }
+        });
+    }
+
+    private void deliver(Outcome outcome) {
+        outcomes.add(outcome);
+        if (done) {
+            drain();
+        }
+    }
+
+    /**
+     * 等待下一个结果
+     * @param timeoutMs 超时时间，负数表示一直等待
+     * @return 超时返回null
+     */
+    private Outcome await(long timeoutMs) throws InterruptedIOException {
+        try {
+            return timeoutMs < 0 ? outcomes.take() : outcomes.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("请求被中断");
+        }
+    }
+
+    /**
+     * 取消其他请求，关闭已到达但未采用的响应
+     */
+    private void finish(Outcome winner) {
+        done = true;
+        synchronized (calls) {
+            for (Call call : calls) {
+                if (winner == null || call != winner.call) {
+                    call.cancel();
+                }
+            }
+        }
+        drain();
+    }
+
+    private void drain() {
+        Outcome outcome;
+        while ((outcome = outcomes.poll()) != null) {
+            outcome.discard();
+        }
+    }
+}
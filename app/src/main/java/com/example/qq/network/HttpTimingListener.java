@@ -0,0 +1,106 @@
+package com.example.qq.network;
+
+import com.example.qq.metrics.Metrics;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+/**
+ * 按阶段记录单个HTTP请求的耗时
+ * 每个请求一个实例，记录到 Metrics：
+ * - http.dns / http.connect / http.tls：新建连接时的DNS解析、TCP加TLS建连、TLS握手耗时
+ * - http.ttfb.接口：请求头开始发送到响应头开始到达（服务器处理加一个往返）
+ * - http.transfer.接口：响应体从开始到读取完毕
+ * - http.connection.new / http.connection.reused：连接是否复用
+ * - http.protocol.协议：实际使用的协议，确认 HTTP/2 是否协商成功
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+final class HttpTimingListener extends EventListener {
+    static final Factory FACTORY = call -> new HttpTimingListener();
+
+    private long dnsStart;
+    private long connectStart;
+    private long secureConnectStart;
+    private long requestHeadersStart;
+    private long responseBodyStart;
+    private boolean connected;
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        Metrics.getInstance().histogram("http.dns").recordSince(dnsStart);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStart = System.nanoTime();
+        connected = true;
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        secureConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        Metrics.getInstance().histogram("http.tls").recordSince(secureConnectStart);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        Metrics.getInstance().histogram("http.connect").recordSince(connectStart);
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        Metrics metrics = Metrics.getInstance();
+        metrics.counter(connected ? "http.connection.new" : "http.connection.reused").increment();
+        metrics.counter("http.protocol." + connection.protocol()).increment();
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        requestHeadersStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        Metrics.getInstance().histogram("http.ttfb." + RequestManager.endpointOf(call.request()))
+            .recordSince(requestHeadersStart);
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        // 没有响应体时不会回调 responseBodyStart
+        responseBodyStart = 0;
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        responseBodyStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        if (responseBodyStart != 0) {
+            Metrics.getInstance().histogram("http.transfer." + RequestManager.endpointOf(call.request()))
+                .recordSince(responseBodyStart);
+        }
+    }
+}
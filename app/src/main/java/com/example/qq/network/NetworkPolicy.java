@@ -0,0 +1,160 @@
+package com.example.qq.network;
+
+import com.example.qq.log.AppLog;
+import com.example.qq.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按网络档位调整数据用量
+ * 根据 {@link ConnectivityMonitor} 的快照把当前网络分为不计费、计费、受限（计费且带宽估计很低）和离线四档，
+ * 每档对应一组参数，包括：
+ * - 头像解码的最大尺寸档位
+ * - 好友列表头像预取的数量，计费网络下预取推迟到连上不计费网络后执行
+ * - 聊天记录全量刷新的最小间隔（接口不支持分页，以此代替分页大小控制下载量）
+ * - 上传图片的长边和字节预算
+ * 参数只读取内存快照，可在任意线程调用；{@link #runWhenUnmetered} 须在主线程调用
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class NetworkPolicy {
+    private static final String TAG = "NetworkPolicy";
+    /** 下行带宽估计低于该值（kbps）的计费网络视为受限 */
+    private static final int CONSTRAINED_KBPS = 1500;
+
+    /**
+     * 网络档位
+     */
+    public enum NetworkClass {
+        OFFLINE,
+        CONSTRAINED,
+        METERED,
+        UNMETERED
+    }
+
+    /**
+     * 一个档位的参数
+     */
+    public static final class Profile {
+        /** 头像解码的最大边长（像素） */
+        public final int avatarMaxPx;
+        /** 好友列表头像预取数量，0 表示推迟到不计费网络 */
+        public final int prefetchDepth;
+        /** 聊天记录全量刷新的最小间隔（毫秒），0 表示每次打开都刷新 */
+        public final long historyRefreshMs;
+        /** 上传图片的长边上限（像素）和字节预算 */
+        public final int uploadMaxEdge;
+        public final int uploadByteBudget;
+
+        Profile(int avatarMaxPx, int prefetchDepth, long historyRefreshMs, int uploadMaxEdge, int uploadByteBudget) {
+            this.avatarMaxPx = avatarMaxPx;
+            this.prefetchDepth = prefetchDepth;
+            this.historyRefreshMs = historyRefreshMs;
+            this.uploadMaxEdge = uploadMaxEdge;
+            this.uploadByteBudget = uploadByteBudget;
+        }
+    }
+
+    private static final Profile UNMETERED = new Profile(256, 30, 0, 720, 200 * 1024);
+    private static final Profile METERED = new Profile(128, 0, 60 * 1000, 720, 120 * 1024);
+    private static final Profile CONSTRAINED = new Profile(64, 0, 5 * 60 * 1000, 480, 60 * 1024);
+
+    /** 单例实例 */
+    private static NetworkPolicy instance;
+
+    /** 等待不计费网络的任务，键相同的任务只保留最后一个；只在主线程访问 */
+    private final Map<String, Runnable> deferred = new LinkedHashMap<>();
+
+    private NetworkPolicy() {
+        ConnectivityMonitor.getInstance().addListener(this::onConnectivityChanged);
+    }
+
+    /**
+     * 获取NetworkPolicy的单例实例
+     * @return NetworkPolicy实例
+     */
+    public static synchronized NetworkPolicy getInstance() {
+        if (instance == null) {
+            instance = new NetworkPolicy();
+        }
+        return instance;
+    }
+
+    /**
+     * 网络档位划分
+     */
+    public static NetworkClass classify(ConnectivityMonitor.Snapshot snapshot) {
+        if (!snapshot.connected) {
+            return NetworkClass.OFFLINE;
+        }
+        if (!snapshot.metered) {
+            return NetworkClass.UNMETERED;
+        }
+        // 带宽估计未知（0）时按普通计费网络处理
+        if (snapshot.downstreamKbps > 0 && snapshot.downstreamKbps < CONSTRAINED_KBPS) {
+            return NetworkClass.CONSTRAINED;
+        }
+        return NetworkClass.METERED;
+    }
+
+    /**
+     * 当前网络档位
+     */
+    public NetworkClass networkClass() {
+        return classify(ConnectivityMonitor.getInstance().current());
+    }
+
+    /**
+     * 当前档位的参数，离线时按受限网络处理
+     */
+    public Profile profile() {
+        switch (networkClass()) {
+            case UNMETERED:
+                return UNMETERED;
+            case METERED:
+                return METERED;
+            default:
+                return CONSTRAINED;
+        }
+    }
+
+    /**
+     * 在不计费网络下执行预取类任务：当前不计费时立即执行，否则推迟到连上不计费网络
+     * 在主线程调用，任务也在主线程执行
+     * @param key 任务键，推迟期间相同键的任务只保留最后一个
+     * @param task 任务
+     */
+    public void runWhenUnmetered(String key, Runnable task) {
+        if (networkClass() == NetworkClass.UNMETERED) {
+            deferred.remove(key);
+            task.run();
+            return;
+        }
+        deferred.put(key, task);
+        Metrics.getInstance().counter("policy.prefetch_deferred").increment();
+        AppLog.d(TAG, "当前为计费网络，推迟预取: {}", key);
+    }
+
+    /**
+     * 取消推迟中的任务
+     */
+    public void cancelDeferred(String key) {
+        deferred.remove(key);
+    }
+
+    private void onConnectivityChanged(ConnectivityMonitor.Snapshot snapshot) {
+        if (deferred.isEmpty() || classify(snapshot) != NetworkClass.UNMETERED) {
+            return;
+        }
+        List<Runnable> tasks = new ArrayList<>(deferred.values());
+        deferred.clear();
+        AppLog.i(TAG, "已连接不计费网络，执行 {} 个推迟的预取", tasks.size());
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+}
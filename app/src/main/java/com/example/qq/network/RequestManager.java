@@ -1,22 +1,28 @@
 package com.example.qq.network;
 
-// Android 框架
-
-import android.content.Context;
-import android.net.ConnectivityManager;
-import android.net.NetworkCapabilities;
-import android.net.NetworkInfo;
-import android.os.Build;
-import android.util.Log;
-
-import com.example.qq.QQApplication;
+import com.example.qq.executor.TaskScope;
+import com.example.qq.log.AppLog;
+import com.example.qq.metrics.LatencyHistogram;
+import com.example.qq.metrics.Metrics;
 import com.example.qq.utils.SharedPreferencesManager;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
@@ -30,38 +36,127 @@ import okhttp3.Response;
  */
 public class RequestManager {
     private static final String TAG = "RequestManager";
-    private static final String BASE_URL = "https://web.yxdfirst.top/api";
+    private static final String DEFAULT_BASE_URL = "https://web.yxdfirst.top/api";
+    /** 接口根地址，测试中可指向本地服务器 */
+    private static volatile String baseUrl = DEFAULT_BASE_URL;
+    /** 基础地址自身的路径段数，接口名从其后开始 */
+    private static volatile int basePathSize = pathSizeOf(DEFAULT_BASE_URL);
     private static final String NO_NETWORK_MESSAGE = "网络连接不可用，请检查网络设置";
     
+    /** 空闲连接数和保活时间：HTTP/2 下同一域名只需一条连接，保留少量给 HTTP/1.1 回退和上传 */
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    /** 同一域名并发的异步请求数：对冲、分页加载和分片上传同时进行时不在调度器中排队 */
+    private static final int MAX_REQUESTS_PER_HOST = 16;
+
     private static final OkHttpClient client = new OkHttpClient.Builder()
-        .connectTimeout(30, TimeUnit.SECONDS)
+        .connectTimeout(10, TimeUnit.SECONDS)
         .writeTimeout(30, TimeUnit.SECONDS)
         .readTimeout(30, TimeUnit.SECONDS)
+        .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+        .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+        .dispatcher(newDispatcher())
+        .eventListenerFactory(HttpTimingListener.FACTORY)
         .build();
+    /** 各超时档位的客户端，共享连接池和调度器 */
+    private static final Map<RequestPolicy.TimeoutClass, OkHttpClient> timeoutClients =
+        new EnumMap<>(RequestPolicy.TimeoutClass.class);
+    /** 接口名 -> 请求策略 */
+    private static final Map<String, RequestPolicy> policies = new ConcurrentHashMap<>();
+    /** 接口名 -> 重试预算 */
+    private static final Map<String, RetryBudget> budgets = new ConcurrentHashMap<>();
+    /** 按 p95 计算对冲延迟所需的最少样本数 */
+    private static final int MIN_HEDGE_SAMPLES = 20;
+
+    static {
+        for (RequestPolicy.TimeoutClass timeoutClass : RequestPolicy.TimeoutClass.values()) {
+            timeoutClients.put(timeoutClass, client.newBuilder()
+                .connectTimeout(timeoutClass.connectSeconds, TimeUnit.SECONDS)
+                .readTimeout(timeoutClass.readSeconds, TimeUnit.SECONDS)
+                .writeTimeout(timeoutClass.writeSeconds, TimeUnit.SECONDS)
+                .build());
+        }
+        // 只读的小请求：快速超时，慢于 p95 时对冲
+        setPolicy("GET /getuser", new RequestPolicy()
+            .timeoutClass(RequestPolicy.TimeoutClass.INTERACTIVE)
+            .maxAttempts(3)
+            .hedge(300, 20));
+        setPolicy("GET /friends", new RequestPolicy()
+            .timeoutClass(RequestPolicy.TimeoutClass.INTERACTIVE)
+            .maxAttempts(3)
+            .hedge(300, 20));
+        // 只读的大响应：只重试，不对冲
+        setPolicy("GET /getuserandmessage", new RequestPolicy().maxAttempts(3));
+        setPolicy("GET /getmessage", new RequestPolicy().maxAttempts(3));
+        setPolicy("POST /upload", new RequestPolicy()
+            .timeoutClass(RequestPolicy.TimeoutClass.BULK));
+    }
 
     /**
-     * 检查网络连接状态
-     * @return 如果网络可用返回true，否则返回false
+     * 共享的OkHttpClient，其他网络组件（如分片上传）复用其连接池
      */
-    private static boolean isNetworkAvailable() {
-        Context context = QQApplication.getInstance();
-        ConnectivityManager cm = (ConnectivityManager) 
-            context.getSystemService(Context.CONNECTIVITY_SERVICE);
-        
-        if (cm == null) {
-            return false;
+    public static OkHttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * 接口根地址
+     */
+    public static String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * 替换接口根地址，之后发起的请求生效
+     * @param url 根地址（如 http://127.0.0.1:8080/api），传入null恢复默认地址
+     */
+    public static void setBaseUrl(String url) {
+        String value = url != null ? url : DEFAULT_BASE_URL;
+        while (value.endsWith("/")) {
+            value = value.substring(0, value.length() - 1);
         }
+        basePathSize = pathSizeOf(value);
+        baseUrl = value;
+    }
 
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-            NetworkCapabilities capabilities = cm.getNetworkCapabilities(cm.getActiveNetwork());
-            return capabilities != null && (
-                capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI) ||
-                capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR) ||
-                capabilities.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET));
+    /**
+     * 注册接口的请求策略，替换已有策略并重置该接口的重试预算
+     * @param endpoint 接口名，方法加基础路径后的第一段，如 "GET /getuser"
+     * @param policy 请求策略，传入null恢复默认（只请求一次）
+     */
+    public static void setPolicy(String endpoint, RequestPolicy policy) {
+        if (policy != null) {
+            policies.put(endpoint, policy);
         } else {
-            NetworkInfo activeNetwork = cm.getActiveNetworkInfo();
-            return activeNetwork != null && activeNetwork.isConnected();
+            policies.remove(endpoint);
         }
+        budgets.remove(endpoint);
+    }
+
+    private static Dispatcher newDispatcher() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+        return dispatcher;
+    }
+
+    private static RequestPolicy policyFor(String endpoint) {
+        RequestPolicy policy = policies.get(endpoint);
+        return policy != null ? policy : RequestPolicy.DEFAULT;
+    }
+
+    private static int pathSizeOf(String url) {
+        HttpUrl parsed = HttpUrl.get(url);
+        // 没有路径时 OkHttp 仍返回一个空路径段
+        return "/".equals(parsed.encodedPath()) ? 0 : parsed.pathSize();
+    }
+
+    /**
+     * 检查网络连接状态
+     * 读取 {@link ConnectivityMonitor} 的内存快照，不查询系统服务
+     * @return 如果网络可用返回true，否则返回false
+     */
+    private static boolean isNetworkAvailable() {
+        return ConnectivityMonitor.getInstance().isConnected();
     }
 
     /**
@@ -70,7 +165,7 @@ public class RequestManager {
      */
     private static void checkNetworkConnection() throws IOException {
         if (!isNetworkAvailable()) {
-            Log.e(TAG, NO_NETWORK_MESSAGE);
+            AppLog.e(TAG, NO_NETWORK_MESSAGE);
             throw new IOException(NO_NETWORK_MESSAGE);
         }
     }
@@ -87,6 +182,139 @@ public class RequestManager {
         return builder;
     }
 
+    /**
+     * 执行请求，在页面作用域任务中发起时随页面销毁取消
+     * 按接口策略选择超时档位、重试和对冲；每次尝试记录到收到响应头的耗时（http.接口），
+     * 包含重试和对冲在内的总耗时另记到 http.call.接口，两者的尾部分位数之差即策略带来的改善
+     * @return 最后一次尝试的响应，非2xx时由调用方处理
+     */
+    private static Response execute(Request request) throws IOException {
+        String endpoint = endpointOf(request);
+        RequestPolicy policy = policyFor(endpoint);
+        RetryBudget budget = budgets.computeIfAbsent(endpoint,
+            key -> new RetryBudget(policy.budgetRatio, policy.budgetBurst));
+        budget.onRequest();
+        OkHttpClient callClient = timeoutClients.get(policy.timeoutClass);
+        Metrics metrics = Metrics.getInstance();
+        long start = System.nanoTime();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                Response response = null;
+                IOException failure = null;
+                try {
+                    response = policy.hedge
+                        ? new HedgedCall(callClient, request, endpoint).execute(hedgeDelayMillis(endpoint, policy), budget)
+                        : attempt(callClient, request, endpoint);
+                } catch (IOException e) {
+                    failure = e;
+                }
+                boolean retryable = failure != null ? isRetryable(failure) : isRetryable(response.code());
+                if (retryable && attempt < policy.maxAttempts && !budget.tryAcquire()) {
+                    metrics.counter("http.budget_exhausted." + endpoint).increment();
+                    retryable = false;
+                }
+                if (!retryable || attempt >= policy.maxAttempts) {
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    return response;
+                }
+                if (response != null) {
+                    response.close();
+                }
+                metrics.counter("http.retry." + endpoint).increment();
+                AppLog.d(TAG, "{} 第 {} 次失败，准备重试", endpoint, attempt);
+                sleep(policy.backoffMillis(attempt));
+            }
+        } finally {
+            metrics.histogram("http.call." + endpoint).recordSince(start);
+        }
+    }
+
+    /**
+     * 同步执行一次请求
+     */
+    private static Response attempt(OkHttpClient callClient, Request request, String endpoint) throws IOException {
+        Call call = TaskScope.track(callClient.newCall(request));
+        long start = System.nanoTime();
+        try {
+            Response response = call.execute();
+            recordAttempt(endpoint, start, response, null);
+            return response;
+        } catch (IOException e) {
+            IOException failure = call.isCanceled() ? canceled(e) : e;
+            recordAttempt(endpoint, start, null, failure);
+            throw failure;
+        }
+    }
+
+    /**
+     * 记录一次尝试：到收到响应头的耗时，非2xx响应和网络失败分别计数
+     */
+    static void recordAttempt(String endpoint, long startNanos, Response response, IOException failure) {
+        Metrics metrics = Metrics.getInstance();
+        if (failure != null) {
+            metrics.counter("http.failed." + endpoint).increment();
+        } else if (!response.isSuccessful()) {
+            metrics.counter("http.error." + endpoint).increment();
+        }
+        metrics.histogram("http." + endpoint).recordSince(startNanos);
+    }
+
+    /**
+     * 请求被取消（页面销毁或对冲落选）时转换为中断异常，不再重试
+     */
+    static InterruptedIOException canceled(IOException cause) {
+        InterruptedIOException e = new InterruptedIOException("请求已取消");
+        e.initCause(cause);
+        return e;
+    }
+
+    /**
+     * 超时作为网络失败重试，取消和中断不重试
+     */
+    private static boolean isRetryable(IOException e) {
+        return !(e instanceof InterruptedIOException) || e instanceof SocketTimeoutException;
+    }
+
+    private static boolean isRetryable(int code) {
+        return code >= 500 || code == 429;
+    }
+
+    /**
+     * 对冲延迟：该接口单次尝试的 p95，样本不足时使用策略中的固定值
+     */
+    private static long hedgeDelayMillis(String endpoint, RequestPolicy policy) {
+        LatencyHistogram.Snapshot snapshot = Metrics.getInstance().histogram("http." + endpoint).snapshot();
+        long delay = snapshot.count >= MIN_HEDGE_SAMPLES
+            ? TimeUnit.MICROSECONDS.toMillis(snapshot.p95Micros)
+            : policy.hedgeDelayMs;
+        return Math.max(policy.minHedgeDelayMs, delay);
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("请求被中断");
+        }
+    }
+
+    /**
+     * 指标中的接口名：方法加基础路径后的第一段，去掉用户名等路径参数
+     * 如 GET /getuser/alice 记为 "GET /getuser"
+     */
+    static String endpointOf(Request request) {
+        List<String> segments = request.url().pathSegments();
+        int baseSize = basePathSize;
+        String first = segments.size() > baseSize ? segments.get(baseSize) : "";
+        return request.method() + " /" + first;
+    }
+
     /**
      * 发送POST请求
      */
@@ -94,8 +322,8 @@ public class RequestManager {
         try {
             checkNetworkConnection();
             
-            String finalUrl = BASE_URL + url;
-            Log.d(TAG, "POST请求: " + finalUrl);
+            String finalUrl = baseUrl + url;
+            AppLog.d(TAG, "POST请求: {}", finalUrl);
             
             RequestBody requestBody = RequestBody.create(
                 json,
@@ -106,14 +334,14 @@ public class RequestManager {
                 .post(requestBody)
                 .build();
                 
-            try (Response response = client.newCall(request).execute()) {
+            try (Response response = execute(request)) {
                 if (!response.isSuccessful()) {
                     throw new IOException("请求失败: " + response.code());
                 }
                 return response.body() != null ? response.body().string() : "";
             }
         } catch (IOException e) {
-            Log.e(TAG, "POST请求失败: " + e.getMessage(), e);
+            AppLog.e(TAG, "POST请求失败: " + e.getMessage(), e);
             throw new RuntimeException(e);
         }
     }
@@ -125,21 +353,21 @@ public class RequestManager {
         try {
             checkNetworkConnection();
             
-            String finalUrl = BASE_URL + url;
-            Log.d(TAG, "GET请求: " + finalUrl);
+            String finalUrl = baseUrl + url;
+            AppLog.d(TAG, "GET请求: {}", finalUrl);
             
             Request request = getRequestBuilderWithToken()
                 .url(finalUrl)
                 .build();
                 
-            try (Response response = client.newCall(request).execute()) {
+            try (Response response = execute(request)) {
                 if (!response.isSuccessful()) {
                     throw new IOException("请求失败: " + response.code());
                 }
                 return response.body() != null ? response.body().string() : "";
             }
         } catch (IOException e) {
-            Log.e(TAG, "GET请求失败: " + e.getMessage(), e);
+            AppLog.e(TAG, "GET请求失败: " + e.getMessage(), e);
             throw new RuntimeException(e);
         }
     }
@@ -151,22 +379,22 @@ public class RequestManager {
         try {
             checkNetworkConnection();
             
-            String finalUrl = BASE_URL + url;
-            Log.d(TAG, "Multipart POST请求: " + finalUrl);
+            String finalUrl = baseUrl + url;
+            AppLog.d(TAG, "Multipart POST请求: {}", finalUrl);
             
             Request request = getRequestBuilderWithToken()
                 .url(finalUrl)
                 .post(requestBody)
                 .build();
                 
-            try (Response response = client.newCall(request).execute()) {
+            try (Response response = execute(request)) {
                 if (!response.isSuccessful()) {
                     throw new IOException("请求失败: " + response.code());
                 }
                 return response.body() != null ? response.body().string() : "";
             }
         } catch (IOException e) {
-            Log.e(TAG, "Multipart POST请求失败: " + e.getMessage(), e);
+            AppLog.e(TAG, "Multipart POST请求失败: " + e.getMessage(), e);
             throw new RuntimeException(e);
         }
     }
@@ -178,8 +406,8 @@ public class RequestManager {
         try {
             checkNetworkConnection();
             
-            String finalUrl = BASE_URL + url;
-            Log.d(TAG, "PUT请求: " + finalUrl);
+            String finalUrl = baseUrl + url;
+            AppLog.d(TAG, "PUT请求: {}", finalUrl);
             
             RequestBody requestBody = RequestBody.create(
                 json,
@@ -190,14 +418,14 @@ public class RequestManager {
                 .put(requestBody)
                 .build();
                 
-            try (Response response = client.newCall(request).execute()) {
+            try (Response response = execute(request)) {
                 if (!response.isSuccessful()) {
                     throw new IOException("请求失败: " + response.code());
                 }
                 return response.body() != null ? response.body().string() : "";
             }
         } catch (IOException e) {
-            Log.e(TAG, "PUT请求失败: " + e.getMessage(), e);
+            AppLog.e(TAG, "PUT请求失败: " + e.getMessage(), e);
             throw new RuntimeException(e);
         }
     }
@@ -209,22 +437,22 @@ public class RequestManager {
         try {
             checkNetworkConnection();
             
-            String finalUrl = BASE_URL + url;
-            Log.d(TAG, "DELETE请求: " + finalUrl);
+            String finalUrl = baseUrl + url;
+            AppLog.d(TAG, "DELETE请求: {}", finalUrl);
             
             Request request = getRequestBuilderWithToken()
                 .url(finalUrl)
                 .delete()
                 .build();
                 
-            try (Response response = client.newCall(request).execute()) {
+            try (Response response = execute(request)) {
                 if (!response.isSuccessful()) {
                     throw new IOException("请求失败: " + response.code());
                 }
                 return response.body() != null ? response.body().string() : "";
             }
         } catch (IOException e) {
-            Log.e(TAG, "DELETE请求失败: " + e.getMessage(), e);
+            AppLog.e(TAG, "DELETE请求失败: " + e.getMessage(), e);
             throw new RuntimeException(e);
         }
     }
@@ -0,0 +1,113 @@
+package com.example.qq.network;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 单个接口的请求策略
+ * 由 {@link RequestManager#setPolicy} 按接口名（如 "GET /getuser"）注册，未注册的接口只请求一次，包括：
+ * - 超时档位：连接、读、写超时按接口的响应预期分为交互、标准、批量三档
+ * - 重试：网络错误、5xx 和 429 按指数退避加随机抖动重试，重试次数受接口的重试预算限制
+ * - 对冲：请求超过该接口的 p95 耗时仍未返回时再发一次，先成功的响应生效，另一次取消
+ *
+ * 只应对幂等接口开启重试和对冲，服务器上 GET /deletefriend 等接口有副作用，不能按方法一概而论
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class RequestPolicy {
+    /**
+     * 超时档位
+     */
+    public enum TimeoutClass {
+        /** 页面上直接等待结果的小请求 */
+        INTERACTIVE(5, 5, 5),
+        /** 列表、聊天记录等较大的响应 */
+        STANDARD(10, 15, 15),
+        /** 文件上传 */
+        BULK(15, 60, 60);
+
+        final long connectSeconds;
+        final long readSeconds;
+        final long writeSeconds;
+
+        TimeoutClass(long connectSeconds, long readSeconds, long writeSeconds) {
+            this.connectSeconds = connectSeconds;
+            this.readSeconds = readSeconds;
+            this.writeSeconds = writeSeconds;
+        }
+    }
+
+    /** 未注册接口使用的策略 */
+    static final RequestPolicy DEFAULT = new RequestPolicy();
+
+    TimeoutClass timeoutClass = TimeoutClass.STANDARD;
+    /** 最多尝试次数（不含对冲请求） */
+    int maxAttempts = 1;
+    /** 退避基数与上限（毫秒） */
+    long baseBackoffMs = 200;
+    long maxBackoffMs = 2000;
+    /** 是否对冲 */
+    boolean hedge;
+    /** 样本不足时的对冲延迟，以及对冲延迟的下限（毫秒） */
+    long hedgeDelayMs = 300;
+    long minHedgeDelayMs = 20;
+    /** 每个请求存入的重试额度，重试和对冲各消耗1，长期看重试量不超过请求量的该比例 */
+    double budgetRatio = 0.1;
+    /** 额度上限，允许短时间的集中重试 */
+    int budgetBurst = 10;
+
+    public RequestPolicy timeoutClass(TimeoutClass timeoutClass) {
+        this.timeoutClass = timeoutClass;
+        return this;
+    }
+
+    public RequestPolicy maxAttempts(int maxAttempts) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        return this;
+    }
+
+    public RequestPolicy backoff(long baseMs, long maxMs) {
+        this.baseBackoffMs = Math.max(0, baseMs);
+        this.maxBackoffMs = Math.max(this.baseBackoffMs, maxMs);
+        return this;
+    }
+
+    /**
+     * 开启对冲
+     * @param fallbackDelayMs 耗时样本不足时的对冲延迟
+     * @param minDelayMs 对冲延迟下限，避免 p95 很低时几乎每个请求都发两次
+     */
+    public RequestPolicy hedge(long fallbackDelayMs, long minDelayMs) {
+        this.hedge = true;
+        this.hedgeDelayMs = Math.max(0, fallbackDelayMs);
+        this.minHedgeDelayMs = Math.max(0, minDelayMs);
+        return this;
+    }
+
+    public RequestPolicy retryBudget(double ratio, int burst) {
+        this.budgetRatio = Math.max(0, ratio);
+        this.budgetBurst = Math.max(1, burst);
+        return this;
+    }
+
+    /**
+     * 第 attempt 次失败后的等待时间
+     * @see #backoffMillis(int, long, long)
+     */
+    long backoffMillis(int attempt) {
+        return backoffMillis(attempt, baseBackoffMs, maxBackoffMs);
+    }
+
+    /**
+     * 指数退避加随机抖动（equal jitter）：上限为 baseMs * 2^(attempt-1)，不超过 maxMs，
+     * 在上限的一半到上限之间随机；保留一半的最小等待，同时错开同一时刻失败的多个请求
+     * @param attempt 第几次失败，从1开始
+     * @param baseMs 首次退避上限（毫秒）
+     * @param maxMs 退避上限（毫秒）
+     * @return 等待时间（毫秒）
+     */
+    public static long backoffMillis(int attempt, long baseMs, long maxMs) {
+        long ceiling = Math.min(maxMs, baseMs << Math.min(attempt - 1, 16));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+    }
+}
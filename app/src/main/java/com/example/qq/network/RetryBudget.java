@@ -0,0 +1,38 @@
+package com.example.qq.network;
+
+/**
+ * 重试预算（令牌桶）
+ * 每个请求存入 ratio 个令牌，每次重试或对冲取出1个，令牌不超过 burst；
+ * 服务器整体故障时重试量被限制在正常流量的固定比例内，不会把故障放大成重试风暴
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+final class RetryBudget {
+    private final double ratio;
+    private final double burst;
+    private double tokens;
+
+    RetryBudget(double ratio, int burst) {
+        this.ratio = ratio;
+        this.burst = burst;
+        // 启动时按满额度，冷启动阶段的首批请求也能重试
+        this.tokens = burst;
+    }
+
+    synchronized void onRequest() {
+        tokens = Math.min(burst, tokens + ratio);
+    }
+
+    /**
+     * 取出一次重试的额度
+     * @return 额度不足时返回false
+     */
+    synchronized boolean tryAcquire() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.qq.network;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.net.Uri;
+
+import androidx.annotation.Nullable;
+
+import com.example.qq.utils.FileUtils;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * 基于ContentResolver的流式请求体
+ * 上传时直接从内容Uri的文件描述符读取并写入网络，不复制到临时文件或内存数组，包括：
+ * - 内容长度取自 OpenableColumns.SIZE 或文件描述符，已知时以定长方式上传
+ * - 每次 writeTo 都重新打开Uri，OkHttp重试时可以重复写出
+ * - 按百分比回调上传进度（只在百分比变化时回调）
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public class UriRequestBody extends RequestBody {
+    /** 每次写入的字节数 */
+    private static final long SEGMENT_SIZE = 8 * 1024;
+
+    /**
+     * 上传进度监听器
+     */
+    public interface ProgressListener {
+        /**
+         * 在上传线程回调
+         * @param bytesWritten 已写出的字节数
+         * @param contentLength 总字节数，未知时为-1
+         * @param percent 进度百分比，总长度未知时为-1
+         */
+        void onProgress(long bytesWritten, long contentLength, int percent);
+    }
+
+    private final ContentResolver resolver;
+    private final Uri uri;
+    private final MediaType mediaType;
+    private final long contentLength;
+    private final ProgressListener progressListener;
+
+    /**
+     * 构造函数
+     * @param resolver ContentResolver
+     * @param uri 内容Uri
+     * @param mediaType 内容类型
+     * @param contentLength 内容长度，未知时传-1
+     * @param progressListener 进度监听器，可为null
+     */
+    public UriRequestBody(ContentResolver resolver, Uri uri, @Nullable MediaType mediaType,
+                          long contentLength, @Nullable ProgressListener progressListener) {
+        this.resolver = resolver;
+        this.uri = uri;
+        this.mediaType = mediaType;
+        this.contentLength = contentLength;
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * 根据Uri创建请求体，内容类型和长度从ContentResolver获取
+     * @param context 上下文
+     * @param uri 内容Uri
+     * @param progressListener 进度监听器，可为null
+     * @return 请求体
+     */
+    public static UriRequestBody create(Context context, Uri uri, @Nullable ProgressListener progressListener) {
+        ContentResolver resolver = context.getContentResolver();
+        String type = resolver.getType(uri);
+        MediaType mediaType = MediaType.parse(type != null ? type : "application/octet-stream");
+        return new UriRequestBody(resolver, uri, mediaType, FileUtils.getContentLength(context, uri),
+            progressListener);
+    }
+
+    @Nullable
+    @Override
+    public MediaType contentType() {
+        return mediaType;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        try (InputStream in = openStream(); Source source = Okio.source(in)) {
+            long written = 0;
+            int lastPercent = -1;
+            long read;
+            while ((read = source.read(sink.getBuffer(), SEGMENT_SIZE)) != -1) {
+                sink.emitCompleteSegments();
+                written += read;
+                if (progressListener != null) {
+                    int percent = contentLength > 0 ? (int) (written * 100 / contentLength) : -1;
+                    if (percent != lastPercent || contentLength <= 0) {
+                        lastPercent = percent;
+                        progressListener.onProgress(written, contentLength, percent);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 优先通过文件描述符读取，不支持时退回普通输入流
+     */
+    private InputStream openStream() throws IOException {
+        try {
+            AssetFileDescriptor afd = resolver.openAssetFileDescriptor(uri, "r");
+            if (afd != null) {
+                return afd.createInputStream();
+            }
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // 部分提供者不支持文件描述符
+        }
+        InputStream in = resolver.openInputStream(uri);
+        if (in == null) {
+            throw new IOException("无法打开: " + uri);
+        }
+        return in;
+    }
+}
@@ -0,0 +1,525 @@
+package com.example.qq.network.upload;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.qq.executor.AppExecutors;
+import com.example.qq.executor.TaskPriority;
+import com.example.qq.network.RequestManager;
+import com.example.qq.network.RequestPolicy;
+import com.example.qq.utils.GsonProvider;
+import com.example.qq.utils.SharedPreferencesManager;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * 可续传的分片上传客户端
+ * 大文件按固定大小切片上传，单片失败只重传该片，包括：
+ * - 每片携带 CRC32 校验和，服务器校验失败（409）时重读重传
+ * - 已确认的分片写入 {@link UploadJournal}，进程被杀后以相同 key 重新上传即可续传
+ * - 续传前向服务器查询已收到的分片，以服务器为准（服务器丢失的分片会重传）
+ * - 可配置并行上传的分片数，单片失败按指数退避加随机抖动重试
+ *
+ * 协议（响应均为 {"code":200,"data":{...}}）：
+ * - POST /upload/chunked/init            {fileName,size,chunkSize,mimeType} -> {uploadId}
+ * - GET  /upload/chunked/{id}            -> {receivedChunks:[...]}，会话不存在时返回404
+ * - PUT  /upload/chunked/{id}/{index}    分片数据，头部 Content-Range、X-Chunk-CRC32
+ * - POST /upload/chunked/{id}/complete   -> {url}
+ *
+ * upload 为阻塞调用，应在后台线程执行
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public class ChunkedUploader {
+    private static final String TAG = "ChunkedUploader";
+    private static final String PATH = "/upload/chunked";
+    private static final String HEADER_CHECKSUM = "X-Chunk-CRC32";
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+    private static final Gson GSON = GsonProvider.get();
+
+    /**
+     * 上传配置
+     */
+    public static final class Config {
+        /** 分片大小（字节） */
+        int chunkSize = 512 * 1024;
+        /** 并行上传的分片数 */
+        int parallelism = 2;
+        /** 单片最多尝试次数 */
+        int maxAttempts = 5;
+        /** 退避基数与上限（毫秒） */
+        long baseBackoffMs = 500;
+        long maxBackoffMs = 8000;
+
+        public Config chunkSize(int chunkSize) {
+            if (chunkSize <= 0) {
+                throw new IllegalArgumentException("chunkSize must be positive");
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        public Config parallelism(int parallelism) {
+            this.parallelism = Math.max(1, parallelism);
+            return this;
+        }
+
+        public Config maxAttempts(int maxAttempts) {
+            this.maxAttempts = Math.max(1, maxAttempts);
+            return this;
+        }
+
+        public Config backoff(long baseMs, long maxMs) {
+            this.baseBackoffMs = Math.max(0, baseMs);
+            this.maxBackoffMs = Math.max(this.baseBackoffMs, maxMs);
+            return this;
+        }
+    }
+
+    /**
+     * 上传进度监听器
+     */
+    public interface Listener {
+        /**
+         * 在上传线程回调，每确认一个分片回调一次
+         * @param confirmedBytes 服务器已确认的字节数
+         * @param totalBytes 总字节数
+         */
+        void onProgress(long confirmedBytes, long totalBytes);
+    }
+
+    /**
+     * 上传结果
+     */
+    public static final class Result {
+        public final String uploadId;
+        /** 服务器返回的文件地址 */
+        public final String url;
+        /** 本次实际上传的分片数 */
+        public final int chunksSent;
+        /** 续传时跳过的分片数 */
+        public final int chunksSkipped;
+        /** 本次实际发送的字节数（含重传） */
+        public final long bytesSent;
+        /** 分片重试次数 */
+        public final int retries;
+
+        Result(String uploadId, String url, int chunksSent, int chunksSkipped, long bytesSent, int retries) {
+            this.uploadId = uploadId;
+            this.url = url;
+            this.chunksSent = chunksSent;
+            this.chunksSkipped = chunksSkipped;
+            this.bytesSent = bytesSent;
+            this.retries = retries;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{uploadId=" + uploadId + ", url=" + url + ", sent=" + chunksSent
+                + ", skipped=" + chunksSkipped + ", bytes=" + bytesSent + ", retries=" + retries + "}";
+        }
+    }
+
+    /**
+     * 服务器返回的错误响应，409和5xx可重试，其余不可重试
+     */
+    public static class UploadException extends IOException {
+        private final int code;
+
+        public UploadException(String message, int code) {
+            super(message);
+            this.code = code;
+        }
+
+        /**
+         * HTTP状态码
+         */
+        public int getCode() {
+            return code;
+        }
+    }
+
+    private final OkHttpClient client;
+    private final String baseUrl;
+    private final String token;
+    private final UploadJournal journal;
+    private final Config config;
+
+    /**
+     * 构造函数
+     * @param client HTTP客户端
+     * @param baseUrl 接口根地址
+     * @param token 认证token，可为null
+     * @param journalDir 上传日志目录
+     * @param config 上传配置
+     */
+    public ChunkedUploader(OkHttpClient client, String baseUrl, @Nullable String token, File journalDir,
+                           Config config) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.token = token;
+        this.journal = new UploadJournal(journalDir);
+        this.config = config;
+    }
+
+    /**
+     * 使用应用的HTTP客户端、接口地址和当前登录token创建上传器
+     * 上传日志放在 files 目录下，不会随缓存清理丢失
+     * @param context 上下文
+     * @return 上传器
+     */
+    public static ChunkedUploader create(Context context) {
+        return new ChunkedUploader(RequestManager.getClient(), RequestManager.getBaseUrl(),
+            SharedPreferencesManager.getInstance().getToken(),
+            new File(context.getApplicationContext().getFilesDir(), "upload_journal"), new Config());
+    }
+
+    /**
+     * 上传日志，可用于列出未完成的任务
+     */
+    public UploadJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * 上传数据，存在同 key 的未完成记录时续传
+     * @param key 任务标识，续传时必须与上次一致（如消息的clientId）
+     * @param source 数据源，由调用方关闭
+     * @param fileName 文件名
+     * @param mimeType MIME类型
+     * @param listener 进度监听器，可为null
+     * @return 上传结果
+     * @throws IOException 重试耗尽、服务器拒绝或线程被中断
+     */
+    public Result upload(String key, UploadSource source, String fileName, String mimeType,
+                         @Nullable Listener listener) throws IOException {
+        int chunkSize = config.chunkSize;
+        long length = source.length();
+        int chunkCount = (int) ((length + chunkSize - 1) / chunkSize);
+
+        UploadJournal.Entry entry = resume(key, source, chunkSize);
+        if (entry == null) {
+            entry = init(key, source, fileName, mimeType, chunkSize);
+        }
+        BitSet completed = entry.completedSet();
+        int skipped = completed.cardinality();
+        Log.d(TAG, "开始上传 " + key + ": " + chunkCount + " 片, 已完成 " + skipped);
+
+        Queue<Integer> pending = new ConcurrentLinkedQueue<>();
+        for (int i = completed.nextClearBit(0); i < chunkCount; i = completed.nextClearBit(i + 1)) {
+            pending.add(i);
+        }
+        ChunkRun run = new ChunkRun(entry, source, listener);
+        run.confirmedBytes.set(confirmedBytes(completed, chunkSize, length));
+        run.transfer(pending);
+
+        String url = complete(entry.uploadId);
+        journal.delete(key);
+        Result result = new Result(entry.uploadId, url, run.chunksSent.get(), skipped,
+            run.bytesSent.get(), run.retries.get());
+        Log.d(TAG, "上传完成 " + key + ": " + result);
+        return result;
+    }
+
+    /**
+     * 丢弃未完成的任务记录（不通知服务器，未完成的会话由服务器过期清理）
+     * @param key 任务标识
+     */
+    public void discard(String key) {
+        journal.delete(key);
+    }
+
+    /**
+     * 读取日志并以服务器状态校正
+     * @return 可续传的记录；无记录、数据源已变化或服务器会话已失效时返回null
+     */
+    private UploadJournal.Entry resume(String key, UploadSource source, int chunkSize) throws IOException {
+        UploadJournal.Entry entry = journal.load(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.matches(source, chunkSize)) {
+            Log.d(TAG, "数据源已变化，重新上传: " + key);
+            journal.delete(key);
+            return null;
+        }
+        JsonObject data;
+        try {
+            data = execute(newRequest(PATH + "/" + entry.uploadId).get().build());
+        } catch (UploadException e) {
+            if (e.getCode() == 404 || e.getCode() == 410) {
+                Log.d(TAG, "服务器会话已失效，重新上传: " + key);
+                journal.delete(key);
+                return null;
+            }
+            throw e;
+        }
+        List<Integer> received = new ArrayList<>();
+        JsonElement chunks = data.get("receivedChunks");
+        if (chunks != null && chunks.isJsonArray()) {
+            for (JsonElement element : chunks.getAsJsonArray()) {
+                received.add(element.getAsInt());
+            }
+        }
+        entry.completed = received;
+        journal.save(entry);
+        return entry;
+    }
+
+    private UploadJournal.Entry init(String key, UploadSource source, String fileName, String mimeType,
+                                     int chunkSize) throws IOException {
+        JsonObject body = new JsonObject();
+        body.addProperty("fileName", fileName);
+        body.addProperty("size", source.length());
+        body.addProperty("chunkSize", chunkSize);
+        body.addProperty("mimeType", mimeType);
+        JsonObject data = execute(newRequest(PATH + "/init")
+            .post(RequestBody.create(GSON.toJson(body), JSON)).build());
+        JsonElement uploadId = data.get("uploadId");
+        if (uploadId == null || uploadId.isJsonNull()) {
+            throw new IOException("服务器未返回uploadId");
+        }
+        UploadJournal.Entry entry = new UploadJournal.Entry();
+        entry.key = key;
+        entry.uploadId = uploadId.getAsString();
+        entry.identity = source.identity();
+        entry.length = source.length();
+        entry.chunkSize = chunkSize;
+        entry.createdAt = System.currentTimeMillis();
+        journal.save(entry);
+        return entry;
+    }
+
+    private String complete(String uploadId) throws IOException {
+        JsonObject data = execute(newRequest(PATH + "/" + uploadId + "/complete")
+            .post(RequestBody.create(new byte[0], null)).build());
+        JsonElement url = data.get("url");
+        return url != null && !url.isJsonNull() ? url.getAsString() : null;
+    }
+
+    /**
+     * 一次上传中所有分片线程共享的状态
+     */
+    private final class ChunkRun {
+        private final UploadJournal.Entry entry;
+        private final UploadSource source;
+        private final Listener listener;
+        private final AtomicReference<IOException> failure = new AtomicReference<>();
+        final AtomicLong confirmedBytes = new AtomicLong();
+        final AtomicLong bytesSent = new AtomicLong();
+        final AtomicInteger chunksSent = new AtomicInteger();
+        final AtomicInteger retries = new AtomicInteger();
+
+        ChunkRun(UploadJournal.Entry entry, UploadSource source, Listener listener) {
+            this.entry = entry;
+            this.source = source;
+            this.listener = listener;
+        }
+
+        /**
+         * 以 parallelism 路并发从队列中取分片上传，任一分片最终失败时其余线程停止取新分片
+         * 调用线程自身也是其中一路，io 通道繁忙时额外的几路迟迟不开始也不会卡住上传
+         */
+        void transfer(Queue<Integer> pending) throws IOException {
+            if (pending.isEmpty()) {
+                return;
+            }
+            int workers = Math.min(config.parallelism, pending.size());
+            List<Future<?>> futures = new ArrayList<>(workers - 1);
+            try {
+                for (int w = 1; w < workers; w++) {
+                    futures.add(AppExecutors.getInstance().io().submit(TaskPriority.DEFAULT, () -> drain(pending)));
+                }
+                drain(pending);
+                for (Future<?> future : futures) {
+                    try {
+                        future.get();
+                    } catch (CancellationException e) {
+                        // io 通道队列满时被丢弃，它的分片已由其他路完成
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("上传被中断");
+            } catch (ExecutionException e) {
+                throw new IOException("分片上传异常", e.getCause());
+            } finally {
+                for (Future<?> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            IOException error = failure.get();
+            if (error != null) {
+                throw error;
+            }
+        }
+
+        private void drain(Queue<Integer> pending) {
+            byte[] buffer = new byte[entry.chunkSize];
+            Integer index;
+            while (failure.get() == null && (index = pending.poll()) != null) {
+                try {
+                    sendWithRetry(index, buffer);
+                } catch (IOException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        }
+
+        private void sendWithRetry(int index, byte[] buffer) throws IOException {
+            long offset = (long) index * entry.chunkSize;
+            int size = (int) Math.min(entry.chunkSize, entry.length - offset);
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    // 每次重试都重新读取，校验失败时不会重复发送同一份坏数据
+                    source.read(offset, buffer, size);
+                    sendChunk(index, offset, buffer, size);
+                    onChunkConfirmed(index, size);
+                    return;
+                } catch (UploadException e) {
+                    // 409 为校验和不一致，5xx 为服务器临时故障，其余4xx不可重试
+                    if (e.getCode() != 409 && e.getCode() < 500) {
+                        throw e;
+                    }
+                    if (attempt >= config.maxAttempts) {
+                        throw e;
+                    }
+                } catch (InterruptedIOException e) {
+                    throw e;
+                } catch (IOException e) {
+                    if (attempt >= config.maxAttempts) {
+                        throw e;
+                    }
+                }
+                retries.incrementAndGet();
+                Log.d(TAG, "分片 " + index + " 第 " + attempt + " 次失败，准备重试");
+                sleep(backoff(attempt));
+                if (failure.get() != null) {
+                    throw new InterruptedIOException("其他分片已失败");
+                }
+            }
+        }
+
+        private void sendChunk(int index, long offset, byte[] buffer, int size) throws IOException {
+            CRC32 crc = new CRC32();
+            crc.update(buffer, 0, size);
+            Request request = newRequest(PATH + "/" + entry.uploadId + "/" + index)
+                .header("Content-Range", "bytes " + offset + "-" + (offset + size - 1) + "/" + entry.length)
+                .header(HEADER_CHECKSUM, Long.toHexString(crc.getValue()))
+                .put(RequestBody.create(buffer, OCTET_STREAM, 0, size))
+                .build();
+            bytesSent.addAndGet(size);
+            try (Response response = client.newCall(request).execute()) {
+                if (!response.isSuccessful()) {
+                    throw new UploadException("分片 " + index + " 上传失败: " + response.code(), response.code());
+                }
+            }
+        }
+
+        private void onChunkConfirmed(int index, int size) throws IOException {
+            chunksSent.incrementAndGet();
+            synchronized (entry) {
+                entry.completed.add(index);
+                journal.save(entry);
+            }
+            long confirmed = confirmedBytes.addAndGet(size);
+            if (listener != null) {
+                listener.onProgress(confirmed, entry.length);
+            }
+        }
+    }
+
+    /**
+     * 与接口重试相同的指数退避加随机抖动，避免多个分片同时重试
+     */
+    private long backoff(int attempt) {
+        return RequestPolicy.backoffMillis(attempt, config.baseBackoffMs, config.maxBackoffMs);
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("上传被中断");
+        }
+    }
+
+    private static long confirmedBytes(BitSet completed, int chunkSize, long length) {
+        long bytes = 0;
+        for (int i = completed.nextSetBit(0); i >= 0; i = completed.nextSetBit(i + 1)) {
+            long offset = (long) i * chunkSize;
+            bytes += Math.max(0, Math.min(chunkSize, length - offset));
+        }
+        return bytes;
+    }
+
+    private Request.Builder newRequest(String path) {
+        Request.Builder builder = new Request.Builder().url(baseUrl + path);
+        if (token != null && !token.isEmpty()) {
+            builder.header("Authorization", token);
+        }
+        return builder;
+    }
+
+    /**
+     * 执行请求并解析 {"code":200,"data":{...}} 响应
+     * @return data 对象，缺失时为空对象
+     */
+    private JsonObject execute(Request request) throws IOException {
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new UploadException("请求失败: " + response.code(), response.code());
+            }
+            String body = response.body() != null ? response.body().string() : "";
+            JsonObject json;
+            try {
+                json = GSON.fromJson(body, JsonObject.class);
+            } catch (JsonParseException e) {
+                throw new IOException("响应格式错误: " + body, e);
+            }
+            if (json == null) {
+                return new JsonObject();
+            }
+            JsonElement code = json.get("code");
+            if (code != null && code.getAsInt() != 200) {
+                JsonElement message = json.get("message");
+                throw new UploadException(message != null ? message.getAsString() : "请求失败",
+                    code.getAsInt());
+            }
+            JsonElement data = json.get("data");
+            return data != null && data.isJsonObject() ? data.getAsJsonObject() : new JsonObject();
+        }
+    }
+}
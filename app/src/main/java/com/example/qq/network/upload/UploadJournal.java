@@ -0,0 +1,164 @@
+package com.example.qq.network.upload;
+
+import com.example.qq.utils.GsonProvider;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 分片上传日志
+ * 每个上传任务一个JSON文件，记录服务器分配的uploadId和已确认的分片，
+ * 进程被杀后重新上传同一个任务时据此续传。写入采用临时文件+重命名，保证文件完整
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class UploadJournal {
+    private static final Gson GSON = GsonProvider.get();
+    private static final String SUFFIX = ".json";
+
+    private final File dir;
+
+    /**
+     * 构造函数
+     * @param dir 日志目录，不存在时自动创建
+     */
+    public UploadJournal(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * 单个上传任务的记录
+     */
+    public static final class Entry {
+        /** 任务标识，由调用方指定 */
+        String key;
+        /** 服务器分配的上传ID */
+        String uploadId;
+        /** 数据源标识 */
+        String identity;
+        long length;
+        int chunkSize;
+        /** 已确认的分片下标 */
+        List<Integer> completed = new ArrayList<>();
+        long createdAt;
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getUploadId() {
+            return uploadId;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * 已确认分片的位图
+         */
+        BitSet completedSet() {
+            BitSet set = new BitSet();
+            for (int index : completed) {
+                set.set(index);
+            }
+            return set;
+        }
+
+        /**
+         * 与数据源和分片大小是否一致
+         */
+        boolean matches(UploadSource source, int chunkSize) {
+            return length == source.length() && this.chunkSize == chunkSize
+                && identity != null && identity.equals(source.identity());
+        }
+    }
+
+    /**
+     * 读取任务记录
+     * @param key 任务标识
+     * @return 记录，不存在或损坏时返回null
+     */
+    public synchronized Entry load(String key) {
+        File file = fileFor(key);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            Entry entry = GSON.fromJson(json, Entry.class);
+            return entry != null && key.equals(entry.key) ? entry : null;
+        } catch (IOException | JsonParseException e) {
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * 保存任务记录
+     * @param entry 记录
+     * @throws IOException 写入失败
+     */
+    public synchronized void save(Entry entry) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("无法创建目录: " + dir);
+        }
+        File file = fileFor(entry.key);
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            GSON.toJson(entry, writer);
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("无法写入上传日志: " + file);
+        }
+    }
+
+    /**
+     * 删除任务记录
+     * @param key 任务标识
+     */
+    public synchronized void delete(String key) {
+        fileFor(key).delete();
+    }
+
+    /**
+     * 列出所有未完成的任务（用于启动后恢复）
+     * @return 任务记录
+     */
+    public synchronized List<Entry> list() {
+        List<Entry> entries = new ArrayList<>();
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            return entries;
+        }
+        for (File file : files) {
+            try {
+                Entry entry = GSON.fromJson(
+                    new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8), Entry.class);
+                if (entry != null && entry.key != null) {
+                    entries.add(entry);
+                }
+            } catch (IOException | JsonParseException ignored) {
+                // 损坏的记录在 load 时删除
+            }
+        }
+        return entries;
+    }
+
+    private File fileFor(String key) {
+        // 任务标识可能含路径字符，用摘要作为文件名
+        return new File(dir, Integer.toHexString(key.hashCode()) + "_" + key.length() + SUFFIX);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.qq.network.upload;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 分片上传的数据源
+ * 通过 FileChannel 按位置读取，多个分片线程可以并发读取同一个数据源
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class UploadSource implements Closeable {
+    private final FileChannel channel;
+    private final Closeable owner;
+    private final long length;
+    private final String identity;
+
+    private UploadSource(FileChannel channel, Closeable owner, long length, String identity) {
+        this.channel = channel;
+        this.owner = owner;
+        this.length = length;
+        this.identity = identity;
+    }
+
+    /**
+     * 以本地文件作为数据源
+     * @param file 文件
+     * @return 数据源
+     * @throws IOException 打开失败
+     */
+    public static UploadSource of(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        FileChannel channel = raf.getChannel();
+        return new UploadSource(channel, raf, channel.size(),
+            file.getAbsolutePath() + ":" + file.lastModified());
+    }
+
+    /**
+     * 以内容Uri作为数据源，直接读取文件描述符，不复制到临时文件
+     * @param context 上下文
+     * @param uri 内容Uri
+     * @return 数据源
+     * @throws IOException 打开失败
+     */
+    public static UploadSource of(Context context, Uri uri) throws IOException {
+        ParcelFileDescriptor pfd = context.getContentResolver().openFileDescriptor(uri, "r");
+        if (pfd == null) {
+            throw new IOException("无法打开: " + uri);
+        }
+        FileInputStream in = new FileInputStream(pfd.getFileDescriptor());
+        FileChannel channel = in.getChannel();
+        long length = pfd.getStatSize() >= 0 ? pfd.getStatSize() : channel.size();
+        return new UploadSource(channel, () -> {
+            in.close();
+            pfd.close();
+        }, length, uri.toString());
+    }
+
+    /**
+     * 数据总长度
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * 数据源标识（路径或Uri），用于判断续传记录是否仍对应同一份数据
+     */
+    public String identity() {
+        return identity;
+    }
+
+    /**
+     * 从指定位置读取数据，线程安全
+     * @param position 起始位置
+     * @param buffer 目标数组
+     * @param count 读取字节数
+     * @throws IOException 读取失败或数据提前结束
+     */
+    public void read(long position, byte[] buffer, int count) throws IOException {
+        ByteBuffer target = ByteBuffer.wrap(buffer, 0, count);
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position + target.position());
+            if (read < 0) {
+                throw new EOFException("数据源在 " + (position + target.position()) + " 处提前结束");
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        owner.close();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.qq.startup;
+
+import android.content.Context;
+
+import com.bumptech.glide.Glide;
+
+/**
+ * 初始化Glide
+ * Glide.get 首次调用会构建缓存和注册表，耗时较长，放在后台线程执行
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public class GlideInitTask extends StartupTask {
+    public static final String NAME = "glide_init";
+
+    public GlideInitTask() {
+        super(NAME);
+    }
+
+    @Override
+    public void run(Context context) {
+        Glide.get(context);
+    }
+}
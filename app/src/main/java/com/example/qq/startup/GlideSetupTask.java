@@ -0,0 +1,50 @@
+package com.example.qq.startup;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.MemoryCategory;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.example.qq.R;
+
+/**
+ * 配置Glide内存策略并预加载常用图片
+ * setMemoryCategory 要求在主线程调用
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public class GlideSetupTask extends StartupTask {
+    private static final String TAG = "GlideSetupTask";
+    public static final String NAME = "glide_setup";
+
+    public GlideSetupTask() {
+        super(NAME, GlideInitTask.NAME);
+    }
+
+    @Override
+    public boolean runOnMainThread() {
+        return true;
+    }
+
+    @Override
+    public void run(Context context) {
+        // 配置Glide内存策略
+        Glide.get(context).setMemoryCategory(MemoryCategory.HIGH);
+        // 预加载本地常用图片
+        preload(context, R.drawable.p29);
+        preload(context, R.drawable.p38);
+    }
+
+    private void preload(Context context, int resId) {
+        try {
+            Glide.with(context)
+                .load(resId)
+                .diskCacheStrategy(DiskCacheStrategy.RESOURCE)
+                .preload();
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to preload resource " + resId + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.qq.startup;
+
+import android.content.Context;
+
+import com.example.qq.utils.SharedPreferencesManager;
+
+/**
+ * 初始化本地存储
+ * 首次读取SharedPreferences会从磁盘加载整个xml文件，放在后台线程执行
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public class PrefsInitTask extends StartupTask {
+    public static final String NAME = "prefs";
+
+    public PrefsInitTask() {
+        super(NAME);
+    }
+
+    @Override
+    public boolean isCritical() {
+        return true;
+    }
+
+    @Override
+    public void run(Context context) {
+        SharedPreferencesManager.init(context);
+        // 触发一次读取，确保xml已加载到内存
+        SharedPreferencesManager.getInstance().isLoggedIn();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.qq.startup;
+
+import android.content.Context;
+
+import com.example.qq.utils.SharedPreferencesManager;
+
+/**
+ * 预热好友列表缓存
+ * 提前完成好友列表JSON的首次解析（含Gson反射缓存），减少进入主界面后的卡顿
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public class RosterWarmTask extends StartupTask {
+    public static final String NAME = "roster";
+
+    public RosterWarmTask() {
+        super(NAME, SessionCheckTask.NAME);
+    }
+
+    @Override
+    public void run(Context context) {
+        if (SessionCheckTask.isLoggedIn()) {
+            SharedPreferencesManager.getInstance().getCachedFriendList();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.qq.startup;
+
+import android.content.Context;
+
+import com.example.qq.utils.SharedPreferencesManager;
+
+/**
+ * 检查登录状态
+ * 登录状态、token和用户信息都存在才视为已登录，结果供启动页路由使用
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public class SessionCheckTask extends StartupTask {
+    public static final String NAME = "session";
+
+    /** 检查结果 */
+    private static volatile boolean loggedIn;
+
+    public SessionCheckTask() {
+        super(NAME, PrefsInitTask.NAME);
+    }
+
+    /**
+     * 获取登录状态检查结果
+     * 仅在关键路径完成后有效
+     * @return 是否已登录
+     */
+    public static boolean isLoggedIn() {
+        return loggedIn;
+    }
+
+    /**
+     * 重新检查登录状态
+     * 用于退出登录后再次回到启动页等进程内的二次检查
+     * @return 是否已登录
+     */
+    public static boolean refresh() {
+        SharedPreferencesManager prefsManager = SharedPreferencesManager.getInstance();
+        loggedIn = prefsManager.isLoggedIn()
+                && prefsManager.getToken() != null
+                && prefsManager.getUserInfo() != null;
+        return loggedIn;
+    }
+
+    @Override
+    public boolean isCritical() {
+        return true;
+    }
+
+    @Override
+    public void run(Context context) {
+        refresh();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.qq.startup;
+
+import android.content.Context;
+
+import com.example.qq.utils.ConversationSnapshot;
+import com.example.qq.utils.SharedPreferencesManager;
+
+/**
+ * 预加载会话列表快照
+ * 在启动页期间通过内存映射解码上次显示的会话列表，主界面首帧直接使用
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public class SnapshotLoadTask extends StartupTask {
+    public static final String NAME = "snapshot";
+
+    public SnapshotLoadTask() {
+        super(NAME, SessionCheckTask.NAME);
+    }
+
+    @Override
+    public boolean isCritical() {
+        return true;
+    }
+
+    @Override
+    public void run(Context context) {
+        if (SessionCheckTask.isLoggedIn()) {
+            ConversationSnapshot.preload(context,
+                SharedPreferencesManager.getInstance().getCurrentUsername());
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.example.qq.startup;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.qq.executor.AppExecutors;
+import com.example.qq.executor.TaskPriority;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 启动任务编排器
+ * 负责应用启动阶段的初始化调度，包括：
+ * - 按依赖关系构建任务图（检测缺失依赖和循环依赖）
+ * - 依赖满足后立即执行，后台任务在 AppExecutors 的 io 通道并行运行（关键路径优先），主线程任务投递到主线程
+ * - 关键路径完成后通知启动页跳转，无需等待其余任务
+ * - io 通道队列已满丢弃的任务记为失败，照常释放依赖它的任务，任务图总能完成
+ * - 记录每个任务的排队、执行耗时，生成启动报告写入 files/startup_report.json
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class StartupManager {
+    private static final String TAG = "StartupManager";
+    /** 启动报告文件名 */
+    public static final String REPORT_FILE = "startup_report.json";
+
+    /** 单例实例 */
+    private static StartupManager instance;
+
+    /** 已注册的任务，按注册顺序 */
+    private final Map<String, StartupTask> tasks = new LinkedHashMap<>();
+    /** 任务 -> 依赖它的任务 */
+    private final Map<String, List<StartupTask>> dependents = new HashMap<>();
+    /** 任务 -> 尚未完成的依赖数量 */
+    private final Map<String, AtomicInteger> pendingDependencies = new HashMap<>();
+    /** 关键路径上的任务（含关键任务的全部依赖） */
+    private final Set<String> criticalTasks = new HashSet<>();
+    /** 每个任务的耗时记录 */
+    private final List<TaskRecord> records = Collections.synchronizedList(new ArrayList<>());
+    /** 关键路径完成后的回调 */
+    private final List<Runnable> criticalPathCallbacks = new ArrayList<>();
+    /** 主线程Handler */
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private Context context;
+    private AtomicInteger remainingTasks;
+    private AtomicInteger remainingCriticalTasks;
+    /** 启动时间（uptime毫秒） */
+    private long startUptime;
+    /** 关键路径完成时间（uptime毫秒），未完成时为0 */
+    private volatile long criticalPathDoneUptime;
+    private boolean started = false;
+
+    private StartupManager() {
+    }
+
+    /**
+     * 获取StartupManager的单例实例
+     * @return StartupManager实例
+     */
+    public static synchronized StartupManager getInstance() {
+        if (instance == null) {
+            instance = new StartupManager();
+        }
+        return instance;
+    }
+
+    /**
+     * 注册启动任务，须在 {@link #start(Context)} 之前调用
+     * @param task 启动任务
+     * @return 当前实例，便于链式调用
+     */
+    public synchronized StartupManager addTask(StartupTask task) {
+        if (started) {
+            throw new IllegalStateException("StartupManager already started");
+        }
+        if (tasks.put(task.getName(), task) != null) {
+            throw new IllegalArgumentException("Duplicate startup task: " + task.getName());
+        }
+        return this;
+    }
+
+    /**
+     * 开始执行启动任务
+     * 在 Application.onCreate 中调用，只会执行一次
+     * @param context 上下文
+     */
+    public synchronized void start(Context context) {
+        if (started) {
+            return;
+        }
+        started = true;
+        this.context = context.getApplicationContext();
+        this.startUptime = SystemClock.uptimeMillis();
+
+        List<StartupTask> roots = buildGraph();
+        remainingTasks = new AtomicInteger(tasks.size());
+        remainingCriticalTasks = new AtomicInteger(criticalTasks.size());
+
+        if (criticalTasks.isEmpty()) {
+            mainHandler.post(this::onCriticalPathDone);
+        }
+        for (StartupTask task : roots) {
+            dispatch(task);
+        }
+    }
+
+    /**
+     * 关键路径完成后在主线程执行回调
+     * 如果关键路径已经完成，回调会立即投递到主线程
+     * @param callback 回调
+     */
+    public void runAfterCriticalPath(Runnable callback) {
+        synchronized (criticalPathCallbacks) {
+            if (criticalPathDoneUptime == 0) {
+                criticalPathCallbacks.add(callback);
+                return;
+            }
+        }
+        mainHandler.post(callback);
+    }
+
+    /**
+     * 关键路径是否已完成
+     * @return 是否完成
+     */
+    public boolean isCriticalPathDone() {
+        return criticalPathDoneUptime != 0;
+    }
+
+    /**
+     * 生成当前的启动报告（JSON）
+     * @return 报告内容
+     */
+    public String getReport() {
+        JSONObject report = new JSONObject();
+        try {
+            report.put("processStartToInitMs", startUptime - Process.getStartUptimeMillis());
+            report.put("criticalPathMs", criticalPathDoneUptime == 0 ? -1 : criticalPathDoneUptime - startUptime);
+            report.put("processStartToCriticalPathMs",
+                criticalPathDoneUptime == 0 ? -1 : criticalPathDoneUptime - Process.getStartUptimeMillis());
+            JSONArray array = new JSONArray();
+            synchronized (records) {
+                for (TaskRecord record : records) {
+                    array.put(record.toJson());
+                }
+            }
+            report.put("tasks", array);
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to build startup report", e);
+        }
+        return report.toString();
+    }
+
+    /**
+     * 获取启动报告文件
+     * @param context 上下文
+     * @return 报告文件（可能尚未生成）
+     */
+    public static File getReportFile(Context context) {
+        return new File(context.getFilesDir(), REPORT_FILE);
+    }
+
+    /**
+     * 构建任务图
+     * @return 没有依赖、可以立即执行的任务
+     */
+    private List<StartupTask> buildGraph() {
+        List<StartupTask> roots = new ArrayList<>();
+        for (StartupTask task : tasks.values()) {
+            for (String dependency : task.getDependencies()) {
+                if (!tasks.containsKey(dependency)) {
+                    throw new IllegalStateException(
+                        "Startup task " + task.getName() + " depends on missing task " + dependency);
+                }
+                dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(task);
+            }
+            pendingDependencies.put(task.getName(), new AtomicInteger(task.getDependencies().size()));
+            if (task.getDependencies().isEmpty()) {
+                roots.add(task);
+            }
+        }
+
+        checkCycles(roots);
+
+        // 关键任务的依赖同样位于关键路径上
+        Deque<StartupTask> queue = new ArrayDeque<>();
+        for (StartupTask task : tasks.values()) {
+            if (task.isCritical()) {
+                queue.add(task);
+            }
+        }
+        while (!queue.isEmpty()) {
+            StartupTask task = queue.poll();
+            if (criticalTasks.add(task.getName())) {
+                for (String dependency : task.getDependencies()) {
+                    queue.add(tasks.get(dependency));
+                }
+            }
+        }
+        return roots;
+    }
+
+    /**
+     * 拓扑排序检测循环依赖
+     */
+    private void checkCycles(List<StartupTask> roots) {
+        Map<String, Integer> inDegree = new HashMap<>();
+        for (StartupTask task : tasks.values()) {
+            inDegree.put(task.getName(), task.getDependencies().size());
+        }
+        Deque<StartupTask> queue = new ArrayDeque<>(roots);
+        int visited = 0;
+        while (!queue.isEmpty()) {
+            StartupTask task = queue.poll();
+            visited++;
+            List<StartupTask> children = dependents.get(task.getName());
+            if (children == null) {
+                continue;
+            }
+            for (StartupTask child : children) {
+                int degree = inDegree.get(child.getName()) - 1;
+                inDegree.put(child.getName(), degree);
+                if (degree == 0) {
+                    queue.add(child);
+                }
+            }
+        }
+        if (visited != tasks.size()) {
+            throw new IllegalStateException("Startup tasks contain a dependency cycle");
+        }
+    }
+
+    /**
+     * 将任务投递到对应线程
+     */
+    private void dispatch(StartupTask task) {
+        long enqueueUptime = SystemClock.uptimeMillis();
+        Runnable runnable = () -> execute(task, enqueueUptime);
+        if (task.runOnMainThread()) {
+            mainHandler.post(runnable);
+        } else {
+            // 关键路径上的任务优先于其他后台任务
+            TaskPriority priority = criticalTasks.contains(task.getName())
+                ? TaskPriority.INTERACTIVE : TaskPriority.DEFAULT;
+            // io 通道满时会丢弃并取消排在最后的 Future，不能让任务就此消失
+            AppExecutors.getInstance().io().execute(priority, new FutureTask<Void>(runnable, null) {
+                @Override
+                protected void done() {
+                    if (isCancelled()) {
+                        onTaskDiscarded(task, enqueueUptime);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 任务未执行就被 io 通道丢弃：记为失败，依赖它的任务照常执行
+     */
+    private void onTaskDiscarded(StartupTask task, long enqueueUptime) {
+        long now = SystemClock.uptimeMillis();
+        Log.w(TAG, "Startup task discarded by io lane: " + task.getName());
+        records.add(new TaskRecord(task.getName(), "discarded", now - startUptime, now - enqueueUptime, 0,
+            criticalTasks.contains(task.getName()), false));
+        onTaskFinished(task);
+    }
+
+    /**
+     * 执行任务并记录耗时
+     */
+    private void execute(StartupTask task, long enqueueUptime) {
+        long beginUptime = SystemClock.uptimeMillis();
+        boolean success = true;
+        try {
+            task.run(context);
+        } catch (Throwable t) {
+            success = false;
+            Log.e(TAG, "Startup task failed: " + task.getName(), t);
+        }
+        long endUptime = SystemClock.uptimeMillis();
+        records.add(new TaskRecord(task.getName(), Thread.currentThread().getName(),
+            beginUptime - startUptime, beginUptime - enqueueUptime, endUptime - beginUptime,
+            criticalTasks.contains(task.getName()), success));
+        onTaskFinished(task);
+    }
+
+    /**
+     * 任务完成后释放依赖它的任务，并检查关键路径和整体是否完成
+     */
+    private void onTaskFinished(StartupTask task) {
+        List<StartupTask> children = dependents.get(task.getName());
+        if (children != null) {
+            for (StartupTask child : children) {
+                if (pendingDependencies.get(child.getName()).decrementAndGet() == 0) {
+                    dispatch(child);
+                }
+            }
+        }
+        if (criticalTasks.contains(task.getName()) && remainingCriticalTasks.decrementAndGet() == 0) {
+            mainHandler.post(this::onCriticalPathDone);
+        }
+        if (remainingTasks.decrementAndGet() == 0) {
+            onAllTasksDone();
+        }
+    }
+
+    /**
+     * 关键路径完成，在主线程执行等待中的回调
+     */
+    private void onCriticalPathDone() {
+        List<Runnable> callbacks;
+        synchronized (criticalPathCallbacks) {
+            criticalPathDoneUptime = SystemClock.uptimeMillis();
+            callbacks = new ArrayList<>(criticalPathCallbacks);
+            criticalPathCallbacks.clear();
+        }
+        Log.i(TAG, "Critical path done in " + (criticalPathDoneUptime - startUptime) + "ms");
+        for (Runnable callback : callbacks) {
+            callback.run();
+        }
+    }
+
+    /**
+     * 全部任务完成，写入启动报告
+     */
+    private void onAllTasksDone() {
+        AppExecutors.getInstance().io().execute(TaskPriority.BACKGROUND, () -> {
+            String report = getReport();
+            Log.i(TAG, "Startup report: " + report);
+            try (FileOutputStream out = new FileOutputStream(getReportFile(context))) {
+                out.write(report.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to write startup report", e);
+            }
+        });
+    }
+
+    /**
+     * 单个任务的耗时记录
+     */
+    private static class TaskRecord {
+        final String name;
+        final String thread;
+        /** 相对启动时间的开始偏移 */
+        final long startOffsetMs;
+        /** 依赖满足后到开始执行的排队时间 */
+        final long queueMs;
+        /** 执行耗时 */
+        final long durationMs;
+        final boolean critical;
+        final boolean success;
+
+        TaskRecord(String name, String thread, long startOffsetMs, long queueMs,
+                   long durationMs, boolean critical, boolean success) {
+            this.name = name;
+            this.thread = thread;
+            this.startOffsetMs = startOffsetMs;
+            this.queueMs = queueMs;
+            this.durationMs = durationMs;
+            this.critical = critical;
+            this.success = success;
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("name", name);
+            json.put("thread", thread);
+            json.put("startOffsetMs", startOffsetMs);
+            json.put("queueMs", queueMs);
+            json.put("durationMs", durationMs);
+            json.put("critical", critical);
+            json.put("success", success);
+            return json;
+        }
+    }
+}
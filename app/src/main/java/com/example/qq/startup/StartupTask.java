@@ -0,0 +1,71 @@
+package com.example.qq.startup;
+
+import android.content.Context;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 启动任务
+ * 声明任务名称、依赖的任务以及运行线程，由 {@link StartupManager} 按依赖顺序并行调度
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public abstract class StartupTask {
+    /** 任务名称（唯一） */
+    private final String name;
+    /** 依赖的任务名称 */
+    private final List<String> dependencies;
+
+    /**
+     * 构造函数
+     * @param name 任务名称
+     * @param dependencies 依赖的任务名称，这些任务完成后才会执行本任务
+     */
+    protected StartupTask(String name, String... dependencies) {
+        this.name = name;
+        this.dependencies = Collections.unmodifiableList(Arrays.asList(dependencies));
+    }
+
+    /**
+     * 获取任务名称
+     * @return 任务名称
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获取依赖的任务名称
+     * @return 依赖列表
+     */
+    public List<String> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * 是否必须在主线程执行
+     * @return 默认在后台线程执行
+     */
+    public boolean runOnMainThread() {
+        return false;
+    }
+
+    /**
+     * 是否位于关键路径上
+     * 关键路径上的任务（及其依赖）全部完成后，启动页即可跳转
+     * @return 默认不在关键路径上
+     */
+    public boolean isCritical() {
+        return false;
+    }
+
+    /**
+     * 执行任务
+     * @param context 应用程序上下文
+     * @throws Exception 任务失败时抛出，不会阻止依赖它的任务执行
+     */
+    public abstract void run(Context context) throws Exception;
+}
@@ -0,0 +1,27 @@
+package com.example.qq.startup;
+
+import android.content.Context;
+
+import com.example.qq.websocket.impl.WebSocketServiceImpl;
+
+/**
+ * 提前建立WebSocket连接
+ * 已登录时在启动页期间就开始握手，MainActivity中再次init不会重复连接
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public class WebSocketConnectTask extends StartupTask {
+    public static final String NAME = "websocket";
+
+    public WebSocketConnectTask() {
+        super(NAME, SessionCheckTask.NAME);
+    }
+
+    @Override
+    public void run(Context context) {
+        if (SessionCheckTask.isLoggedIn()) {
+            WebSocketServiceImpl.getInstance().init();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.qq.state;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 单个领域（好友列表、好友请求、未读数）的版本化状态
+ * 发布方只声明"哪些键变了"，数据本身仍保存在原来的位置（本地存储、服务器）；
+ * 两次分发之间的所有发布合并，订阅者每帧最多收到一次，携带最新版本号和变化的键
+ * 发布方法可在任意线程调用，订阅方法应在主线程调用
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class DomainState {
+    private final String name;
+    private final StateStore store;
+    /** 订阅者列表，只在主线程访问 */
+    private final List<StateObserver> observers = new ArrayList<>();
+
+    /** 以下字段由 this 保护 */
+    private long version;
+    private Set<String> changed = new HashSet<>();
+    private Set<String> removed = new HashSet<>();
+    private boolean full;
+    private boolean dirty;
+
+    DomainState(String name, StateStore store) {
+        this.name = name;
+        this.store = store;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 当前版本号，每次发布加一
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * 声明某个键新增或内容变化
+     * @param key 键
+     */
+    public void publish(String key) {
+        synchronized (this) {
+            removed.remove(key);
+            changed.add(key);
+            markDirty();
+        }
+        store.requestDispatch();
+    }
+
+    /**
+     * 声明某个键被移除
+     * @param key 键
+     */
+    public void remove(String key) {
+        synchronized (this) {
+            changed.remove(key);
+            removed.add(key);
+            markDirty();
+        }
+        store.requestDispatch();
+    }
+
+    /**
+     * 声明整体失效（如服务器数据变化但不知道具体哪些键）
+     */
+    public void invalidate() {
+        synchronized (this) {
+            full = true;
+            markDirty();
+        }
+        store.requestDispatch();
+    }
+
+    /**
+     * 订阅变化，生命周期销毁时自动取消
+     * Fragment 中更新视图的订阅应绑定 getViewLifecycleOwner()
+     * @param owner 生命周期持有者
+     * @param observer 订阅者
+     */
+    public void observe(LifecycleOwner owner, StateObserver observer) {
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            return;
+        }
+        observers.add(observer);
+        lifecycle.addObserver((LifecycleEventObserver) (source, event) -> {
+            if (event == Lifecycle.Event.ON_DESTROY) {
+                observers.remove(observer);
+            }
+        });
+    }
+
+    private void markDirty() {
+        version++;
+        dirty = true;
+    }
+
+    /**
+     * 取出自上次分发以来合并的变化
+     * @return 变化，没有变化时返回null
+     */
+    synchronized StateChange drain() {
+        if (!dirty) {
+            return null;
+        }
+        StateChange change = new StateChange(name, version, changed, removed, full);
+        changed = new HashSet<>();
+        removed = new HashSet<>();
+        full = false;
+        dirty = false;
+        return change;
+    }
+
+    /**
+     * 分发给所有订阅者（主线程）
+     */
+    void dispatch(StateChange change) {
+        for (StateObserver observer : new ArrayList<>(observers)) {
+            observer.onStateChanged(change);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.qq.state;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 状态变化
+ * 一帧内同一领域的所有变化合并为一个对象：
+ * - changedKeys：新增或内容变化的键（如好友用户名）
+ * - removedKeys：被移除的键
+ * - full：整体失效，订阅者应重新加载全部数据，此时键集合只作参考
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class StateChange {
+    private final String domain;
+    private final long version;
+    private final Set<String> changedKeys;
+    private final Set<String> removedKeys;
+    private final boolean full;
+
+    StateChange(String domain, long version, Set<String> changedKeys, Set<String> removedKeys, boolean full) {
+        this.domain = domain;
+        this.version = version;
+        this.changedKeys = Collections.unmodifiableSet(changedKeys);
+        this.removedKeys = Collections.unmodifiableSet(removedKeys);
+        this.full = full;
+    }
+
+    /**
+     * 领域名称
+     */
+    public String getDomain() {
+        return domain;
+    }
+
+    /**
+     * 本次变化后的版本号，单调递增
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public Set<String> getChangedKeys() {
+        return changedKeys;
+    }
+
+    public Set<String> getRemovedKeys() {
+        return removedKeys;
+    }
+
+    /**
+     * 是否整体失效
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    @Override
+    public String toString() {
+        return domain + "@" + version + (full ? " full" : "")
+            + " changed=" + changedKeys + " removed=" + removedKeys;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.qq.state;
+
+/**
+ * 状态订阅者
+ * 在主线程回调，每帧最多一次
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public interface StateObserver {
+    /**
+     * 状态发生变化
+     * @param change 上次回调以来合并后的变化
+     */
+    void onStateChanged(StateChange change);
+}
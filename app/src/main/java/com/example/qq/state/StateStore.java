@@ -0,0 +1,102 @@
+package com.example.qq.state;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.Choreographer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 应用状态中心
+ * 取代为同一变化重复发送的 EventBus 事件（多个页面的 MessageHandlerImpl 同时监听 WebSocket 时，
+ * 一次推送会产生多个事件，每个订阅者都重新加载一遍）。各领域的变化在下一帧开始时统一分发，
+ * 订阅者每帧最多收到一次更新：
+ * - roster：好友列表，键为好友用户名（最后一条消息、资料变化或好友增删）
+ * - requests：好友请求，键为请求方用户名
+ * - unread：未读消息数，键为好友用户名
+ * 屏幕关闭等没有帧回调的时候变化会保留，恢复后合并为一次分发
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class StateStore {
+    private static final String TAG = "StateStore";
+
+    /** 单例实例 */
+    private static StateStore instance;
+
+    private final DomainState roster = new DomainState("roster", this);
+    private final DomainState requests = new DomainState("requests", this);
+    private final DomainState unread = new DomainState("unread", this);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean();
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> dispatch();
+
+    private StateStore() {
+    }
+
+    /**
+     * 获取StateStore的单例实例
+     * @return StateStore实例
+     */
+    public static synchronized StateStore getInstance() {
+        if (instance == null) {
+            instance = new StateStore();
+        }
+        return instance;
+    }
+
+    /**
+     * 好友列表状态
+     */
+    public DomainState roster() {
+        return roster;
+    }
+
+    /**
+     * 好友请求状态
+     */
+    public DomainState requests() {
+        return requests;
+    }
+
+    /**
+     * 未读数状态
+     */
+    public DomainState unread() {
+        return unread;
+    }
+
+    /**
+     * 安排在下一帧分发，一帧内多次调用只安排一次
+     */
+    void requestDispatch() {
+        if (!dispatchScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        // Choreographer 与线程绑定，必须在主线程获取
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        } else {
+            mainHandler.post(() -> Choreographer.getInstance().postFrameCallback(frameCallback));
+        }
+    }
+
+    private void dispatch() {
+        // 先清除标记：订阅者在回调中发布的变化进入下一帧
+        dispatchScheduled.set(false);
+        dispatch(roster);
+        dispatch(requests);
+        dispatch(unread);
+    }
+
+    private void dispatch(DomainState domain) {
+        StateChange change = domain.drain();
+        if (change == null) {
+            return;
+        }
+        Log.d(TAG, "分发 " + change);
+        domain.dispatch(change);
+    }
+}
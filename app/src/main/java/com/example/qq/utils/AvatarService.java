@@ -0,0 +1,373 @@
+package com.example.qq.utils;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.request.target.CustomTarget;
+import com.bumptech.glide.request.transition.Transition;
+import com.example.qq.R;
+import com.example.qq.metrics.Metrics;
+import com.example.qq.network.NetworkPolicy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 头像服务
+ * 列表、顶部栏和通知共用的圆形头像缓存，包括：
+ * - 以 用户名 + 头像版本 + 尺寸档位 为键，同一头像在同一档位只下载裁剪一次
+ * - 尺寸按 {@link #BUCKETS} 向上取档，避免每个控件尺寸各算一份；计费网络下档位上限按 {@link NetworkPolicy} 降低
+ * - 圆形裁剪在Glide解码线程完成，结果复制到自有位图后立即释放Glide资源
+ * - 按字节数限制的LRU缓存，由 QQApplication.onTrimMemory 回收
+ * - 统计命中率、解码次数和淘汰次数，以 avatar.* 仪表注册到 Metrics
+ * 除统计和缓存读取外，所有方法应在主线程调用
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class AvatarService {
+    private static final String TAG = "AvatarService";
+    /** 尺寸档位（像素） */
+    private static final int[] BUCKETS = {64, 128, 256};
+    /** 缓存上限（字节） */
+    private static final int MAX_CACHE_BYTES = 8 * 1024 * 1024;
+
+    /**
+     * 头像加载回调
+     */
+    public interface Callback {
+        /**
+         * 在主线程回调
+         * @param bitmap 圆形头像，加载失败时为null
+         */
+        void onAvatarReady(@Nullable Bitmap bitmap);
+    }
+
+    /** 单例实例 */
+    private static AvatarService instance;
+
+    private final Context context;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final LruCache<String, Bitmap> cache;
+    /** 缓存键 -> 等待中的回调，同一头像并发请求只加载一次 */
+    private final Map<String, List<Callback>> inFlight = new HashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong decodeCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private AvatarService(Context context) {
+        this.context = context.getApplicationContext();
+        ActivityManager am = (ActivityManager) this.context.getSystemService(Context.ACTIVITY_SERVICE);
+        int memoryClassBytes = am != null ? am.getMemoryClass() * 1024 * 1024 : MAX_CACHE_BYTES * 8;
+        int maxBytes = Math.min(MAX_CACHE_BYTES, memoryClassBytes / 16);
+        cache = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getAllocationByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                if (evicted) {
+                    evictionCount.incrementAndGet();
+                }
+            }
+        };
+        registerGauges();
+    }
+
+    /**
+     * 将命中率、解码次数和缓存占用导出到 Metrics，随 Metrics.report() 一起输出
+     */
+    private void registerGauges() {
+        Metrics metrics = Metrics.getInstance();
+        metrics.gauge("avatar.hits", hitCount::get);
+        metrics.gauge("avatar.misses", missCount::get);
+        metrics.gauge("avatar.hit_rate_permille", () -> Math.round(getHitRate() * 1000));
+        metrics.gauge("avatar.decodes", decodeCount::get);
+        metrics.gauge("avatar.failures", failureCount::get);
+        metrics.gauge("avatar.evictions", evictionCount::get);
+        metrics.gauge("avatar.cache_bytes", cache::size);
+        metrics.gauge("avatar.cache_max_bytes", cache::maxSize);
+    }
+
+    /**
+     * 获取AvatarService的单例实例
+     * @param context 上下文
+     * @return AvatarService实例
+     */
+    public static synchronized AvatarService getInstance(Context context) {
+        if (instance == null) {
+            instance = new AvatarService(context);
+        }
+        return instance;
+    }
+
+    /**
+     * 将头像显示到ImageView，尺寸档位取自控件的布局宽度
+     * 控件被复用时只有最后一次请求的结果会生效
+     * @param view 目标控件
+     * @param username 用户名，为null时以头像URL区分
+     * @param avatarUrl 头像URL，为空时显示默认头像
+     */
+    public void into(ImageView view, String username, String avatarUrl) {
+        if (avatarUrl == null || avatarUrl.isEmpty()) {
+            view.setTag(R.id.avatar_request_key, null);
+            view.setImageResource(R.drawable.default_avatar);
+            return;
+        }
+        int bucket = bucketFor(requestedSize(view));
+        String key = key(username, avatarUrl, bucket);
+        view.setTag(R.id.avatar_request_key, key);
+        Bitmap cached = lookup(key);
+        if (cached != null) {
+            view.setImageBitmap(cached);
+            return;
+        }
+        view.setImageResource(R.drawable.default_avatar);
+        load(key, avatarUrl, bucket, bitmap -> {
+            if (bitmap != null && key.equals(view.getTag(R.id.avatar_request_key))) {
+                view.setImageBitmap(bitmap);
+            }
+        });
+    }
+
+    /**
+     * 获取指定尺寸的圆形头像（用于通知等非控件场景）
+     * @param username 用户名，为null时以头像URL区分
+     * @param avatarUrl 头像URL
+     * @param sizePx 期望尺寸（像素），会向上取档
+     * @param callback 结果回调，命中缓存时同步回调
+     */
+    public void get(String username, String avatarUrl, int sizePx, Callback callback) {
+        if (avatarUrl == null || avatarUrl.isEmpty()) {
+            callback.onAvatarReady(null);
+            return;
+        }
+        int bucket = bucketFor(sizePx);
+        String key = key(username, avatarUrl, bucket);
+        Bitmap cached = lookup(key);
+        if (cached != null) {
+            callback.onAvatarReady(cached);
+            return;
+        }
+        load(key, avatarUrl, bucket, callback);
+    }
+
+    /**
+     * 预取头像到缓存，已缓存或正在加载时不重复请求
+     * 应通过 {@link NetworkPolicy#runWhenUnmetered} 调用，避免在计费网络下消耗流量
+     * @param sizePx 控件尺寸（像素），与之后 {@link #into} 的控件一致才能命中
+     */
+    public void prefetch(String username, String avatarUrl, int sizePx) {
+        if (avatarUrl == null || avatarUrl.isEmpty()) {
+            return;
+        }
+        int bucket = bucketFor(sizePx);
+        String key = key(username, avatarUrl, bucket);
+        if (cache.get(key) != null) {
+            return;
+        }
+        load(key, avatarUrl, bucket, bitmap -> {
+        });
+    }
+
+    /**
+     * 只读缓存，不触发加载
+     * @return 缓存的圆形头像，未命中返回null
+     */
+    @Nullable
+    public Bitmap peek(String username, String avatarUrl, int sizePx) {
+        if (avatarUrl == null || avatarUrl.isEmpty()) {
+            return null;
+        }
+        return lookup(key(username, avatarUrl, bucketFor(sizePx)));
+    }
+
+    /**
+     * 响应系统内存回收
+     * @param level ComponentCallbacks2 的 TRIM_MEMORY_* 级别
+     */
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            cache.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            cache.trimToSize(cache.maxSize() / 2);
+        }
+        Log.d(TAG, "trimMemory(" + level + "): " + getStats());
+    }
+
+    /**
+     * 清空缓存（低内存时调用）
+     */
+    public void clearMemory() {
+        cache.evictAll();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getDecodeCount() {
+        return decodeCount.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * 缓存命中率
+     * @return 0-1，尚无请求时为0
+     */
+    public double getHitRate() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * 统计摘要，便于日志输出
+     */
+    public String getStats() {
+        return String.format(Locale.US,
+            "hits=%d misses=%d hitRate=%.1f%% decodes=%d failures=%d evictions=%d size=%dKB/%dKB",
+            hitCount.get(), missCount.get(), getHitRate() * 100, decodeCount.get(),
+            failureCount.get(), evictionCount.get(), cache.size() / 1024, cache.maxSize() / 1024);
+    }
+
+    private Bitmap lookup(String key) {
+        Bitmap bitmap = cache.get(key);
+        if (bitmap != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return bitmap;
+    }
+
+    /**
+     * 加载并裁剪头像，同一键的并发请求合并为一次
+     */
+    private void load(String key, String avatarUrl, int bucket, Callback callback) {
+        List<Callback> waiting = inFlight.get(key);
+        if (waiting != null) {
+            waiting.add(callback);
+            return;
+        }
+        waiting = new ArrayList<>(2);
+        waiting.add(callback);
+        inFlight.put(key, waiting);
+
+        CustomTarget<Bitmap> target = new CustomTarget<Bitmap>(bucket, bucket) {
+            @Override
+            public void onResourceReady(@NonNull Bitmap resource,
+                    @Nullable Transition<? super Bitmap> transition) {
+                // 复制为自有位图，释放后Glide即可复用原位图
+                Bitmap avatar = resource.copy(Bitmap.Config.ARGB_8888, false);
+                decodeCount.incrementAndGet();
+                if (avatar != null) {
+                    cache.put(key, avatar);
+                }
+                CustomTarget<Bitmap> self = this;
+                mainHandler.post(() -> Glide.with(context).clear(self));
+                dispatch(key, avatar);
+            }
+
+            @Override
+            public void onLoadFailed(@Nullable Drawable errorDrawable) {
+                failureCount.incrementAndGet();
+                dispatch(key, null);
+            }
+
+            @Override
+            public void onLoadCleared(@Nullable Drawable placeholder) {
+                // 结果已复制，无需处理
+            }
+        };
+        Glide.with(context)
+            .asBitmap()
+            .load(avatarUrl)
+            .circleCrop()
+            .skipMemoryCache(true)
+            .into(target);
+    }
+
+    private void dispatch(String key, Bitmap bitmap) {
+        List<Callback> callbacks = inFlight.remove(key);
+        if (callbacks == null) {
+            return;
+        }
+        for (Callback callback : callbacks) {
+            callback.onAvatarReady(bitmap);
+        }
+    }
+
+    /**
+     * 缓存键：用户名 + 头像版本 + 尺寸档位
+     * 头像更新后URL随之变化，以URL摘要作为版本号，旧版本自然被LRU淘汰
+     */
+    private static String key(String username, String avatarUrl, int bucket) {
+        String owner = username != null ? username : avatarUrl;
+        return owner + '#' + Integer.toHexString(avatarUrl.hashCode()) + '@' + bucket;
+    }
+
+    /**
+     * 向上取档，超过最大档位时使用最大档位
+     * 计费网络下不超过 {@link NetworkPolicy.Profile#avatarMaxPx}，头像略有放大但解码和缓存更小
+     */
+    private static int bucketFor(int sizePx) {
+        int limit = NetworkPolicy.getInstance().profile().avatarMaxPx;
+        int size = Math.min(sizePx, limit);
+        for (int bucket : BUCKETS) {
+            if (size <= bucket) {
+                return bucket;
+            }
+        }
+        return BUCKETS[BUCKETS.length - 1];
+    }
+
+    /**
+     * 控件期望尺寸：优先使用布局中的固定宽高，否则使用已测量的尺寸
+     */
+    private static int requestedSize(ImageView view) {
+        ViewGroup.LayoutParams params = view.getLayoutParams();
+        if (params != null && params.width > 0) {
+            return Math.max(params.width, params.height);
+        }
+        if (view.getWidth() > 0) {
+            return Math.max(view.getWidth(), view.getHeight());
+        }
+        return BUCKETS[1];
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.qq.utils;
+
+import com.example.qq.domain.ChatMessage;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 聊天记录列表操作
+ * 本地缓存的会话消息列表按时间戳升序保存，插入时按发送者、接收者、内容和时间戳去重
+ * 不依赖Android API，可在JVM基准测试中直接使用
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class ChatHistory {
+    /** 按时间戳升序 */
+    public static final Comparator<ChatMessage> BY_TIMESTAMP =
+        (m1, m2) -> Long.compare(m1.getTimestamp(), m2.getTimestamp());
+
+    private ChatHistory() {
+    }
+
+    /**
+     * 插入一条消息并保持时间顺序，已存在相同消息时不插入
+     * @param messages 消息列表
+     * @param message 新消息
+     * @return 是否插入
+     */
+    public static boolean insert(List<ChatMessage> messages, ChatMessage message) {
+        for (ChatMessage existing : messages) {
+            if (isSameMessage(existing, message)) {
+                return false;
+            }
+        }
+        messages.add(message);
+        // 列表基本有序，TimSort 只需一趟合并
+        Collections.sort(messages, BY_TIMESTAMP);
+        return true;
+    }
+
+    /**
+     * 按客户端消息ID查找
+     * @return 下标，不存在时返回-1
+     */
+    public static int indexOfClientId(List<ChatMessage> messages, String clientId) {
+        if (clientId == null) {
+            return -1;
+        }
+        for (int i = 0, n = messages.size(); i < n; i++) {
+            if (clientId.equals(messages.get(i).getClientId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 是否为同一条消息：发送者、接收者、内容和时间戳都相同
+     */
+    public static boolean isSameMessage(ChatMessage msg1, ChatMessage msg2) {
+        if (msg1 == null || msg2 == null) {
+            return false;
+        }
+        return Objects.equals(msg1.getSender(), msg2.getSender())
+            && Objects.equals(msg1.getReceiver(), msg2.getReceiver())
+            && Objects.equals(msg1.getContent(), msg2.getContent())
+            && msg1.getTimestamp() == msg2.getTimestamp();
+    }
+}
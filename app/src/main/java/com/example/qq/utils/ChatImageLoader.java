@@ -0,0 +1,175 @@
+package com.example.qq.utils;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.Base64;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import com.bumptech.glide.Glide;
+import com.example.qq.R;
+import com.example.qq.domain.ImagePayload;
+
+/**
+ * 聊天图片加载器
+ * 图片气泡分两级显示，保证媒体较多的会话滚动流畅：
+ * - 绑定时立即显示消息内联的缩略图（几百字节，解码后缓存），不发起网络请求
+ * - 气泡真正显示在屏幕上时才按尺寸档位加载原图，离开屏幕时取消
+ * - 气泡尺寸按原图宽高比预先确定，原图加载完成时不会引起布局跳动
+ * 所有方法应在主线程调用
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class ChatImageLoader {
+    private static final String TAG = "ChatImageLoader";
+    /** 原图加载宽度档位（像素） */
+    private static final int[] BUCKETS = {240, 480, 720, 1080};
+    /** 气泡长边上限和短边下限（dp） */
+    private static final int MAX_EDGE_DP = 180;
+    private static final int MIN_EDGE_DP = 60;
+    /** 缓存的缩略图数量 */
+    private static final int THUMB_CACHE_SIZE = 128;
+
+    /** 缩略图位图缓存，键为原图地址 */
+    private static final LruCache<String, Bitmap> THUMB_CACHE = new LruCache<>(THUMB_CACHE_SIZE);
+
+    private ChatImageLoader() {
+    }
+
+    /**
+     * 按原图宽高比设置气泡尺寸并显示缩略图，不加载原图
+     * @param view 图片控件
+     * @param payload 图片消息内容
+     */
+    public static void bindThumbnail(ImageView view, ImagePayload payload) {
+        Context context = view.getContext();
+        int[] size = displaySize(context.getResources(), payload);
+        ViewGroup.LayoutParams params = view.getLayoutParams();
+        if (params.width != size[0] || params.height != size[1]) {
+            params.width = size[0];
+            params.height = size[1];
+            view.setLayoutParams(params);
+        }
+        view.setTag(R.id.chat_image_url, null);
+        Bitmap thumb = thumbnail(payload);
+        if (thumb != null) {
+            view.setImageBitmap(thumb);
+        } else {
+            view.setImageResource(R.drawable.bg_image_placeholder);
+        }
+    }
+
+    /**
+     * 加载原图（气泡进入屏幕时调用），以缩略图为占位
+     * 同一控件已在加载同一地址时不重复发起
+     * @param view 图片控件，需已调用 {@link #bindThumbnail}
+     * @param payload 图片消息内容
+     */
+    public static void loadFull(ImageView view, ImagePayload payload) {
+        if (payload.getUrl().equals(view.getTag(R.id.chat_image_url))) {
+            return;
+        }
+        view.setTag(R.id.chat_image_url, payload.getUrl());
+        Context context = view.getContext();
+        int[] size = displaySize(context.getResources(), payload);
+        int bucket = bucketFor(size[0]);
+        int height = Math.max(1, Math.round((float) bucket * size[1] / size[0]));
+        Bitmap thumb = thumbnail(payload);
+        Drawable placeholder = thumb != null
+            ? new BitmapDrawable(context.getResources(), thumb)
+            : context.getDrawable(R.drawable.bg_image_placeholder);
+        Glide.with(view)
+            .load(payload.getUrl())
+            .override(bucket, height)
+            .centerCrop()
+            .placeholder(placeholder)
+            .error(placeholder)
+            .into(view);
+    }
+
+    /**
+     * 取消原图加载（气泡离开屏幕或被回收时调用），恢复显示缩略图
+     * @param view 图片控件
+     * @param payload 图片消息内容，为null时只取消
+     */
+    public static void cancel(ImageView view, ImagePayload payload) {
+        if (view.getTag(R.id.chat_image_url) == null) {
+            return;
+        }
+        view.setTag(R.id.chat_image_url, null);
+        Glide.with(view).clear(view);
+        if (payload != null) {
+            Bitmap thumb = thumbnail(payload);
+            if (thumb != null) {
+                view.setImageBitmap(thumb);
+            } else {
+                view.setImageResource(R.drawable.bg_image_placeholder);
+            }
+        }
+    }
+
+    /**
+     * 解码内联缩略图，结果按原图地址缓存
+     * @return 缩略图，消息未携带或解码失败时返回null
+     */
+    private static Bitmap thumbnail(ImagePayload payload) {
+        Bitmap cached = THUMB_CACHE.get(payload.getUrl());
+        if (cached != null) {
+            return cached;
+        }
+        String thumb = payload.getThumb();
+        if (thumb == null || thumb.isEmpty()) {
+            return null;
+        }
+        try {
+            byte[] bytes = Base64.decode(thumb, Base64.NO_WRAP);
+            Bitmap bitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
+            if (bitmap != null) {
+                THUMB_CACHE.put(payload.getUrl(), bitmap);
+            }
+            return bitmap;
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "缩略图格式错误: " + payload.getUrl());
+            return null;
+        }
+    }
+
+    /**
+     * 气泡显示尺寸：长边不超过上限，短边不小于下限，原图尺寸未知时为正方形
+     * @return {宽, 高}（像素）
+     */
+    private static int[] displaySize(Resources resources, ImagePayload payload) {
+        float density = resources.getDisplayMetrics().density;
+        int maxEdge = Math.round(MAX_EDGE_DP * density);
+        int minEdge = Math.round(MIN_EDGE_DP * density);
+        int width = payload.getWidth();
+        int height = payload.getHeight();
+        if (width <= 0 || height <= 0) {
+            return new int[]{maxEdge, maxEdge};
+        }
+        float scale = (float) maxEdge / Math.max(width, height);
+        return new int[]{
+            Math.max(minEdge, Math.round(width * scale)),
+            Math.max(minEdge, Math.round(height * scale))
+        };
+    }
+
+    /**
+     * 向上取档，超过最大档位时使用最大档位
+     */
+    private static int bucketFor(int widthPx) {
+        for (int bucket : BUCKETS) {
+            if (widthPx <= bucket) {
+                return bucket;
+            }
+        }
+        return BUCKETS[BUCKETS.length - 1];
+    }
+}
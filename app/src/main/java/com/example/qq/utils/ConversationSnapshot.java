@@ -0,0 +1,237 @@
+package com.example.qq.utils;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.qq.domain.FriendList;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 会话列表快照
+ * 将最近一次显示的会话列表（好友行 + 未读数）保存为紧凑的二进制文件，
+ * 冷启动时通过内存映射在后台线程解码，首帧即可显示真实数据，随后再由网络同步增量更新
+ *
+ * 文件格式（大端）：
+ * magic(int) version(int) owner(str) count(int)
+ * 每行：username(str) nickname(str) avatarUrl(str) lastContext(str) lastContextTime(str) unread(int)
+ * str：长度(int，-1表示null) + UTF-8字节
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class ConversationSnapshot {
+    private static final String TAG = "ConversationSnapshot";
+    private static final String FILE_NAME = "conversation_snapshot.bin";
+    private static final int MAGIC = 0x51514353; // "QQCS"
+    private static final int VERSION = 1;
+    /** 每行最少占用的字节数：5个字符串长度 + 未读数 */
+    private static final int MIN_ROW_BYTES = 6 * 4;
+    private static final Object FILE_LOCK = new Object();
+
+    /** 启动阶段预加载的快照，取出后即清空 */
+    private static volatile ConversationSnapshot preloaded;
+
+    /** 快照所属用户 */
+    private final String owner;
+    /** 会话行 */
+    private final List<FriendList> rows;
+    /** 用户名 -> 未读数 */
+    private final Map<String, Integer> unreadCounts;
+
+    private ConversationSnapshot(String owner, List<FriendList> rows, Map<String, Integer> unreadCounts) {
+        this.owner = owner;
+        this.rows = rows;
+        this.unreadCounts = unreadCounts;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public List<FriendList> getRows() {
+        return rows;
+    }
+
+    public Map<String, Integer> getUnreadCounts() {
+        return unreadCounts;
+    }
+
+    /**
+     * 在启动阶段预加载快照（后台线程调用）
+     * @param context 上下文
+     * @param owner 当前登录用户
+     */
+    public static void preload(Context context, String owner) {
+        preloaded = read(context, owner);
+    }
+
+    /**
+     * 取出预加载的快照，只能取一次
+     * @param owner 当前登录用户
+     * @return 快照，不存在或不属于该用户时返回null
+     */
+    public static ConversationSnapshot takePreloaded(String owner) {
+        ConversationSnapshot snapshot = preloaded;
+        preloaded = null;
+        if (snapshot == null || owner == null || !owner.equals(snapshot.owner)) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    /**
+     * 读取快照（后台线程调用）
+     * @param context 上下文
+     * @param owner 当前登录用户
+     * @return 快照，文件不存在、损坏或不属于该用户时返回null；损坏的文件会被删除，避免每次启动重复失败
+     */
+    public static ConversationSnapshot read(Context context, String owner) {
+        if (owner == null) {
+            return null;
+        }
+        long start = SystemClock.uptimeMillis();
+        synchronized (FILE_LOCK) {
+            File file = getFile(context);
+            if (!file.exists() || file.length() == 0) {
+                return null;
+            }
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                 FileChannel channel = raf.getChannel()) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                    throw new IOException("Snapshot format mismatch");
+                }
+                byte[] scratch = new byte[256];
+                String fileOwner = readString(buffer, scratch);
+                if (!owner.equals(fileOwner)) {
+                    return null;
+                }
+                int count = buffer.getInt();
+                if (count < 0 || count > buffer.remaining() / MIN_ROW_BYTES) {
+                    throw new IOException("Invalid row count: " + count);
+                }
+                List<FriendList> rows = new ArrayList<>(count);
+                Map<String, Integer> unreadCounts = new HashMap<>(count * 2);
+                for (int i = 0; i < count; i++) {
+                    FriendList row = new FriendList();
+                    row.setFriendUsername(readString(buffer, scratch));
+                    row.setFriendNickName(readString(buffer, scratch));
+                    row.setAvatarUrl(readString(buffer, scratch));
+                    row.setLastContext(readString(buffer, scratch));
+                    row.setLastContextTime(readString(buffer, scratch));
+                    int unread = buffer.getInt();
+                    if (unread > 0 && row.getFriendUsername() != null) {
+                        unreadCounts.put(row.getFriendUsername(), unread);
+                    }
+                    rows.add(row);
+                }
+                Log.d(TAG, "Snapshot decoded: " + count + " rows in "
+                    + (SystemClock.uptimeMillis() - start) + "ms");
+                return new ConversationSnapshot(owner, rows, unreadCounts);
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Failed to read snapshot, deleting", e);
+            }
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * 写入快照（后台线程调用）
+     * 先写临时文件再重命名，避免进程被杀时留下半个文件
+     * @param context 上下文
+     * @param owner 当前登录用户
+     * @param rows 会话行
+     * @param unreadCounts 用户名 -> 未读数，可为null
+     */
+    public static void write(Context context, String owner, List<FriendList> rows,
+                             Map<String, Integer> unreadCounts) {
+        if (owner == null || rows == null) {
+            return;
+        }
+        if (unreadCounts == null) {
+            unreadCounts = Collections.emptyMap();
+        }
+        synchronized (FILE_LOCK) {
+            File file = getFile(context);
+            File tmp = new File(file.getPath() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp), 8192))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeString(out, owner);
+                out.writeInt(rows.size());
+                for (FriendList row : rows) {
+                    writeString(out, row.getFriendUsername());
+                    writeString(out, row.getFriendNickName());
+                    writeString(out, row.getAvatarUrl());
+                    writeString(out, row.getLastContext());
+                    writeString(out, row.getLastContextTime());
+                    Integer unread = unreadCounts.get(row.getFriendUsername());
+                    out.writeInt(unread != null ? unread : 0);
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to write snapshot", e);
+                tmp.delete();
+                return;
+            }
+            if (!tmp.renameTo(file)) {
+                Log.e(TAG, "Failed to replace snapshot file");
+                tmp.delete();
+            }
+        }
+    }
+
+    /**
+     * 删除快照（退出登录时调用）
+     * @param context 上下文
+     */
+    public static void delete(Context context) {
+        preloaded = null;
+        synchronized (FILE_LOCK) {
+            getFile(context).delete();
+        }
+    }
+
+    private static File getFile(Context context) {
+        return new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer buffer, byte[] scratch) throws IOException {
+        int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("Invalid string length: " + length);
+        }
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        buffer.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -3,10 +3,14 @@ package com.example.qq.utils;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.database.Cursor;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Environment;
 import android.provider.MediaStore;
+import android.provider.OpenableColumns;
+import android.util.Log;
 
 import androidx.core.content.FileProvider;
 
@@ -20,6 +24,41 @@ import java.io.OutputStream;
  * 提供文件操作相关的工具方法，包括文件URI获取和图片保存功能
  */
 public class FileUtils {
+    private static final String TAG = "FileUtils";
+
+    /**
+     * 获取内容Uri的字节数
+     * 优先查询 OpenableColumns.SIZE，否则使用文件描述符的长度；不会读取内容
+     *
+     * @param context 应用程序上下文
+     * @param uri 内容Uri
+     * @return 字节数，未知时返回-1
+     */
+    public static long getContentLength(Context context, Uri uri) {
+        ContentResolver resolver = context.getContentResolver();
+        if (ContentResolver.SCHEME_CONTENT.equals(uri.getScheme())) {
+            try (Cursor cursor = resolver.query(uri, new String[]{OpenableColumns.SIZE}, null, null, null)) {
+                if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                    long size = cursor.getLong(0);
+                    if (size > 0) {
+                        return size;
+                    }
+                }
+            } catch (RuntimeException e) {
+                Log.w(TAG, "查询文件大小失败: " + e.getMessage());
+            }
+        }
+        try (AssetFileDescriptor afd = resolver.openAssetFileDescriptor(uri, "r")) {
+            if (afd != null) {
+                long length = afd.getLength();
+                return length >= 0 ? length : afd.getParcelFileDescriptor().getStatSize();
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "读取文件描述符大小失败: " + e.getMessage());
+        }
+        return -1;
+    }
+
     
     /**
      * 获取文件的 Uri
@@ -0,0 +1,29 @@
+package com.example.qq.utils;
+
+import com.example.qq.domain.GeneratedTypeAdapterFactory;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * 应用共享的Gson实例
+ * 注册编译期为 com.example.qq.domain 生成的 TypeAdapter，领域类的序列化不走反射；
+ * 所有模块共用一个实例，其余类型的反射适配器也只缓存一份。Gson 线程安全，可在任意线程使用
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class GsonProvider {
+    private static final Gson GSON = new GsonBuilder()
+        .registerTypeAdapterFactory(new GeneratedTypeAdapterFactory())
+        .create();
+
+    private GsonProvider() {
+    }
+
+    /**
+     * 获取共享的Gson实例
+     */
+    public static Gson get() {
+        return GSON;
+    }
+}
@@ -0,0 +1,354 @@
+package com.example.qq.utils;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Base64;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 图片压缩器
+ * 上传前在后台线程把图片压缩到目标尺寸和字节预算内：
+ * - 先只解码尺寸，按目标边长计算2的幂采样率，解码时直接降采样，不会把原图整张载入内存
+ * - 再精确缩放到目标边长，并与EXIF方向旋转合并为一次变换
+ * - 不透明图片编码为JPEG，带透明通道的编码为WebP，二分查找满足字节预算的最高质量
+ * - 编码输出写入线程内复用的缓冲区，避免每次尝试都分配新数组
+ * - 记录原始/压缩后字节数和编码耗时
+ * - 生成图片消息内联的小尺寸WebP缩略图
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class ImageCompressor {
+    private static final String TAG = "ImageCompressor";
+    /** 质量搜索范围 */
+    private static final int MAX_QUALITY = 90;
+    private static final int MIN_QUALITY = 40;
+    /** 质量降到下限仍超出预算时，边长的缩小比例 */
+    private static final float DOWNSCALE_STEP = 0.75f;
+    /** 最多缩小几轮 */
+    private static final int MAX_DOWNSCALE_ROUNDS = 3;
+    /** 内联缩略图的长边（像素）和质量，编码后约几百字节 */
+    private static final int THUMBNAIL_EDGE = 32;
+    private static final int THUMBNAIL_QUALITY = 40;
+
+    /** 每个线程复用的编码缓冲区 */
+    private static final ThreadLocal<PooledOutputStream> BUFFER =
+        ThreadLocal.withInitial(() -> new PooledOutputStream(256 * 1024));
+
+    private ImageCompressor() {
+    }
+
+    /**
+     * 压缩结果
+     */
+    public static final class Result {
+        /** 压缩后的文件，未压缩（原图已满足要求）时为null */
+        public final File file;
+        /** 压缩后的MIME类型 */
+        public final String mimeType;
+        /** 原始字节数，未知时为-1 */
+        public final long originalBytes;
+        /** 压缩后字节数 */
+        public final long compressedBytes;
+        public final int width;
+        public final int height;
+        /** 最终使用的编码质量 */
+        public final int quality;
+        /** 解码耗时（毫秒） */
+        public final long decodeMs;
+        /** 编码耗时（毫秒，含质量搜索） */
+        public final long encodeMs;
+
+        Result(File file, String mimeType, long originalBytes, long compressedBytes, int width,
+               int height, int quality, long decodeMs, long encodeMs) {
+            this.file = file;
+            this.mimeType = mimeType;
+            this.originalBytes = originalBytes;
+            this.compressedBytes = compressedBytes;
+            this.width = width;
+            this.height = height;
+            this.quality = quality;
+            this.decodeMs = decodeMs;
+            this.encodeMs = encodeMs;
+        }
+
+        /**
+         * 节省的字节数，原始大小未知时为0
+         */
+        public long getBytesSaved() {
+            return originalBytes > 0 ? Math.max(0, originalBytes - compressedBytes) : 0;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" + width + "x" + height + ", " + mimeType + " q=" + quality
+                + ", " + originalBytes + " -> " + compressedBytes + " bytes"
+                + ", saved=" + getBytesSaved()
+                + ", decode=" + decodeMs + "ms, encode=" + encodeMs + "ms}";
+        }
+    }
+
+    /**
+     * 压缩图片（后台线程调用）
+     * @param context 上下文
+     * @param uri 源图片
+     * @param maxEdge 长边上限（像素）
+     * @param byteBudget 字节预算
+     * @param outputDir 输出目录
+     * @return 压缩结果；原图已满足尺寸和预算且无需旋转时返回 file 为null 的结果
+     * @throws IOException 读取或写入失败
+     */
+    public static Result compress(Context context, Uri uri, int maxEdge, int byteBudget, File outputDir)
+            throws IOException {
+        ContentResolver resolver = context.getContentResolver();
+        long originalBytes = FileUtils.getContentLength(context, uri);
+        long decodeStart = SystemClock.uptimeMillis();
+
+        // 1. 只解码尺寸
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = open(resolver, uri)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("无法识别的图片格式");
+        }
+        int orientation = readOrientation(resolver, uri);
+        int sourceEdge = Math.max(bounds.outWidth, bounds.outHeight);
+
+        // 原图已满足要求，无需重新编码
+        if (sourceEdge <= maxEdge && originalBytes > 0 && originalBytes <= byteBudget
+                && orientation <= ExifInterface.ORIENTATION_NORMAL) {
+            Log.d(TAG, "原图已满足要求，跳过压缩: " + originalBytes + " bytes");
+            return new Result(null, bounds.outMimeType, originalBytes, originalBytes,
+                bounds.outWidth, bounds.outHeight, 100, SystemClock.uptimeMillis() - decodeStart, 0);
+        }
+
+        // 2. 按采样率解码，内存中最大只有约 2*maxEdge 的长边
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = calculateInSampleSize(sourceEdge, maxEdge);
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        Bitmap sampled;
+        try (InputStream in = open(resolver, uri)) {
+            sampled = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (sampled == null) {
+            throw new IOException("图片解码失败");
+        }
+
+        // 3. 精确缩放 + EXIF旋转，合并为一次变换
+        Bitmap bitmap = transform(sampled, maxEdge, orientation);
+        long decodeMs = SystemClock.uptimeMillis() - decodeStart;
+
+        // 4. 编码到字节预算内
+        long encodeStart = SystemClock.uptimeMillis();
+        boolean webp = bitmap.hasAlpha();
+        Bitmap.CompressFormat format = webp ? webpFormat() : Bitmap.CompressFormat.JPEG;
+        PooledOutputStream out = BUFFER.get();
+        int quality = encodeWithinBudget(bitmap, format, byteBudget, out);
+        for (int round = 0; round < MAX_DOWNSCALE_ROUNDS && out.size() > byteBudget; round++) {
+            Bitmap smaller = Bitmap.createScaledBitmap(bitmap,
+                Math.max(1, Math.round(bitmap.getWidth() * DOWNSCALE_STEP)),
+                Math.max(1, Math.round(bitmap.getHeight() * DOWNSCALE_STEP)), true);
+            bitmap.recycle();
+            bitmap = smaller;
+            quality = encodeWithinBudget(bitmap, format, byteBudget, out);
+        }
+        long encodeMs = SystemClock.uptimeMillis() - encodeStart;
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        bitmap.recycle();
+
+        // 5. 写出
+        File file = new File(outputDir, "upload_" + System.currentTimeMillis() + (webp ? ".webp" : ".jpg"));
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            out.writeTo(fos);
+        }
+        Result result = new Result(file, webp ? "image/webp" : "image/jpeg", originalBytes, out.size(),
+            width, height, quality, decodeMs, encodeMs);
+        out.trim();
+        Log.i(TAG, "图片压缩完成 (sample=" + options.inSampleSize + ", exif=" + orientation + "): " + result);
+        return result;
+    }
+
+    /**
+     * 生成图片消息内联缩略图（后台线程调用）
+     * 应传入 {@link #compress} 的输出，EXIF方向已在压缩时处理
+     * @param file 已压缩的图片
+     * @return Base64编码（无换行）的WebP缩略图
+     * @throws IOException 解码失败
+     */
+    public static String encodeThumbnail(File file) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), bounds);
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("无法识别的图片格式");
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = calculateInSampleSize(Math.max(bounds.outWidth, bounds.outHeight), THUMBNAIL_EDGE);
+        Bitmap sampled = BitmapFactory.decodeFile(file.getPath(), options);
+        if (sampled == null) {
+            throw new IOException("图片解码失败");
+        }
+        Bitmap thumb = transform(sampled, THUMBNAIL_EDGE, ExifInterface.ORIENTATION_NORMAL);
+        PooledOutputStream out = BUFFER.get();
+        out.reset();
+        thumb.compress(webpFormat(), THUMBNAIL_QUALITY, out);
+        thumb.recycle();
+        String encoded = Base64.encodeToString(out.toByteArray(), Base64.NO_WRAP);
+        Log.d(TAG, "缩略图 " + out.size() + " bytes");
+        out.trim();
+        return encoded;
+    }
+
+    /**
+     * 计算2的幂采样率，保证采样后的长边不小于目标边长
+     */
+    static int calculateInSampleSize(int sourceEdge, int targetEdge) {
+        int sampleSize = 1;
+        while (sourceEdge / (sampleSize * 2) >= targetEdge) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * 二分查找不超过预算的最高质量，结果留在out中
+     * @return 使用的质量
+     */
+    private static int encodeWithinBudget(Bitmap bitmap, Bitmap.CompressFormat format, int byteBudget,
+                                          PooledOutputStream out) {
+        out.reset();
+        bitmap.compress(format, MAX_QUALITY, out);
+        if (out.size() <= byteBudget) {
+            return MAX_QUALITY;
+        }
+        int low = MIN_QUALITY;
+        int high = MAX_QUALITY - 1;
+        int best = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            out.reset();
+            bitmap.compress(format, mid, out);
+            if (out.size() <= byteBudget) {
+                best = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        // 最后一次尝试不一定是最佳结果，重新编码一次
+        int quality = best >= 0 ? best : MIN_QUALITY;
+        out.reset();
+        bitmap.compress(format, quality, out);
+        return quality;
+    }
+
+    /**
+     * 缩放到目标边长并按EXIF方向旋转/翻转
+     */
+    private static Bitmap transform(Bitmap source, int maxEdge, int orientation) {
+        Matrix matrix = new Matrix();
+        int edge = Math.max(source.getWidth(), source.getHeight());
+        if (edge > maxEdge) {
+            float scale = (float) maxEdge / edge;
+            matrix.postScale(scale, scale);
+        }
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.postRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.postScale(1, -1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.postRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.postRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.postRotate(-90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.postRotate(-90);
+                break;
+            default:
+                break;
+        }
+        if (matrix.isIdentity()) {
+            return source;
+        }
+        Bitmap result = Bitmap.createBitmap(source, 0, 0, source.getWidth(), source.getHeight(), matrix, true);
+        if (result != source) {
+            source.recycle();
+        }
+        return result;
+    }
+
+    private static int readOrientation(ContentResolver resolver, Uri uri) {
+        try (InputStream in = open(resolver, uri)) {
+            return new ExifInterface(in).getAttributeInt(
+                ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException | RuntimeException e) {
+            // PNG等格式没有EXIF信息
+            return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat webpFormat() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+            ? Bitmap.CompressFormat.WEBP_LOSSY : Bitmap.CompressFormat.WEBP;
+    }
+
+    private static InputStream open(ContentResolver resolver, Uri uri) throws IOException {
+        InputStream in = resolver.openInputStream(uri);
+        if (in == null) {
+            throw new IOException("无法打开图片: " + uri);
+        }
+        return in;
+    }
+
+    /**
+     * 可复用的输出缓冲区
+     * reset 后保留已分配的数组；单次增长过大时由 trim 释放，避免长期占用内存
+     */
+    static final class PooledOutputStream extends ByteArrayOutputStream {
+        private final int initialCapacity;
+
+        PooledOutputStream(int initialCapacity) {
+            super(initialCapacity);
+            this.initialCapacity = initialCapacity;
+        }
+
+        /**
+         * 缓冲区超过初始容量4倍时缩回初始容量
+         */
+        void trim() {
+            reset();
+            if (buf.length > initialCapacity * 4) {
+                buf = new byte[initialCapacity];
+            }
+        }
+    }
+}
@@ -11,10 +11,12 @@ import android.webkit.MimeTypeMap;
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.core.content.FileProvider;
 
+import com.example.qq.executor.AppExecutors;
+import com.example.qq.executor.TaskPriority;
+import com.example.qq.network.NetworkPolicy;
+
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
@@ -26,6 +28,16 @@ import java.util.Locale;
 public class ImageUploadUtils {
     private static final String TAG = "ImageUploadUtils";
     public static final int MAX_IMAGE_SIZE = 5 * 1024 * 1024; // 5MB
+    /** 可选择的源图片大小上限，超过 MAX_IMAGE_SIZE 的图片会先压缩再上传 */
+    public static final int MAX_SOURCE_IMAGE_SIZE = 30 * 1024 * 1024;
+    /** 头像上传的长边上限（像素） */
+    public static final int AVATAR_MAX_EDGE = 720;
+    /** 头像上传的字节预算 */
+    public static final int AVATAR_BYTE_BUDGET = 200 * 1024;
+    /** 压缩结果所在的缓存子目录 */
+    private static final String UPLOAD_DIR = "upload";
+    /** 压缩结果保留时间 */
+    private static final long STALE_UPLOAD_MS = 60 * 60 * 1000;
     private static final String[] SUPPORTED_MIME_TYPES = {"image/jpeg", "image/png", "image/jpg"};
 
     /**
@@ -96,56 +108,68 @@ public class ImageUploadUtils {
     }
 
     /**
-     * 检查文件大小是否在限制范围内
+     * 检查源文件大小是否在限制范围内
+     * 大小取自 OpenableColumns.SIZE 或文件描述符，无法获取时放行（压缩后大小仍受预算约束）
      * @param uri 文件URI
      * @param activity 当前活动
      * @return 是否在限制范围内
      */
     public static boolean isFileSizeValid(Uri uri, Activity activity) {
-        try {
-            InputStream inputStream = activity.getContentResolver().openInputStream(uri);
-            if (inputStream != null) {
-                int fileSize = inputStream.available();
-                inputStream.close();
-                return fileSize <= MAX_IMAGE_SIZE;
-            }
-        } catch (IOException e) {
-            Log.e(TAG, "Error checking file size", e);
-        }
-        return false;
+        long fileSize = FileUtils.getContentLength(activity, uri);
+        return fileSize <= MAX_SOURCE_IMAGE_SIZE;
     }
 
     /**
-     * 压缩图片文件
+     * 压缩图片文件（后台线程调用）
+     * 长边和字节预算取头像上限与当前网络档位参数中较小的一个，计费网络下上传更小的图片
      * @param sourceUri 源文件URI
      * @param activity 当前活动
-     * @return 压缩后的文件URI
+     * @return 压缩后的文件URI；原图已满足要求时返回原URI；失败返回null
      */
     public static Uri compressImage(Uri sourceUri, Activity activity) {
         try {
-            InputStream inputStream = activity.getContentResolver().openInputStream(sourceUri);
-            if (inputStream == null) return null;
-
-            File compressedFile = new File(activity.getCacheDir(), "compressed_image.jpg");
-            FileOutputStream outputStream = new FileOutputStream(compressedFile);
-
-            // TODO: 实现图片压缩逻辑
-            // 这里可以使用 Bitmap 或其他图片处理库进行压缩
-
-            outputStream.close();
-            inputStream.close();
-
+            File outputDir = new File(activity.getCacheDir(), UPLOAD_DIR);
+            if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+                throw new IOException("无法创建目录: " + outputDir);
+            }
+            deleteStaleUploads(outputDir);
+            NetworkPolicy.Profile profile = NetworkPolicy.getInstance().profile();
+            ImageCompressor.Result result = ImageCompressor.compress(activity, sourceUri,
+                Math.min(AVATAR_MAX_EDGE, profile.uploadMaxEdge),
+                Math.min(AVATAR_BYTE_BUDGET, profile.uploadByteBudget), outputDir);
+            if (result.file == null) {
+                return sourceUri;
+            }
+            Log.d(TAG, "上传图片压缩: 节省 " + result.getBytesSaved() + " bytes, 编码耗时 "
+                + result.encodeMs + "ms");
             return FileProvider.getUriForFile(activity,
                     activity.getPackageName() + ".fileprovider",
-                    compressedFile);
-        } catch (IOException e) {
+                    result.file);
+        } catch (IOException | OutOfMemoryError e) {
             Log.e(TAG, "Error compressing image", e);
             return null;
         }
     }
 
+    /**
+     * 删除之前上传留下的压缩文件（保留最近的，可能仍在上传）
+     */
+    private static void deleteStaleUploads(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long expire = System.currentTimeMillis() - STALE_UPLOAD_MS;
+        for (File file : files) {
+            if (file.lastModified() < expire) {
+                file.delete();
+            }
+        }
+    }
+
     /**
      * 处理选择的图片
+     * 校验后在后台线程压缩，回调在主线程执行
      */
     public static void handleSelectedImage(Uri uri, Activity activity, ImageUploadCallback callback) {
         Log.d("ImageUploadUtils", "Processing image: " + uri);
@@ -162,44 +186,19 @@ public class ImageUploadUtils {
             return;
         }
 
-        try {
-            // 创建临时文件
-            File tempFile = createTempFileFromUri(activity, uri);
-            if (tempFile != null) {
-                Uri tempUri = FileProvider.getUriForFile(activity,
-                    activity.getPackageName() + ".fileprovider",
-                    tempFile);
-                Log.d("ImageUploadUtils", "Created temp file: " + tempUri);
-                callback.onSuccess(tempUri);
-            } else {
-                Log.e("ImageUploadUtils", "Failed to create temp file");
-                callback.onError("图片处理失败");
-            }
-        } catch (Exception e) {
-            Log.e("ImageUploadUtils", "Error processing image", e);
-            callback.onError("处理图片时出错：" + e.getMessage());
-        }
-    }
-
-    /**
-     * 从Uri创建临时文件
-     */
-    private static File createTempFileFromUri(Activity activity, Uri uri) throws IOException {
-        InputStream inputStream = activity.getContentResolver().openInputStream(uri);
-        if (inputStream == null) return null;
-
-        File tempFile = new File(activity.getCacheDir(), "temp_" + System.currentTimeMillis() + ".jpg");
-        FileOutputStream outputStream = new FileOutputStream(tempFile);
-
-        byte[] buffer = new byte[4096];
-        int bytesRead;
-        while ((bytesRead = inputStream.read(buffer)) != -1) {
-            outputStream.write(buffer, 0, bytesRead);
-        }
-
-        outputStream.close();
-        inputStream.close();
-        return tempFile;
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.compute().execute(TaskPriority.INTERACTIVE, () -> {
+            Uri compressedUri = compressImage(uri, activity);
+            executors.main().execute(() -> {
+                if (compressedUri != null) {
+                    Log.d("ImageUploadUtils", "Compressed image: " + compressedUri);
+                    callback.onSuccess(compressedUri);
+                } else {
+                    Log.e("ImageUploadUtils", "Failed to compress image");
+                    callback.onError("图片处理失败");
+                }
+            });
+        });
     }
 
     /**
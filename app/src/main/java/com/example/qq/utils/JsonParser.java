@@ -3,13 +3,18 @@ package com.example.qq.utils;
 import android.util.Log;
 
 import com.example.qq.domain.ChatMessage;
+import com.example.qq.domain.FriendList;
 import com.example.qq.domain.NotificationMessage;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -351,4 +356,84 @@ public class JsonParser {
             return null;
         }
     }
+
+    /**
+     * 解析首页好友列表响应（/getuserandmessage）中的 data 数组
+     * @param response {@link #parseToMap(String)} 的结果
+     * @return 好友列表，data 缺失或格式错误时返回已解析的部分
+     */
+    public static List<FriendList> parseFriendList(Map<String, Object> response) {
+        List<FriendList> friendLists = new ArrayList<>();
+        Object data = response != null ? response.get("data") : null;
+        if (!(data instanceof JSONArray)) {
+            return friendLists;
+        }
+        JSONArray friendsArray = (JSONArray) data;
+        try {
+            for (int i = 0; i < friendsArray.length(); i++) {
+                friendLists.add(parseFriend(friendsArray.getJSONObject(i)));
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Error parsing friend list", e);
+        }
+        return friendLists;
+    }
+
+    private static FriendList parseFriend(JSONObject friend) {
+        FriendList friendList = new FriendList();
+        friendList.setFriendUsername(friend.optString("username"));
+        friendList.setFriendNickName(friend.optString("nickname"));
+        friendList.setAvatarUrl(friend.optString("avatarUrl"));
+
+        String content = friend.optString("content");
+        if (content != null && !content.equals("null")) {
+            friendList.setLastContext(content);
+        }
+
+        String timestamp = friend.optString("timestamp");
+        if (timestamp != null && !timestamp.equals("null")) {
+            friendList.setLastContextTime(timestamp);
+        }
+        return friendList;
+    }
+
+    /**
+     * 解析聊天记录响应（/getmessage）中 data.messages 下的各组消息
+     * @param response {@link #parseToMap(String)} 的结果
+     * @return 按时间排序的消息列表，data 缺失或格式错误时返回已解析的部分
+     */
+    @SuppressWarnings("unchecked")
+    public static List<ChatMessage> parseMessageList(Map<String, Object> response) {
+        List<ChatMessage> chatMessages = new ArrayList<>();
+        Object data = response != null ? response.get("data") : null;
+        if (!(data instanceof Map)) {
+            Log.e(TAG, "Error parsing message list: data is missing");
+            return chatMessages;
+        }
+        Object messages = ((Map<String, Object>) data).get("messages");
+        if (!(messages instanceof Map)) {
+            Log.e(TAG, "Error parsing message list: messages is missing");
+            return chatMessages;
+        }
+        for (Object group : ((Map<String, Object>) messages).values()) {
+            if (!(group instanceof JSONArray)) {
+                continue;
+            }
+            JSONArray messageArray = (JSONArray) group;
+            try {
+                for (int i = 0; i < messageArray.length(); i++) {
+                    JSONObject msg = messageArray.getJSONObject(i);
+                    chatMessages.add(new ChatMessage(
+                        msg.getString("sender"),
+                        msg.getString("receiver"),
+                        msg.getString("content"),
+                        TimeUtils.parseServerTimestamp(msg.getString("timestamp"))));
+                }
+            } catch (JSONException e) {
+                Log.e(TAG, "Error parsing message list", e);
+            }
+        }
+        Collections.sort(chatMessages, (m1, m2) -> Long.compare(m1.getTimestamp(), m2.getTimestamp()));
+        return chatMessages;
+    }
 }
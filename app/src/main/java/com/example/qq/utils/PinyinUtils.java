@@ -0,0 +1,141 @@
+package com.example.qq.utils;
+
+/**
+ * 拼音工具类
+ * 基于构建期生成的 {@link PinyinTable}，查表过程不分配对象：
+ * - 汉字 -> 首选读音（无声调，ü 写作 v）
+ * - 汉字 -> 拼音首字母
+ * 不依赖Android API，可在JVM基准测试中直接使用
+ */
+public final class PinyinUtils {
+    /** 分组字母：A-Z，其余归入 # */
+    public static final String SECTIONS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ#";
+    /** # 分组的下标 */
+    public static final int SECTION_OTHER = SECTIONS.length() - 1;
+
+    private PinyinUtils() {
+    }
+
+    /**
+     * 是否为拼音表覆盖的汉字（CJK基本区 一-龥）
+     */
+    public static boolean isHanzi(char c) {
+        return c >= PinyinTable.FIRST && c <= PinyinTable.LAST;
+    }
+
+    /**
+     * 获取汉字对应的音节下标
+     * 下标按拼音字母序排列，可直接用于排序比较
+     * @return 音节下标，非汉字或无拼音时返回0
+     */
+    public static int getSyllableIndex(char c) {
+        if (!isHanzi(c)) {
+            return 0;
+        }
+        return PinyinTable.INDEX.charAt(c - PinyinTable.FIRST);
+    }
+
+    /**
+     * 获取汉字的首选拼音（小写、无声调）
+     * @return 拼音，非汉字或无拼音时返回null
+     */
+    public static String getSyllable(char c) {
+        int index = getSyllableIndex(c);
+        return index == 0 ? null : PinyinTable.SYLLABLES[index];
+    }
+
+    /**
+     * 获取汉字的拼音首字母（小写）
+     * @return 首字母，非汉字或无拼音时返回0
+     */
+    public static char getInitial(char c) {
+        int index = getSyllableIndex(c);
+        return index == 0 ? 0 : PinyinTable.SYLLABLES[index].charAt(0);
+    }
+
+    /**
+     * 将文本转换为全拼，非汉字原样保留
+     */
+    public static String toPinyin(CharSequence text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length() * 4);
+        appendPinyin(text, sb);
+        return sb.toString();
+    }
+
+    /**
+     * 将文本的全拼追加到sb，非汉字原样保留
+     */
+    public static void appendPinyin(CharSequence text, StringBuilder sb) {
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            String syllable = getSyllable(c);
+            if (syllable != null) {
+                sb.append(syllable);
+            } else if (!isHanzi(c)) {
+                sb.append(c);
+            }
+        }
+    }
+
+    /**
+     * 将文本转换为拼音首字母，非汉字原样保留
+     */
+    public static String toInitials(CharSequence text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            char initial = getInitial(c);
+            if (initial != 0) {
+                sb.append(initial);
+            } else if (!isHanzi(c)) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 生成排序键：汉字替换为拼音，字母转小写，其余字符原样保留
+     * 音节之间以空格分隔，保证 "xi an" 排在 "xian" 之前，与拼音输入习惯一致
+     */
+    public static String toSortKey(CharSequence text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length() * 5);
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            String syllable = getSyllable(c);
+            if (syllable != null) {
+                sb.append(syllable).append(' ');
+            } else if (!isHanzi(c)) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 根据排序键获取分组下标
+     * @return 0-25 对应 A-Z，非字母开头返回 {@link #SECTION_OTHER}
+     */
+    public static int getSectionIndex(String sortKey) {
+        if (sortKey == null || sortKey.isEmpty()) {
+            return SECTION_OTHER;
+        }
+        char c = sortKey.charAt(0);
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        return SECTION_OTHER;
+    }
+}
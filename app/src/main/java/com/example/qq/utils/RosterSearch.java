@@ -0,0 +1,77 @@
+package com.example.qq.utils;
+
+import com.example.qq.domain.FriendList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 好友搜索匹配
+ * 一次搜索只转换一次关键词，逐个好友按以下任一条件匹配：
+ * - 用户名或昵称包含关键词（忽略大小写）
+ * - 昵称全拼或拼音首字母包含关键词的拼音
+ * - 昵称中某个汉字的拼音包含关键词
+ * 不依赖Android API，可在JVM基准测试中直接使用
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class RosterSearch {
+    /** 小写关键词 */
+    private final String query;
+    /** 关键词的小写全拼 */
+    private final String pinyinQuery;
+
+    /**
+     * @param query 搜索关键词
+     */
+    public RosterSearch(String query) {
+        this.query = query.toLowerCase();
+        this.pinyinQuery = PinyinUtils.toPinyin(query).toLowerCase();
+    }
+
+    /**
+     * 在好友列表中搜索
+     * @return 匹配的好友，保持原有顺序
+     */
+    public List<FriendList> filter(List<FriendList> friends) {
+        List<FriendList> results = new ArrayList<>();
+        for (FriendList friend : friends) {
+            if (matches(friend)) {
+                results.add(friend);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 判断好友是否匹配搜索条件
+     */
+    public boolean matches(FriendList friend) {
+        String username = friend.getFriendUsername();
+        String nickname = friend.getFriendNickName();
+        if (username != null && username.toLowerCase().contains(query)) {
+            return true;
+        }
+        if (nickname == null) {
+            return false;
+        }
+        return nickname.toLowerCase().contains(query)
+            || PinyinUtils.toPinyin(nickname).toLowerCase().contains(pinyinQuery)
+            || PinyinUtils.toInitials(nickname).toLowerCase().contains(pinyinQuery)
+            || isSyllableMatch(nickname);
+    }
+
+    /**
+     * 检查单个汉字的拼音是否包含关键词
+     */
+    private boolean isSyllableMatch(String nickname) {
+        for (int i = 0; i < nickname.length(); i++) {
+            String syllable = PinyinUtils.getSyllable(nickname.charAt(i));
+            if (syllable != null && syllable.contains(query)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
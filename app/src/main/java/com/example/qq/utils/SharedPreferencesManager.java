@@ -4,14 +4,18 @@ import static android.content.ContentValues.TAG;
 
 import android.content.Context;
 import android.content.SharedPreferences;
-import android.util.Log;
 
+import com.example.qq.QQApplication;
 import com.example.qq.api.userapi.impl.UserApiImpl;
 import com.example.qq.domain.ChatMessage;
 import com.example.qq.domain.Contact;
 import com.example.qq.domain.FriendList;
 import com.example.qq.domain.FriendRequest;
+import com.example.qq.domain.ImagePayload;
 import com.example.qq.domain.User;
+import com.example.qq.log.AppLog;
+import com.example.qq.metrics.Metrics;
+import com.example.qq.state.StateStore;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
@@ -39,8 +43,6 @@ public class SharedPreferencesManager {
     private static final String KEY_SAVED_USERNAME = "saved_username";
     /** 存储保存的用户昵称的key */
     private static final String KEY_SAVED_USERNICKNAME = "saved_usernickname";
-    /** 存储网络状态的key */
-    private static final String KEY_NETWORK_STATUS = "network_status";
     /** 存储好友列表的key */
     private static final String KEY_FRIENDS = "friends";
     /** 存储好友请求的key */
@@ -63,8 +65,13 @@ public class SharedPreferencesManager {
     
     private static final String UNREAD_COUNT_PREFIX = "unread_count_";
     
+    /** 列表的泛型类型，Gson 按类型缓存适配器，无需每次创建 TypeToken */
+    private static final Type FRIEND_REQUEST_LIST_TYPE = new TypeToken<List<FriendRequest>>(){}.getType();
+    private static final Type FRIEND_LIST_TYPE = new TypeToken<List<FriendList>>(){}.getType();
+    private static final Type CHAT_MESSAGE_LIST_TYPE = new TypeToken<List<ChatMessage>>(){}.getType();
+
     /** 单例实例 */
-    private static SharedPreferencesManager instance;
+    private static volatile SharedPreferencesManager instance;
     /** SharedPreferences实例 */
     private final SharedPreferences preferences;
     /** SharedPreferences.Editor实例 */
@@ -82,7 +89,7 @@ public class SharedPreferencesManager {
         preferences = context.getApplicationContext()
             .getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
         editor = preferences.edit();
-        gson = new Gson();
+        gson = GsonProvider.get();
         userApi = new UserApiImpl();
     }
     
@@ -102,12 +109,17 @@ public class SharedPreferencesManager {
     
     /**
      * 获取SharedPreferencesManager实例
+     * 启动任务尚未完成初始化时（如进程重建后直接恢复到其他页面），在当前线程同步初始化
      * @return SharedPreferencesManager实例
-     * @throws IllegalStateException 如果实例未初始化
+     * @throws IllegalStateException 如果实例未初始化且无法获取Application
      */
     public static SharedPreferencesManager getInstance() {
         if (instance == null) {
-            throw new IllegalStateException("SharedPreferencesManager must be initialized first");
+            Context context = QQApplication.getInstance();
+            if (context == null) {
+                throw new IllegalStateException("SharedPreferencesManager must be initialized first");
+            }
+            init(context);
         }
         return instance;
     }
@@ -134,7 +146,7 @@ public class SharedPreferencesManager {
      */
     public void saveUserInfo(User user) {
         if (user == null) {
-            Log.e(TAG, "Attempting to save null user info");
+            AppLog.e(TAG, "Attempting to save null user info");
             return;
         }
         String userInfoJson = gson.toJson(user);
@@ -186,10 +198,10 @@ public class SharedPreferencesManager {
             if (user != null) {
                 saveUserInfo(user);
             } else {
-                Log.e(TAG, "Failed to fetch user info for: " + username);
+                AppLog.e(TAG, "Failed to fetch user info for: {}", username);
             }
         } catch (Exception e) {
-            Log.e(TAG, "Error fetching user info", e);
+            AppLog.e(TAG, "Error fetching user info", e);
         }
     }
     
@@ -312,22 +324,6 @@ public class SharedPreferencesManager {
 
     }
     
-    /**
-     * 存网络状态
-     * @param status 网络状态描述
-     */
-    public void saveNetworkStatus(String status) {
-        preferences.edit().putString(KEY_NETWORK_STATUS, status).apply();
-    }
-    
-    /**
-     * 获取网络状态
-     * @return 网络状态描述
-     */
-    public String getNetworkStatus() {
-        return preferences.getString(KEY_NETWORK_STATUS, "离线");
-    }
-
     /**
      * 添加好友
      * @param username 要添加的好友用户名
@@ -388,6 +384,7 @@ public class SharedPreferencesManager {
             return;
         }
         
+        long start = System.nanoTime();
         String key = String.format(KEY_FRIEND_REQUESTS, currentUsername);
         List<FriendRequest> requests = getFriendRequests();
         
@@ -409,6 +406,8 @@ public class SharedPreferencesManager {
         preferences.edit()
             .putString(key, json)
             .apply();
+        recordWrite("saveFriendRequest", start);
+        StateStore.getInstance().requests().publish(request.getUsername());
     }
 
     /**
@@ -423,7 +422,7 @@ public class SharedPreferencesManager {
         
         String key = String.format(KEY_FRIEND_REQUESTS, currentUsername);
         String json = preferences.getString(key, "[]");
-        Type type = new TypeToken<List<FriendRequest>>(){}.getType();
+        Type type = FRIEND_REQUEST_LIST_TYPE;
         return gson.fromJson(json, type);
     }
 
@@ -433,7 +432,7 @@ public class SharedPreferencesManager {
      */
     public void updateFriendRequest(FriendRequest request) {
         if (request == null || request.getUsername() == null) {
-            Log.e(TAG, "Invalid friend request");
+            AppLog.e(TAG, "Invalid friend request");
             return;
         }
 
@@ -451,7 +450,7 @@ public class SharedPreferencesManager {
         }
         
         if (!found) {
-            Log.w(TAG, "Friend request not found for update: " + request.getUsername());
+            AppLog.w(TAG, "Friend request not found for update: {}", request.getUsername());
             requests.add(request);
         }
         
@@ -461,12 +460,12 @@ public class SharedPreferencesManager {
     public void saveFriendRequests(List<FriendRequest> requests) {
         String currentUsername = getCurrentUsername();
         if (currentUsername == null) {
-            Log.e(TAG, "Cannot save friend requests: current username is null");
+            AppLog.e(TAG, "Cannot save friend requests: current username is null");
             return;
         }
         
         if (requests == null) {
-            Log.e(TAG, "Cannot save null friend requests list");
+            AppLog.e(TAG, "Cannot save null friend requests list");
             return;
         }
         
@@ -477,7 +476,8 @@ public class SharedPreferencesManager {
             .putString(key, json)
             .apply();
         
-        Log.d(TAG, "Saved " + requests.size() + " friend requests for user: " + currentUsername);
+        AppLog.d(TAG, "Saved {} friend requests for user: {}", requests.size(), currentUsername);
+        StateStore.getInstance().requests().invalidate();
     }
 
     /**
@@ -493,6 +493,7 @@ public class SharedPreferencesManager {
         preferences.edit()
             .remove(key)
             .apply();
+        StateStore.getInstance().requests().invalidate();
     }
 
     /**
@@ -514,6 +515,7 @@ public class SharedPreferencesManager {
         preferences.edit()
             .putString(key, json)
             .apply();
+        StateStore.getInstance().requests().remove(userId);
     }
 
     /**
@@ -553,13 +555,13 @@ public class SharedPreferencesManager {
     }
 
     /**
-     * 设置最后一条消息
+     * 设置最后一条消息，图片消息保存为摘要文本
      * @param username 要设置消息的好友用户名
      * @param message 要设置的消息
      */
     public void setLastMessage(String username, String message) {
         preferences.edit()
-                .putString(LAST_MESSAGE_PREFIX + username, message)
+                .putString(LAST_MESSAGE_PREFIX + username, ImagePayload.previewOf(message))
                 .apply();
     }
 
@@ -611,7 +613,7 @@ public class SharedPreferencesManager {
             return;
         }
 
-        Log.d(TAG, "Starting to clear all data for friend: " + username);
+        AppLog.d(TAG, "Starting to clear all data for friend: {}", username);
 
         String currentUser = getCurrentUsername();
         if (currentUser == null) return;
@@ -666,9 +668,9 @@ public class SharedPreferencesManager {
             // 立即应用所有更改
             editor.apply();
 
-            Log.d(TAG, "Successfully cleared all data for friend: " + username + ", including FriendList cache");
+            AppLog.d(TAG, "Successfully cleared all data for friend: {}, including FriendList cache", username);
         } catch (Exception e) {
-            Log.e(TAG, "Error clearing friend data for: " + username, e);
+            AppLog.e(TAG, "Error clearing friend data for: " + username, e);
         }
     }
 
@@ -700,11 +702,13 @@ public class SharedPreferencesManager {
         String key = String.format(CACHED_FRIEND_LIST, currentUsername);
         String timeKey = String.format(FRIEND_LIST_UPDATE_TIME, currentUsername);
         
+        long start = System.nanoTime();
         String json = gson.toJson(friendList);
         preferences.edit()
                 .putString(key, json)
                 .putLong(timeKey, System.currentTimeMillis())
                 .apply();
+        recordWrite("cacheFriendList", start);
     }
 
     /**
@@ -719,7 +723,7 @@ public class SharedPreferencesManager {
         String json = preferences.getString(key, null);
         if (json == null) return null;
         
-        Type type = new TypeToken<List<com.example.qq.domain.FriendList>>(){}.getType();
+        Type type = FRIEND_LIST_TYPE;
         return gson.fromJson(json, type);
     }
 
@@ -750,7 +754,7 @@ public class SharedPreferencesManager {
                 .remove(timeKey)
                 .apply();
         
-        Log.d(TAG, "Friend list cache cleared");
+        AppLog.d(TAG, "Friend list cache cleared");
     }
 
     /**
@@ -781,19 +785,24 @@ public class SharedPreferencesManager {
         editor.apply();
     }
 
-    // 保存聊天消息到本地
-    public void cacheChatMessages(String friendUsername, List<ChatMessage> messages) {
+    /**
+     * 保存聊天消息到本地，整体替换该会话的缓存
+     * 会话缓存的读-改-写都在本对象的锁内进行，与 MessageSender 在后台线程上的状态更新互不覆盖
+     */
+    public synchronized void cacheChatMessages(String friendUsername, List<ChatMessage> messages) {
         String currentUser = getCurrentUsername();
         if (currentUser == null) return;
         
+        long start = System.nanoTime();
         String key = CHAT_MESSAGES_PREFIX + currentUser + "_" + friendUsername;
         String json = gson.toJson(messages);
         editor.putString(key, json);
         editor.apply();
+        recordWrite("cacheChatMessages", start);
     }
     
     // 获取本地缓存的聊天消息
-    public List<ChatMessage> getCachedChatMessages(String friendUsername) {
+    public synchronized List<ChatMessage> getCachedChatMessages(String friendUsername) {
         String currentUser = getCurrentUsername();
         if (currentUser == null) return new ArrayList<>();
         
@@ -802,12 +811,49 @@ public class SharedPreferencesManager {
         if (json == null) {
             return new ArrayList<>();
         }
-        Type type = new TypeToken<List<ChatMessage>>(){}.getType();
+        Type type = CHAT_MESSAGE_LIST_TYPE;
         return gson.fromJson(json, type);
     }
     
+    /**
+     * 将一条消息按时间顺序插入会话缓存，已存在相同消息时不写入
+     * @param friendUsername 好友用户名
+     * @param message 消息
+     * @return 是否写入
+     */
+    public synchronized boolean insertCachedChatMessage(String friendUsername, ChatMessage message) {
+        long start = System.nanoTime();
+        List<ChatMessage> messages = getCachedChatMessages(friendUsername);
+        if (!ChatHistory.insert(messages, message)) {
+            return false;
+        }
+        cacheChatMessages(friendUsername, messages);
+        // 包含读取和反序列化整个会话缓存的耗时
+        recordWrite("insertCachedChatMessage", start);
+        return true;
+    }
+
+    /**
+     * 更新缓存中某条消息的发送状态
+     * @param friendUsername 好友用户名
+     * @param clientId 客户端消息ID
+     * @param status 发送状态
+     */
+    public synchronized void updateCachedMessageStatus(String friendUsername, String clientId, int status) {
+        if (clientId == null) return;
+        long start = System.nanoTime();
+        List<ChatMessage> messages = getCachedChatMessages(friendUsername);
+        int index = ChatHistory.indexOfClientId(messages, clientId);
+        if (index >= 0 && messages.get(index).getStatus() != status) {
+            messages.get(index).setStatus(status);
+            cacheChatMessages(friendUsername, messages);
+            // 包含读取和反序列化整个会话缓存的耗时
+            recordWrite("updateCachedMessageStatus", start);
+        }
+    }
+
     // 清除指定好友的聊天消息缓存
-    public void clearChatMessagesCache(String friendUsername) {
+    public synchronized void clearChatMessagesCache(String friendUsername) {
         String currentUser = getCurrentUsername();
         if (currentUser == null) return;
         
@@ -856,11 +902,15 @@ public class SharedPreferencesManager {
             return;
         }
         int currentCount = getUnreadMessageCount(username);
-        Log.d(TAG, "Incrementing unread count for " + username + 
-            " from " + currentCount + " to " + (currentCount + 1));
+        if (AppLog.DEBUG) {
+            AppLog.v(TAG, "Incrementing unread count for {} from {}", username, currentCount);
+        }
+        long start = System.nanoTime();
         preferences.edit()
             .putInt(UNREAD_COUNT_PREFIX + username, currentCount + 1)
             .commit();
+        recordWrite("incrementUnreadCount", start);
+        StateStore.getInstance().unread().publish(username);
     }
 
     public synchronized int getUnreadMessageCount(String username) {
@@ -868,7 +918,9 @@ public class SharedPreferencesManager {
             return 0;
         }
         int count = preferences.getInt(UNREAD_COUNT_PREFIX + username, 0);
-        Log.d(TAG, "Getting unread count for " + username + ": " + count);
+        if (AppLog.DEBUG) {
+            AppLog.v(TAG, "Getting unread count for {}: {}", username, count);
+        }
         return count;
     }
 
@@ -876,10 +928,22 @@ public class SharedPreferencesManager {
         if (username == null || username.isEmpty()) {
             return;
         }
-        Log.d(TAG, "Clearing unread count for " + username);
+        AppLog.d(TAG, "Clearing unread count for {}", username);
+        long start = System.nanoTime();
         preferences.edit()
             .putInt(UNREAD_COUNT_PREFIX + username, 0)
             .commit();
+        recordWrite("clearUnreadCount", start);
+        StateStore.getInstance().unread().publish(username);
+    }
+
+    /**
+     * 记录一次写入耗时，apply() 只计入序列化和提交到内存，commit() 包含同步写盘
+     * @param operation 操作名
+     * @param startNanos 开始时间
+     */
+    private static void recordWrite(String operation, long startNanos) {
+        Metrics.getInstance().histogram("storage." + operation).recordSince(startNanos);
     }
 
     /**
@@ -927,7 +991,7 @@ public class SharedPreferencesManager {
             
             if (username != null && avatarUrl != null) {
                 editor.putString(FRIEND_AVATAR_PREFIX + username, avatarUrl);
-                Log.d(TAG, "Saving avatar for " + username + ": " + avatarUrl);
+                AppLog.d(TAG, "Saving avatar for {}: {}", username, avatarUrl);
             }
         }
         
@@ -953,7 +1017,7 @@ public class SharedPreferencesManager {
             preferences.edit()
                 .putString(FRIEND_AVATAR_PREFIX + username, avatarUrl)
                 .apply();
-            Log.d(TAG, "Saved avatar for " + username + ": " + avatarUrl);
+            AppLog.d(TAG, "Saved avatar for {}: {}", username, avatarUrl);
         }
     }
 } 
\ No newline at end of file
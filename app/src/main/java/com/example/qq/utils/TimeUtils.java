@@ -4,6 +4,9 @@ import android.util.Log;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
@@ -18,6 +21,10 @@ public class TimeUtils {
         new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.getDefault())
     };
     
+    // 服务器消息时间戳格式，DateTimeFormatter 线程安全，可共用
+    private static final DateTimeFormatter SERVER_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX").withZone(ZoneOffset.UTC);
+
     // 输出格式
     private static final SimpleDateFormat TIME_FORMAT = 
         new SimpleDateFormat("HH:mm", Locale.getDefault());
@@ -68,6 +75,19 @@ public class TimeUtils {
         }
     }
 
+    /**
+     * 解析服务器返回的消息时间戳（如 2024-01-01T08:00:00.000+08:00）
+     * @return 毫秒时间戳，解析失败时返回当前时间
+     */
+    public static long parseServerTimestamp(String timestamp) {
+        try {
+            return Instant.from(SERVER_FORMAT.parse(timestamp)).toEpochMilli();
+        } catch (Exception e) {
+            Log.w(TAG, "时间戳解析失败，使用当前时间: " + e.getMessage());
+            return System.currentTimeMillis();
+        }
+    }
+
     private static Date parseDate(String timestamp) {
         for (SimpleDateFormat format : INPUT_FORMATS) {
             try {
@@ -0,0 +1,132 @@
+package com.example.qq.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.example.qq.R;
+import com.example.qq.utils.PinyinUtils;
+
+/**
+ * 侧边字母索引栏
+ * 纵向绘制 A-Z 和 #，触摸时按纵坐标直接换算出分组下标并回调，
+ * 配合 ContactAdapter.getPositionForSection 实现 O(1) 跳转
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public class SideIndexBar extends View {
+    private static final String SECTIONS = PinyinUtils.SECTIONS;
+
+    private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final int normalColor;
+    private final int selectedColor;
+    /** 当前选中的分组下标，未触摸时为-1 */
+    private int selectedIndex = -1;
+    private OnSectionSelectedListener onSectionSelectedListener;
+
+    /**
+     * 分组选中监听器
+     */
+    public interface OnSectionSelectedListener {
+        /**
+         * 手指滑到某个分组时调用
+         * @param section 分组下标，对应 {@link PinyinUtils#SECTIONS}
+         * @param letter 分组字母
+         */
+        void onSectionSelected(int section, String letter);
+
+        /**
+         * 手指离开索引栏时调用
+         */
+        void onSectionReleased();
+    }
+
+    public SideIndexBar(Context context) {
+        this(context, null);
+    }
+
+    public SideIndexBar(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public SideIndexBar(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        normalColor = ContextCompat.getColor(context, R.color.text_hint);
+        selectedColor = ContextCompat.getColor(context, R.color.theme_blue);
+        paint.setTextAlign(Paint.Align.CENTER);
+        paint.setTextSize(11 * getResources().getDisplayMetrics().scaledDensity);
+    }
+
+    /**
+     * 设置分组选中监听器
+     * @param listener 监听器实例
+     */
+    public void setOnSectionSelectedListener(OnSectionSelectedListener listener) {
+        this.onSectionSelectedListener = listener;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        int count = SECTIONS.length();
+        float cellHeight = (float) (getHeight() - getPaddingTop() - getPaddingBottom()) / count;
+        float x = getWidth() / 2f;
+        // 文字基线相对单元格中心的偏移
+        float baselineOffset = -(paint.ascent() + paint.descent()) / 2f;
+        for (int i = 0; i < count; i++) {
+            paint.setColor(i == selectedIndex ? selectedColor : normalColor);
+            float y = getPaddingTop() + cellHeight * i + cellHeight / 2f + baselineOffset;
+            canvas.drawText(SECTIONS, i, i + 1, x, y, paint);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+            case MotionEvent.ACTION_MOVE:
+                setBackgroundColor(Color.argb(0x20, 0, 0, 0));
+                selectSectionAt(event.getY());
+                return true;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                setBackgroundColor(Color.TRANSPARENT);
+                selectedIndex = -1;
+                invalidate();
+                if (onSectionSelectedListener != null) {
+                    onSectionSelectedListener.onSectionReleased();
+                }
+                return true;
+            default:
+                return super.onTouchEvent(event);
+        }
+    }
+
+    /**
+     * 根据触摸点纵坐标换算分组下标，只在分组变化时回调
+     */
+    private void selectSectionAt(float y) {
+        int height = getHeight() - getPaddingTop() - getPaddingBottom();
+        if (height <= 0) {
+            return;
+        }
+        int index = (int) ((y - getPaddingTop()) * SECTIONS.length() / height);
+        index = Math.max(0, Math.min(SECTIONS.length() - 1, index));
+        if (index == selectedIndex) {
+            return;
+        }
+        selectedIndex = index;
+        invalidate();
+        if (onSectionSelectedListener != null) {
+            onSectionSelectedListener.onSectionSelected(index, String.valueOf(SECTIONS.charAt(index)));
+        }
+    }
+}
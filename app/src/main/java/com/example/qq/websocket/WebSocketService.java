@@ -61,4 +61,16 @@ public interface WebSocketService {
      * 重新连接WebSocket
      */
     void reconnectIfNeeded();
+
+    /**
+     * 连接是否已打开
+     * @return 已打开返回true
+     */
+    boolean isOpen();
+
+    /**
+     * 最近一次连接（含重连）建立的时间
+     * @return SystemClock.elapsedRealtime() 时间戳，从未连接过返回0
+     */
+    long getLastConnectedRealtime();
 } 
\ No newline at end of file
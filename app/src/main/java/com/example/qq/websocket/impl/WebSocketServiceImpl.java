@@ -2,10 +2,13 @@ package com.example.qq.websocket.impl;
 
 import android.os.Handler;
 import android.os.Looper;
-import android.util.Log;
+import android.os.SystemClock;
 
 import com.example.qq.domain.ChatMessage;
 import com.example.qq.domain.WebSocketMessage;
+import com.example.qq.log.AppLog;
+import com.example.qq.metrics.Metrics;
+import com.example.qq.network.ConnectivityMonitor;
 import com.example.qq.utils.SharedPreferencesManager;
 import com.example.qq.websocket.WebSocketService;
 
@@ -36,6 +39,8 @@ public class WebSocketServiceImpl implements WebSocketService {
 
     /** 单例实例 */
     private static WebSocketServiceImpl instance;
+    /** 实际连接的地址，测试中可指向本地服务器 */
+    private static volatile String serverUrl = WS_URL;
     /** WebSocket客户端实例 */
     private WebSocketClient webSocketClient;
     /** 主线程Handler */
@@ -48,11 +53,19 @@ public class WebSocketServiceImpl implements WebSocketService {
     private int reconnectAttempts = 0;
     /** 连接状态 */
     private boolean isConnected = false;
+    /** 最近一次连接建立的时间，断线期间可能漏收消息，早于它的聊天记录刷新不再可信 */
+    private volatile long lastConnectedRealtime;
+    /** 是否需要保持连接：init 后为true，主动断开后为false，网络恢复时只在为true时重连 */
+    private boolean autoReconnect = false;
+    /** 重连任务，网络断开时取消 */
+    private final Runnable reconnectTask = this::init;
+    private final ConnectivityMonitor.Listener connectivityListener = this::onConnectivityChanged;
 
     /**
      * 私有构造函数，防止外部实例化
      */
     private WebSocketServiceImpl() {
+        ConnectivityMonitor.getInstance().addListener(connectivityListener);
     }
 
     /**
@@ -66,6 +79,14 @@ public class WebSocketServiceImpl implements WebSocketService {
         return instance;
     }
 
+    /**
+     * 替换服务器地址，下次 {@link #init()} 时生效
+     * @param url ws:// 或 wss:// 地址，传入null恢复默认地址
+     */
+    public static void setServerUrl(String url) {
+        serverUrl = url != null ? url : WS_URL;
+    }
+
     /**
      * 初始化WebSocket连接
      * 获取token，构建WebSocket连接并设置认证头
@@ -75,20 +96,22 @@ public class WebSocketServiceImpl implements WebSocketService {
         String token = SharedPreferencesManager.getInstance().getToken();
         
         if (token == null) {
-            Log.e(TAG, "Token is null, cannot initialize WebSocket");
+            AppLog.e(TAG, "Token is null, cannot initialize WebSocket");
             return;
         }
+        autoReconnect = true;
 
         try {
-            URI uri = URI.create(WS_URL);
-            Log.d(TAG, "Connecting to WebSocket URL: " + WS_URL);
+            String url = serverUrl;
+            URI uri = URI.create(url);
+            AppLog.d(TAG, "Connecting to WebSocket URL: {}", url);
             
             Map<String, String> headers = new HashMap<>();
             headers.put("Authorization", token);
             
             connect(uri, headers);
         } catch (Exception e) {
-            Log.e(TAG, "Error initializing WebSocket", e);
+            AppLog.e(TAG, "Error initializing WebSocket", e);
             notifyError("WebSocket初始化失败: " + e.getMessage());
         }
     }
@@ -107,8 +130,10 @@ public class WebSocketServiceImpl implements WebSocketService {
         webSocketClient = new WebSocketClient(uri, headers) {
             @Override
             public void onOpen(ServerHandshake handshakedata) {
-                Log.i(TAG, "WebSocket Connected with status: " + handshakedata.getHttpStatus() 
-                    + " " + handshakedata.getHttpStatusMessage());
+                AppLog.i(TAG, "WebSocket Connected with status: {} {}",
+                    handshakedata.getHttpStatus(), handshakedata.getHttpStatusMessage());
+                // 在 isOpen() 变为true的同一线程上记录，不等主线程回调
+                lastConnectedRealtime = SystemClock.elapsedRealtime();
                 mainHandler.post(() -> {
                     isConnecting = false;
                     reconnectAttempts = 0;
@@ -118,16 +143,25 @@ public class WebSocketServiceImpl implements WebSocketService {
 
             @Override
             public void onMessage(String message) {
-                Log.d(TAG, "Received message: " + message);
-                mainHandler.post(() -> notifyMessageReceived(message));
+                if (AppLog.DEBUG) {
+                    AppLog.d(TAG, "Received message: {}", message);
+                }
+                long receivedNanos = System.nanoTime();
+                Metrics.getInstance().counter("ws.received").increment();
+                mainHandler.post(() -> dispatchReceived(message, receivedNanos));
             }
 
             @Override
             public void onClose(int code, String reason, boolean remote) {
-                Log.w(TAG, "WebSocket Closed: " + reason);
+                AppLog.w(TAG, "WebSocket Closed: {}", reason);
                 mainHandler.post(() -> {
                     isConnecting = false;
                     notifyDisconnected();
+                    if (!ConnectivityMonitor.getInstance().isConnected()) {
+                        // 没有网络时重连必然失败，等网络恢复的回调再连，不消耗重连次数
+                        AppLog.i(TAG, "网络不可用，等待网络恢复后重连");
+                        return;
+                    }
                     if (shouldReconnect()) {
                         scheduleReconnect();
                     }
@@ -136,7 +170,7 @@ public class WebSocketServiceImpl implements WebSocketService {
 
             @Override
             public void onError(Exception ex) {
-                Log.e(TAG, "WebSocket Error", ex);
+                AppLog.e(TAG, "WebSocket Error", ex);
                 mainHandler.post(() -> {
                     isConnecting = false;
                     notifyError("WebSocket错误: " + ex.getMessage());
@@ -163,8 +197,25 @@ public class WebSocketServiceImpl implements WebSocketService {
     private void scheduleReconnect() {
         reconnectAttempts++;
         long delay = getReconnectDelay();
-        Log.i(TAG, "Scheduling reconnect attempt " + reconnectAttempts + " in " + delay + "ms");
-        mainHandler.postDelayed(this::init, delay);
+        AppLog.i(TAG, "Scheduling reconnect attempt {} in {}ms", reconnectAttempts, delay);
+        mainHandler.postDelayed(reconnectTask, delay);
+    }
+
+    /**
+     * 网络变化：断网时取消排队的重连，恢复时立即重连并重置退避
+     * 在主线程回调
+     */
+    private void onConnectivityChanged(ConnectivityMonitor.Snapshot snapshot) {
+        if (!snapshot.connected) {
+            mainHandler.removeCallbacks(reconnectTask);
+            return;
+        }
+        if (autoReconnect && !isConnecting && !isOpen()) {
+            AppLog.i(TAG, "网络已恢复（{}），立即重连", snapshot.transport);
+            mainHandler.removeCallbacks(reconnectTask);
+            reconnectAttempts = 0;
+            init();
+        }
     }
 
     /**
@@ -184,14 +235,16 @@ public class WebSocketServiceImpl implements WebSocketService {
     public void sendMessage(String message) {
         if (webSocketClient != null && webSocketClient.isOpen()) {
             try {
-                Log.d(TAG, "WebSocket发送消息: " + message);
+                if (AppLog.DEBUG) {
+                    AppLog.d(TAG, "WebSocket发送消息: {}", message);
+                }
                 webSocketClient.send(message);
             } catch (Exception e) {
-                Log.e(TAG, "Error sending message", e);
+                AppLog.e(TAG, "Error sending message", e);
                 notifyError("发送消息失败: " + e.getMessage());
             }
         } else {
-            Log.e(TAG, "WebSocket未连接");
+            AppLog.e(TAG, "WebSocket未连接");
             if (!isConnecting) {
                 // 如果未连接且不在连接过程中，尝试重新连接
                 init();
@@ -229,17 +282,20 @@ public class WebSocketServiceImpl implements WebSocketService {
             try {
                 webSocketClient.close();
             } catch (Exception e) {
-                Log.e(TAG, "Error closing WebSocket", e);
+                AppLog.e(TAG, "Error closing WebSocket", e);
             }
         }
         mainHandler.removeCallbacksAndMessages(null);
+        autoReconnect = false;
         isConnecting = false;
         reconnectAttempts = 0;
     }
 
     @Override
     public void onMessage(String message) {
-        Log.d(TAG, "收到WebSocket消息: " + message);
+        if (AppLog.DEBUG) {
+            AppLog.d(TAG, "收到WebSocket消息: {}", message);
+        }
         try {
             JSONObject jsonMessage = new JSONObject(message);
             int systemType = jsonMessage.getInt("system");
@@ -255,7 +311,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                 listener.onMessageReceived(message);
             }
         } catch (JSONException e) {
-            Log.e(TAG, "解析消息失败: " + e.getMessage());
+            AppLog.e(TAG, "解析消息失败: {}", e.getMessage());
         }
     }
 
@@ -271,6 +327,23 @@ public class WebSocketServiceImpl implements WebSocketService {
         }
     }
 
+    /**
+     * 主线程分发收到的消息，记录排队等待主线程和监听者处理的耗时
+     * @param receivedNanos 在WebSocket线程收到消息的时间
+     */
+    private void dispatchReceived(String message, long receivedNanos) {
+        Metrics metrics = Metrics.getInstance();
+        metrics.histogram("ws.main_queue").recordSince(receivedNanos);
+        long start = System.nanoTime();
+        metrics.beginPush(receivedNanos);
+        try {
+            notifyMessageReceived(message);
+        } finally {
+            metrics.endPush();
+            metrics.histogram("ws.dispatch").recordSince(start);
+        }
+    }
+
     private void notifyMessageReceived(String message) {
         for (WebSocketListener listener : new ArrayList<>(listeners)) {
             listener.onMessageReceived(message);
@@ -296,26 +369,39 @@ public class WebSocketServiceImpl implements WebSocketService {
             // 发送消息
             if (webSocketClient != null && webSocketClient.isOpen()) {
                 String messageStr = jsonMessage.toString();
-                Log.d(TAG, "发送聊天消息: " + messageStr);
+                if (AppLog.DEBUG) {
+                    AppLog.d(TAG, "发送聊天消息: {}", messageStr);
+                }
                 webSocketClient.send(messageStr);
             } else {
-                Log.w(TAG, "WebSocket连接未建立或已关闭");
+                AppLog.w(TAG, "WebSocket连接未建立或已关闭");
                 if (!isConnecting) {
                     init();
                 }
             }
         } catch (JSONException e) {
-            Log.e(TAG, "发送消息失败：" + e.getMessage());
+            AppLog.e(TAG, "发送消息失败：{}", e.getMessage());
         }
     }
 
     @Override
     public void reconnectIfNeeded() {
         if (webSocketClient == null || !webSocketClient.isOpen()) {
-            Log.d(TAG, "WebSocket连接已断开，尝试重新连接");
+            AppLog.d(TAG, "WebSocket连接已断开，尝试重新连接");
             init();
         } else {
-            Log.d(TAG, "WebSocket连接正常，无需重连");
+            AppLog.d(TAG, "WebSocket连接正常，无需重连");
         }
     }
-} 
\ No newline at end of file
+
+    @Override
+    public boolean isOpen() {
+        WebSocketClient client = webSocketClient;
+        return client != null && client.isOpen();
+    }
+
+    @Override
+    public long getLastConnectedRealtime() {
+        return lastConnectedRealtime;
+    }
+}
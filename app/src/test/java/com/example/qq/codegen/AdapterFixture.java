@@ -0,0 +1,37 @@
+package com.example.qq.codegen;
+
+import com.example.qq.constant.MessageType;
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+/**
+ * 生成适配器的测试夹具，覆盖领域类中没有用到的写法：
+ * @SerializedName 的 alternate、各种基本类型和包装类型、枚举、泛型集合，以及直接访问的包内字段
+ */
+@GenerateTypeAdapter
+public class AdapterFixture {
+    @SerializedName(value = "name", alternate = {"nick", "nickname"})
+    String name;
+    Integer count;
+    Long total;
+    Boolean enabled;
+    boolean flag;
+    byte level;
+    short rank;
+    char grade;
+    float ratio;
+    double score;
+    MessageType kind;
+    List<String> tags;
+    /** 经过 getter/setter 的私有字段 */
+    private String note;
+
+    public String getNote() {
+        return note;
+    }
+
+    public void setNote(String note) {
+        this.note = note;
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.qq.codegen;
+
+import com.example.qq.domain.ChatMessage;
+import com.example.qq.domain.Contact;
+import com.example.qq.domain.FriendList;
+import com.example.qq.domain.FriendRequest;
+import com.example.qq.domain.ImagePayload;
+import com.example.qq.domain.NotificationMessage;
+import com.example.qq.domain.User;
+import com.example.qq.domain.WebSocketMessage;
+import com.example.qq.utils.GsonProvider;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 生成的 TypeAdapter 与反射 Gson 的一致性
+ * 每个样例分别用生成的适配器和 new Gson() 解码，比较解码结果的全部字段（含 transient），
+ * 再用两者分别编码，比较输出的 JSON；样例同时派生出所有字段为 null 和空对象两种变体
+ */
+public class GeneratedTypeAdapterTest {
+    private final Gson reflective = new Gson();
+    private final Gson generated = GsonProvider.get();
+    private final Gson fixtureGson = new GsonBuilder()
+        .registerTypeAdapterFactory(new GeneratedTypeAdapterFactory())
+        .create();
+
+    @Test
+    public void domainClassesUseGeneratedAdapters() {
+        for (Class<?> type : Arrays.asList(User.class, ChatMessage.class, WebSocketMessage.class,
+                FriendRequest.class, FriendList.class, ImagePayload.class, Contact.class,
+                NotificationMessage.class)) {
+            assertEquals(type.getSimpleName() + "TypeAdapter",
+                generated.getAdapter(type).getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    public void user() {
+        assertParity(generated, User.class, "{\"userId\":\"1\",\"userName\":\"alice\",\"userPassword\":\"pw\","
+            + "\"userNickName\":\"爱丽丝\",\"userAvatarUrl\":\"https://a/1.jpg\",\"userSignature\":\"hi\","
+            + "\"email\":\"a@x.com\",\"phone\":\"123\",\"address\":\"杭州\",\"gender\":\"女\",\"signature\":\"s\"}");
+        // Object 字段按运行时类型解码；String 字段接受数字和布尔值
+        assertParity(generated, User.class, "{\"userId\":42,\"userName\":true,\"gender\":1,\"extra\":{\"a\":[1]}}");
+    }
+
+    @Test
+    public void chatMessage() {
+        assertParity(generated, ChatMessage.class, "{\"sender\":\"alice\",\"receiver\":\"bob\",\"content\":\"你好\","
+            + "\"timestamp\":1700000000000,\"clientId\":\"c-1\",\"status\":1}");
+        // 数字以字符串给出
+        assertParity(generated, ChatMessage.class, "{\"timestamp\":\"1700000000000\",\"status\":\"2\",\"clientId\":7}");
+        // 缺少 status 时保持字段初始值
+        assertParity(generated, ChatMessage.class, "{\"sender\":\"alice\",\"content\":\"[image]{}\"}");
+    }
+
+    @Test
+    public void webSocketMessage() {
+        assertParity(generated, WebSocketMessage.class, "{\"system\":1,\"user\":\"alice\",\"targetname\":\"bob\","
+            + "\"message\":\"hi\",\"timestamp\":1700000000000,\"clientId\":\"c-1\",\"type\":\"CHAT\"}");
+        // type 与 system 不一致时，两者都按JSON原样保留，与字段顺序无关
+        assertParity(generated, WebSocketMessage.class, "{\"system\":7,\"type\":\"CHAT\"}");
+        assertParity(generated, WebSocketMessage.class, "{\"type\":\"CHAT\",\"system\":7}");
+        // 未知的枚举值解码为null
+        assertParity(generated, WebSocketMessage.class, "{\"system\":8,\"type\":\"UNKNOWN\"}");
+    }
+
+    @Test
+    public void friendRequest() {
+        assertParity(generated, FriendRequest.class, "{\"userId\":\"1\",\"nickname\":\"鲍勃\",\"username\":\"bob\","
+            + "\"avatarUrl\":\"https://a/2.jpg\",\"message\":\"加个好友\",\"timestamp\":1700000000000,\"status\":0}");
+    }
+
+    @Test
+    public void friendList() {
+        assertParity(generated, FriendList.class, "{\"friendUsername\":\"bob\",\"friendNickName\":\"鲍勃\","
+            + "\"avatarUrl\":\"https://a/2.jpg\",\"lastContext\":\"晚安\",\"lastContextTime\":\"2024-05-01T08:30:00\"}");
+    }
+
+    @Test
+    public void imagePayload() {
+        assertParity(generated, ImagePayload.class,
+            "{\"url\":\"https://a/p.jpg\",\"width\":1080,\"height\":720,\"thumb\":\"AAEC\"}");
+        assertParity(generated, ImagePayload.class, "{\"width\":1080.0,\"height\":\"720\"}");
+    }
+
+    @Test
+    public void contact() {
+        assertParity(generated, Contact.class,
+            "{\"nickName\":\"张伟\",\"avatarUrl\":\"https://a/3.jpg\",\"username\":\"zhangwei\"}");
+    }
+
+    @Test
+    public void notificationMessage() {
+        assertParity(generated, NotificationMessage.class,
+            "{\"title\":\"新消息\",\"content\":\"你好\",\"timestamp\":1700000000000}");
+    }
+
+    @Test
+    public void serializedNameAlternates() {
+        // 主名称和备用名称都能解码，同时出现时后出现的生效；编码只使用主名称
+        assertParity(fixtureGson, AdapterFixture.class, "{\"nick\":\"a\"}");
+        assertParity(fixtureGson, AdapterFixture.class, "{\"nickname\":\"b\",\"name\":\"a\"}");
+        assertParity(fixtureGson, AdapterFixture.class, "{\"name\":\"a\",\"nick\":\"b\"}");
+    }
+
+    @Test
+    public void primitivesBoxedEnumsAndCollections() {
+        assertEquals("AdapterFixtureTypeAdapter",
+            fixtureGson.getAdapter(AdapterFixture.class).getClass().getSimpleName());
+        assertParity(fixtureGson, AdapterFixture.class, "{\"name\":\"a\",\"count\":3,\"total\":9007199254740993,"
+            + "\"enabled\":false,\"flag\":true,\"level\":-8,\"rank\":300,\"grade\":\"A\",\"ratio\":0.25,"
+            + "\"score\":3.5,\"kind\":\"IMAGE\",\"tags\":[\"x\",\"y\"],\"note\":\"n\"}");
+        // 布尔值以字符串给出
+        assertParity(fixtureGson, AdapterFixture.class, "{\"enabled\":\"true\",\"flag\":\"true\",\"tags\":[]}");
+    }
+
+    /**
+     * 样例及其全 null、空对象变体的解码结果和编码结果一致
+     */
+    private void assertParity(Gson gson, Class<?> type, String json) {
+        for (String variant : variants(json)) {
+            Object expected = reflective.fromJson(variant, type);
+            Object actual = gson.fromJson(variant, type);
+            assertSameFields(variant, expected, actual);
+            assertEquals(variant, reflective.toJson(expected), gson.toJson(expected));
+            assertEquals(variant, reflective.toJson(actual), gson.toJson(actual));
+        }
+    }
+
+    private static List<String> variants(String json) {
+        JsonObject nulls = new JsonObject();
+        for (Map.Entry<String, JsonElement> entry : new JsonParser().parse(json).getAsJsonObject().entrySet()) {
+            nulls.add(entry.getKey(), JsonNull.INSTANCE);
+        }
+        List<String> variants = new ArrayList<>();
+        variants.add(json);
+        variants.add(new GsonBuilder().serializeNulls().create().toJson(nulls));
+        variants.add("{}");
+        return variants;
+    }
+
+    /**
+     * 逐个比较所有实例字段，包括 setter 可能顺带修改的 transient 字段
+     */
+    private static void assertSameFields(String json, Object expected, Object actual) {
+        assertEquals(json, expected.getClass(), actual.getClass());
+        for (Class<?> c = expected.getClass(); c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                try {
+                    Object e = field.get(expected);
+                    Object a = field.get(actual);
+                    assertTrue(json + " -> " + c.getSimpleName() + "." + field.getName()
+                        + ": expected " + e + " but was " + a, Objects.deepEquals(e, a));
+                } catch (IllegalAccessException ex) {
+                    throw new AssertionError(ex);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.qq.network;
+
+import android.content.Context;
+import android.net.NetworkCapabilities;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.qq.api.friendlistapi.impl.FriendApiImpl;
+import com.example.qq.api.messageapi.impl.MessageApiImpl;
+import com.example.qq.api.userapi.impl.UserApiImpl;
+import com.example.qq.domain.ChatMessage;
+import com.example.qq.domain.Contact;
+import com.example.qq.domain.FriendList;
+import com.example.qq.domain.User;
+import com.example.qq.metrics.LatencyHistogram;
+import com.example.qq.metrics.Metrics;
+import com.example.qq.utils.SharedPreferencesManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowNetworkCapabilities;
+
+import java.io.IOException;
+import java.util.List;
+
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * API 层对本地替身服务器的性能测试
+ * 通过 FakeRestServer 注入延迟、抖动、5xx 和慢响应体，调用真实的 *ApiImpl，
+ * 输出 Metrics 中 http.* 的分接口耗时，并检查错误计数、重试和对冲与注入的故障一致
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class ApiLatencyTest {
+    private static final String ME = "api-me";
+    private static final String FRIEND = "friend0";
+
+    private MockWebServer server;
+    private FakeRestServer backend;
+
+    @Before
+    public void setUp() throws IOException {
+        Context context = ApplicationProvider.getApplicationContext();
+        // RequestManager 发请求前检查网络快照，模拟已连接 WiFi
+        NetworkCapabilities capabilities = ShadowNetworkCapabilities.newInstance();
+        shadowOf(capabilities).addTransportType(NetworkCapabilities.TRANSPORT_WIFI);
+        ConnectivityMonitor.getInstance().update(ConnectivityMonitor.Snapshot.of(capabilities));
+
+        SharedPreferencesManager.init(context);
+        User me = new User();
+        me.setUserName(ME);
+        SharedPreferencesManager.getInstance().saveUserInfo(me);
+        SharedPreferencesManager.getInstance().saveToken("api-token");
+
+        backend = new FakeRestServer();
+        server = new MockWebServer();
+        server.setDispatcher(backend);
+        server.start();
+        RequestManager.setBaseUrl(server.url(FakeRestServer.BASE_PATH).toString());
+        Metrics.getInstance().reset();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        RequestManager.setBaseUrl(null);
+        server.shutdown();
+    }
+
+    @Test
+    public void coldStartRequestsWithLatency() {
+        backend.latency(20, 30);
+        UserApiImpl userApi = new UserApiImpl();
+        assertTrue(userApi.login("{\"username\":\"" + ME + "\",\"password\":\"secret\"}"));
+        List<FriendList> friends = null;
+        List<Contact> contacts = null;
+        try {
+            friends = new FriendApiImpl().getFriendList();
+            contacts = new FriendApiImpl().getContactList();
+        } catch (Exception e) {
+            fail("好友接口失败: " + e);
+        }
+        List<ChatMessage> messages = new MessageApiImpl().getMessageList(ME, FRIEND);
+
+        assertEquals(50, friends.size());
+        assertEquals(50, contacts.size());
+        assertEquals(200, messages.size());
+        // 首个请求建连，之后复用同一条连接
+        assertEquals(1, Metrics.getInstance().counter("http.connection.new").get());
+        assertEquals(1, backend.requestCount("login"));
+        // 登录成功后同步拉取用户信息
+        assertEquals(1, backend.requestCount("getuser"));
+        LatencyHistogram.Snapshot getUser = histogram("GET /getuser");
+        assertEquals(1, getUser.count);
+        assertTrue("注入的延迟应体现在耗时中", getUser.p50Micros >= 20_000);
+        report("cold-start");
+    }
+
+    @Test
+    public void repeatedHistoryLoadsWithJitter() {
+        backend.payload(50, 1000).latency(5, 20);
+        MessageApiImpl messageApi = new MessageApiImpl();
+        for (int i = 0; i < 20; i++) {
+            assertEquals(1000, messageApi.getMessageList(ME, FRIEND).size());
+        }
+        assertEquals(20, histogram("GET /getmessage").count);
+        report("history x20");
+    }
+
+    @Test
+    public void injectedServerErrorsAreRetried() {
+        backend.failNext(3);
+        UserApiImpl userApi = new UserApiImpl();
+        int failures = 0;
+        for (int i = 0; i < 10; i++) {
+            if (userApi.getUserInfo(ME) == null) {
+                failures++;
+            }
+        }
+        // 第一次调用的三次尝试都失败，之后全部成功
+        assertEquals(1, failures);
+        assertEquals(12, backend.requestCount("getuser"));
+        assertEquals(3, Metrics.getInstance().counter("http.error.GET /getuser").get());
+        assertEquals(2, Metrics.getInstance().counter("http.retry.GET /getuser").get());
+        assertEquals(12, histogram("GET /getuser").count);
+        assertEquals(10, histogram("call.GET /getuser").count);
+        report("errors");
+    }
+
+    @Test
+    public void nonIdempotentRequestsAreNotRetried() {
+        backend.failNext(1);
+        try {
+            new MessageApiImpl().sendMessage("{\"sender\":\"" + ME + "\",\"content\":\"hi\"}");
+            fail("5xx 应抛出异常");
+        } catch (RuntimeException expected) {
+            // 预期
+        }
+        assertEquals(1, backend.requestCount("addmessage"));
+        assertEquals(0, Metrics.getInstance().counter("http.retry.POST /addmessage").get());
+    }
+
+    @Test
+    public void offlineRequestsFailWithoutReachingTheServer() {
+        ConnectivityMonitor.getInstance().update(ConnectivityMonitor.Snapshot.OFFLINE);
+        assertNull(new UserApiImpl().getUserInfo(ME));
+        assertEquals(0, backend.requestCount("getuser"));
+    }
+
+    @Test
+    public void hedgingTrimsTheTail() {
+        // 5% 的请求卡顿1秒，对冲请求在 p95（样本不足时300毫秒）后发出
+        backend.seed(3).latency(2, 3).stall(0.05, 1000);
+        UserApiImpl userApi = new UserApiImpl();
+        for (int i = 0; i < 60; i++) {
+            assertNotNull(userApi.getUserInfo(ME));
+        }
+        LatencyHistogram.Snapshot call = histogram("call.GET /getuser");
+        assertEquals(60, call.count);
+        assertTrue("应发出对冲请求", Metrics.getInstance().counter("http.hedge.GET /getuser").get() > 0);
+        assertTrue("对冲后 p95 应低于卡顿时长", call.p95Micros < 1_000_000);
+        report("hedged getuser, 5% stalls");
+    }
+
+    @Test
+    public void randomErrorRateIsReproducible() {
+        backend.seed(7).errorRate(0.2);
+        MessageApiImpl messageApi = new MessageApiImpl();
+        int failures = 0;
+        for (int i = 0; i < 50; i++) {
+            try {
+                messageApi.sendMessage("{\"sender\":\"" + ME + "\",\"receiver\":\"" + FRIEND
+                    + "\",\"content\":\"hi " + i + "\"}");
+            } catch (RuntimeException e) {
+                failures++;
+            }
+        }
+        assertTrue("错误率 0.2 下应有失败", failures > 0);
+        assertEquals(failures, Metrics.getInstance().counter("http.error.POST /addmessage").get());
+        report("addmessage 20% 5xx");
+    }
+
+    @Test
+    public void slowBodyDominatesLargeResponses() {
+        // 约 100KB 的聊天记录以 200KB/s 下发
+        backend.payload(50, 1000).slowBody(200 * 1024);
+        long start = System.nanoTime();
+        List<ChatMessage> messages = new MessageApiImpl().getMessageList(ME, FRIEND);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertNotNull(messages);
+        assertEquals(1000, messages.size());
+        // http.* 只计到响应头，慢响应体的耗时体现在 http.transfer.* 中
+        LatencyHistogram.Snapshot headers = histogram("GET /getmessage");
+        LatencyHistogram.Snapshot ttfb = histogram("ttfb.GET /getmessage");
+        LatencyHistogram.Snapshot transfer = histogram("transfer.GET /getmessage");
+        assertTrue(elapsedMillis * 1000 > headers.p50Micros);
+        assertEquals(1, transfer.count);
+        assertTrue("传输耗时应远大于首字节耗时", transfer.p50Micros > ttfb.p50Micros);
+        System.out.printf("[api slow-body] end-to-end %d ms, headers p50 %.2f ms, ttfb %.2f ms, transfer %.2f ms%n",
+            elapsedMillis, headers.p50Micros / 1000.0, ttfb.p50Micros / 1000.0, transfer.p50Micros / 1000.0);
+    }
+
+    private static LatencyHistogram.Snapshot histogram(String endpoint) {
+        return Metrics.getInstance().histogram("http." + endpoint).snapshot();
+    }
+
+    private static void report(String name) {
+        System.out.println("[api " + name + "]");
+        for (String line : Metrics.getInstance().report()) {
+            if (line.startsWith("http.")) {
+                System.out.println("  " + line);
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.qq.network;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * 应用 REST 接口的本地替身服务器，配合 MockWebServer 使用
+ * 实现 /login、/getuserandmessage、/friends、/getmessage、/addmessage、/getuser、/updateUserInfo，
+ * 响应结构与线上一致，好友数和消息条数可配置以得到接近真实的响应大小；
+ * 可注入固定延迟、抖动、长尾卡顿、5xx 错误和慢响应体，随机数种子固定，结果可重复
+ */
+class FakeRestServer extends Dispatcher {
+    private static final Pattern GET_USER = Pattern.compile("/api/getuser/([^/?]+)");
+    private static final Pattern FRIEND_LIST = Pattern.compile("/api/getuserandmessage/([^/?]+)");
+    private static final Pattern CONTACTS = Pattern.compile("/api/friends/([^/?]+)");
+    private static final Pattern MESSAGES = Pattern.compile("/api/getmessage/([^/?]+)/([^/?]+)");
+    private static final String AVATAR_BASE = "https://web.yxdfirst.top/avatar/";
+    private static final String TEXT = "今晚一起吃饭吗七点在老地方见好的没问题收到马上到周末去爬山记得带伞";
+
+    /** 根路径，与线上一致 */
+    static final String BASE_PATH = "/api";
+
+    private final Map<String, AtomicInteger> requestCounts = new TreeMap<>();
+    private Random random = new Random(42);
+
+    /** 好友数和每个会话的消息条数 */
+    private int friendCount = 50;
+    private int messageCount = 200;
+    /** 响应头前的固定延迟和均匀分布的额外抖动（毫秒） */
+    private long latencyMs;
+    private long jitterMs;
+    /** 请求额外卡顿的概率和时长（毫秒），模拟长尾 */
+    private double stallRate;
+    private long stallMs;
+    /** 请求返回 503 的概率 */
+    private double errorRate;
+    /** 接下来N个请求返回 500 */
+    private int failNext;
+    /** 响应体限速（字节/秒），0 表示不限速 */
+    private long bodyBytesPerSecond;
+
+    synchronized FakeRestServer payload(int friendCount, int messageCount) {
+        this.friendCount = friendCount;
+        this.messageCount = messageCount;
+        return this;
+    }
+
+    synchronized FakeRestServer latency(long latencyMs, long jitterMs) {
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        return this;
+    }
+
+    synchronized FakeRestServer stall(double rate, long stallMs) {
+        this.stallRate = rate;
+        this.stallMs = stallMs;
+        return this;
+    }
+
+    synchronized FakeRestServer errorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    synchronized FakeRestServer failNext(int count) {
+        this.failNext = count;
+        return this;
+    }
+
+    synchronized FakeRestServer slowBody(long bytesPerSecond) {
+        this.bodyBytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    synchronized FakeRestServer seed(long seed) {
+        this.random = new Random(seed);
+        return this;
+    }
+
+    /**
+     * 某个接口收到的请求数，接口名为根路径后的第一段，如 "getuser"
+     */
+    synchronized int requestCount(String endpoint) {
+        AtomicInteger count = requestCounts.get(endpoint);
+        return count != null ? count.get() : 0;
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+        String path = request.getPath() != null ? request.getPath() : "";
+        MockResponse response;
+        synchronized (this) {
+            requestCounts.computeIfAbsent(endpointOf(path), key -> new AtomicInteger()).incrementAndGet();
+            if (failNext > 0) {
+                failNext--;
+                response = new MockResponse().setResponseCode(500).setBody("{\"code\":500,\"msg\":\"injected\"}");
+            } else if (errorRate > 0 && random.nextDouble() < errorRate) {
+                response = new MockResponse().setResponseCode(503).setBody("{\"code\":503,\"msg\":\"injected\"}");
+            } else {
+                response = route(request.getMethod(), path);
+            }
+            long delay = latencyMs + (jitterMs > 0 ? (long) (random.nextDouble() * jitterMs) : 0);
+            if (stallRate > 0 && random.nextDouble() < stallRate) {
+                delay += stallMs;
+            }
+            if (delay > 0) {
+                response.setHeadersDelay(delay, TimeUnit.MILLISECONDS);
+            }
+            if (bodyBytesPerSecond > 0) {
+                // 每100毫秒发送十分之一
+                response.throttleBody(Math.max(1, bodyBytesPerSecond / 10), 100, TimeUnit.MILLISECONDS);
+            }
+        }
+        return response.setHeader("Content-Type", "application/json; charset=utf-8");
+    }
+
+    private MockResponse route(String method, String path) {
+        Matcher matcher;
+        if ("POST".equals(method) && path.startsWith(BASE_PATH + "/login")) {
+            JsonObject data = new JsonObject();
+            data.addProperty("token", "fake-token-" + random.nextInt(1_000_000));
+            return ok(data);
+        }
+        if ("POST".equals(method) && (path.startsWith(BASE_PATH + "/addmessage")
+                || path.startsWith(BASE_PATH + "/updateUserInfo"))) {
+            return ok(null);
+        }
+        if ((matcher = GET_USER.matcher(path)).matches()) {
+            JsonObject data = new JsonObject();
+            data.add("user", user(matcher.group(1)));
+            return ok(data);
+        }
+        if ((matcher = FRIEND_LIST.matcher(path)).matches()) {
+            JsonArray friends = new JsonArray();
+            for (int i = 0; i < friendCount; i++) {
+                JsonObject friend = new JsonObject();
+                friend.addProperty("username", "friend" + i);
+                friend.addProperty("nickname", nickname(i));
+                friend.addProperty("avatarUrl", AVATAR_BASE + "friend" + i + ".jpg");
+                friend.addProperty("content", text(i));
+                friend.addProperty("timestamp", timestamp(i));
+                friends.add(friend);
+            }
+            return ok(friends);
+        }
+        if ((matcher = CONTACTS.matcher(path)).matches()) {
+            JsonArray friends = new JsonArray();
+            for (int i = 0; i < friendCount; i++) {
+                JsonObject friend = new JsonObject();
+                friend.addProperty("friend_id", "friend" + i);
+                friend.addProperty("nickname", nickname(i));
+                friend.addProperty("avatar_url", AVATAR_BASE + "friend" + i + ".jpg");
+                friends.add(friend);
+            }
+            JsonObject data = new JsonObject();
+            data.add("friends", friends);
+            return ok(data);
+        }
+        if ((matcher = MESSAGES.matcher(path)).matches()) {
+            String me = matcher.group(1);
+            String friend = matcher.group(2);
+            JsonArray sent = new JsonArray();
+            JsonArray received = new JsonArray();
+            for (int i = 0; i < messageCount; i++) {
+                boolean mine = i % 2 == 0;
+                JsonObject message = new JsonObject();
+                message.addProperty("sender", mine ? me : friend);
+                message.addProperty("receiver", mine ? friend : me);
+                message.addProperty("content", text(i));
+                message.addProperty("timestamp", timestamp(i));
+                (mine ? sent : received).add(message);
+            }
+            JsonObject messages = new JsonObject();
+            messages.add(me, sent);
+            messages.add(friend, received);
+            JsonObject data = new JsonObject();
+            data.add("messages", messages);
+            return ok(data);
+        }
+        return new MockResponse().setResponseCode(404).setBody("{\"code\":404,\"msg\":\"not found\"}");
+    }
+
+    private static MockResponse ok(com.google.gson.JsonElement data) {
+        JsonObject body = new JsonObject();
+        body.addProperty("code", 200);
+        body.addProperty("msg", "success");
+        if (data != null) {
+            body.add("data", data);
+        }
+        return new MockResponse().setResponseCode(200).setBody(body.toString());
+    }
+
+    private static JsonObject user(String username) {
+        JsonObject user = new JsonObject();
+        user.addProperty("username", username);
+        user.addProperty("nickname", "昵称" + username);
+        user.addProperty("email", username + "@example.com");
+        user.addProperty("avatarUrl", AVATAR_BASE + username + ".jpg");
+        return user;
+    }
+
+    private static String nickname(int i) {
+        return "好友" + TEXT.charAt(i % TEXT.length()) + i;
+    }
+
+    private static String text(int i) {
+        int start = (i * 7) % (TEXT.length() - 8);
+        return TEXT.substring(start, start + 4 + i % 5);
+    }
+
+    private static String timestamp(int i) {
+        return String.format(java.util.Locale.US, "2024-05-01T%02d:%02d:%02d.000+08:00",
+            (i / 3600) % 24, (i / 60) % 60, i % 60);
+    }
+
+    private static String endpointOf(String path) {
+        String rest = path.startsWith(BASE_PATH + "/") ? path.substring(BASE_PATH.length() + 1) : path;
+        int end = rest.length();
+        for (char c : new char[] {'/', '?'}) {
+            int index = rest.indexOf(c);
+            if (index >= 0 && index < end) {
+                end = index;
+            }
+        }
+        return rest.substring(0, end);
+    }
+}
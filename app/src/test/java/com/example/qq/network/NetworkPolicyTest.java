@@ -0,0 +1,127 @@
+package com.example.qq.network;
+
+import android.os.Looper;
+
+import com.example.qq.metrics.Metrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * 网络档位划分和计费网络下推迟预取
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class NetworkPolicyTest {
+    private static final ConnectivityMonitor.Snapshot WIFI = new ConnectivityMonitor.Snapshot(
+        true, ConnectivityMonitor.Transport.WIFI, false, true, 50000, 20000);
+    private static final ConnectivityMonitor.Snapshot LTE = new ConnectivityMonitor.Snapshot(
+        true, ConnectivityMonitor.Transport.CELLULAR, true, true, 20000, 5000);
+    private static final ConnectivityMonitor.Snapshot EDGE = new ConnectivityMonitor.Snapshot(
+        true, ConnectivityMonitor.Transport.CELLULAR, true, true, 200, 50);
+
+    private NetworkPolicy policy;
+
+    @Before
+    public void setUp() {
+        policy = NetworkPolicy.getInstance();
+        setNetwork(ConnectivityMonitor.Snapshot.OFFLINE);
+        Metrics.getInstance().reset();
+    }
+
+    @After
+    public void tearDown() {
+        policy.cancelDeferred("test");
+        setNetwork(ConnectivityMonitor.Snapshot.UNKNOWN);
+    }
+
+    @Test
+    public void classifiesByMeteredAndBandwidth() {
+        assertEquals(NetworkPolicy.NetworkClass.OFFLINE, NetworkPolicy.classify(ConnectivityMonitor.Snapshot.OFFLINE));
+        assertEquals(NetworkPolicy.NetworkClass.UNMETERED, NetworkPolicy.classify(WIFI));
+        assertEquals(NetworkPolicy.NetworkClass.METERED, NetworkPolicy.classify(LTE));
+        assertEquals(NetworkPolicy.NetworkClass.CONSTRAINED, NetworkPolicy.classify(EDGE));
+        // 带宽未知的计费网络不降到受限档
+        assertEquals(NetworkPolicy.NetworkClass.METERED, NetworkPolicy.classify(ConnectivityMonitor.Snapshot.UNKNOWN));
+    }
+
+    @Test
+    public void profileShrinksOnSlowerClasses() {
+        setNetwork(WIFI);
+        NetworkPolicy.Profile wifi = policy.profile();
+        setNetwork(LTE);
+        NetworkPolicy.Profile lte = policy.profile();
+        setNetwork(EDGE);
+        NetworkPolicy.Profile edge = policy.profile();
+
+        assertTrue(wifi.avatarMaxPx > lte.avatarMaxPx && lte.avatarMaxPx > edge.avatarMaxPx);
+        assertTrue(wifi.prefetchDepth > 0);
+        assertEquals(0, lte.prefetchDepth);
+        assertEquals(0, wifi.historyRefreshMs);
+        assertTrue(edge.historyRefreshMs > lte.historyRefreshMs);
+        assertTrue(edge.uploadByteBudget < lte.uploadByteBudget && lte.uploadByteBudget < wifi.uploadByteBudget);
+    }
+
+    @Test
+    public void prefetchRunsImmediatelyOnUnmeteredNetwork() {
+        setNetwork(WIFI);
+        AtomicInteger runs = new AtomicInteger();
+
+        policy.runWhenUnmetered("test", runs::incrementAndGet);
+
+        assertEquals(1, runs.get());
+        assertEquals(0, Metrics.getInstance().counter("policy.prefetch_deferred").get());
+    }
+
+    @Test
+    public void prefetchIsDeferredUntilUnmeteredAndKeepsLatestTask() {
+        setNetwork(LTE);
+        AtomicInteger first = new AtomicInteger();
+        AtomicInteger second = new AtomicInteger();
+
+        policy.runWhenUnmetered("test", first::incrementAndGet);
+        policy.runWhenUnmetered("test", second::incrementAndGet);
+        setNetwork(EDGE);
+        assertEquals(0, first.get() + second.get());
+
+        setNetwork(WIFI);
+        assertEquals(0, first.get());
+        assertEquals(1, second.get());
+        assertEquals(2, Metrics.getInstance().counter("policy.prefetch_deferred").get());
+
+        // 已执行的任务不会在下次切换时重复执行
+        setNetwork(LTE);
+        setNetwork(WIFI);
+        assertEquals(1, second.get());
+    }
+
+    @Test
+    public void cancelledPrefetchDoesNotRun() {
+        setNetwork(LTE);
+        AtomicInteger runs = new AtomicInteger();
+
+        policy.runWhenUnmetered("test", runs::incrementAndGet);
+        policy.cancelDeferred("test");
+        setNetwork(WIFI);
+
+        assertEquals(0, runs.get());
+    }
+
+    /**
+     * 更新网络快照并执行主线程上排队的通知
+     */
+    private static void setNetwork(ConnectivityMonitor.Snapshot snapshot) {
+        ConnectivityMonitor.getInstance().update(snapshot);
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+}
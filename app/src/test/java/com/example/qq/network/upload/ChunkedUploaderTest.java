@@ -0,0 +1,173 @@
+package com.example.qq.network.upload;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * ChunkedUploader 在断线、校验失败和进程重启下的续传行为
+ */
+public class ChunkedUploaderTest {
+    private static final int CHUNK_SIZE = 1024;
+    /** 10个整片加1个不满的尾片 */
+    private static final int FILE_SIZE = CHUNK_SIZE * 10 + 300;
+    private static final int CHUNK_COUNT = 11;
+    private static final String KEY = "msg-1";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private MockWebServer server;
+    private FakeChunkedUploadServer backend;
+    private OkHttpClient client;
+    private File journalDir;
+    private byte[] content;
+    private UploadSource source;
+
+    @Before
+    public void setUp() throws IOException {
+        backend = new FakeChunkedUploadServer();
+        server = new MockWebServer();
+        server.setDispatcher(backend);
+        server.start();
+        // 关闭OkHttp自身的重试，断线完全由上传器处理
+        client = new OkHttpClient.Builder()
+            .retryOnConnectionFailure(false)
+            .readTimeout(5, TimeUnit.SECONDS)
+            .build();
+        journalDir = temp.newFolder("journal");
+
+        content = new byte[FILE_SIZE];
+        new Random(42).nextBytes(content);
+        File file = temp.newFile("video.bin");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content);
+        }
+        source = UploadSource.of(file);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        source.close();
+        server.shutdown();
+    }
+
+    @Test
+    public void uploadsAllChunksInParallel() throws IOException {
+        ChunkedUploader.Result result = uploader(new ChunkedUploader.Config()
+            .chunkSize(CHUNK_SIZE).parallelism(3)).upload(KEY, source, "video.bin", "video/mp4", null);
+
+        assertEquals(CHUNK_COUNT, result.chunksSent);
+        assertEquals(0, result.chunksSkipped);
+        assertEquals(FILE_SIZE, result.bytesSent);
+        assertNotNull(result.url);
+        assertArrayEquals(content, backend.assembled(result.uploadId));
+        assertNull("完成后应删除上传日志", new UploadJournal(journalDir).load(KEY));
+    }
+
+    @Test
+    public void retriesDisconnectsAndChecksumFailures() throws IOException {
+        backend.dropNextBeforeStore(2);
+        backend.dropNextAfterStore(2);
+        backend.corruptNext(1);
+
+        ChunkedUploader.Result result = uploader(new ChunkedUploader.Config()
+            .chunkSize(CHUNK_SIZE).parallelism(2)).upload(KEY, source, "video.bin", "video/mp4", null);
+
+        assertEquals(5, result.retries);
+        assertEquals(CHUNK_COUNT, result.chunksSent);
+        assertArrayEquals(content, backend.assembled(result.uploadId));
+    }
+
+    @Test
+    public void resumesFromJournalAfterProcessDeath() throws IOException {
+        backend.goDownAfterAccepting(4);
+        try {
+            uploader(new ChunkedUploader.Config().chunkSize(CHUNK_SIZE).parallelism(1).maxAttempts(2))
+                .upload(KEY, source, "video.bin", "video/mp4", null);
+            fail("服务器断线后应放弃上传");
+        } catch (IOException expected) {
+            // 模拟进程在此被杀，只留下上传日志
+        }
+        assertNotNull(new UploadJournal(journalDir).load(KEY));
+        backend.recover();
+        int requestsBefore = backend.chunkRequests.get();
+
+        long[] lastProgress = new long[1];
+        ChunkedUploader.Result result = uploader(new ChunkedUploader.Config().chunkSize(CHUNK_SIZE))
+            .upload(KEY, source, "video.bin", "video/mp4", (confirmed, total) -> lastProgress[0] = confirmed);
+
+        assertEquals(4, result.chunksSkipped);
+        assertEquals(CHUNK_COUNT - 4, result.chunksSent);
+        assertEquals(CHUNK_COUNT - 4, backend.chunkRequests.get() - requestsBefore);
+        assertEquals("续传应沿用原会话", 1, backend.sessionCount());
+        assertEquals(FILE_SIZE, lastProgress[0]);
+        assertArrayEquals(content, backend.assembled(result.uploadId));
+    }
+
+    @Test
+    public void resendsChunksTheServerLost() throws IOException {
+        backend.goDownAfterAccepting(4);
+        try {
+            uploader(new ChunkedUploader.Config().chunkSize(CHUNK_SIZE).parallelism(1).maxAttempts(1))
+                .upload(KEY, source, "video.bin", "video/mp4", null);
+            fail("服务器断线后应放弃上传");
+        } catch (IOException expected) {
+            // 日志中记录了4个已确认的分片
+        }
+        backend.recover();
+        backend.forgetChunk(backend.onlyUploadId(), 1);
+
+        ChunkedUploader.Result result = uploader(new ChunkedUploader.Config().chunkSize(CHUNK_SIZE))
+            .upload(KEY, source, "video.bin", "video/mp4", null);
+
+        assertEquals("以服务器的分片记录为准", 3, result.chunksSkipped);
+        assertEquals(CHUNK_COUNT - 3, result.chunksSent);
+        assertArrayEquals(content, backend.assembled(result.uploadId));
+    }
+
+    @Test
+    public void restartsWhenChunkSizeChanged() throws IOException {
+        backend.goDownAfterAccepting(2);
+        try {
+            uploader(new ChunkedUploader.Config().chunkSize(CHUNK_SIZE).parallelism(1).maxAttempts(1))
+                .upload(KEY, source, "video.bin", "video/mp4", null);
+            fail("服务器断线后应放弃上传");
+        } catch (IOException expected) {
+            // 留下按1KB分片的日志
+        }
+        backend.recover();
+
+        ChunkedUploader.Result result = uploader(new ChunkedUploader.Config().chunkSize(CHUNK_SIZE * 2))
+            .upload(KEY, source, "video.bin", "video/mp4", null);
+
+        assertEquals(0, result.chunksSkipped);
+        assertEquals(2, backend.sessionCount());
+        assertTrue(result.chunksSent > 0);
+        assertArrayEquals(content, backend.assembled(result.uploadId));
+    }
+
+    private ChunkedUploader uploader(ChunkedUploader.Config config) {
+        String baseUrl = server.url("/").toString();
+        return new ChunkedUploader(client, baseUrl.substring(0, baseUrl.length() - 1), "token",
+            journalDir, config.backoff(0, 0));
+    }
+}
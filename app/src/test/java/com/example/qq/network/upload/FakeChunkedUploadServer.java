@@ -0,0 +1,208 @@
+package com.example.qq.network.upload;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+/**
+ * 分片上传协议的本地替身服务器，配合 MockWebServer 使用
+ * 保存每个会话收到的分片，并可注入断线、校验失败和丢片
+ */
+class FakeChunkedUploadServer extends Dispatcher {
+    private static final Pattern CHUNK = Pattern.compile("/upload/chunked/([^/]+)/(\\d+)");
+    private static final Pattern STATUS = Pattern.compile("/upload/chunked/([^/]+)");
+    private static final Pattern COMPLETE = Pattern.compile("/upload/chunked/([^/]+)/complete");
+
+    static final class Session {
+        final long size;
+        final int chunkSize;
+        final Map<Integer, byte[]> chunks = new TreeMap<>();
+
+        Session(long size, int chunkSize) {
+            this.size = size;
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    private final Map<String, Session> sessions = new HashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    final AtomicInteger chunkRequests = new AtomicInteger();
+
+    /** 接下来N个分片请求在保存前断线 */
+    private int dropBeforeStore;
+    /** 接下来N个分片请求保存后断线（客户端收不到确认） */
+    private int dropAfterStore;
+    /** 接下来N个分片请求按校验失败处理 */
+    private int corrupt;
+    /** 已接收分片数达到该值后，所有分片请求都断线；-1 表示不限制 */
+    private int acceptLimit = -1;
+    private int accepted;
+
+    synchronized void dropNextBeforeStore(int count) {
+        dropBeforeStore = count;
+    }
+
+    synchronized void dropNextAfterStore(int count) {
+        dropAfterStore = count;
+    }
+
+    synchronized void corruptNext(int count) {
+        corrupt = count;
+    }
+
+    synchronized void goDownAfterAccepting(int chunks) {
+        acceptLimit = accepted + chunks;
+    }
+
+    synchronized void recover() {
+        acceptLimit = -1;
+    }
+
+    /**
+     * 模拟服务器丢失已收到的分片
+     */
+    synchronized void forgetChunk(String uploadId, int index) {
+        sessions.get(uploadId).chunks.remove(index);
+    }
+
+    synchronized String onlyUploadId() {
+        return sessions.keySet().iterator().next();
+    }
+
+    synchronized int sessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * 按顺序拼接已收到的分片
+     */
+    synchronized byte[] assembled(String uploadId) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] chunk : sessions.get(uploadId).chunks.values()) {
+            out.write(chunk, 0, chunk.length);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public synchronized MockResponse dispatch(RecordedRequest request) {
+        String path = request.getPath();
+        String method = request.getMethod();
+        if ("POST".equals(method) && path.equals("/upload/chunked/init")) {
+            return init(request);
+        }
+        Matcher matcher;
+        if ("POST".equals(method) && (matcher = COMPLETE.matcher(path)).matches()) {
+            return complete(matcher.group(1));
+        }
+        if ("PUT".equals(method) && (matcher = CHUNK.matcher(path)).matches()) {
+            return chunk(matcher.group(1), Integer.parseInt(matcher.group(2)), request);
+        }
+        if ("GET".equals(method) && (matcher = STATUS.matcher(path)).matches()) {
+            return status(matcher.group(1));
+        }
+        return new MockResponse().setResponseCode(404);
+    }
+
+    private MockResponse init(RecordedRequest request) {
+        String body = request.getBody().readUtf8();
+        long size = Long.parseLong(field(body, "size"));
+        int chunkSize = Integer.parseInt(field(body, "chunkSize"));
+        String id = "u" + nextId.incrementAndGet();
+        sessions.put(id, new Session(size, chunkSize));
+        return ok("{\"uploadId\":\"" + id + "\"}");
+    }
+
+    private MockResponse status(String id) {
+        Session session = sessions.get(id);
+        if (session == null) {
+            return new MockResponse().setResponseCode(404);
+        }
+        StringBuilder received = new StringBuilder();
+        for (int index : session.chunks.keySet()) {
+            if (received.length() > 0) {
+                received.append(',');
+            }
+            received.append(index);
+        }
+        return ok("{\"receivedChunks\":[" + received + "]}");
+    }
+
+    private MockResponse chunk(String id, int index, RecordedRequest request) {
+        chunkRequests.incrementAndGet();
+        Session session = sessions.get(id);
+        if (session == null) {
+            return new MockResponse().setResponseCode(404);
+        }
+        if (acceptLimit >= 0 && accepted >= acceptLimit) {
+            return disconnect();
+        }
+        if (dropBeforeStore > 0) {
+            dropBeforeStore--;
+            return disconnect();
+        }
+        byte[] data = request.getBody().readByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        boolean mismatch = !Long.toHexString(crc.getValue()).equals(request.getHeader("X-Chunk-CRC32"));
+        if (corrupt > 0) {
+            corrupt--;
+            mismatch = true;
+        }
+        if (mismatch) {
+            return new MockResponse().setResponseCode(409);
+        }
+        long expected = Math.min(session.chunkSize, session.size - (long) index * session.chunkSize);
+        if (data.length != expected) {
+            return new MockResponse().setResponseCode(400);
+        }
+        session.chunks.put(index, data);
+        accepted++;
+        if (dropAfterStore > 0) {
+            dropAfterStore--;
+            return disconnect();
+        }
+        return ok("{}");
+    }
+
+    private MockResponse complete(String id) {
+        Session session = sessions.get(id);
+        if (session == null) {
+            return new MockResponse().setResponseCode(404);
+        }
+        long received = 0;
+        for (byte[] chunk : session.chunks.values()) {
+            received += chunk.length;
+        }
+        if (received != session.size) {
+            return new MockResponse().setResponseCode(400);
+        }
+        return ok("{\"url\":\"https://files.example/" + id + "\"}");
+    }
+
+    private static MockResponse disconnect() {
+        return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+    }
+
+    private static MockResponse ok(String data) {
+        return new MockResponse().setBody("{\"code\":200,\"data\":" + data + "}");
+    }
+
+    private static String field(String json, String name) {
+        Matcher matcher = Pattern.compile("\"" + name + "\":(\\d+)").matcher(json);
+        if (!matcher.find()) {
+            throw new IllegalArgumentException("missing " + name + " in " + json);
+        }
+        return matcher.group(1);
+    }
+}
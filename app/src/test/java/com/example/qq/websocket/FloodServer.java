@@ -0,0 +1,138 @@
+package com.example.qq.websocket;
+
+import com.example.qq.constant.MessageType;
+import com.example.qq.metrics.Metrics;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 进程内 WebSocket 压测服务器
+ * 使用应用的 system/user/targetname/message 协议向唯一的客户端回放流量，记录每帧的发送时间；
+ * 客户端对 ONLINE_CHECK 的 "online" 应答按顺序与发出的检测配对，记录往返耗时到 flood.ping_rtt
+ */
+final class FloodServer extends WebSocketServer {
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch connected = new CountDownLatch(1);
+    private final Queue<Long> pendingPings = new ConcurrentLinkedQueue<>();
+    private volatile WebSocket client;
+    private volatile String authorization;
+    /** 帧序号 -> 发送时间，由回放线程写入、测试线程读取 */
+    private volatile AtomicLongArray sentNanos = new AtomicLongArray(0);
+
+    FloodServer() {
+        super(new InetSocketAddress("127.0.0.1", 0));
+        setReuseAddr(true);
+    }
+
+    /**
+     * 启动并等待端口绑定完成
+     */
+    void startAndAwait() throws InterruptedException {
+        start();
+        if (!started.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("server did not start");
+        }
+    }
+
+    String url() {
+        return "ws://127.0.0.1:" + getPort();
+    }
+
+    /**
+     * 等待客户端完成握手
+     * @return 客户端携带的 Authorization 头
+     */
+    String awaitClient(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!connected.await(timeout, unit)) {
+            throw new IllegalStateException("client did not connect within " + timeout + " " + unit);
+        }
+        return authorization;
+    }
+
+    /**
+     * 在后台线程回放帧
+     * @param framesPerSecond 发送速率，0 表示不限速
+     */
+    Thread replay(List<TrafficMix.Frame> frames, int framesPerSecond) {
+        sentNanos = new AtomicLongArray(frames.size());
+        Thread thread = new Thread(() -> {
+            long interval = framesPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / framesPerSecond : 0;
+            long next = System.nanoTime();
+            for (TrafficMix.Frame frame : frames) {
+                if (interval > 0) {
+                    long wait = next - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    next += interval;
+                }
+                long now = System.nanoTime();
+                sentNanos.set(frame.seq, now);
+                if (frame.type == MessageType.ONLINE_CHECK.getValue()) {
+                    pendingPings.add(now);
+                }
+                client.send(frame.json);
+            }
+        }, "flood-replay");
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * 帧的发送时间
+     * @return 发送时间，尚未发送时返回0
+     */
+    long sentNanos(int seq) {
+        AtomicLongArray sent = sentNanos;
+        return seq >= 0 && seq < sent.length() ? sent.get(seq) : 0;
+    }
+
+    @Override
+    public void onOpen(WebSocket conn, ClientHandshake handshake) {
+        authorization = handshake.getFieldValue("Authorization");
+        client = conn;
+        connected.countDown();
+    }
+
+    @Override
+    public void onMessage(WebSocket conn, String message) {
+        try {
+            JSONObject json = new JSONObject(message);
+            if (json.optInt("system") == MessageType.ONLINE_CHECK.getValue()
+                    && "online".equals(json.optString("message"))) {
+                Long sent = pendingPings.poll();
+                if (sent != null) {
+                    Metrics.getInstance().histogram("flood.ping_rtt").recordSince(sent);
+                }
+            }
+        } catch (JSONException e) {
+            // 客户端只会发送 JSON，忽略其他内容
+        }
+    }
+
+    @Override
+    public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+    }
+
+    @Override
+    public void onError(WebSocket conn, Exception ex) {
+    }
+
+    @Override
+    public void onStart() {
+        started.countDown();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.qq.websocket;
+
+import com.example.qq.constant.MessageType;
+import com.example.qq.domain.WebSocketMessage;
+import com.example.qq.utils.GsonProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 压测流量配比
+ * 按权重随机选择帧类型，聊天消息以连发形式出现（同一好友连续发送 burstSize 条）；
+ * 每帧消息正文以 "#序号" 结尾，客户端处理完成后据此找回发送时间
+ */
+final class TrafficMix {
+    /** 聊天消息发送者数量 */
+    private static final int SENDERS = 10;
+
+    static final class Frame {
+        final int seq;
+        final int type;
+        final String json;
+
+        Frame(int seq, int type, String json) {
+            this.seq = seq;
+            this.type = type;
+            this.json = json;
+        }
+    }
+
+    int chatWeight = 1;
+    int friendRequestWeight;
+    int onlineCheckWeight;
+    int forceOfflineWeight;
+    int burstSize = 1;
+    long seed = 42;
+
+    TrafficMix chat(int weight, int burstSize) {
+        this.chatWeight = Math.max(0, weight);
+        this.burstSize = Math.max(1, burstSize);
+        return this;
+    }
+
+    TrafficMix friendRequests(int weight) {
+        this.friendRequestWeight = Math.max(0, weight);
+        return this;
+    }
+
+    TrafficMix onlineChecks(int weight) {
+        this.onlineCheckWeight = Math.max(0, weight);
+        return this;
+    }
+
+    TrafficMix forceOffline(int weight) {
+        this.forceOfflineWeight = Math.max(0, weight);
+        return this;
+    }
+
+    TrafficMix seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * 生成发给 receiver 的 count 帧
+     */
+    List<Frame> frames(String receiver, int count) {
+        int total = chatWeight + friendRequestWeight + onlineCheckWeight + forceOfflineWeight;
+        if (total == 0) {
+            throw new IllegalStateException("traffic mix is empty");
+        }
+        Random random = new Random(seed);
+        List<Frame> frames = new ArrayList<>(count);
+        while (frames.size() < count) {
+            int pick = random.nextInt(total);
+            if ((pick -= chatWeight) < 0) {
+                String sender = "friend" + random.nextInt(SENDERS);
+                for (int i = 0; i < burstSize && frames.size() < count; i++) {
+                    frames.add(frame(frames.size(), MessageType.CHAT, sender, receiver, "在吗？晚上一起吃饭"));
+                }
+            } else if ((pick -= friendRequestWeight) < 0) {
+                // 系统提示类好友请求只在主线程提示，不查询用户信息，压测不依赖REST服务
+                frames.add(frame(frames.size(), MessageType.FRIEND_REQUEST, "system", receiver, "好友请求已发送"));
+            } else if ((pick -= onlineCheckWeight) < 0) {
+                frames.add(frame(frames.size(), MessageType.ONLINE_CHECK, "server", receiver, "ping"));
+            } else {
+                frames.add(frame(frames.size(), MessageType.FORCE_OFFLINE, "server", receiver, "offline"));
+            }
+        }
+        return frames;
+    }
+
+    private static Frame frame(int seq, MessageType type, String user, String target, String text) {
+        WebSocketMessage message = new WebSocketMessage(type, user, target, text + " #" + seq);
+        message.setClientId("flood-" + seq);
+        return new Frame(seq, type.getValue(), GsonProvider.get().toJson(message));
+    }
+
+    /**
+     * 从消息正文末尾取出帧序号
+     * @return 序号，没有序号时返回-1
+     */
+    static int seqOf(String text) {
+        int index = text != null ? text.lastIndexOf('#') : -1;
+        if (index < 0) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(text.substring(index + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.qq.websocket;
+
+import android.Manifest;
+import android.app.Application;
+import android.content.Context;
+import android.os.Looper;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.qq.constant.MessageType;
+import com.example.qq.domain.User;
+import com.example.qq.domain.WebSocketMessage;
+import com.example.qq.handler.impl.MessageHandlerImpl;
+import com.example.qq.metrics.LatencyHistogram;
+import com.example.qq.metrics.Metrics;
+import com.example.qq.service.NotificationService;
+import com.example.qq.utils.SharedPreferencesManager;
+import com.example.qq.websocket.impl.WebSocketServiceImpl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * 接收链路端到端压测：本地 WebSocket 服务器 -> WebSocketServiceImpl -> 解析 -> MessageProcessor
+ * -> 本地存储 -> 通知
+ * 按流量配比回放后统计吞吐量、每帧端到端延迟分位数和总分配量并输出到标准输出，
+ * 结果与 Metrics 中 ws.* / processor.* / storage.* 的分阶段耗时一起对比，定位接收链路的退化
+ *
+ * 端到端延迟从服务器发出到：聊天消息回调聊天页监听者，其他类型 MessageProcessor 处理完成。
+ * Robolectric 的主线程由测试线程轮询驱动，延迟包含约几十微秒的轮询间隔
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class WebSocketFloodTest {
+    private static final String ME = "flood-me";
+    private static final String TOKEN = "flood-token";
+    private static final long TIMEOUT_SECONDS = 60;
+
+    private Context context;
+    private FloodServer server;
+    private MessageHandlerImpl handler;
+    private int completed;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        context = ApplicationProvider.getApplicationContext();
+        // 授予通知权限，聊天消息走完整的通知聚合
+        shadowOf((Application) context).grantPermissions(Manifest.permission.POST_NOTIFICATIONS);
+        SharedPreferencesManager.init(context);
+        SharedPreferencesManager prefs = SharedPreferencesManager.getInstance();
+        User me = new User();
+        me.setUserName(ME);
+        prefs.saveUserInfo(me);
+        prefs.saveToken(TOKEN);
+
+        server = new FloodServer();
+        server.startAndAwait();
+        WebSocketServiceImpl.setServerUrl(server.url());
+        Metrics.getInstance().reset();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (handler != null) {
+            handler.destroy();
+        }
+        WebSocketServiceImpl.getInstance().disconnect();
+        WebSocketServiceImpl.setServerUrl(null);
+        server.stop(1000);
+    }
+
+    @Test
+    public void chatBurstsUnthrottled() throws InterruptedException {
+        run("chat-bursts", new TrafficMix().chat(1, 50), 2000, 0);
+    }
+
+    @Test
+    public void mixedTraffic() throws InterruptedException {
+        run("mixed", new TrafficMix()
+            .chat(6, 5)
+            .friendRequests(1)
+            .onlineChecks(2)
+            .forceOffline(1), 2000, 0);
+    }
+
+    @Test
+    public void steadyChatAt200PerSecond() throws InterruptedException {
+        run("chat-200/s", new TrafficMix().chat(1, 1), 400, 200);
+    }
+
+    /**
+     * 回放流量直到所有帧处理完成，输出报告
+     */
+    private void run(String name, TrafficMix mix, int count, int framesPerSecond) throws InterruptedException {
+        List<TrafficMix.Frame> frames = mix.frames(ME, count);
+        int pings = 0;
+        for (TrafficMix.Frame frame : frames) {
+            if (frame.type == MessageType.ONLINE_CHECK.getValue()) {
+                pings++;
+            }
+        }
+
+        handler = new MessageHandlerImpl(context, NotificationService.getInstance()) {
+            @Override
+            public void handleReceivedMessage(WebSocketMessage message) {
+                super.handleReceivedMessage(message);
+                // 聊天消息在下一次主线程任务中回调监听者时才算完成
+                if (message.getSystemType() != MessageType.CHAT.getValue()) {
+                    complete(message.getSystemType(), message.getMessage());
+                }
+            }
+        };
+        handler.setOnMessageReceivedListener((sender, content) ->
+            complete(MessageType.CHAT.getValue(), content));
+        assertEquals(TOKEN, server.awaitClient(10, TimeUnit.SECONDS));
+        // 连接建立后的状态回调和上线通知不计入测量
+        shadowOf(Looper.getMainLooper()).idle();
+        Metrics.getInstance().reset();
+
+        completed = 0;
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        Thread replay = server.replay(frames, framesPerSecond);
+        long deadline = start + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (completed < count && System.nanoTime() < deadline) {
+            shadowOf(Looper.getMainLooper()).idle();
+            LockSupport.parkNanos(20_000);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+        replay.join();
+
+        report(name, count, elapsed, allocated);
+        assertEquals("帧未全部处理", count, completed);
+        assertEquals("在线检测应答数", pings, Metrics.getInstance().histogram("flood.ping_rtt").snapshot().count);
+    }
+
+    private void complete(int type, String text) {
+        int seq = TrafficMix.seqOf(text);
+        long sent = server.sentNanos(seq);
+        if (sent == 0) {
+            return;
+        }
+        Metrics metrics = Metrics.getInstance();
+        metrics.histogram("flood.e2e").recordSince(sent);
+        metrics.histogram("flood.e2e.type_" + type).recordSince(sent);
+        completed++;
+    }
+
+    private static void report(String name, int count, long elapsedNanos, long allocatedBytes) {
+        double seconds = elapsedNanos / 1e9;
+        LatencyHistogram.Snapshot e2e = Metrics.getInstance().histogram("flood.e2e").snapshot();
+        System.out.printf("[flood %s] %d frames in %.1f ms, %.0f msg/s, p50 %.2f ms, p95 %.2f ms, p99 %.2f ms, "
+                + "alloc %.1f KB/msg%n",
+            name, count, elapsedNanos / 1e6, count / seconds,
+            e2e.p50Micros / 1000.0, e2e.p95Micros / 1000.0, e2e.p99Micros / 1000.0,
+            allocatedBytes / 1024.0 / count);
+        for (String line : Metrics.getInstance().report()) {
+            if (!line.startsWith("executor.")) {
+                System.out.println("  " + line);
+            }
+        }
+    }
+
+    /**
+     * 所有存活线程累计分配的字节数（HotSpot 扩展），退出的线程不再计入
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+        long total = 0;
+        for (long bytes : ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(bean.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+}
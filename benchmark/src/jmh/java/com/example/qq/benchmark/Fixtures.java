@@ -0,0 +1,107 @@
+package com.example.qq.benchmark;
+
+import com.example.qq.domain.ChatMessage;
+import com.example.qq.domain.FriendList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * 基准测试数据
+ * 固定随机种子生成与线上接近的好友和消息，各基准之间数据一致，结果可跨版本比较
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+final class Fixtures {
+    static final long BASE_TIME = 1_700_000_000_000L;
+    private static final String NAME_CHARS = "张王李赵刘陈杨黄周吴徐孙马朱胡郭何林罗高郑梁谢宋唐许韩冯邓曹彭曾萧田董潘袁蔡蒋余于杜叶程魏苏吕丁任沈姚卢姜崔钟谭陆汪范金石廖贾夏韦付方白邹孟熊秦邱江尹薛闫段雷侯龙史陶黎贺顾毛郝龚邵万钱严覃武戴莫孔向汤小明华芳伟丽强静敏燕艳娟霞秀英杰涛";
+    private static final String TEXT = "今晚一起吃饭吗七点在老地方见好的没问题收到马上到周末去爬山记得带伞";
+
+    private Fixtures() {
+    }
+
+    /** 好友列表，约一半昵称为汉字，其余为字母 */
+    static List<FriendList> friends(int count) {
+        Random random = new Random(42);
+        List<FriendList> friends = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String nickname = i % 2 == 0 ? chineseName(random) : "user" + random.nextInt(100_000);
+            friends.add(new FriendList("u" + i, nickname, "https://web.yxdfirst.top/avatar/u" + i + ".jpg",
+                text(random), "2024-05-0" + (1 + i % 9) + "T08:30:00.000+08:00"));
+        }
+        return friends;
+    }
+
+    /** 两人之间交替发送、时间递增的消息 */
+    static List<ChatMessage> messages(int count) {
+        Random random = new Random(7);
+        List<ChatMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ChatMessage message = new ChatMessage(i % 2 == 0 ? "alice" : "bob", i % 2 == 0 ? "bob" : "alice",
+                text(random), BASE_TIME + i * 1000L);
+            message.setClientId("c-" + (BASE_TIME + i) + "-" + i);
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    /** /getuserandmessage 响应 */
+    static String friendListPayload(int count) {
+        StringBuilder sb = new StringBuilder("{\"code\":200,\"msg\":\"success\",\"data\":[");
+        List<FriendList> friends = friends(count);
+        for (int i = 0; i < friends.size(); i++) {
+            FriendList friend = friends.get(i);
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"username\":\"").append(friend.getFriendUsername())
+                .append("\",\"nickname\":\"").append(friend.getFriendNickName())
+                .append("\",\"avatarUrl\":\"").append(friend.getAvatarUrl())
+                .append("\",\"content\":\"").append(friend.getLastContext())
+                .append("\",\"timestamp\":\"").append(friend.getLastContextTime()).append("\"}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    /** /getmessage 响应，双方发送的消息分为两组 */
+    static String messageListPayload(int count) {
+        StringBuilder sent = new StringBuilder();
+        StringBuilder received = new StringBuilder();
+        List<ChatMessage> messages = messages(count);
+        for (int i = 0; i < messages.size(); i++) {
+            ChatMessage message = messages.get(i);
+            StringBuilder sb = i % 2 == 0 ? sent : received;
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"sender\":\"").append(message.getSender())
+                .append("\",\"receiver\":\"").append(message.getReceiver())
+                .append("\",\"content\":\"").append(message.getContent())
+                .append("\",\"timestamp\":\"").append(serverTimestamp(i)).append("\"}");
+        }
+        return "{\"code\":200,\"msg\":\"success\",\"data\":{\"messages\":{\"sent\":[" + sent
+            + "],\"received\":[" + received + "]}}}";
+    }
+
+    /** 服务器格式的时间戳，第 i 秒 */
+    static String serverTimestamp(int i) {
+        return String.format(Locale.US, "2024-05-01T%02d:%02d:%02d.000+08:00", (i / 3600) % 24, (i / 60) % 60, i % 60);
+    }
+
+    private static String chineseName(Random random) {
+        int length = 2 + random.nextInt(2);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(NAME_CHARS.charAt(random.nextInt(NAME_CHARS.length())));
+        }
+        return sb.toString();
+    }
+
+    private static String text(Random random) {
+        int start = random.nextInt(TEXT.length() - 8);
+        return TEXT.substring(start, start + 4 + random.nextInt(5));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.qq.benchmark;
+
+import com.example.qq.constant.MessageType;
+import com.example.qq.domain.ChatMessage;
+import com.example.qq.domain.WebSocketMessage;
+import com.example.qq.utils.GsonProvider;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 反射 Gson 与注册了生成 TypeAdapter 的共享 Gson 的编解码对比
+ * 覆盖 WebSocket 推送的单条消息和聊天记录缓存的消息列表，
+ * 配合 gc 分析器比较吞吐量和每次操作的分配字节数
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class GsonBenchmark {
+    private static final Type CHAT_MESSAGE_LIST_TYPE = new TypeToken<List<ChatMessage>>() {}.getType();
+
+    /** reflective：new Gson()；generated：GsonProvider.get() */
+    @Param({"reflective", "generated"})
+    public String mode;
+
+    /** 聊天记录条数 */
+    @Param({"50"})
+    public int historySize;
+
+    private Gson gson;
+    private WebSocketMessage message;
+    private String messageJson;
+    private List<ChatMessage> history;
+    private String historyJson;
+
+    @Setup
+    public void setUp() {
+        gson = "generated".equals(mode) ? GsonProvider.get() : new Gson();
+        message = new WebSocketMessage(MessageType.CHAT, "alice", "bob", "今晚一起吃饭吗？7点在老地方见");
+        message.setTimestamp(1_700_000_000_000L);
+        message.setClientId("c-1700000000000-42");
+        messageJson = gson.toJson(message);
+
+        history = new ArrayList<>(historySize);
+        for (int i = 0; i < historySize; i++) {
+            ChatMessage chat = new ChatMessage(i % 2 == 0 ? "alice" : "bob", i % 2 == 0 ? "bob" : "alice",
+                "第" + i + "条消息，内容长度与日常聊天相近", 1_700_000_000_000L + i * 1000L);
+            chat.setStatus(ChatMessage.STATUS_SENT);
+            history.add(chat);
+        }
+        historyJson = gson.toJson(history, CHAT_MESSAGE_LIST_TYPE);
+    }
+
+    @Benchmark
+    public String encodeMessage() {
+        return gson.toJson(message);
+    }
+
+    @Benchmark
+    public WebSocketMessage decodeMessage() {
+        return gson.fromJson(messageJson, WebSocketMessage.class);
+    }
+
+    @Benchmark
+    public String encodeHistory() {
+        return gson.toJson(history, CHAT_MESSAGE_LIST_TYPE);
+    }
+
+    @Benchmark
+    public List<ChatMessage> decodeHistory() {
+        return gson.fromJson(historyJson, CHAT_MESSAGE_LIST_TYPE);
+    }
+}
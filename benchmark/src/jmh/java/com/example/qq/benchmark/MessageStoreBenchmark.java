@@ -0,0 +1,89 @@
+package com.example.qq.benchmark;
+
+import com.example.qq.domain.ChatMessage;
+import com.example.qq.utils.ChatHistory;
+import com.example.qq.utils.GsonProvider;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地消息缓存的插入和查询
+ * 会话缓存在 SharedPreferences 中以一个 JSON 字符串保存，每次插入或更新状态都要
+ * 反序列化整个会话、修改后再序列化（SharedPreferencesManager、ChatActivity.updateLocalCache），
+ * 这里去掉 SharedPreferences 本身，只测量随会话长度增长的这部分
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class MessageStoreBenchmark {
+    private static final Type CHAT_MESSAGE_LIST_TYPE = new TypeToken<List<ChatMessage>>() {}.getType();
+
+    /** 会话中已缓存的消息条数 */
+    @Param({"100", "1000"})
+    public int size;
+
+    private final Gson gson = GsonProvider.get();
+    private String stored;
+    private String lastClientId;
+    private long nextTimestamp;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        List<ChatMessage> messages = Fixtures.messages(size);
+        stored = gson.toJson(messages, CHAT_MESSAGE_LIST_TYPE);
+        lastClientId = messages.get(messages.size() - 1).getClientId();
+        nextTimestamp = Fixtures.BASE_TIME + size * 1000L;
+    }
+
+    /**
+     * 收到一条新消息：读出会话、去重插入、写回；写回的结果不保存，会话长度保持不变
+     */
+    @Benchmark
+    public String insert() {
+        List<ChatMessage> messages = gson.fromJson(stored, CHAT_MESSAGE_LIST_TYPE);
+        ChatHistory.insert(messages, new ChatMessage("bob", "alice", "新消息", nextTimestamp++));
+        return gson.toJson(messages, CHAT_MESSAGE_LIST_TYPE);
+    }
+
+    /**
+     * 发送回执：按客户端消息ID查找最后一条消息并更新状态
+     */
+    @Benchmark
+    public String updateStatus() {
+        List<ChatMessage> messages = gson.fromJson(stored, CHAT_MESSAGE_LIST_TYPE);
+        int index = ChatHistory.indexOfClientId(messages, lastClientId);
+        messages.get(index).setStatus(ChatMessage.STATUS_FAILED);
+        return gson.toJson(messages, CHAT_MESSAGE_LIST_TYPE);
+    }
+
+    /**
+     * 打开聊天界面：读出整个会话
+     */
+    @Benchmark
+    public List<ChatMessage> query() {
+        return gson.fromJson(stored, CHAT_MESSAGE_LIST_TYPE);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.qq.benchmark;
+
+import com.example.qq.domain.ChatMessage;
+import com.example.qq.domain.FriendList;
+import com.example.qq.utils.JsonParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接口响应解析：首页好友列表（/getuserandmessage）和聊天记录（/getmessage）
+ * 与 FriendApiImpl、MessageApiImpl 相同，先转为 Map 再解析为领域对象
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PayloadBenchmark {
+    /** 好友数或消息条数 */
+    @Param({"20", "200"})
+    public int size;
+
+    private String friendListJson;
+    private String messageListJson;
+
+    @Setup
+    public void setUp() {
+        friendListJson = Fixtures.friendListPayload(size);
+        messageListJson = Fixtures.messageListPayload(size);
+    }
+
+    @Benchmark
+    public List<FriendList> decodeFriendList() {
+        return JsonParser.parseFriendList(JsonParser.parseToMap(friendListJson));
+    }
+
+    @Benchmark
+    public List<ChatMessage> decodeMessageList() {
+        return JsonParser.parseMessageList(JsonParser.parseToMap(messageListJson));
+    }
+}
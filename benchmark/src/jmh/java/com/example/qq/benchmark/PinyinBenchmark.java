@@ -0,0 +1,140 @@
+package com.example.qq.benchmark;
+
+import com.example.qq.domain.FriendList;
+import com.example.qq.utils.PinyinUtils;
+
+import net.sourceforge.pinyin4j.PinyinHelper;
+import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
+import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 构建期拼音表（PinyinUtils）与 pinyin4j 的对比
+ * - cold*：新进程中第一次转换一个昵称的耗时，包含类加载和拼音数据初始化，每个 fork 只测一次
+ * - 其余：整个好友列表转换全拼/排序键的吞吐量，对应联系人页排序分组
+ * pinyin4j 的转换方式与替换前 FriendsFragment 中的一致：小写、不带声调、取第一个读音
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PinyinBenchmark {
+    private static final String COLD_NAME = "张伟";
+
+    /**
+     * 吞吐量基准的好友列表，冷启动基准不使用，不随好友数重复运行
+     */
+    @State(Scope.Benchmark)
+    public static class Roster {
+        /** 好友数 */
+        @Param({"200", "2000"})
+        public int size;
+
+        List<FriendList> friends;
+        HanyuPinyinOutputFormat format;
+
+        @Setup
+        public void setUp() {
+            friends = Fixtures.friends(size);
+            format = pinyin4jFormat();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public String coldPinyinUtils() {
+        return PinyinUtils.toSortKey(COLD_NAME);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public String coldPinyin4j() throws BadHanyuPinyinOutputFormatCombination {
+        return pinyin4j(COLD_NAME, pinyin4jFormat(), true);
+    }
+
+    @Benchmark
+    public void toPinyin(Roster roster, Blackhole blackhole) {
+        for (FriendList friend : roster.friends) {
+            blackhole.consume(PinyinUtils.toPinyin(friend.getFriendNickName()));
+        }
+    }
+
+    @Benchmark
+    public void toSortKey(Roster roster, Blackhole blackhole) {
+        for (FriendList friend : roster.friends) {
+            blackhole.consume(PinyinUtils.toSortKey(friend.getFriendNickName()));
+        }
+    }
+
+    @Benchmark
+    public void pinyin4jToPinyin(Roster roster, Blackhole blackhole) throws BadHanyuPinyinOutputFormatCombination {
+        for (FriendList friend : roster.friends) {
+            blackhole.consume(pinyin4j(friend.getFriendNickName(), roster.format, false));
+        }
+    }
+
+    @Benchmark
+    public void pinyin4jToSortKey(Roster roster, Blackhole blackhole) throws BadHanyuPinyinOutputFormatCombination {
+        for (FriendList friend : roster.friends) {
+            blackhole.consume(pinyin4j(friend.getFriendNickName(), roster.format, true));
+        }
+    }
+
+    private static HanyuPinyinOutputFormat pinyin4jFormat() {
+        HanyuPinyinOutputFormat format = new HanyuPinyinOutputFormat();
+        format.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+        format.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+        return format;
+    }
+
+    /**
+     * 用 pinyin4j 实现与 PinyinUtils.toPinyin/toSortKey 相同的输出
+     * @param sortKey 为true时音节后加空格、字母转小写
+     */
+    private static String pinyin4j(String text, HanyuPinyinOutputFormat format, boolean sortKey)
+            throws BadHanyuPinyinOutputFormatCombination {
+        StringBuilder sb = new StringBuilder(text.length() * 5);
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            String[] readings = PinyinHelper.toHanyuPinyinStringArray(c, format);
+            if (readings != null && readings.length > 0) {
+                sb.append(readings[0]);
+                if (sortKey) {
+                    sb.append(' ');
+                }
+            } else {
+                sb.append(sortKey ? Character.toLowerCase(c) : c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.qq.benchmark;
+
+import com.example.qq.domain.FriendList;
+import com.example.qq.utils.RosterSearch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 好友搜索，对应搜索框每次输入
+ * 拼音转换与 pinyin4j 的对比见 {@link PinyinBenchmark}
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class RosterBenchmark {
+    /** 好友数 */
+    @Param({"200", "2000"})
+    public int size;
+
+    /** 搜索关键词：拼音、首字母、汉字和用户名 */
+    @Param({"zhang", "zw", "王", "user1"})
+    public String query;
+
+    private List<FriendList> friends;
+
+    @Setup
+    public void setUp() {
+        friends = Fixtures.friends(size);
+    }
+
+    @Benchmark
+    public List<FriendList> search() {
+        return new RosterSearch(query).filter(friends);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.qq.benchmark;
+
+import com.example.qq.utils.TimeUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 时间戳解析和格式化
+ * 服务器时间戳解析用于每条历史消息，列表时间格式化用于每次绑定会话行和聊天气泡
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TimeBenchmark {
+    private final String serverTimestamp = Fixtures.serverTimestamp(12_345);
+    /** 第一个输入格式即可解析 */
+    private final String isoTimestamp = "2024-05-01T08:30:00.000+08:00";
+    /** 需要尝试第二个输入格式 */
+    private final String plainTimestamp = "2024-05-01 08:30:00";
+
+    @Benchmark
+    public long parseServerTimestamp() {
+        return TimeUtils.parseServerTimestamp(serverTimestamp);
+    }
+
+    @Benchmark
+    public String formatTimeIso() {
+        return TimeUtils.formatTime(isoTimestamp);
+    }
+
+    @Benchmark
+    public String formatTimePlain() {
+        return TimeUtils.formatTime(plainTimestamp);
+    }
+
+    @Benchmark
+    public String formatTimeForChat() {
+        return TimeUtils.formatTimeForChat(isoTimestamp);
+    }
+}
@@ -0,0 +1,48 @@
+package android.util;
+
+/**
+ * JVM 上的 android.util.Log 替身
+ * 基准测试只编译 app 中不依赖 Android 的源码，其中少数类仍用 Log 记录解析失败；
+ * 与 app 单元测试的 returnDefaultValues 一样不输出任何内容，避免日志开销混入测量结果
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+public final class Log {
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+
+    private Log() {
+    }
+
+    public static int v(String tag, String msg) {
+        return 0;
+    }
+
+    public static int d(String tag, String msg) {
+        return 0;
+    }
+
+    public static int i(String tag, String msg) {
+        return 0;
+    }
+
+    public static int w(String tag, String msg) {
+        return 0;
+    }
+
+    public static int w(String tag, String msg, Throwable tr) {
+        return 0;
+    }
+
+    public static int e(String tag, String msg) {
+        return 0;
+    }
+
+    public static int e(String tag, String msg, Throwable tr) {
+        return 0;
+    }
+}
@@ -0,0 +1,151 @@
+import org.gradle.api.DefaultTask
+import org.gradle.api.GradleException
+import org.gradle.api.file.ConfigurableFileCollection
+import org.gradle.api.file.DirectoryProperty
+import org.gradle.api.provider.Property
+import org.gradle.api.tasks.Input
+import org.gradle.api.tasks.InputFiles
+import org.gradle.api.tasks.OutputDirectory
+import org.gradle.api.tasks.PathSensitive
+import org.gradle.api.tasks.PathSensitivity
+import org.gradle.api.tasks.TaskAction
+
+import java.nio.charset.StandardCharsets
+import java.util.zip.ZipFile
+
+/**
+ * 拼音表生成任务
+ * 在构建期读取 pinyin4j 自带的 unicode_to_hanyu_pinyin.txt，生成 PinyinTable.java：
+ * - SYLLABLES：按字母序排列的无声调音节字典（下标0保留为"无拼音"）
+ * - INDEX：以 (c - 0x4E00) 为下标的字符串，每个char是该汉字首选读音在字典中的下标
+ *
+ * 运行时只需一次 charAt + 数组访问，不再加载 pinyin4j 的 Properties 数据
+ */
+// 注意：闭包中调用的辅助方法不能为private，Gradle会为任务生成装饰子类
+abstract class GeneratePinyinTableTask extends DefaultTask {
+    static final int FIRST = 0x4E00
+    static final int LAST = 0x9FA5
+    static final String DB_ENTRY = 'pinyindb/unicode_to_hanyu_pinyin.txt'
+
+    /** 包含拼音数据库的 pinyin4j jar */
+    @InputFiles
+    @PathSensitive(PathSensitivity.NONE)
+    abstract ConfigurableFileCollection getPinyinJar()
+
+    /** 生成类所在的包名 */
+    @Input
+    abstract Property<String> getPackageName()
+
+    /** 生成源码的输出目录 */
+    @OutputDirectory
+    abstract DirectoryProperty getOutputDir()
+
+    @TaskAction
+    void generate() {
+        String[] primary = new String[LAST - FIRST + 1]
+        boolean found = false
+        pinyinJar.files.each { File jar ->
+            new ZipFile(jar).withCloseable { zip ->
+                def entry = zip.getEntry(DB_ENTRY)
+                if (entry == null) {
+                    return
+                }
+                found = true
+                zip.getInputStream(entry).withReader('UTF-8') { reader ->
+                    reader.eachLine { line -> parseLine(line, primary) }
+                }
+            }
+        }
+        if (!found) {
+            throw new GradleException("未在 ${pinyinJar.files} 中找到 ${DB_ENTRY}")
+        }
+
+        List<String> syllables = new ArrayList<>(new TreeSet<>(primary.findAll { it != null }))
+        syllables.add(0, '')
+        Map<String, Integer> indexOf = [:]
+        syllables.eachWithIndex { String s, int i -> indexOf[s] = i }
+        if (syllables.size() > Character.MAX_VALUE) {
+            throw new GradleException("音节数量超出char范围: ${syllables.size()}")
+        }
+
+        String pkg = packageName.get()
+        File dir = new File(outputDir.get().asFile, pkg.replace('.', '/'))
+        dir.mkdirs()
+        new File(dir, 'PinyinTable.java').withWriter(StandardCharsets.UTF_8.name()) { out ->
+            out << "// 由 GeneratePinyinTableTask 在构建期生成，请勿手动修改\n"
+            out << "package ${pkg};\n\n"
+            out << "/**\n"
+            out << " * 汉字拼音表（构建期生成）\n"
+            out << " * SYLLABLES 按字母序排列，因此下标顺序即拼音排序顺序\n"
+            out << " */\n"
+            out << "final class PinyinTable {\n"
+            out << "    /** 表覆盖的第一个汉字 */\n"
+            out << "    static final char FIRST = '\\u${hex(FIRST)}';\n"
+            out << "    /** 表覆盖的最后一个汉字 */\n"
+            out << "    static final char LAST = '\\u${hex(LAST)}';\n\n"
+            out << "    /** 无声调音节字典，下标0表示无拼音 */\n"
+            out << "    static final String[] SYLLABLES = {\n"
+            syllables.collate(12).each { row ->
+                out << '        ' << row.collect { "\"${it}\"" }.join(', ') << ',\n'
+            }
+            out << "    };\n\n"
+            out << "    /** 以 (c - FIRST) 为下标的音节索引 */\n"
+            out << "    static final String INDEX =\n"
+            List<String> chunks = []
+            primary.toList().collate(64).each { chunk ->
+                StringBuilder sb = new StringBuilder()
+                chunk.each { String s -> sb.append(escape(indexOf[s == null ? '' : s])) }
+                chunks << sb.toString()
+            }
+            out << chunks.collect { "        \"${it}\"" }.join(' +\n') << ';\n\n'
+            out << "    private PinyinTable() {\n"
+            out << "    }\n"
+            out << "}\n"
+        }
+    }
+
+    /**
+     * 解析一行数据，格式如：4E00 (yi1,yi2,yi4)
+     * 只保留第一个读音，去掉声调，ü 统一写作 v
+     */
+    static void parseLine(String line, String[] primary) {
+        String[] parts = line.trim().split('\\s+', 2)
+        if (parts.length < 2) {
+            return
+        }
+        int code
+        try {
+            code = Integer.parseInt(parts[0], 16)
+        } catch (NumberFormatException ignored) {
+            return
+        }
+        if (code < FIRST || code > LAST) {
+            return
+        }
+        String readings = parts[1].replace('(', '').replace(')', '')
+        String first = readings.split(',')[0].trim()
+        String syllable = first.replaceAll('[0-9]+$', '').replace('u:', 'v').toLowerCase(Locale.ROOT)
+        if (syllable.isEmpty() || syllable == 'none') {
+            return
+        }
+        primary[code - FIRST] = syllable
+    }
+
+    static String hex(int c) {
+        return String.format('%04X', c)
+    }
+
+    /**
+     * 转义为Java字符串字面量
+     * 换行、回车、引号和反斜杠不能写成 \\uXXXX（会在词法分析前被替换）
+     */
+    static String escape(int c) {
+        switch (c) {
+            case 0x0A: return '\\n'
+            case 0x0D: return '\\r'
+            case 0x22: return '\\"'
+            case 0x5C: return '\\\\'
+            default: return '\\u' + hex(c)
+        }
+    }
+}
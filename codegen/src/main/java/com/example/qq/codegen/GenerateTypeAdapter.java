@@ -0,0 +1,20 @@
+package com.example.qq.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记需要在编译期生成 Gson TypeAdapter 的类
+ * 生成的适配器按字段的 getter/setter（或与字段同名参数的构造函数）读写，不使用反射，
+ * 同一个包中的适配器由生成的 GeneratedTypeAdapterFactory 统一注册
+ * 字段规则与 Gson 默认行为一致：忽略 static 和 transient 字段，支持 @SerializedName
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateTypeAdapter {
+}
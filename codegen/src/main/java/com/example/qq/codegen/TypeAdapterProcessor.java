@@ -0,0 +1,593 @@
+package com.example.qq.codegen;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * 为 {@link GenerateTypeAdapter} 标记的类生成流式 Gson TypeAdapter
+ * 每个类生成 {@code <类名>TypeAdapter}，每个包生成一个 GeneratedTypeAdapterFactory 按原始类型分派：
+ * - 字段顺序、@SerializedName（含 alternate）、static/transient 排除与 Gson 反射适配器一致
+ * - 基本类型、包装类型和 String 直接读写 JsonReader/JsonWriter；其他类型（枚举、Object、集合）委托给 Gson
+ * - 对象的创建：无参构造函数 + 逐字段赋值，或参数与字段同名同类型的构造函数
+ * - 非 private 字段直接读写，与反射 Gson 一致；private 字段才经过 getter/setter，
+ *   setter 不应有联动其他字段的副作用，否则解码结果与反射 Gson 不同
+ * - JSON 中的 null 跳过，字段保持默认值
+ *
+ * @author yunxi
+ * @version 1.0
+ */
+@SupportedAnnotationTypes("com.example.qq.codegen.GenerateTypeAdapter")
+public final class TypeAdapterProcessor extends AbstractProcessor {
+    static final String FACTORY_NAME = "GeneratedTypeAdapterFactory";
+    private static final String SERIALIZED_NAME = "com.google.gson.annotations.SerializedName";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Map<String, List<TypeElement>> byPackage = new TreeMap<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateTypeAdapter.class)) {
+            if (element.getKind() != ElementKind.CLASS
+                    || element.getModifiers().contains(Modifier.ABSTRACT)
+                    || ((TypeElement) element).getNestingKind() != NestingKind.TOP_LEVEL) {
+                error(element, "@GenerateTypeAdapter 只能用于顶层的非抽象类");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            String pkg = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+            byPackage.computeIfAbsent(pkg, key -> new ArrayList<>()).add(type);
+        }
+        for (Map.Entry<String, List<TypeElement>> entry : byPackage.entrySet()) {
+            List<TypeElement> generated = new ArrayList<>();
+            for (TypeElement type : entry.getValue()) {
+                AdapterModel model = buildModel(type);
+                if (model != null && writeSource(type, entry.getKey(), model.adapterName, model.render(),
+                        new Element[] {type})) {
+                    generated.add(type);
+                }
+            }
+            if (!generated.isEmpty()) {
+                writeSource(generated.get(0), entry.getKey(), FACTORY_NAME,
+                    renderFactory(entry.getKey(), generated), generated.toArray(new Element[0]));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 收集字段、访问器和构造方式，不满足条件时报告错误并返回null
+     */
+    private AdapterModel buildModel(TypeElement type) {
+        String pkg = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        List<ExecutableElement> methods = ElementFilter.methodsIn(
+            processingEnv.getElementUtils().getAllMembers(type));
+        List<Property> properties = new ArrayList<>();
+        Set<String> jsonNames = new HashSet<>();
+        boolean ok = true;
+
+        // 与 Gson 一致：先子类字段，再逐级父类字段
+        TypeElement current = type;
+        while (current != null && !current.getQualifiedName().toString().startsWith("java.")) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                Property property = new Property(field);
+                if (property.type.getKind() == TypeKind.TYPEVAR) {
+                    error(field, "不支持类型参数字段: " + property.name);
+                    ok = false;
+                    continue;
+                }
+                readSerializedName(field, property);
+                for (String name : property.allNames()) {
+                    if (!jsonNames.add(name)) {
+                        error(field, "重复的JSON字段名: " + name);
+                        ok = false;
+                    }
+                }
+                property.fieldAccess = isAccessible(field, pkg, packageOf(field));
+                if (!property.fieldAccess) {
+                    property.getter = findGetter(methods, property, pkg);
+                    if (property.getter == null) {
+                        error(field, "private 字段缺少可访问的 getter: " + property.name);
+                        ok = false;
+                    }
+                }
+                boolean fieldAssignable = property.fieldAccess && !modifiers.contains(Modifier.FINAL);
+                if (!fieldAssignable) {
+                    property.setter = findSetter(methods, property, pkg);
+                }
+                property.assignable = fieldAssignable || property.setter != null;
+                properties.add(property);
+            }
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED
+                ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        if (!ok) {
+            return null;
+        }
+
+        AdapterModel model = new AdapterModel(type, properties);
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+        boolean allAssignable = properties.stream().allMatch(p -> p.assignable);
+        for (ExecutableElement constructor : constructors) {
+            if (constructor.getParameters().isEmpty() && isAccessible(constructor, pkg, pkg) && allAssignable) {
+                return model;
+            }
+        }
+        for (ExecutableElement constructor : constructors) {
+            if (isAccessible(constructor, pkg, pkg) && matchesProperties(constructor, properties)) {
+                model.constructor = constructor;
+                return model;
+            }
+        }
+        error(type, "需要无参构造函数且所有字段可赋值（非 private 非 final，或有 setter），或参数与字段同名同类型的构造函数");
+        return null;
+    }
+
+    private void readSerializedName(VariableElement field, Property property) {
+        for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+            if (!SERIALIZED_NAME.equals(mirror.getAnnotationType().toString())) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : mirror.getElementValues().entrySet()) {
+                String key = entry.getKey().getSimpleName().toString();
+                if ("value".equals(key)) {
+                    property.jsonName = (String) entry.getValue().getValue();
+                } else if ("alternate".equals(key)) {
+                    @SuppressWarnings("unchecked")
+                    List<? extends AnnotationValue> values = (List<? extends AnnotationValue>) entry.getValue().getValue();
+                    for (AnnotationValue value : values) {
+                        property.alternates.add((String) value.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    private String findGetter(List<ExecutableElement> methods, Property property, String pkg) {
+        String capitalized = capitalize(property.name);
+        for (ExecutableElement method : methods) {
+            String name = method.getSimpleName().toString();
+            boolean nameMatches = name.equals("get" + capitalized)
+                || (property.type.getKind() == TypeKind.BOOLEAN && name.equals("is" + capitalized));
+            if (nameMatches && method.getParameters().isEmpty() && !isStatic(method)
+                    && isAccessible(method, pkg, packageOf(method))
+                    && processingEnv.getTypeUtils().isSameType(method.getReturnType(), property.type)) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private String findSetter(List<ExecutableElement> methods, Property property, String pkg) {
+        String name = "set" + capitalize(property.name);
+        for (ExecutableElement method : methods) {
+            if (method.getSimpleName().contentEquals(name) && method.getParameters().size() == 1
+                    && !isStatic(method) && isAccessible(method, pkg, packageOf(method))
+                    && processingEnv.getTypeUtils().isSameType(
+                        method.getParameters().get(0).asType(), property.type)) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private boolean matchesProperties(ExecutableElement constructor, List<Property> properties) {
+        List<? extends VariableElement> parameters = constructor.getParameters();
+        if (parameters.size() != properties.size()) {
+            return false;
+        }
+        for (VariableElement parameter : parameters) {
+            Property property = find(properties, parameter.getSimpleName().toString());
+            if (property == null
+                    || !processingEnv.getTypeUtils().isSameType(parameter.asType(), property.type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Property find(List<Property> properties, String name) {
+        for (Property property : properties) {
+            if (property.name.equals(name)) {
+                return property;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isStatic(Element element) {
+        return element.getModifiers().contains(Modifier.STATIC);
+    }
+
+    /**
+     * 生成的适配器与目标类同包，可以访问 public 成员和同包的非 private 成员
+     */
+    private static boolean isAccessible(Element element, String adapterPackage, String memberPackage) {
+        Set<Modifier> modifiers = element.getModifiers();
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        return !modifiers.contains(Modifier.PRIVATE) && adapterPackage.equals(memberPackage);
+    }
+
+    private String packageOf(Element element) {
+        return processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private String renderFactory(String pkg, List<TypeElement> types) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("// 由 TypeAdapterProcessor 生成，请勿修改\n");
+        sb.append("package ").append(pkg).append(";\n\n");
+        sb.append("import com.google.gson.Gson;\n");
+        sb.append("import com.google.gson.TypeAdapter;\n");
+        sb.append("import com.google.gson.TypeAdapterFactory;\n");
+        sb.append("import com.google.gson.reflect.TypeToken;\n\n");
+        sb.append("/**\n * ").append(pkg).append(" 包中生成的 TypeAdapter，按原始类型精确匹配，子类仍走反射\n */\n");
+        sb.append("public final class ").append(FACTORY_NAME).append(" implements TypeAdapterFactory {\n");
+        sb.append("    @Override\n");
+        sb.append("    @SuppressWarnings(\"unchecked\")\n");
+        sb.append("    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {\n");
+        sb.append("        Class<? super T> raw = type.getRawType();\n");
+        for (TypeElement type : types) {
+            String simple = type.getSimpleName().toString();
+            sb.append("        if (raw == ").append(simple).append(".class) {\n");
+            sb.append("            return (TypeAdapter<T>) new ").append(simple).append("TypeAdapter(gson);\n");
+            sb.append("        }\n");
+        }
+        sb.append("        return null;\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private boolean writeSource(Element anchor, String pkg, String simpleName, String source, Element[] originating) {
+        String name = pkg.isEmpty() ? simpleName : pkg + "." + simpleName;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(name, originating);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source);
+            }
+            return true;
+        } catch (IOException e) {
+            error(anchor, "无法生成 " + name + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * 单个字段
+     */
+    private static final class Property {
+        final String name;
+        final TypeMirror type;
+        String jsonName;
+        final List<String> alternates = new ArrayList<>();
+        /** 生成的适配器可以直接访问该字段（非 private 且同包） */
+        boolean fieldAccess;
+        /** 无参构造后可以赋值：可直接访问的非 final 字段，或有 setter */
+        boolean assignable;
+        String getter;
+        String setter;
+
+        Property(VariableElement field) {
+            name = field.getSimpleName().toString();
+            type = field.asType();
+            jsonName = name;
+        }
+
+        List<String> allNames() {
+            List<String> names = new ArrayList<>();
+            names.add(jsonName);
+            names.addAll(alternates);
+            return names;
+        }
+    }
+
+    /**
+     * 单个类的适配器源码
+     */
+    private final class AdapterModel {
+        final TypeElement type;
+        final String simpleName;
+        final String adapterName;
+        final List<Property> properties;
+        /** 构造函数方式创建时使用的构造函数，为null时使用无参构造函数后逐字段赋值 */
+        ExecutableElement constructor;
+        /** 委托给 Gson 的类型 -> 适配器字段名 */
+        final Map<String, String> delegates = new LinkedHashMap<>();
+
+        AdapterModel(TypeElement type, List<Property> properties) {
+            this.type = type;
+            this.simpleName = type.getSimpleName().toString();
+            this.adapterName = simpleName + "TypeAdapter";
+            this.properties = properties;
+            for (Property property : properties) {
+                if (codec(property.type) == null) {
+                    delegates.putIfAbsent(delegateType(property.type), "adapter" + delegates.size());
+                }
+            }
+        }
+
+        String render() {
+            boolean needsTypeToken = delegates.keySet().stream().anyMatch(t -> t.contains("<"));
+            StringBuilder sb = new StringBuilder();
+            sb.append("// 由 TypeAdapterProcessor 生成，请勿修改\n");
+            String pkg = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+            sb.append("package ").append(pkg).append(";\n\n");
+            sb.append("import com.google.gson.Gson;\n");
+            sb.append("import com.google.gson.TypeAdapter;\n");
+            if (needsTypeToken) {
+                sb.append("import com.google.gson.reflect.TypeToken;\n");
+            }
+            sb.append("import com.google.gson.stream.JsonReader;\n");
+            sb.append("import com.google.gson.stream.JsonToken;\n");
+            sb.append("import com.google.gson.stream.JsonWriter;\n\n");
+            sb.append("import java.io.IOException;\n\n");
+            sb.append("final class ").append(adapterName).append(" extends TypeAdapter<")
+                .append(simpleName).append("> {\n");
+            for (Map.Entry<String, String> delegate : delegates.entrySet()) {
+                sb.append("    private final TypeAdapter<").append(delegate.getKey()).append("> ")
+                    .append(delegate.getValue()).append(";\n");
+            }
+            if (!delegates.isEmpty()) {
+                sb.append('\n');
+            }
+            sb.append("    ").append(adapterName).append("(Gson gson) {\n");
+            for (Map.Entry<String, String> delegate : delegates.entrySet()) {
+                String typeName = delegate.getKey();
+                sb.append("        ").append(delegate.getValue()).append(" = gson.getAdapter(");
+                if (typeName.contains("<")) {
+                    sb.append("new TypeToken<").append(typeName).append(">() {}");
+                } else {
+                    sb.append(typeName).append(".class");
+                }
+                sb.append(");\n");
+            }
+            sb.append("    }\n\n");
+            renderWrite(sb);
+            sb.append('\n');
+            renderRead(sb);
+            sb.append("}\n");
+            return sb.toString();
+        }
+
+        private void renderWrite(StringBuilder sb) {
+            sb.append("    @Override\n");
+            sb.append("    public void write(JsonWriter out, ").append(simpleName).append(" value) throws IOException {\n");
+            sb.append("        if (value == null) {\n");
+            sb.append("            out.nullValue();\n");
+            sb.append("            return;\n");
+            sb.append("        }\n");
+            sb.append("        out.beginObject();\n");
+            for (Property property : properties) {
+                String get = property.fieldAccess ? "value." + property.name : "value." + property.getter + "()";
+                sb.append("        out.name(").append(literal(property.jsonName)).append(");\n");
+                Codec codec = codec(property.type);
+                if (codec == null) {
+                    sb.append("        ").append(delegates.get(delegateType(property.type)))
+                        .append(".write(out, ").append(get).append(");\n");
+                } else {
+                    sb.append("        ").append(codec.write(get)).append(";\n");
+                }
+            }
+            sb.append("        out.endObject();\n");
+            sb.append("    }\n");
+        }
+
+        private void renderRead(StringBuilder sb) {
+            sb.append("    @Override\n");
+            sb.append("    public ").append(simpleName).append(" read(JsonReader in) throws IOException {\n");
+            sb.append("        if (in.peek() == JsonToken.NULL) {\n");
+            sb.append("            in.nextNull();\n");
+            sb.append("            return null;\n");
+            sb.append("        }\n");
+            if (constructor == null) {
+                sb.append("        ").append(simpleName).append(" value = new ").append(simpleName).append("();\n");
+            } else {
+                for (Property property : properties) {
+                    sb.append("        ").append(sourceName(property.type)).append(' ').append(local(property))
+                        .append(" = ").append(defaultValue(property.type)).append(";\n");
+                }
+            }
+            sb.append("        in.beginObject();\n");
+            sb.append("        while (in.hasNext()) {\n");
+            sb.append("            String name = in.nextName();\n");
+            sb.append("            if (in.peek() == JsonToken.NULL) {\n");
+            sb.append("                in.nextNull();\n");
+            sb.append("                continue;\n");
+            sb.append("            }\n");
+            sb.append("            switch (name) {\n");
+            for (Property property : properties) {
+                for (String name : property.allNames()) {
+                    sb.append("                case ").append(literal(name)).append(":\n");
+                }
+                Codec codec = codec(property.type);
+                String read = codec == null
+                    ? delegates.get(delegateType(property.type)) + ".read(in)"
+                    : codec.read;
+                if (constructor == null && property.setter == null) {
+                    sb.append("                    value.").append(property.name).append(" = ")
+                        .append(read).append(";\n");
+                } else if (constructor == null) {
+                    sb.append("                    value.").append(property.setter).append('(')
+                        .append(read).append(");\n");
+                } else {
+                    sb.append("                    ").append(local(property)).append(" = ").append(read).append(";\n");
+                }
+                sb.append("                    break;\n");
+            }
+            sb.append("                default:\n");
+            sb.append("                    in.skipValue();\n");
+            sb.append("                    break;\n");
+            sb.append("            }\n");
+            sb.append("        }\n");
+            sb.append("        in.endObject();\n");
+            if (constructor == null) {
+                sb.append("        return value;\n");
+            } else {
+                sb.append("        return new ").append(simpleName).append('(');
+                List<? extends VariableElement> parameters = constructor.getParameters();
+                for (int i = 0; i < parameters.size(); i++) {
+                    if (i > 0) {
+                        sb.append(", ");
+                    }
+                    sb.append(local(find(properties, parameters.get(i).getSimpleName().toString())));
+                }
+                sb.append(");\n");
+            }
+            sb.append("    }\n");
+        }
+
+        private String local(Property property) {
+            return property.name + "Value";
+        }
+
+        /**
+         * 委托适配器的类型，基本类型取包装类型
+         */
+        private String delegateType(TypeMirror type) {
+            if (type.getKind().isPrimitive()) {
+                return processingEnv.getTypeUtils()
+                    .boxedClass((javax.lang.model.type.PrimitiveType) type).getQualifiedName().toString();
+            }
+            return type.toString();
+        }
+    }
+
+    /**
+     * 源码中的类型名，java.lang 下的类型省略包名
+     */
+    private static String sourceName(TypeMirror type) {
+        String name = type.toString();
+        String simple = name.startsWith("java.lang.") ? name.substring("java.lang.".length()) : name;
+        return simple.indexOf('.') < 0 ? simple : name;
+    }
+
+    private static String defaultValue(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "false";
+            case CHAR:
+                return "'\\0'";
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+                return "0";
+            default:
+                return "null";
+        }
+    }
+
+    private static String literal(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    /**
+     * 直接读写的类型，返回null表示委托给 Gson
+     */
+    private static Codec codec(TypeMirror type) {
+        switch (type.getKind()) {
+            case INT:
+                return Codec.NUMBER_INT;
+            case LONG:
+                return Codec.NUMBER_LONG;
+            case SHORT:
+                return new Codec("(short) in.nextInt()", "out.value(%s)");
+            case BYTE:
+                return new Codec("(byte) in.nextInt()", "out.value(%s)");
+            case DOUBLE:
+                return new Codec("in.nextDouble()", "out.value(%s)");
+            case FLOAT:
+                return new Codec("(float) in.nextDouble()", "out.value(Float.valueOf(%s))");
+            case BOOLEAN:
+                return Codec.BOOLEAN;
+            case DECLARED:
+                break;
+            default:
+                return null;
+        }
+        switch (type.toString()) {
+            case "java.lang.String":
+                return new Codec(
+                    "in.peek() == JsonToken.BOOLEAN ? Boolean.toString(in.nextBoolean()) : in.nextString()",
+                    "out.value(%s)");
+            case "java.lang.Integer":
+                return Codec.NUMBER_INT;
+            case "java.lang.Long":
+                return Codec.NUMBER_LONG;
+            case "java.lang.Boolean":
+                return Codec.BOOLEAN;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 读取表达式和写入语句模板
+     */
+    private static final class Codec {
+        static final Codec NUMBER_INT = new Codec("in.nextInt()", "out.value(%s)");
+        static final Codec NUMBER_LONG = new Codec("in.nextLong()", "out.value(%s)");
+        static final Codec BOOLEAN = new Codec(
+            "in.peek() == JsonToken.STRING ? Boolean.parseBoolean(in.nextString()) : in.nextBoolean()",
+            "out.value(%s)");
+
+        final String read;
+        final String writeTemplate;
+
+        Codec(String read, String writeTemplate) {
+            this.read = read;
+            this.writeTemplate = writeTemplate;
+        }
+
+        String write(String value) {
+            return String.format(writeTemplate, value);
+        }
+    }
+}